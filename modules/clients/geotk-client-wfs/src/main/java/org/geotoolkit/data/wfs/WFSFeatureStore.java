@@ -47,7 +47,6 @@ import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureWriter;
 import org.geotoolkit.data.memory.GenericEmptyFeatureIterator;
 import org.geotoolkit.data.memory.GenericReprojectFeatureIterator;
-import org.geotoolkit.data.memory.GenericWrapFeatureIterator;
 import org.geotoolkit.data.query.DefaultQueryCapabilities;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryCapabilities;
@@ -58,7 +57,6 @@ import org.geotoolkit.feature.type.DefaultName;
 import org.geotoolkit.feature.FeatureTypeBuilder;
 import org.geotoolkit.feature.FeatureTypeUtilities;
 import org.geotoolkit.feature.SchemaException;
-import org.geotoolkit.feature.xml.XmlFeatureReader;
 import org.geotoolkit.feature.xml.jaxb.JAXBFeatureTypeReader;
 import org.geotoolkit.feature.xml.jaxp.JAXPStreamFeatureReader;
 import org.apache.sis.geometry.GeneralEnvelope;
@@ -312,19 +310,15 @@ public class WFSFeatureStore extends AbstractFeatureStore{
         final FeatureType sft = getFeatureType(name);
 
         final QName q = new QName(name.getNamespaceURI(), name.getLocalPart(), prefixes.get(name.getNamespaceURI()));
-        final FeatureCollection<Feature> collection;
+        FeatureReader reader;
         try {
-            collection = requestFeature(q, query);
+            reader = requestFeature(q, query);
         } catch (IOException ex) {
             throw new DataStoreException(ex);
         }
 
-
-        FeatureReader reader;
-        if(collection == null){
+        if(reader == null){
             reader = GenericEmptyFeatureIterator.createReader(sft);
-        }else{
-            reader = GenericWrapFeatureIterator.wrapToReader(collection.iterator(), sft);
         }
 
         //we handle reprojection ourself, too complex or never done properly for a large
@@ -488,7 +482,7 @@ public class WFSFeatureStore extends AbstractFeatureStore{
 
     }
 
-    private FeatureCollection<Feature> requestFeature(final QName typeName, final Query query) throws IOException {
+    private FeatureReader<FeatureType,Feature> requestFeature(final QName typeName, final Query query) throws IOException {
         final Name name = new DefaultName(typeName);
         FeatureType sft = types.get(name);
         sft = FeatureTypeUtilities.createSubType(sft, query.getPropertyNames());
@@ -513,43 +507,25 @@ public class WFSFeatureStore extends AbstractFeatureStore{
             request.setPropertyNames(query.getPropertyNames());
         }
 
-        XmlFeatureReader reader = null;
-        try {
-            reader = new JAXPStreamFeatureReader(sft);
-            reader.getProperties().put(JAXPStreamFeatureReader.SKIP_UNEXPECTED_PROPERTY_TAGS, true);
-            final InputStream stream;
-            if (getUsePost()) {
-                getLogger().log(Level.INFO, "[WFS Client] request feature by POST.");
-                stream = request.getResponseStream();
-            } else {
-                final URL url = request.getURL();
-                getLogger().log(Level.INFO, "[WFS Client] request feature : {0}", url);
-                stream = url.openStream();
-            }
-            final Object result = reader.read(stream);
-
-
-            if(result instanceof Feature){
-                final Feature sf = (Feature) result;
-                final FeatureCollection<Feature> col = FeatureStoreUtilities.collection("id", sft);
-                col.add(sf);
-                return col;
-            }else if(result instanceof FeatureCollection){
-                final FeatureCollection<Feature> col = (FeatureCollection<Feature>) result;
-                return col;
-            }else{
-                final FeatureCollection<Feature> col = FeatureStoreUtilities.collection("", sft);
-                return col;
-            }
+        //features are decoded while iterating, the response stream is closed with the reader
+        final JAXPStreamFeatureReader reader = new JAXPStreamFeatureReader(sft);
+        reader.getProperties().put(JAXPStreamFeatureReader.SKIP_UNEXPECTED_PROPERTY_TAGS, true);
+        final InputStream stream;
+        if (getUsePost()) {
+            getLogger().log(Level.INFO, "[WFS Client] request feature by POST.");
+            stream = request.getResponseStream();
+        } else {
+            final URL url = request.getURL();
+            getLogger().log(Level.INFO, "[WFS Client] request feature : {0}", url);
+            stream = url.openStream();
+        }
 
-        }catch (XMLStreamException ex) {
+        try {
+            return reader.readAsStream(stream);
+        } catch (XMLStreamException ex) {
+            stream.close();
             throw new IOException(ex);
-        }finally{
-            if(reader != null){
-                reader.dispose();
-            }
         }
-
     }
 
 	@Override
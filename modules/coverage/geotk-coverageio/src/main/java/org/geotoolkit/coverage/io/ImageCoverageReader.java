@@ -924,6 +924,11 @@ public class ImageCoverageReader extends GridCoverageReader {
      *       performance point of view. Since the {@code GridCoverageReader} contract does not
      *       guarantee that the grid geometry of the returned coverage is the requested geometry,
      *       we are allowed to do that.</li>
+     *
+     *   <li><code>{@linkplain SpatialImageReadParam#setSubsamplingChangeAllowed
+     *       setSubsamplingChangeAllowed}(true)</code> for the same reason, in order to allow
+     *       readers of formats having reduced resolution overviews to read the overview
+     *       which best matches the requested resolution.</li>
      * </ul>
      * <p>
      * Finally, the image is read and wrapped in a {@link GridCoverage2D} using the
@@ -1013,6 +1018,11 @@ public class ImageCoverageReader extends GridCoverageReader {
                 sp.setSampleConversionAllowed(SampleConversionType.SHIFT_SIGNED_INTEGERS, true);
             }
             sp.setSampleConversionAllowed(SampleConversionType.REPLACE_FILL_VALUES, true);
+            /*
+             * Same as MosaicImageReadParam: allow readers having reduced resolution
+             * overviews (for example tiled TIFF files) to read the best overview.
+             */
+            sp.setSubsamplingChangeAllowed(true);
             /*
              * If the image does not have its own color palette, provides a palette factory
              * which will create the IndexColorModel (if needed) from the GridSampleDimension.
@@ -137,6 +137,16 @@ public class SpatialImageReadParam extends ImageReadParam implements WarningProd
      */
     private Set<SampleConversionType> allowedConversions;
 
+    /**
+     * {@code true} if the image reader is allowed to change the subsampling
+     * to some more efficient value.
+     *
+     * @see #isSubsamplingChangeAllowed()
+     *
+     * @since 4.0
+     */
+    private boolean subsamplingChangeAllowed;
+
     /**
      * The image reader for which this {@code SpatialImageReadParam} instance
      * has been created, or {@code null} if unknown.
@@ -501,6 +511,40 @@ public class SpatialImageReadParam extends ImageReadParam implements WarningProd
         }
     }
 
+    /**
+     * Returns {@code true} if the image reader is allowed to change the subsampling to some
+     * more efficient value. The default value is {@code false}.
+     *
+     * @return {@code true} if the image reader is allowed to change the subsampling.
+     *
+     * @see #setSubsamplingChangeAllowed(boolean)
+     *
+     * @since 4.0
+     */
+    public boolean isSubsamplingChangeAllowed() {
+        return subsamplingChangeAllowed;
+    }
+
+    /**
+     * Sets whatever the image reader will be allowed to change the {@linkplain #setSourceSubsampling
+     * subsampling} and {@linkplain #setSourceRegion source region} to some more efficient values,
+     * for example in order to read a reduced resolution overview instead than subsampling the
+     * full resolution image. This is not the default because doing so would violate the
+     * {@link ImageReader} contract.
+     * <p>
+     * If subsampling changes are allowed, then the values defined in this parameter object may be
+     * modified during the read process and shall be queried once the reading is finished.
+     *
+     * @param allowed {@code true} if the image reader is allowed to change the subsampling.
+     *
+     * @see org.geotoolkit.image.io.mosaic.MosaicImageReadParam#setSubsamplingChangeAllowed(boolean)
+     *
+     * @since 4.0
+     */
+    public void setSubsamplingChangeAllowed(final boolean allowed) {
+        subsamplingChangeAllowed = allowed;
+    }
+
     /**
      * Returns the locale used for formatting error messages, or {@code null} if none.
      * The default implementation returns the locale used by the {@link ImageReader}
@@ -18,6 +18,7 @@ package org.geotoolkit.display2d;
 
 import java.awt.RenderingHints.Key;
 import java.awt.image.ColorModel;
+import java.util.concurrent.ExecutorService;
 import org.geotoolkit.display.HintKey;
 import org.geotoolkit.display2d.container.stateless.StatelessMapItemJ2D;
 import org.geotoolkit.factory.Hints;
@@ -69,6 +70,21 @@ public final class GO2Hints extends Static {
      */
     public static final Key KEY_MULTI_THREAD = new NamedKey(Boolean.class, "GO2 - MultiThread");
 
+    /**
+     * Executor used by the multithreaded rendering.
+     * Graphics are painted in parallel on this executor.
+     * If not set a shared fork-join pool is used.
+     */
+    public static final Key KEY_RENDERING_EXECUTOR = new NamedKey(ExecutorService.class, "GO2 - Rendering executor");
+
+    /**
+     * Maximum memory, in bytes, used by the multithreaded rendering graphic buffers.
+     * When reached, no new graphic is painted until older ones are merged in the
+     * final image. At least one buffer per processor is always used.
+     * Default value is 64Mb.
+     */
+    public static final Key KEY_RENDERING_BUFFER_MEMORY = new NamedKey(Long.class, "GO2 - Rendering buffer memory");
+
     /**
      * Configure the generalization, false by default in stateless mode, true
      * in statefull mode.
@@ -101,6 +117,17 @@ public final class GO2Hints extends Static {
      */
     public static final Key KEY_SYMBOL_RENDERING_ORDER = new NamedKey(Boolean.class, "GO2 - Symbol rendering order");
 
+    /**
+     * Configure the polygon and line renderers to accumulate the geometries of
+     * consecutive features in a single path, reducing the number of Java2D fill
+     * and draw calls.
+     * Only static and opaque styles are batched, with either a fill or a stroke
+     * for polygons, so the image is the same as without batching. Other styles
+     * are painted feature by feature.
+     * Default value is False.
+     */
+    public static final Key KEY_BATCH_RENDERING = new NamedKey(Boolean.class, "GO2 - Batch rendering");
+
     /**
      * Configure the label renderer used.
      * The default label renderer is Straight forward and doesn't make any overlaping check or anything,
@@ -180,6 +207,8 @@ public final class GO2Hints extends Static {
     public static final Boolean GENERALIZE_OFF = Boolean.FALSE;
     public static final Boolean SYMBOL_RENDERING_PRIME = Boolean.TRUE;
     public static final Boolean SYMBOL_RENDERING_SECOND = Boolean.FALSE;
+    public static final Boolean BATCH_RENDERING_ON = Boolean.TRUE;
+    public static final Boolean BATCH_RENDERING_OFF = Boolean.FALSE;
     public static final Boolean COVERAGE_WRITER_ON = Boolean.TRUE;
     public static final Boolean COVERAGE_WRITER_OFF = Boolean.FALSE;
     public static final Boolean PARALLAL_BUFFER_ON = Boolean.TRUE;
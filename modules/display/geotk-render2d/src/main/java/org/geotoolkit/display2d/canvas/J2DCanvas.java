@@ -23,6 +23,7 @@ import java.awt.geom.NoninvertibleTransformException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import org.geotoolkit.display2d.GraphicVisitor;
 import org.geotoolkit.display.canvas.RenderingContext;
@@ -30,9 +31,11 @@ import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
 import org.geotoolkit.display2d.canvas.painter.BackgroundPainter;
+import org.geotoolkit.display2d.container.MultiThreadedRendering;
 import org.geotoolkit.display2d.primitive.DefaultSearchAreaJ2D;
 import org.geotoolkit.display2d.primitive.GraphicJ2D;
 import org.geotoolkit.display2d.primitive.SearchAreaJ2D;
+import org.geotoolkit.display2d.style.RuleCache;
 import org.geotoolkit.display2d.style.labeling.LabelRenderer;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.geometry.isoonjts.JTSUtils;
@@ -59,6 +62,10 @@ public abstract class J2DCanvas extends AbstractCanvas2D{
 
     protected BackgroundPainter painter = null;
 
+    private ExecutorService renderingExecutor = null;
+
+    private RuleCache ruleCache = null;
+
     protected J2DCanvas(final CoordinateReferenceSystem crs,final Hints hints) {
         super(crs,hints);
     }
@@ -71,6 +78,41 @@ public abstract class J2DCanvas extends AbstractCanvas2D{
         return painter;
     }
 
+    /**
+     * Set the executor used when multithreaded rendering is enabled.
+     * If null, the executor defined in hint {@link GO2Hints#KEY_RENDERING_EXECUTOR}
+     * is used, or the shared default executor.
+     *
+     * @param executor rendering executor, can be null
+     */
+    public void setRenderingExecutor(final ExecutorService executor) {
+        this.renderingExecutor = executor;
+    }
+
+    /**
+     * @return rendering executor defined on this canvas, can be null
+     */
+    public ExecutorService getRenderingExecutor() {
+        return renderingExecutor;
+    }
+
+    /**
+     * Set the cache used to keep prepared style rules between renderings.
+     * If null, style rules are prepared at each rendering.
+     *
+     * @param ruleCache rule cache, can be null
+     */
+    public void setRuleCache(final RuleCache ruleCache) {
+        this.ruleCache = ruleCache;
+    }
+
+    /**
+     * @return rule cache defined on this canvas, can be null
+     */
+    public RuleCache getRuleCache() {
+        return ruleCache;
+    }
+
     @Override
     public void dispose() {
         super.dispose();
@@ -151,36 +193,29 @@ public abstract class J2DCanvas extends AbstractCanvas2D{
 
     protected void render(final RenderingContext2D context2D, final List<SceneNode> graphics){
 
-        //TODO update multithreading rendering for scene tree model
-//        final Boolean mt = (Boolean) context2D.getRenderingHints().get(GO2Hints.KEY_MULTI_THREAD);
-//
-//        if(Boolean.TRUE.equals(mt)){
-//            final MultiThreadedRendering rendering = new MultiThreadedRendering(this.item, this.itemGraphics, renderingContext);
-//            rendering.render();
-//        }else{
-//            for(final MapItem child : item.items()){
-//                if(renderingContext.getMonitor().stopRequested()) break;
-//                final GraphicJ2D gra = itemGraphics.get(child);
-//                if(gra != null){
-//                    gra.paint(renderingContext);
-//                }else{
-//                    getLogger().log(Level.WARNING, "GrahicContextJ2D, paint method : strange, no graphic object affected to layer :{0}", child.getName());
-//                }
-//            }
-//        }
-
         /*
          * Draw all graphics, starting with the one with the lowest <var>z</var> value. Before
          * to start the actual drawing,  we will notify all graphics that they are about to be
          * drawn. Some graphics may spend one or two threads for pre-computing data.
          */
-        for(final Graphic graphic : graphics){
-            if(monitor.stopRequested()){
-                return;
+        if(Boolean.TRUE.equals(getRenderingHint(GO2Hints.KEY_MULTI_THREAD))){
+            ExecutorService executor = renderingExecutor;
+            if(executor == null){
+                executor = (ExecutorService) getRenderingHint(GO2Hints.KEY_RENDERING_EXECUTOR);
             }
+            final Number memory = (Number) getRenderingHint(GO2Hints.KEY_RENDERING_BUFFER_MEMORY);
+            final MultiThreadedRendering rendering = new MultiThreadedRendering(context2D, graphics, executor,
+                    (memory != null) ? memory.longValue() : 0);
+            rendering.render();
+        }else{
+            for(final Graphic graphic : graphics){
+                if(monitor.stopRequested()){
+                    return;
+                }
 
-            if(graphic instanceof GraphicJ2D){
-                ((GraphicJ2D) graphic).paint(context2D);
+                if(graphic instanceof GraphicJ2D){
+                    ((GraphicJ2D) graphic).paint(context2D);
+                }
             }
         }
 
@@ -25,12 +25,15 @@ import java.awt.Shape;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.DirectColorModel;
 import java.awt.image.IndexColorModel;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import org.geotoolkit.display.canvas.control.FailOnErrorMonitor;
 import org.geotoolkit.display.container.GraphicContainer;
 import org.geotoolkit.display.primitive.SceneNode;
 import org.geotoolkit.display2d.GO2Hints;
@@ -55,6 +58,11 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
  */
 public class J2DCanvasBuffered extends J2DCanvas{
 
+    /**
+     * Color model of TYPE_INT_RGB images.
+     */
+    private static final ColorModel RGB_MODEL = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff, 0x0);
+
     private BufferedImage buffer;
 
 
@@ -78,7 +86,28 @@ public class J2DCanvasBuffered extends J2DCanvas{
     @Override
     public void setDisplayBounds(final Rectangle2D rect) {
         super.setDisplayBounds(rect);
-        buffer = null; //todo should check if the size is really different
+        if(buffer != null){
+            //keep the buffer for reuse if the size did not change
+            final Dimension dim = getSize();
+            if(buffer.getWidth() != dim.width || buffer.getHeight() != dim.height){
+                buffer = null;
+            }
+        }
+    }
+
+    /**
+     * Restore the default rendering parameters before a new rendering :
+     * rendering hints, background painter, monitor and axis proportions.
+     * The buffer is preserved and will be reused if it is compatible.
+     */
+    public void reset(){
+        final Hints hints = getHints(false);
+        if(hints != null){
+            hints.clear();
+        }
+        setBackgroundPainter(null);
+        setMonitor(new FailOnErrorMonitor());
+        setAxisProportions(1);
     }
 
     /**
@@ -98,6 +127,20 @@ public class J2DCanvasBuffered extends J2DCanvas{
         return buffer;
     }
 
+    /**
+     * Returns the rendered image and detach it from the canvas, the next
+     * rendering will be done in a new buffer.
+     * Use this method instead of {@link #getSnapShot() } when the image is
+     * given to a caller while the canvas is reused.
+     *
+     * @return rendered image, can be null if nothing has been rendered
+     */
+    public BufferedImage releaseSnapShot(){
+        final BufferedImage image = buffer;
+        buffer = null;
+        return image;
+    }
+
     @Override
     public void repaint(final Shape displayArea) {
         //finish any previous painting
@@ -105,14 +148,18 @@ public class J2DCanvasBuffered extends J2DCanvas{
 
         final Dimension dim = getSize();
 
-        if(buffer == null){
+        final ColorModel cm = createColorModel();
+        if(buffer == null || !isCompatible(buffer, cm)){
             //create the buffer at the last possible moment
-            buffer = createBufferedImage(dim);
+            buffer = new BufferedImage(cm,
+                    cm.createCompatibleWritableRaster(dim.width, dim.height),
+                    cm.isAlphaPremultiplied(), null);
         }else{
-            //we clear the buffer if it exists
+            //we clear the buffer if it exists and can be reused
             final Graphics2D g2D = (Graphics2D) buffer.getGraphics();
             g2D.setComposite(GO2Utilities.ALPHA_COMPOSITE_0F);
             g2D.fillRect(0,0,dim.width,dim.height);
+            g2D.dispose();
         }
 
         monitor.renderingStarted();
@@ -158,18 +205,44 @@ public class J2DCanvasBuffered extends J2DCanvas{
     }
 
     /**
-     * This will try to create the most efficient bufferedImage knowing
+     * Test if the current buffer can be reused for a rendering with the given
+     * color model. Index color models are compared by their color maps.
+     */
+    private static boolean isCompatible(final BufferedImage buffer, final ColorModel cm){
+        final ColorModel current = buffer.getColorModel();
+        if(current == cm){
+            return true;
+        }
+        if(current instanceof IndexColorModel || cm instanceof IndexColorModel){
+            if(!(current instanceof IndexColorModel && cm instanceof IndexColorModel)){
+                return false;
+            }
+            final IndexColorModel icm1 = (IndexColorModel) current;
+            final IndexColorModel icm2 = (IndexColorModel) cm;
+            final int size = icm1.getMapSize();
+            if(size != icm2.getMapSize() || icm1.getTransparentPixel() != icm2.getTransparentPixel()){
+                return false;
+            }
+            final int[] rgbs1 = new int[size];
+            final int[] rgbs2 = new int[size];
+            icm1.getRGBs(rgbs1);
+            icm2.getRGBs(rgbs2);
+            return Arrays.equals(rgbs1, rgbs2) && cm.isCompatibleRaster(buffer.getRaster());
+        }
+        return current.equals(cm) && cm.isCompatibleRaster(buffer.getRaster());
+    }
+
+    /**
+     * This will try to find the most efficient color model knowing
      * the different rendering parameters and hints.
      * @return
      */
-    private BufferedImage createBufferedImage(final Dimension dim){
+    private ColorModel createColorModel(){
 
         //See if a color model has been set, if so use it.
         final ColorModel cm = (ColorModel)getRenderingHint(GO2Hints.KEY_COLOR_MODEL);
         if(cm != null){
-            return new BufferedImage(cm,
-                    cm.createCompatibleWritableRaster(dim.width, dim.height),
-                    cm.isAlphaPremultiplied(), null);
+            return cm;
         }
 
         //Get the Anti-aliasing value;
@@ -188,7 +261,7 @@ public class J2DCanvasBuffered extends J2DCanvas{
 
             if(AA){
                 //Anti-aliasing enable, unpredictable colors
-                return new BufferedImage(dim.width, dim.height, BufferedImage.TYPE_INT_ARGB);
+                return ColorModel.getRGBdefault();
             }
 
             //check graphic object and see if we can predict colors
@@ -198,10 +271,10 @@ public class J2DCanvasBuffered extends J2DCanvas{
                 //translucent background
                 colors.add(0);
                 //we succesfully predicted the colors, makes an index color model
-                return createBufferedImage(dim,colors);
+                return createColorModel(colors);
             }else{
                 //we can't use a index color model, use an ARGB palette
-                return new BufferedImage(dim.width, dim.height, BufferedImage.TYPE_INT_ARGB);
+                return ColorModel.getRGBdefault();
             }
 
         }else{
@@ -216,24 +289,24 @@ public class J2DCanvasBuffered extends J2DCanvas{
                         final Color bgColor = ((SolidColorPainter)painter).getColor();
                         colors.add(bgColor.getRGB());
                         //we succesfully predicted the colors, makes an index color model
-                        return createBufferedImage(dim,colors);
+                        return createColorModel(colors);
                     }else{
                         //we can't use a index color model, use an RGB palette
-                        return new BufferedImage(dim.width, dim.height, BufferedImage.TYPE_INT_RGB);
+                        return RGB_MODEL;
                     }
                 }else{
                     //we can't determinate the background colors, use an RGB palette
-                    return new BufferedImage(dim.width, dim.height, BufferedImage.TYPE_INT_RGB);
+                    return RGB_MODEL;
                 }
             }else{
                 //we can't determinate the background colors, use an ARGB palette
-                return new BufferedImage(dim.width, dim.height, BufferedImage.TYPE_INT_ARGB);
+                return ColorModel.getRGBdefault();
             }
         }
 
     }
 
-    private static BufferedImage createBufferedImage(final Dimension dim, final Set<Integer> colors){
+    private static IndexColorModel createColorModel(final Set<Integer> colors){
 
         if(colors.size() <= 1){
             //in case no colors where used after all filters.
@@ -251,8 +324,7 @@ public class J2DCanvasBuffered extends J2DCanvas{
             cmap[i++] = color;
         }
 
-        final IndexColorModel icm = ColorUtilities.getIndexColorModel(cmap);
-        return new BufferedImage(icm, icm.createCompatibleWritableRaster(dim.width, dim.height), icm.isAlphaPremultiplied(), null);
+        return ColorUtilities.getIndexColorModel(cmap);
     }
 
     /**
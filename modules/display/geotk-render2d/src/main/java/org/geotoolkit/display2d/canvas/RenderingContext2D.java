@@ -653,6 +653,40 @@ public class RenderingContext2D implements RenderingContext{
         return context;
     }
 
+    /**
+     * Create a clone of the current rendering context restricted to a part of
+     * the painting area. Used by multithreaded rendering to paint a graphic
+     * in its own buffer.
+     * The given graphics transform is expected to map the display area origin
+     * on the graphics device.
+     *
+     * @param g2d Graphics2D
+     * @param displayArea painted area, in display crs
+     * @param labelRenderer label renderer used by the new context, if null
+     *        the label renderer of this context is shared.
+     * @return RenderingContext2D
+     */
+    public RenderingContext2D create(final Graphics2D g2d, final Rectangle displayArea,
+            final LabelRenderer labelRenderer){
+        final Rectangle2D area = displayArea.createIntersection(paintingDisplaybounds);
+        final Shape areaObjective = displayToObjective.createTransformedShape(area);
+
+        final RenderingContext2D context = new RenderingContext2D(canvas);
+        context.initParameters(objectiveToDisplay, monitor,
+                               area, areaObjective,
+                               canvasDisplayShape, canvasObjectiveShape, dpi);
+        context.initGraphic(g2d);
+        g2d.setRenderingHints(this.graphics.getRenderingHints());
+        g2d.clip(area);
+        if(labelRenderer != null){
+            labelRenderer.setRenderingContext(context);
+            context.labelRenderer = labelRenderer;
+        }else{
+            context.labelRenderer = getLabelRenderer(true);
+        }
+        return context;
+    }
+
     /**
      * Get or Create a label renderer for this rendering context.
      * @param create : if true will create a label renderer if there is none.
@@ -2,7 +2,7 @@
  *    Geotoolkit - An Open Source Java GIS Toolkit
  *    http://www.geotoolkit.org
  *
- *    (C) 2008 - 2009, Geomatys
+ *    (C) 2008 - 2014, Geomatys
  *
  *    This library is free software; you can redistribute it and/or
  *    modify it under the terms of the GNU Lesser General Public
@@ -16,382 +16,277 @@
  */
 package org.geotoolkit.display2d.container;
 
+import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 import org.geotoolkit.display2d.canvas.RenderingContext2D;
 import org.geotoolkit.display2d.primitive.GraphicJ2D;
-import org.geotoolkit.map.MapItem;
+import org.geotoolkit.display2d.style.labeling.DefaultLabelRenderer;
+import org.geotoolkit.display2d.style.labeling.LabelLayer;
+import org.geotoolkit.display2d.style.labeling.LabelRenderer;
+import org.opengis.display.primitive.Graphic;
+import org.opengis.referencing.operation.TransformException;
 
 
 /**
- * Multithread rendering process used by GraphicContextJ2D.
- * this class handle several threads and buffer to speed up
- * rendering when distant layers exist in the mapcontext.
+ * Multithread rendering process used by J2DCanvas.
+ * Each graphic is painted once, in a separate buffer, on an executor.
+ * Buffers are merged in the rendering context as soon as all graphics
+ * below them are merged, in z-order.
+ *
+ * The number of buffers alive at the same time is bounded by a maximum
+ * memory size, but one buffer per processor is always allowed so large canvas
+ * are still painted in parallel. Labels are collected for each graphic and appended to the
+ * rendering context label renderer in graphic order once all graphics are painted,
+ * labels of graphics which failed or stopped painting are appended too.
+ *
+ * The painting area is not split in screen tiles : a graphic is painted by a
+ * single job, its data is read only once and a feature label can not be collected
+ * twice. Painting a graphic once per tile would query the layer data for each
+ * tile and collect the labels of features crossing tile edges several times.
  *
  * @author Johann Sorel (Geomatys)
  * @module pending
  */
 public class MultiThreadedRendering{
 
-    private static final ExecutorService executor = Executors.newFixedThreadPool(20);
-    
-    private final MapItem context;
-    private final Map<MapItem, GraphicJ2D> layerGraphics;
-    private final RenderingContext2D renderingContext;
-    private final SortedMap<Integer, BufferedImage> buffers = new TreeMap<>();
+    /**
+     * Default maximum memory used by graphic buffers, 64Mb.
+     */
+    public static final long DEFAULT_BUFFER_MEMORY = 64l * 1024l * 1024l;
+
+    private static ExecutorService defaultExecutor = null;
 
+    private final RenderingContext2D renderingContext;
+    private final List<GraphicJ2D> graphics = new ArrayList<>();
+    private final ExecutorService executor;
+    private final long maxMemory;
 
-    public MultiThreadedRendering(final MapItem context,
-            final Map<MapItem, GraphicJ2D> layerGraphics,
-            final RenderingContext2D renderingContext){
-        this.context = context;
-        this.layerGraphics = layerGraphics;
+    /**
+     * @param renderingContext main rendering context, buffers are merged in it
+     * @param graphics graphics to paint, in z-order
+     * @param executor executor used for painting, null for the shared default executor
+     * @param maxMemory maximum memory in bytes used by graphic buffers, zero or negative for default,
+     *        at least one buffer per processor is always used
+     */
+    public MultiThreadedRendering(final RenderingContext2D renderingContext,
+            final List<? extends Graphic> graphics, final ExecutorService executor,
+            final long maxMemory){
         this.renderingContext = renderingContext;
+        for(Graphic gra : graphics){
+            if(gra instanceof GraphicJ2D){
+                this.graphics.add((GraphicJ2D)gra);
+            }
+        }
+        this.executor = (executor != null) ? executor : getDefaultExecutor();
+        this.maxMemory = (maxMemory > 0) ? maxMemory : DEFAULT_BUFFER_MEMORY;
     }
 
     /**
-     * Clear the buffer cache.
+     * Shared executor used when none is provided.
+     * This is a work stealing pool using all available processors.
      */
-    public void dispose() {
-        buffers.clear();
+    public static synchronized ExecutorService getDefaultExecutor(){
+        if(defaultExecutor == null){
+            defaultExecutor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return defaultExecutor;
     }
 
     /**
-     * Pack the buffers, merge the different buffer when possible.
-     * @return true if there is no more buffer to pack. false
-     * if some buffers are not ready yet.
+     * Paint all graphics in the rendering context.
+     * This method returns when all buffers are merged.
      */
-    private boolean pack() {
-
-        synchronized(buffers){
-            final Set<Integer> keySet = buffers.keySet();
-            final Integer[] keys = keySet.toArray(new Integer[keySet.size()]);
-
-            boolean valid = true;
-
-            //we go throw the buffer and merge (with the renderingContext or between them)
-            //when possible to reduce used memory as much as possible
-            BufferedImage buffer = null;
-            BufferedImage previousBuffer = null;
-            Integer index = null;
-            Integer previousIndex = null;
-            for(int i=keys.length-1 ; i>=0 ; i--){
-                index = keys[i];
-                buffer = buffers.get(index);
-
-                if(buffer == null){
-                    //a buffer is not ready
-                    valid = false;
-                }else{
-                    if(previousBuffer != null){
-                        //check if the buffer has a valid ARGB type
-                        buffer = validateBuffer(buffer);
-                        buffers.put(index, buffer);
-                        //we merge with previous buffer to reduce memory use
-                        buffer.getGraphics().drawImage(previousBuffer, 0, 0, null);
-                        //remove previous buffer from cache
-                        buffers.remove(previousIndex);
-                    }
+    public void render(){
+        final int nbGraphic = graphics.size();
+        final Rectangle area = renderingContext.getPaintingDisplayBounds();
+        if(nbGraphic == 0 || area == null || area.isEmpty()){
+            return;
+        }else if(nbGraphic == 1){
+            //bypass threading, a graphic can not be painted in parallel
+            graphics.get(0).paint(renderingContext);
+            return;
+        }
 
-                    if(i==0){
-                        renderingContext.switchToDisplayCRS();
-                        renderingContext.getGraphics().drawImage(buffer, 0,0,null);
-                        //remove buffer from cache
-                        buffers.remove(index);
-                    }
+        final long bufferSize = 4l * area.width * area.height;
+        final long nbProcessor = Runtime.getRuntime().availableProcessors();
+        final int maxBuffers = (int) Math.min(nbGraphic, Math.max(nbProcessor, maxMemory / bufferSize));
+
+        final GraphicJob[] jobs = new GraphicJob[nbGraphic];
+        final CompletionService<GraphicJob> service = new ExecutorCompletionService<>(executor);
+        final Map<Future<GraphicJob>,GraphicJob> futures = new HashMap<>();
+        //index of the next graphic to merge
+        int merged = 0;
+        int submitted = 0;
+
+        try{
+            while(merged < nbGraphic){
+                //submit jobs in z-order, this way buffers are merged progressively
+                //and released as soon as possible
+                while(submitted < nbGraphic && submitted - merged < maxBuffers
+                        && !renderingContext.getMonitor().stopRequested()){
+                    final GraphicJob job = new GraphicJob(area, graphics.get(submitted));
+                    jobs[submitted] = job;
+                    futures.put(service.submit(job), job);
+                    submitted++;
+                }
+                if(futures.isEmpty()){
+                    //stop requested, nothing left running
+                    break;
                 }
 
-                previousIndex = index;
-                previousBuffer = buffer;
+                final Future<GraphicJob> future = service.take();
+                final GraphicJob job = futures.remove(future);
+                try{
+                    future.get();
+                }catch(ExecutionException ex){
+                    //keep the labels collected by the graphic, as sequential painting does
+                    renderingContext.getMonitor().exceptionOccured(ex, Level.WARNING);
+                }
+                job.done = true;
+                merged = merge(jobs, merged, submitted);
+            }
+        }catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            renderingContext.getMonitor().exceptionOccured(ex, Level.WARNING);
+        }finally{
+            for(Future<GraphicJob> f : futures.keySet()){
+                f.cancel(false);
+            }
+            //append labels in graphic order, including graphics which failed
+            //or stopped painting, after an interruption some jobs may still be running
+            final LabelRenderer labelRenderer = renderingContext.getLabelRenderer(true);
+            for(int z=0;z<submitted;z++){
+                for(LabelLayer layer : jobs[z].labels.getLayers()){
+                    labelRenderer.append(layer);
+                }
             }
-            return valid;
         }
     }
 
     /**
-     * Wake the dispatching thread.
+     * Merge all finished buffers following the last merged one.
+     * @return index of the next graphic to merge
      */
-    private synchronized void wake() {
-        notifyAll();
+    private int merge(final GraphicJob[] jobs, int merged, final int submitted){
+        while(merged < submitted && jobs[merged].done){
+            final GraphicJob candidate = jobs[merged];
+            if(candidate.buffer != null){
+                renderingContext.switchToDisplayCRS();
+                renderingContext.getGraphics().drawImage(candidate.buffer, candidate.area.x, candidate.area.y, null);
+                candidate.buffer = null;
+            }
+            merged++;
+        }
+        return merged;
     }
 
     /**
-     * Make sleep the dispatch thread.
+     * Paint one graphic in its own buffer.
      */
-    private synchronized void block() {
-        try {
-            wait();
-        } catch (InterruptedException ex) {
-            ex.printStackTrace();
+    private final class GraphicJob implements Callable<GraphicJob>{
+
+        private final Rectangle area;
+        private final GraphicJ2D graphic;
+        private final LabelCollector labels;
+        private BufferedImage buffer;
+        //set by the merging thread only
+        private boolean done = false;
+
+        private GraphicJob(final Rectangle area, final GraphicJ2D graphic) {
+            this.area = area;
+            this.graphic = graphic;
+            this.labels = new LabelCollector(renderingContext.getLabelRenderer(true));
         }
-    }
 
-    /**
-     * Build a temporary bufferImage of the canvas size.
-     */
-    private BufferedImage buildBuffer(){
-        final Rectangle rect = renderingContext.getCanvasDisplayBounds();
-        return new BufferedImage( rect.width, rect.height, BufferedImage.TYPE_INT_ARGB );
+        @Override
+        public GraphicJob call() throws Exception {
+            if(renderingContext.getMonitor().stopRequested()){
+                return this;
+            }
+            final BufferedImage img = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D g2d = img.createGraphics();
+            g2d.translate(-area.x, -area.y);
+            final RenderingContext2D tc = renderingContext.create(g2d, area, labels);
+            try{
+                graphic.paint(tc);
+            }finally{
+                g2d.dispose();
+                //a partially painted graphic is merged, as sequential painting does
+                buffer = img;
+            }
+            return this;
+        }
     }
 
     /**
-     * Check the type of the buffer,
-     * @return if the type is correct the original buffer is returned otherwise
-     * a new buffer is created and the content of the old buffer is painted on the
-     * new one.
+     * Collect labels of a graphic, they are appended to the main label renderer
+     * once all buffers are merged.
+     * Layers are read by the merging thread, possibly while the job is still running.
      */
-    private BufferedImage validateBuffer(final BufferedImage buffer){
+    private static final class LabelCollector implements LabelRenderer{
 
-        if(buffer.getType() != BufferedImage.TYPE_INT_ARGB){
-            final BufferedImage newBuffer = buildBuffer();
-            newBuffer.getGraphics().drawImage(buffer, 0, 0, null);
-            return newBuffer;
-        }
+        private final LabelRenderer parent;
+        private final List<LabelLayer> layers = Collections.synchronizedList(new ArrayList<LabelLayer>());
+        private RenderingContext2D context;
 
-        return buffer;
-    }
+        private LabelCollector(final LabelRenderer parent) {
+            this.parent = parent;
+        }
 
-    public void render(){
-        final List<MapItem> layers = context.items();
+        @Override
+        public void setRenderingContext(final RenderingContext2D context) {
+            this.context = context;
+        }
 
-        final int size = layers.size();
-        if(size == 0){
-            return;
-        }else if(size == 1){
-            //bypass threading
-            final MapItem child = layers.get(0);            
-            if (!child.isVisible()) {
-                return;
-            }            
-            final GraphicJ2D gra = layerGraphics.get(child);
-            gra.paint(renderingContext);
-            return;
+        @Override
+        public RenderingContext2D getRenderingContext() {
+            return context;
         }
-        
-        for (final MapItem child : layers) {
 
-            //we ignore invisible layers
-            if (!child.isVisible()) {
-                continue;
-            }
+        @Override
+        public LabelLayer createLabelLayer() {
+            return parent.createLabelLayer();
+        }
 
-            final int zOrder = layers.indexOf(child);
+        @Override
+        public void append(final LabelLayer layer) {
+            layers.add(layer);
+        }
 
-            synchronized(buffers){
-                buffers.put(zOrder, null);
+        /**
+         * @return copy of the layers collected so far
+         */
+        private LabelLayer[] getLayers() {
+            synchronized(layers){
+                return layers.toArray(new LabelLayer[layers.size()]);
             }
-
-            final Runnable call = new Runnable() {
-                @Override
-                public void run() {
-                    final BufferedImage img = buildBuffer();
-                    final RenderingContext2D tc = renderingContext.create(img.createGraphics());
-                    final GraphicJ2D gra = layerGraphics.get(child);
-
-                    gra.paint(tc);
-
-                    synchronized(buffers){
-                        buffers.put(zOrder, img);
-                    }
-
-                    //we wake the dispatch thread that may be waiting for it
-                    wake();
-                }
-            };
-            
-            executor.execute(call);
         }
-        
 
-        //we now wait for every rendering to finish
-        synchronized(this){
-            while (!pack()) {
-                block();
-            }
+        @Override
+        public void portrayLabels() throws TransformException {
+            //labels are portrayed by the main label renderer
         }
 
+        @Override
+        public void portrayImmidiately(final LabelLayer layer) {
+            final DefaultLabelRenderer renderer = new DefaultLabelRenderer();
+            renderer.setRenderingContext(context);
+            renderer.portrayImmidiately(layer);
+        }
     }
 
-
-//    /**
-//     * {@inheritDoc }
-//     */
-//    public void render() {
-//
-//        final List<MapLayer> layers = context.layers();
-//
-//        final Rectangle rect = renderingContext.getCanvasDisplayBounds();
-//        final int width = rect.width;
-//        final int height = rect.height;
-//
-//        //first pass to start threads for dynamic layers
-//        for (final MapLayer layer : layers) {
-//
-//            //we ignore invisible layers
-//            if (!layer.isVisible()) {
-//                continue;
-//            }
-//
-//            if (layer instanceof DynamicMapLayer) {
-//                final StatelessDynamicLayerJ2D gra = (StatelessDynamicLayerJ2D) layerGraphics.get(layer);
-//                final int zOrder = layers.indexOf(layer);
-//                buffers.put(zOrder, null);
-//
-//                //start a separate thread that handle the distant serveur
-//                new Thread() {
-//
-//                    @Override
-//                    public void run() {
-//                        BufferedImage img = null;
-//                        Object obj = null;
-//                        try {
-//                            obj = gra.query(renderingContext);
-//                        } catch (PortrayalException ex) {
-//                            img = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
-//                            Logging.getLogger(MultiThreadedRendering.class).log(Level.WARNING, null, ex);
-//                        }
-//
-//                        if(obj instanceof BufferedImage){
-//                            img = (BufferedImage) obj;
-//                        }else if(obj instanceof Image){
-//                            final BufferedImage buffer = new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
-//                            final Graphics2D g2 = buffer.createGraphics();
-//                            g2.drawImage((Image)obj, 0,0,null);
-//                            g2.dispose();
-//                            img = buffer;
-//                        }else if(obj instanceof RenderedImage){
-//                            final BufferedImage buffer = new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
-//                            final Graphics2D g2 = buffer.createGraphics();
-//                            g2.drawRenderedImage( (RenderedImage)obj, new AffineTransform());
-//                            g2.dispose();
-//                            img = buffer;
-//                        }else if(obj instanceof RenderableImage){
-//                            final BufferedImage buffer = new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
-//                            final Graphics2D g2 = buffer.createGraphics();
-//                            g2.drawRenderableImage( (RenderableImage)obj, new AffineTransform());
-//                            g2.dispose();
-//                            img = buffer;
-//                        }else if(obj instanceof URL){
-//                            BufferedImage buffer = null;
-//                            try {
-//                                buffer = ImageIO.read((URL) obj);
-//                            } catch (IOException ex) {
-//                                Logging.getLogger(MultiThreadedRendering.class).log(Level.WARNING, null, ex);
-//                            }
-//                            img = buffer;
-//                        }else{
-//                            final BufferedImage buffer = new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
-//                            //TODO DRAW a message to show that we couldn't paint this layer
-//                            img = buffer;
-//                        }
-//
-//                        synchronized(buffers){
-//                            buffers.put(zOrder, img);
-//                        }
-//
-//                        //we wake the dispatch thread that may be waiting for it
-//                        wake();
-//                    }
-//                }.start();
-//            }
-//        }
-//
-//        //flag used to know if the previous layer is done
-//        boolean previousIsNotReady = false;
-//        RenderingContext2D validContext = null;
-//
-//        for (final MapLayer layer : layers) {
-//
-//            //we ignore invisible layers
-//            if (!layer.isVisible()) {
-//                continue;
-//            }
-//
-//            if (layer instanceof DynamicMapLayer) {
-//                // A dynamic layer
-//                final int zOrder = layers.indexOf(layer);
-//
-//                //see if the distant layer has finished rendering
-//                final Image layerImage = buffers.get(new Integer(zOrder));
-//                if (layerImage != null) {
-//                    //the distant layer has finished rendering
-//                    //we can directly paint the result image
-//
-//                    if (previousIsNotReady) {
-//                        //if the previous laye was distant and not ready we have to create a temp buffer.
-//                        final BufferedImage buffer = buildBuffer();
-//                        //append the buffer in the buffers set
-//                        buffers.put(layers.indexOf(layer), buffer);
-//
-//                        if(validContext != null && validContext != renderingContext){
-//                            //the context is not the main rendering context, we dispose it
-////                            validContext.gdisposeGraphics();
-////                            validContext.setGraphics(null, null);
-//                        }
-//
-//                        //create a new rendering context using the bufferedimage
-//                        validContext = renderingContext.create(buffer.createGraphics());
-//                    } else {
-//                        //we use the last valid rendering context or the default one.
-//                        if (validContext == null) {
-//                            validContext = renderingContext;
-//                        }
-//                    }
-//
-//                    validContext.switchToDisplayCRS();
-//                    validContext.getGraphics().drawImage(layerImage, 0, 0, null);
-//
-//                    previousIsNotReady = false;
-//                } else {
-//                    //Distant layer is not ready, we will have to wait
-//                    previousIsNotReady = true;
-//                }
-//
-//            } else {
-//                // A normal feature layer
-//                final GraphicJ2D gra = layerGraphics.get(layer);
-//
-//                if (previousIsNotReady) {
-//                    //if the previous laye was distant and not ready we have to create a temp buffer.
-//                    final BufferedImage buffer = buildBuffer();
-//                    //append the buffer in the buffers set
-//                    buffers.put(layers.indexOf(layer), buffer);
-//
-//                    if(validContext != null && validContext != renderingContext){
-//                        //the context is not the main rendering context, we dispose it
-////                        validContext.disposeGraphics();
-////                        validContext.setGraphics(null, null);
-//                    }
-//
-//                    //create a new rendering context using the bufferedimage
-//                    validContext = renderingContext.create(buffer.createGraphics());
-//                } else {
-//                    //we use the last valid rendering context or the default one.
-//                    if (validContext == null) {
-//                        validContext = renderingContext;
-//                    }
-//                }
-//
-//                gra.paint(validContext);
-//                previousIsNotReady = false;
-//            }
-//
-//        }
-//
-//        //we now wait for every rendering to finish
-//        synchronized(this){
-//            while (!pack()) {
-//                block();
-//            }
-//        }
-//
-//    }
-
 }
@@ -45,6 +45,7 @@ import org.geotoolkit.display2d.primitive.GraphicJ2D;
 import org.geotoolkit.display2d.primitive.ProjectedObject;
 import org.geotoolkit.display2d.style.CachedRule;
 import org.geotoolkit.display2d.style.CachedSymbolizer;
+import org.geotoolkit.display2d.style.RuleCache;
 import org.geotoolkit.display2d.style.renderer.SymbolizerRenderer;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.filter.identity.DefaultFeatureId;
@@ -105,7 +106,7 @@ public class StatelessCollectionLayerJ2D<T extends CollectionMapLayer> extends S
             return;
         }
         
-        final CachedRule[] rules = toCachedRules(validRules, null);
+        final CachedRule[] rules = toCachedRules(renderingContext, validRules, null);
         final Set<String> attributs = GO2Utilities.propertiesCachedNames(rules);
         
         final Collection<?> candidates;
@@ -190,6 +191,26 @@ public class StatelessCollectionLayerJ2D<T extends CollectionMapLayer> extends S
         
         return cached;
     } 
+
+    /**
+     * Same as {@link #toCachedRules(java.util.Collection, org.geotoolkit.feature.type.ComplexType) }
+     * but reuses the rules prepared by previous renderings if the canvas has a rule cache.
+     */
+    protected static CachedRule[] toCachedRules(final RenderingContext2D renderingContext,
+            Collection<? extends Rule> rules, final ComplexType expected){
+        final RuleCache ruleCache = renderingContext.getCanvas().getRuleCache();
+        if(ruleCache == null){
+            return toCachedRules(rules, expected);
+        }
+
+        final CachedRule[] cached = new CachedRule[rules.size()];
+        int i=0;
+        for(Rule r : rules){
+            cached[i] = ruleCache.getCached(r, expected);
+            i++;
+        }
+        return cached;
+    }
     
     protected CachedRule[] prepareStyleRules(final RenderingContext2D renderingContext,
             final CollectionMapLayer layer, final FeatureType type){
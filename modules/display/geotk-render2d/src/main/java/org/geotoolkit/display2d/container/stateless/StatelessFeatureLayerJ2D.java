@@ -202,7 +202,7 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
         final FeatureType expected = candidates.getFeatureType();
 
         //calculate optimized rules and included filter + expressions
-        final CachedRule[] rules = toCachedRules(validRules, expected);
+        final CachedRule[] rules = toCachedRules(renderingContext, validRules, expected);
 
         paintVectorLayer(rules, candidates, renderingContext);
     }
@@ -33,7 +33,10 @@ import java.awt.image.DirectColorModel;
 import java.awt.image.IndexColorModel;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -755,7 +758,18 @@ public final class DefaultPortrayalService implements PortrayalService{
      * @throws IOException
      */
     public static void writeImage(RenderedImage image, final OutputDef outputDef) throws IOException{
-        final String mime = outputDef.getMime();
+        String mime = outputDef.getMime();
+
+        if(outputDef.getSpi() == null && isIndexedPNG(image, mime)){
+            final IndexedPNGEncoder encoder = getPNGEncoder(outputDef);
+            if(writeIndexedPNG(image, outputDef.getOutput(), encoder)){
+                return;
+            }
+            //unsupported output, use the default png writer
+            image = encoder.quantize(image);
+            mime = MIME_PNG;
+        }
+
         image = rectifyImageColorModel(image, mime);
 
         final ImageWriter writer;
@@ -809,6 +823,71 @@ public final class DefaultPortrayalService implements PortrayalService{
         }
     }
 
+    /**
+     * @return true if the image should be written with the paletted png encoder.
+     */
+    private static boolean isIndexedPNG(final RenderedImage image, final String mime){
+        return PNG8_MIMES.contains(mime)
+            || (MIME_PNG.equals(mime) && IndexedPNGEncoder.isPaletted(image));
+    }
+
+    private static IndexedPNGEncoder getPNGEncoder(final OutputDef outputDef){
+        IndexedPNGEncoder encoder = outputDef.getPNGEncoder();
+        if(encoder == null){
+            encoder = new IndexedPNGEncoder();
+            final Float compression = outputDef.getCompression();
+            if(compression != null){
+                //same convention as the ImageIO png writer, 1 is the best quality
+                encoder.setCompressionLevel(Math.max(0, Math.min(9, Math.round((1f - compression) * 9f))));
+            }
+        }
+        return encoder;
+    }
+
+    /**
+     * Write the image with the paletted png encoder.
+     *
+     * @return false if the output type is not supported
+     */
+    private static boolean writeIndexedPNG(final RenderedImage image, final Object output,
+            final IndexedPNGEncoder encoder) throws IOException{
+        if(output instanceof OutputStream){
+            encoder.write(image, (OutputStream) output);
+            return true;
+        }
+
+        final ImageOutputStream ios;
+        if(output instanceof ImageOutputStream){
+            ios = (ImageOutputStream) output;
+        }else if(output instanceof File || output instanceof RandomAccessFile){
+            ios = ImageIO.createImageOutputStream(output);
+        }else{
+            return false;
+        }
+        if(ios == null){
+            return false;
+        }
+
+        try{
+            encoder.write(image, new OutputStream() {
+                @Override
+                public void write(final int b) throws IOException {
+                    ios.write(b);
+                }
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    ios.write(b, off, len);
+                }
+            });
+            ios.flush();
+        }finally{
+            if(ios != output){
+                ios.close();
+            }
+        }
+        return true;
+    }
+
     private static MapContext convertCoverage(final GridCoverage2D coverage){
         final MutableStyle style = STYLE_FACTORY.style(STYLE_FACTORY.rasterSymbolizer());
         final MapLayer layer = MapBuilder.createCoverageLayer(coverage, style,"coveragename");
@@ -824,6 +903,14 @@ public final class DefaultPortrayalService implements PortrayalService{
     // COLOR MODEL VERIFICATION ////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////
 
+    private static final String MIME_PNG = "image/png";
+
+    //mime types written as paletted png
+    private static final List<String> PNG8_MIMES =
+            UnmodifiableArrayList.wrap(new String[] {
+                "image/png8",
+                "image/png; mode=8bit"});
+
     //mime types which writer does not support indexed color model
     //even if the canEncode method says "true"
     private static final List<String> INDEXED_CM_UNSUPPORTED =
@@ -0,0 +1,481 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.display2d.service;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder for map tiles, writes 8 bits paletted images.
+ * Images with an index color model are written as they are, other images
+ * are quantized to a palette of at most 256 colors with an octree.
+ * <br>
+ * The deflate level, deflate strategy and PNG row filter can be configured.
+ * If an executor is set, rows are compressed in parallel chunks, each chunk
+ * is deflated independently and the chunks are concatenated in a single
+ * zlib stream.
+ * <br>
+ * This class is thread safe if it is not configured while encoding.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class IndexedPNGEncoder {
+
+    /** PNG row filters. */
+    public static final int FILTER_NONE = 0;
+    public static final int FILTER_SUB = 1;
+    public static final int FILTER_UP = 2;
+    public static final int FILTER_AVERAGE = 3;
+    public static final int FILTER_PAETH = 4;
+
+    /**
+     * Default number of rows compressed by each parallel task.
+     */
+    public static final int DEFAULT_CHUNK_HEIGHT = 64;
+
+    private static final byte[] SIGNATURE = new byte[]{(byte)137, 80, 78, 71, 13, 10, 26, 10};
+    private static final byte[] IHDR = new byte[]{'I','H','D','R'};
+    private static final byte[] PLTE = new byte[]{'P','L','T','E'};
+    private static final byte[] TRNS = new byte[]{'t','R','N','S'};
+    private static final byte[] IDAT = new byte[]{'I','D','A','T'};
+    private static final byte[] IEND = new byte[]{'I','E','N','D'};
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int strategy = Deflater.DEFAULT_STRATEGY;
+    private int filter = FILTER_NONE;
+    private int chunkHeight = DEFAULT_CHUNK_HEIGHT;
+    private ExecutorService executor = null;
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * @param level deflate level from 0 (no compression) to 9 (best compression),
+     *        or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public void setCompressionLevel(final int level) {
+        if(level != Deflater.DEFAULT_COMPRESSION && (level < 0 || level > 9)){
+            throw new IllegalArgumentException("Compression level must be between 0 and 9 : "+level);
+        }
+        this.compressionLevel = level;
+    }
+
+    public int getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @param strategy {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED}
+     *        or {@link Deflater#HUFFMAN_ONLY}
+     */
+    public void setStrategy(final int strategy) {
+        if(strategy != Deflater.DEFAULT_STRATEGY && strategy != Deflater.FILTERED && strategy != Deflater.HUFFMAN_ONLY){
+            throw new IllegalArgumentException("Unknowned deflate strategy : "+strategy);
+        }
+        this.strategy = strategy;
+    }
+
+    public int getFilter() {
+        return filter;
+    }
+
+    /**
+     * @param filter PNG row filter, one of the FILTER_* constants.
+     *        Paletted images usually compress best without filter.
+     */
+    public void setFilter(final int filter) {
+        if(filter < FILTER_NONE || filter > FILTER_PAETH){
+            throw new IllegalArgumentException("Unknowned PNG filter : "+filter);
+        }
+        this.filter = filter;
+    }
+
+    public int getChunkHeight() {
+        return chunkHeight;
+    }
+
+    /**
+     * @param chunkHeight number of rows compressed by each parallel task
+     */
+    public void setChunkHeight(final int chunkHeight) {
+        if(chunkHeight <= 0){
+            throw new IllegalArgumentException("Chunk height must be positive : "+chunkHeight);
+        }
+        this.chunkHeight = chunkHeight;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @param executor executor used to compress rows in parallel,
+     *        if null the image is compressed in the calling thread
+     */
+    public void setExecutor(final ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Convert the image to an 8 bits paletted image.
+     * Images with an index color model of at most 256 colors are returned unchanged
+     * if they are buffered images.
+     *
+     * @param image image to convert
+     * @return paletted image
+     */
+    public BufferedImage quantize(final RenderedImage image){
+        if(image instanceof BufferedImage && isPaletted(image)
+                && image.getSampleModel().getSampleSize(0) == 8){
+            return (BufferedImage) image;
+        }
+        final Indexed indexed = toIndexed(image);
+        final int[] palette = indexed.palette;
+        final IndexColorModel icm = new IndexColorModel(8, palette.length, palette, 0, true, -1, DataBuffer.TYPE_BYTE);
+        final WritableRaster raster = icm.createCompatibleWritableRaster(indexed.width, indexed.height);
+        raster.setDataElements(0, 0, indexed.width, indexed.height, indexed.pixels);
+        return new BufferedImage(icm, raster, false, null);
+    }
+
+    /**
+     * Encode the image in PNG.
+     *
+     * @param image image to encode
+     * @param out output stream, not closed by this method
+     * @throws IOException if writing failed
+     */
+    public void write(final RenderedImage image, final OutputStream out) throws IOException{
+        final Indexed indexed = toIndexed(image);
+        final int width = indexed.width;
+        final int height = indexed.height;
+        final int[] palette = indexed.palette;
+
+        final DataOutputStream dos = new DataOutputStream(out);
+        dos.write(SIGNATURE);
+
+        //header : size, 8 bits, paletted, deflate, adaptive filtering, no interlace
+        final ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        final DataOutputStream hdos = new DataOutputStream(header);
+        hdos.writeInt(width);
+        hdos.writeInt(height);
+        hdos.write(new byte[]{8, 3, 0, 0, 0});
+        writeChunk(dos, IHDR, header.toByteArray());
+
+        //palette and transparency
+        final byte[] plte = new byte[palette.length*3];
+        int nbAlpha = 0;
+        for(int i=0; i<palette.length; i++){
+            final int argb = palette[i];
+            plte[i*3  ] = (byte) (argb >> 16);
+            plte[i*3+1] = (byte) (argb >>  8);
+            plte[i*3+2] = (byte) (argb      );
+            if((argb >>> 24) != 0xFF){
+                nbAlpha = i+1;
+            }
+        }
+        writeChunk(dos, PLTE, plte);
+        if(nbAlpha > 0){
+            final byte[] trns = new byte[nbAlpha];
+            for(int i=0; i<nbAlpha; i++){
+                trns[i] = (byte) (palette[i] >>> 24);
+            }
+            writeChunk(dos, TRNS, trns);
+        }
+
+        writeChunk(dos, IDAT, compress(filterRows(indexed), width, height));
+        writeChunk(dos, IEND, new byte[0]);
+        dos.flush();
+    }
+
+    /**
+     * Apply the row filter, each row starts by the filter type.
+     */
+    private byte[] filterRows(final Indexed indexed){
+        final int width = indexed.width;
+        final int height = indexed.height;
+        final byte[] pixels = indexed.pixels;
+        final byte[] rows = new byte[(width+1)*height];
+
+        for(int y=0; y<height; y++){
+            final int src = y*width;
+            final int dst = y*(width+1);
+            rows[dst] = (byte) filter;
+            if(filter == FILTER_NONE){
+                System.arraycopy(pixels, src, rows, dst+1, width);
+                continue;
+            }
+            for(int x=0; x<width; x++){
+                final int cur = pixels[src+x] & 0xFF;
+                final int left = (x > 0) ? pixels[src+x-1] & 0xFF : 0;
+                final int up = (y > 0) ? pixels[src-width+x] & 0xFF : 0;
+                final int upLeft = (x > 0 && y > 0) ? pixels[src-width+x-1] & 0xFF : 0;
+                final int pred;
+                switch(filter){
+                    case FILTER_SUB : pred = left; break;
+                    case FILTER_UP : pred = up; break;
+                    case FILTER_AVERAGE : pred = (left + up) >>> 1; break;
+                    default : pred = paeth(left, up, upLeft); break;
+                }
+                rows[dst+1+x] = (byte) (cur - pred);
+            }
+        }
+        return rows;
+    }
+
+    private static int paeth(final int a, final int b, final int c){
+        final int p = a + b - c;
+        final int pa = Math.abs(p - a);
+        final int pb = Math.abs(p - b);
+        final int pc = Math.abs(p - c);
+        if(pa <= pb && pa <= pc) return a;
+        if(pb <= pc) return b;
+        return c;
+    }
+
+    /**
+     * Compress the filtered rows in a zlib stream.
+     */
+    private byte[] compress(final byte[] rows, final int width, final int height) throws IOException{
+        final int rowLength = width+1;
+        final int nbChunks = (executor == null) ? 1 : (height + chunkHeight - 1) / chunkHeight;
+
+        if(nbChunks <= 1){
+            final Deflater deflater = new Deflater(compressionLevel, false);
+            try{
+                deflater.setStrategy(strategy);
+                deflater.setInput(rows);
+                deflater.finish();
+                final ByteArrayOutputStream out = new ByteArrayOutputStream(rows.length/4 + 64);
+                final byte[] buffer = new byte[8192];
+                while(!deflater.finished()){
+                    final int n = deflater.deflate(buffer);
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            }finally{
+                deflater.end();
+            }
+        }
+
+        //compress chunks in parallel, raw deflate streams without header
+        final int chunkLength = rowLength*chunkHeight;
+        final List<Future<byte[]>> futures = new ArrayList<>(nbChunks);
+        for(int i=0; i<nbChunks; i++){
+            final int offset = i*chunkLength;
+            final int length = Math.min(chunkLength, rows.length - offset);
+            final boolean last = (i == nbChunks-1);
+            futures.add(executor.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    return deflateChunk(rows, offset, length, last);
+                }
+            }));
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(rows.length/4 + 64);
+        out.write(0x78);
+        out.write(zlibFlags(compressionLevel));
+        try{
+            for(Future<byte[]> future : futures){
+                out.write(future.get());
+            }
+        }catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }catch(ExecutionException ex){
+            throw new IOException(ex.getCause());
+        }finally{
+            for(Future<byte[]> future : futures){
+                future.cancel(true);
+            }
+        }
+
+        //stream checksum is computed on all the uncompressed data
+        final Adler32 adler = new Adler32();
+        adler.update(rows, 0, rows.length);
+        final long checksum = adler.getValue();
+        out.write((int) (checksum >>> 24));
+        out.write((int) (checksum >>> 16));
+        out.write((int) (checksum >>>  8));
+        out.write((int) (checksum       ));
+        return out.toByteArray();
+    }
+
+    /**
+     * Deflate a part of the rows, parts other than the last end by a sync flush
+     * so they can be concatenated.
+     */
+    private byte[] deflateChunk(final byte[] rows, final int offset, final int length, final boolean last){
+        final Deflater deflater = new Deflater(compressionLevel, true);
+        try{
+            deflater.setStrategy(strategy);
+            deflater.setInput(rows, offset, length);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(length/4 + 64);
+            final byte[] buffer = new byte[8192];
+            if(last){
+                deflater.finish();
+                while(!deflater.finished()){
+                    final int n = deflater.deflate(buffer);
+                    out.write(buffer, 0, n);
+                }
+            }else{
+                //a strategy change may return before all input is consumed
+                int n;
+                do{
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, n);
+                }while(n == buffer.length || !deflater.needsInput());
+            }
+            return out.toByteArray();
+        }finally{
+            deflater.end();
+        }
+    }
+
+    /**
+     * Second byte of the zlib header, compression level flag and check bits
+     * for a 32K window deflate stream.
+     */
+    private static int zlibFlags(final int level){
+        if(level == 0 || level == 1) return 0x01;
+        if(level >= 2 && level <= 5) return 0x5E;
+        if(level >= 7) return 0xDA;
+        return 0x9C;
+    }
+
+    private static void writeChunk(final DataOutputStream out, final byte[] type, final byte[] data) throws IOException{
+        final CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(type);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * @return true if the image has an index color model of at most 256 colors
+     */
+    public static boolean isPaletted(final RenderedImage image){
+        final ColorModel cm = image.getColorModel();
+        return cm instanceof IndexColorModel
+            && ((IndexColorModel)cm).getMapSize() <= 256
+            && image.getSampleModel().getNumBands() == 1;
+    }
+
+    /**
+     * Extract or compute the palette and pixel indexes of the image.
+     */
+    private static Indexed toIndexed(final RenderedImage image){
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final Indexed indexed = new Indexed(width, height);
+
+        if(isPaletted(image)){
+            final IndexColorModel icm = (IndexColorModel) image.getColorModel();
+            final int[] palette = new int[icm.getMapSize()];
+            icm.getRGBs(palette);
+            indexed.palette = palette;
+
+            final Raster raster = (image instanceof BufferedImage) ?
+                    ((BufferedImage)image).getRaster() : image.getData();
+            final int minX = raster.getMinX();
+            final int minY = raster.getMinY();
+            final int[] samples = new int[width];
+            for(int y=0; y<height; y++){
+                raster.getSamples(minX, minY+y, width, 1, 0, samples);
+                final int offset = y*width;
+                for(int x=0; x<width; x++){
+                    indexed.pixels[offset+x] = (byte) samples[x];
+                }
+            }
+            return indexed;
+        }
+
+        final BufferedImage argbImage;
+        if(image instanceof BufferedImage){
+            argbImage = (BufferedImage) image;
+        }else{
+            argbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D g = argbImage.createGraphics();
+            g.drawRenderedImage(image, new AffineTransform());
+            g.dispose();
+        }
+
+        //read the image by blocks of rows to limit memory use
+        final OctreeQuantizer quantizer = new OctreeQuantizer(256);
+        final int blockHeight = Math.max(1, 65536 / Math.max(1, width));
+        final int[] argb = new int[width*Math.min(blockHeight, height)];
+        for(int y=0; y<height; y+=blockHeight){
+            final int h = Math.min(blockHeight, height-y);
+            argbImage.getRGB(0, y, width, h, argb, 0, width);
+            quantizer.addColors(argb, 0, width*h);
+        }
+
+        indexed.palette = quantizer.getPalette();
+        for(int y=0; y<height; y+=blockHeight){
+            final int h = Math.min(blockHeight, height-y);
+            argbImage.getRGB(0, y, width, h, argb, 0, width);
+            final int offset = y*width;
+            for(int i=0,n=width*h; i<n; i++){
+                indexed.pixels[offset+i] = quantizer.getIndex(argb[i]);
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * Paletted image data.
+     */
+    private static final class Indexed {
+
+        private final int width;
+        private final int height;
+        private final byte[] pixels;
+        private int[] palette;
+
+        private Indexed(final int width, final int height) {
+            this.width = width;
+            this.height = height;
+            this.pixels = new byte[width*height];
+        }
+    }
+
+}
@@ -0,0 +1,305 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.display2d.service;
+
+/**
+ * Octree color quantizer for ARGB colors.
+ * Each tree level uses one bit of each alpha, red, green and blue component,
+ * the deepest nodes are merged while colors are added to keep at most
+ * the requested number of colors. Images with fewer colors are not altered.
+ * Fully transparent colors are not added in the tree, they all map to the
+ * transparent palette entry.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+final class OctreeQuantizer {
+
+    private static final int MAX_DEPTH = 8;
+    private static final int CACHE_SIZE = 4096;
+
+    private final int maxColors;
+    private final Node root = new Node(false);
+    /** Nodes which can be merged, linked lists by level. */
+    private final Node[] reducible = new Node[MAX_DEPTH];
+    private int leafCount = 0;
+    private boolean hasTransparent = false;
+
+    //palette, built on first lookup
+    private int[] palette = null;
+
+    //last colors lookup cache
+    private final int[] cacheColors = new int[CACHE_SIZE];
+    private final byte[] cacheIndexes = new byte[CACHE_SIZE];
+    private final boolean[] cacheValid = new boolean[CACHE_SIZE];
+
+    /**
+     * @param maxColors maximum number of colors in the palette, between 2 and 256
+     */
+    OctreeQuantizer(final int maxColors) {
+        if(maxColors < 2 || maxColors > 256){
+            throw new IllegalArgumentException("Number of colors must be between 2 and 256 : "+maxColors);
+        }
+        //one entry is kept for the transparent color
+        this.maxColors = maxColors - 1;
+        reducible[0] = root;
+    }
+
+    /**
+     * Add the colors in the tree.
+     */
+    void addColors(final int[] argb, final int offset, final int length){
+        if(palette != null){
+            throw new IllegalStateException("Palette has already been built.");
+        }
+        int previous = 0;
+        boolean first = true;
+        for(int i=offset,n=offset+length; i<n; i++){
+            final int color = argb[i];
+            if(!first && color == previous){
+                //consecutive pixels are often identical
+                addToLeaf(color);
+                continue;
+            }
+            first = false;
+            previous = color;
+            addColor(color);
+        }
+    }
+
+    private void addColor(final int argb){
+        if((argb >>> 24) == 0){
+            hasTransparent = true;
+            return;
+        }
+        Node node = root;
+        for(int level=0; !node.leaf; level++){
+            final int index = childIndex(argb, level);
+            Node child = node.children[index];
+            if(child == null){
+                child = new Node(level+1 == MAX_DEPTH);
+                if(child.leaf){
+                    leafCount++;
+                }else{
+                    child.next = reducible[level+1];
+                    reducible[level+1] = child;
+                }
+                node.children[index] = child;
+            }
+            node = child;
+        }
+        node.add(argb);
+
+        while(leafCount > maxColors){
+            reduce();
+        }
+    }
+
+    /**
+     * Add the color to the leaf of the previous color.
+     */
+    private void addToLeaf(final int argb){
+        if((argb >>> 24) == 0){
+            return;
+        }
+        Node node = root;
+        for(int level=0; !node.leaf; level++){
+            node = node.children[childIndex(argb, level)];
+        }
+        node.add(argb);
+    }
+
+    /**
+     * Merge the children of the deepest reducible node.
+     */
+    private void reduce(){
+        int level = MAX_DEPTH-1;
+        while(reducible[level] == null) level--;
+
+        final Node node = reducible[level];
+        reducible[level] = node.next;
+        node.next = null;
+
+        int nbChildren = 0;
+        for(Node child : node.children){
+            if(child == null) continue;
+            //deeper levels are always reduced first, children are leaves
+            node.a += child.a;
+            node.r += child.r;
+            node.g += child.g;
+            node.b += child.b;
+            node.count += child.count;
+            nbChildren++;
+        }
+        node.children = null;
+        node.leaf = true;
+        leafCount -= nbChildren - 1;
+    }
+
+    /**
+     * Get the palette, transparent color first, then translucent colors
+     * and opaque colors, this keeps the PNG transparency chunk short.
+     *
+     * @return ARGB palette
+     */
+    int[] getPalette(){
+        if(palette == null){
+            final int size = leafCount + (hasTransparent ? 1 : 0);
+            palette = new int[Math.max(2, size)];
+            int index = 0;
+            if(hasTransparent){
+                palette[index++] = 0;
+            }
+            index = fillPalette(root, index, false);
+            fillPalette(root, index, true);
+        }
+        return palette;
+    }
+
+    private int fillPalette(final Node node, int index, final boolean opaque){
+        if(node.leaf){
+            if(node.count > 0){
+                final int color = node.average();
+                if(((color >>> 24) == 0xFF) == opaque){
+                    node.index = (byte) index;
+                    palette[index++] = color;
+                }
+            }
+            return index;
+        }
+        for(Node child : node.children){
+            if(child != null){
+                index = fillPalette(child, index, opaque);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return palette index of the given color
+     */
+    byte getIndex(final int argb){
+        if(palette == null){
+            getPalette();
+        }
+        if((argb >>> 24) == 0){
+            //transparent is always the first entry
+            return 0;
+        }
+        final int key = (argb ^ (argb >>> 12)) & (CACHE_SIZE-1);
+        if(cacheValid[key] && cacheColors[key] == argb){
+            return cacheIndexes[key];
+        }
+
+        Node node = root;
+        for(int level=0; !node.leaf; level++){
+            final Node child = node.children[childIndex(argb, level)];
+            if(child == null){
+                //color not added in the tree, use the closest child
+                node = closestChild(node, argb);
+            }else{
+                node = child;
+            }
+        }
+        cacheValid[key] = true;
+        cacheColors[key] = argb;
+        cacheIndexes[key] = node.index;
+        return node.index;
+    }
+
+    private static Node closestChild(final Node node, final int argb){
+        Node closest = null;
+        long dist = Long.MAX_VALUE;
+        for(Node child : node.children){
+            if(child == null) continue;
+            final int color = child.leaf ? child.average() : child.anyColor();
+            final long d = distance(color, argb);
+            if(d < dist){
+                dist = d;
+                closest = child;
+            }
+        }
+        return closest;
+    }
+
+    private static long distance(final int c1, final int c2){
+        final long da = ((c1>>>24)     ) - ((c2>>>24)     );
+        final long dr = ((c1>>16)&0xFF) - ((c2>>16)&0xFF);
+        final long dg = ((c1>> 8)&0xFF) - ((c2>> 8)&0xFF);
+        final long db = ((c1    )&0xFF) - ((c2    )&0xFF);
+        return da*da + dr*dr + dg*dg + db*db;
+    }
+
+    private static int childIndex(final int argb, final int level){
+        final int shift = 7 - level;
+        return (((argb >>> (24+shift)) & 1) << 3)
+             | (((argb >>> (16+shift)) & 1) << 2)
+             | (((argb >>> ( 8+shift)) & 1) << 1)
+             | (((argb >>>     shift ) & 1)     );
+    }
+
+    private static final class Node {
+
+        private Node[] children;
+        private Node next;
+        private boolean leaf;
+        private long a, r, g, b;
+        private int count = 0;
+        private byte index = 0;
+
+        private Node(final boolean leaf) {
+            this.leaf = leaf;
+            this.children = leaf ? null : new Node[16];
+        }
+
+        private void add(final int argb){
+            a += argb >>> 24;
+            r += (argb >> 16) & 0xFF;
+            g += (argb >>  8) & 0xFF;
+            b += (argb      ) & 0xFF;
+            count++;
+        }
+
+        private int average(){
+            if(count == 0) return 0;
+            return (int)(a/count) << 24
+                 | (int)(r/count) << 16
+                 | (int)(g/count) <<  8
+                 | (int)(b/count);
+        }
+
+        /**
+         * Color of a leaf under this node.
+         */
+        private int anyColor(){
+            Node node = this;
+            while(!node.leaf){
+                Node next = null;
+                for(Node child : node.children){
+                    if(child != null){
+                        next = child;
+                        break;
+                    }
+                }
+                node = next;
+            }
+            return node.average();
+        }
+    }
+
+}
@@ -35,6 +35,7 @@ public class OutputDef {
     private Float compression = null;
     private Boolean progressive = null;
     private String compressionType = null;
+    private IndexedPNGEncoder pngEncoder = null;
 
 
     public OutputDef(final String mime, final Object output) {
@@ -106,6 +107,22 @@ public class OutputDef {
         this.spi = spi;
     }
 
+    /**
+     * @return encoder used for paletted PNG outputs, can be null
+     */
+    public IndexedPNGEncoder getPNGEncoder() {
+        return pngEncoder;
+    }
+
+    /**
+     * Set the encoder used for "image/png8" outputs and paletted images
+     * written in "image/png". If null a default encoder is used, configured
+     * with the compression level.
+     */
+    public void setPNGEncoder(final IndexedPNGEncoder pngEncoder) {
+        this.pngEncoder = pngEncoder;
+    }
+
     @Override
     public String toString() {
         return "OutputDef[mime=" + mime + ", output=" + output.toString() +
@@ -44,6 +44,7 @@ import static org.geotoolkit.display2d.GO2Utilities.*;
 import org.geotoolkit.display2d.canvas.J2DCanvasBuffered;
 import org.geotoolkit.display2d.canvas.painter.SolidColorPainter;
 import org.geotoolkit.display2d.container.ContextContainer2D;
+import org.geotoolkit.display2d.style.RuleCache;
 import static org.geotoolkit.display2d.service.DefaultPortrayalService.*;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.image.io.XImageIO;
@@ -62,7 +63,9 @@ import org.opengis.style.Symbolizer;
 
 /**
  * Portrayal data, caches the Java2D canvas for further reuse.
- * This class is not thread safe.
+ * The canvas buffer is reused when the size and color model do not change
+ * and prepared style rules are kept between renderings.
+ * This class is not thread safe, see {@link PortrayerPool} for concurrent use.
  *
  * @author Johann Sorel (geomatys)
  */
@@ -77,17 +80,34 @@ public final class Portrayer {
 
     private final J2DCanvasBuffered canvas = new J2DCanvasBuffered(CommonCRS.WGS84.normalizedGeographic(), new Dimension(1, 1));
     private final ContextContainer2D container = new ContextContainer2D(canvas, false);
+    private final RuleCache ruleCache = new RuleCache();
 
     public Portrayer(){
         canvas.setContainer(container);
+        canvas.setRuleCache(ruleCache);
         container.setContext(EMPTY_CONTEXT);
     }
 
+    /**
+     * Portray and return the image, the returned image belongs to the caller,
+     * the canvas will render the next request in a new image.
+     */
     public BufferedImage portray(final CanvasDef canvasDef, final SceneDef sceneDef, final ViewDef viewDef) throws PortrayalException{
+        render(canvasDef, sceneDef, viewDef);
+        return canvas.releaseSnapShot();
+    }
+
+    /**
+     * Render the scene in the canvas buffer.
+     * The canvas parameters of the previous rendering are reset and the
+     * buffer is cleared and reused if possible.
+     */
+    private void render(final CanvasDef canvasDef, final SceneDef sceneDef, final ViewDef viewDef) throws PortrayalException{
 
         final Envelope contextEnv = viewDef.getEnvelope();
         final CoordinateReferenceSystem crs = contextEnv.getCoordinateReferenceSystem();
 
+        canvas.reset();
         canvas.setSize(canvasDef.getDimension());
         canvas.setRenderingHints(sceneDef.getHints());
 
@@ -104,38 +124,38 @@ public final class Portrayer {
 
         final MapContext context = sceneDef.getContext();
         container.setContext(context);
-        try {
-            canvas.setObjectiveCRS(crs);
-        } catch (TransformException ex) {
-            throw new PortrayalException("Could not set objective crs",ex);
-        }
-
-        //we specifically say to not repect X/Y proportions
-        if(canvasDef.isStretchImage()) canvas.setAxisProportions(Double.NaN);
-        try {
-            canvas.setVisibleArea(contextEnv);
-            if (viewDef.getAzimuth() != 0) {
-                canvas.rotate( -Math.toRadians(viewDef.getAzimuth()) );
+        try{
+            try {
+                canvas.setObjectiveCRS(crs);
+            } catch (TransformException ex) {
+                throw new PortrayalException("Could not set objective crs",ex);
             }
-        } catch (NoninvertibleTransformException ex) {
-            throw new PortrayalException(ex);
-        } catch (TransformException ex) {
-            throw new PortrayalException(ex);
-        }
 
-        //paints all extensions
-        final List<PortrayalExtension> extensions = sceneDef.extensions();
-        if(extensions != null){
-            for(final PortrayalExtension extension : extensions){
-                if(extension != null) extension.completeCanvas(canvas);
+            //we specifically say to not repect X/Y proportions
+            if(canvasDef.isStretchImage()) canvas.setAxisProportions(Double.NaN);
+            try {
+                canvas.setVisibleArea(contextEnv);
+                if (viewDef.getAzimuth() != 0) {
+                    canvas.rotate( -Math.toRadians(viewDef.getAzimuth()) );
+                }
+            } catch (NoninvertibleTransformException ex) {
+                throw new PortrayalException(ex);
+            } catch (TransformException ex) {
+                throw new PortrayalException(ex);
             }
-        }
 
-        canvas.repaint();
-        final BufferedImage buffer = canvas.getSnapShot();
-        container.setContext(EMPTY_CONTEXT);
+            //paints all extensions
+            final List<PortrayalExtension> extensions = sceneDef.extensions();
+            if(extensions != null){
+                for(final PortrayalExtension extension : extensions){
+                    if(extension != null) extension.completeCanvas(canvas);
+                }
+            }
 
-        return buffer;
+            canvas.repaint();
+        }finally{
+            container.setContext(EMPTY_CONTEXT);
+        }
     }
 
 
@@ -176,8 +196,10 @@ public final class Portrayer {
             return;
         }
 
-        //use the rendering engine to generate an image
-        final BufferedImage image = portray(canvasDef,sceneDef,viewDef);
+        //use the rendering engine to generate an image,
+        //the buffer stays in the canvas for the next rendering
+        render(canvasDef,sceneDef,viewDef);
+        final BufferedImage image = canvas.getSnapShot();
 
         if(image == null){
             throw new PortrayalException("No image created by the canvas.");
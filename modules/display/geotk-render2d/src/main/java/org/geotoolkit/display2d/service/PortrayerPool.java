@@ -0,0 +1,196 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.display2d.service;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.geotoolkit.display.PortrayalException;
+import org.geotoolkit.display2d.GO2Hints;
+import org.geotoolkit.factory.Hints;
+
+/**
+ * Thread safe portrayal service backed by pools of {@link Portrayer}.
+ * Portrayers are grouped by canvas size, color model and background opacity
+ * so that a borrowed portrayer can reuse its image buffer and prepared styles.
+ * Useful for services rendering many small images, like WMS tiles.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class PortrayerPool {
+
+    /**
+     * Default maximum number of idle portrayers for each canvas configuration.
+     */
+    public static final int DEFAULT_MAX_IDLE = 8;
+
+    /**
+     * Default maximum number of canvas configurations.
+     */
+    public static final int DEFAULT_MAX_KEYS = 16;
+
+    private final ConcurrentMap<Key,BlockingQueue<Portrayer>> pools = new ConcurrentHashMap<>();
+    private final int maxIdle;
+    private final int maxKeys;
+
+    public PortrayerPool() {
+        this(DEFAULT_MAX_IDLE, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * @param maxIdle maximum number of idle portrayers for each canvas configuration
+     * @param maxKeys maximum number of pooled canvas configurations, portrayers
+     *        of other configurations are not kept after use
+     */
+    public PortrayerPool(final int maxIdle, final int maxKeys) {
+        if(maxIdle <= 0){
+            throw new IllegalArgumentException("Max idle must be positive : "+maxIdle);
+        }
+        this.maxIdle = maxIdle;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Portray and return the image, see {@link Portrayer#portray(org.geotoolkit.display2d.service.CanvasDef,
+     * org.geotoolkit.display2d.service.SceneDef, org.geotoolkit.display2d.service.ViewDef) }.
+     */
+    public BufferedImage portray(final CanvasDef canvasDef, final SceneDef sceneDef, final ViewDef viewDef)
+            throws PortrayalException{
+        final Key key = new Key(canvasDef, sceneDef);
+        final Portrayer portrayer = acquire(key);
+        try{
+            return portrayer.portray(canvasDef, sceneDef, viewDef);
+        }finally{
+            release(key, portrayer);
+        }
+    }
+
+    /**
+     * Portray and write the image, see {@link Portrayer#portray(org.geotoolkit.display2d.service.CanvasDef,
+     * org.geotoolkit.display2d.service.SceneDef, org.geotoolkit.display2d.service.ViewDef,
+     * org.geotoolkit.display2d.service.OutputDef) }.
+     * The image buffer is reused by the next rendering of the same canvas configuration.
+     */
+    public void portray(final CanvasDef canvasDef, final SceneDef sceneDef, final ViewDef viewDef,
+            final OutputDef outputDef) throws PortrayalException{
+        final Key key = new Key(canvasDef, sceneDef);
+        final Portrayer portrayer = acquire(key);
+        try{
+            portrayer.portray(canvasDef, sceneDef, viewDef, outputDef);
+        }finally{
+            release(key, portrayer);
+        }
+    }
+
+    /**
+     * @return number of idle portrayers
+     */
+    public int getIdleCount(){
+        int count = 0;
+        for(BlockingQueue<Portrayer> queue : pools.values()){
+            count += queue.size();
+        }
+        return count;
+    }
+
+    /**
+     * Release all idle portrayers.
+     */
+    public void clear(){
+        pools.clear();
+    }
+
+    private Portrayer acquire(final Key key){
+        final BlockingQueue<Portrayer> queue = pools.get(key);
+        if(queue != null){
+            final Portrayer portrayer = queue.poll();
+            if(portrayer != null){
+                return portrayer;
+            }
+        }
+        return new Portrayer();
+    }
+
+    private void release(final Key key, final Portrayer portrayer){
+        BlockingQueue<Portrayer> queue = pools.get(key);
+        if(queue == null){
+            if(pools.size() >= maxKeys){
+                //too many configurations, do not keep this one
+                return;
+            }
+            queue = new ArrayBlockingQueue<>(maxIdle);
+            final BlockingQueue<Portrayer> previous = pools.putIfAbsent(key, queue);
+            if(previous != null){
+                queue = previous;
+            }
+        }
+        //portrayer is dropped if the pool is full
+        queue.offer(portrayer);
+    }
+
+    /**
+     * Canvas configuration.
+     */
+    private static final class Key {
+
+        private final int width;
+        private final int height;
+        private final ColorModel colorModel;
+        private final boolean opaque;
+
+        private Key(final CanvasDef canvasDef, final SceneDef sceneDef) {
+            final Dimension dim = canvasDef.getDimension();
+            final Color background = canvasDef.getBackground();
+            final Hints hints = sceneDef.getHints();
+            this.width = dim.width;
+            this.height = dim.height;
+            this.colorModel = (hints != null) ? (ColorModel) hints.get(GO2Hints.KEY_COLOR_MODEL) : null;
+            this.opaque = background != null && background.getAlpha() == 255;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if(!(obj instanceof Key)){
+                return false;
+            }
+            final Key other = (Key) obj;
+            return width == other.width
+                && height == other.height
+                && opaque == other.opaque
+                && Objects.equals(colorModel, other.colorModel);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 59 * hash + width;
+            hash = 59 * hash + height;
+            hash = 59 * hash + Objects.hashCode(colorModel);
+            hash = 59 * hash + (opaque ? 1 : 0);
+            return hash;
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.display2d.style;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.geotoolkit.display2d.GO2Utilities;
+import org.geotoolkit.feature.type.ComplexType;
+import org.opengis.filter.Filter;
+import org.opengis.style.Rule;
+import org.opengis.style.Symbolizer;
+
+/**
+ * Keeps prepared cached rules between renderings of the same styles.
+ * An entry is reused only if the rule filter, symbolizers and expected type
+ * are the same instances as when it was prepared, a modified rule is prepared again.
+ * Least recently used entries are dropped when the cache is full.
+ * <br>
+ * Returned cached rules are fully evaluated, they can be shared by the
+ * layers of a multithreaded rendering.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class RuleCache {
+
+    /**
+     * Default maximum number of cached rules.
+     */
+    public static final int DEFAULT_MAX_RULES = 256;
+
+    private final Map<Rule,Entry> entries;
+
+    public RuleCache() {
+        this(DEFAULT_MAX_RULES);
+    }
+
+    /**
+     * @param maxRules maximum number of cached rules
+     */
+    public RuleCache(final int maxRules) {
+        entries = new LinkedHashMap<Rule, Entry>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Rule, Entry> eldest) {
+                return size() > maxRules;
+            }
+        };
+    }
+
+    /**
+     * Get the cached rule for the given rule and expected type, the cached
+     * rule is created if needed.
+     *
+     * @param rule style rule
+     * @param expected expected feature type, can be null
+     * @return CachedRule, never null
+     */
+    public synchronized CachedRule getCached(final Rule rule, final ComplexType expected){
+        final Entry entry = entries.get(rule);
+        if(entry != null && entry.isValid(rule, expected)){
+            return entry.cached;
+        }
+
+        final CachedRule cached = GO2Utilities.getCached(rule, expected);
+        //evaluate the rule and its symbolizers now, so they are not modified
+        //later by concurrent renderings
+        cached.isStatic();
+        entries.put(rule, new Entry(rule, expected, cached));
+        return cached;
+    }
+
+    /**
+     * @return number of cached rules
+     */
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    /**
+     * Remove all cached rules.
+     */
+    public synchronized void clear(){
+        entries.clear();
+    }
+
+    private static final class Entry {
+
+        private final Filter filter;
+        private final Symbolizer[] symbolizers;
+        private final ComplexType expected;
+        private final CachedRule cached;
+
+        private Entry(final Rule rule, final ComplexType expected, final CachedRule cached) {
+            final List<? extends Symbolizer> symbols = rule.symbolizers();
+            this.filter = rule.getFilter();
+            this.symbolizers = symbols.toArray(new Symbolizer[symbols.size()]);
+            this.expected = expected;
+            this.cached = cached;
+        }
+
+        private boolean isValid(final Rule rule, final ComplexType expected){
+            if(this.expected != expected || filter != rule.getFilter()){
+                return false;
+            }
+            final List<? extends Symbolizer> symbols = rule.symbolizers();
+            if(symbols.size() != symbolizers.length){
+                return false;
+            }
+            for(int i=0; i<symbolizers.length; i++){
+                if(symbols.get(i) != symbolizers[i]){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
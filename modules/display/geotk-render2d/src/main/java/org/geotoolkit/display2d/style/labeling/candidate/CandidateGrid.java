@@ -0,0 +1,189 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.display2d.style.labeling.candidate;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uniform grid index of placed label candidates.
+ * A new candidate is only tested against the candidates registered in the
+ * grid cells its bounds overlaps, instead of all placed candidates.
+ * Only point candidates are indexed, linear candidates never collide.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class CandidateGrid {
+
+    /**
+     * Default cell size in pixels, close to a common label size.
+     */
+    public static final int DEFAULT_CELL_SIZE = 64;
+
+    private final int minX;
+    private final int minY;
+    private final int cellSize;
+    private final int nbCol;
+    private final int nbRow;
+    private final List<Entry>[] cells;
+    private int size = 0;
+
+    /**
+     * @param bounds display area covered by the grid, candidates outside
+     *        this area are stored in the border cells.
+     * @param cellSize cell width and height in pixels
+     */
+    public CandidateGrid(final Rectangle bounds, final int cellSize) {
+        if(cellSize <= 0){
+            throw new IllegalArgumentException("Cell size must be positive : "+cellSize);
+        }
+        this.minX = bounds.x;
+        this.minY = bounds.y;
+        this.cellSize = cellSize;
+        this.nbCol = Math.max(1, (bounds.width + cellSize - 1) / cellSize);
+        this.nbRow = Math.max(1, (bounds.height + cellSize - 1) / cellSize);
+        this.cells = new List[nbCol*nbRow];
+    }
+
+    /**
+     * @return number of candidates in the grid
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Test if the given candidate intersects a candidate in the grid.
+     */
+    public boolean intersects(final Candidate candidate){
+        if(!(candidate instanceof PointCandidate)){
+            return false;
+        }
+        final Entry entry = new Entry((PointCandidate)candidate);
+        final int c0 = col(entry.minX);
+        final int c1 = col(entry.maxX);
+        final int r0 = row(entry.minY);
+        final int r1 = row(entry.maxY);
+        for(int r=r0; r<=r1; r++){
+            for(int c=c0; c<=c1; c++){
+                final List<Entry> cell = cells[r*nbCol+c];
+                if(cell == null) continue;
+                for(int i=0,n=cell.size(); i<n; i++){
+                    final Entry other = cell.get(i);
+                    if(entry.intersectsBounds(other)
+                       && LabelingUtilities.intersects(entry.candidate, other.candidate)){
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a candidate in the grid, this method does not test collisions.
+     * Linear candidates are ignored.
+     */
+    public void add(final Candidate candidate){
+        if(!(candidate instanceof PointCandidate)){
+            return;
+        }
+        final Entry entry = new Entry((PointCandidate)candidate);
+        final int c0 = col(entry.minX);
+        final int c1 = col(entry.maxX);
+        final int r0 = row(entry.minY);
+        final int r1 = row(entry.maxY);
+        for(int r=r0; r<=r1; r++){
+            for(int c=c0; c<=c1; c++){
+                final int index = r*nbCol+c;
+                if(cells[index] == null){
+                    cells[index] = new ArrayList<>(4);
+                }
+                cells[index].add(entry);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Add the candidate in the grid if it does not intersect any candidate.
+     *
+     * @return true if the candidate has been added
+     */
+    public boolean addIfFree(final Candidate candidate){
+        if(intersects(candidate)){
+            return false;
+        }
+        add(candidate);
+        return true;
+    }
+
+    private int col(final double x){
+        final int c = (int) Math.floor((x - minX) / cellSize);
+        return Math.max(0, Math.min(nbCol-1, c));
+    }
+
+    private int row(final double y){
+        final int r = (int) Math.floor((y - minY) / cellSize);
+        return Math.max(0, Math.min(nbRow-1, r));
+    }
+
+    /**
+     * Point candidate with its display bounds, including rotation.
+     */
+    private static final class Entry {
+
+        private final PointCandidate candidate;
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+
+        private Entry(final PointCandidate candidate) {
+            this.candidate = candidate;
+
+            //same transform as in LabelingUtilities.intersects
+            final AffineTransform trs = new AffineTransform();
+            trs.translate(candidate.x + candidate.correctionX, candidate.y + candidate.correctionY);
+            trs.rotate(Math.toRadians(candidate.getDescriptor().getRotation()));
+            trs.translate(0, -candidate.upper);
+
+            final int height = candidate.upper + candidate.lower;
+            final double[] pts = new double[]{
+                0,               0,
+                0,               height,
+                candidate.width, 0,
+                candidate.width, height};
+            trs.transform(pts, 0, pts, 0, 4);
+
+            minX = Math.min(Math.min(pts[0], pts[2]), Math.min(pts[4], pts[6]));
+            maxX = Math.max(Math.max(pts[0], pts[2]), Math.max(pts[4], pts[6]));
+            minY = Math.min(Math.min(pts[1], pts[3]), Math.min(pts[5], pts[7]));
+            maxY = Math.max(Math.max(pts[1], pts[3]), Math.max(pts[5], pts[7]));
+        }
+
+        private boolean intersectsBounds(final Entry other){
+            return minX <= other.maxX && maxX >= other.minX
+                && minY <= other.maxY && maxY >= other.minY;
+        }
+    }
+
+}
@@ -17,6 +17,7 @@
 
 package org.geotoolkit.display2d.style.labeling.candidate;
 
+import com.vividsolutions.jts.geom.Geometry;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
@@ -28,6 +29,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import org.geotoolkit.display2d.canvas.RenderingContext2D;
+import org.geotoolkit.display2d.primitive.ProjectedGeometry;
+import org.geotoolkit.display2d.style.labeling.LabelDescriptor;
+import org.opengis.referencing.operation.TransformException;
 
 /**
  * Utility classes to compare label candidates.
@@ -63,8 +67,46 @@ public class LabelingUtilities {
             }
         };
 
+    /**
+     * Order candidates by decreasing priority only, used with a stable sort
+     * to keep the arrival order of candidates with the same priority.
+     */
+    public static final Comparator<Candidate> PRIORITY_COMPARATOR = new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate c1, Candidate c2) {
+                return Integer.compare(c2.getPriority(), c1.getPriority());
+            }
+        };
+
     private LabelingUtilities(){}
 
+    /**
+     * Priority of a label derived from the size of its geometry on the display :
+     * square root of the area for polygons, length for lines.
+     * Labels of larger features are placed first, points and geometries which
+     * can not be projected have the lowest priority 0.
+     */
+    public static int getPriority(final LabelDescriptor label){
+        final ProjectedGeometry projected = label.getGeometry();
+        if(projected == null) return 0;
+
+        final Geometry[] geoms;
+        try{
+            geoms = projected.getDisplayGeometryJTS();
+        }catch(TransformException ex){
+            return 0;
+        }
+        if(geoms == null) return 0;
+
+        double size = 0;
+        for(Geometry geom : geoms){
+            if(geom == null) continue;
+            final double area = geom.getArea();
+            size += (area > 0) ? Math.sqrt(area) : geom.getLength();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.round(size));
+    }
+
     public static List<Candidate> clipOutofBounds(final RenderingContext2D context, final List<Candidate> candidates){
         final Rectangle bounds = context.getCanvasDisplayBounds();
         final List<Candidate> correctCandidates = new ArrayList<Candidate>();
@@ -114,6 +156,10 @@ public class LabelingUtilities {
         return candidates;
     }
 
+    /**
+     * Test the candidate against each candidate of the collection.
+     * For large number of candidates use a {@link CandidateGrid}.
+     */
     public static boolean intersects(final Candidate candidate, final Collection<? extends Candidate> candidates){
         for(Candidate c : candidates){
             if(intersects(candidate, c)){
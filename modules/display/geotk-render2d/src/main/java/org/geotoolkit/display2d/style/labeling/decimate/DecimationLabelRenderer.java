@@ -19,6 +19,7 @@ package org.geotoolkit.display2d.style.labeling.decimate;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -29,6 +30,7 @@ import org.geotoolkit.display2d.style.labeling.LabelLayer;
 import org.geotoolkit.display2d.style.labeling.LinearLabelDescriptor;
 import org.geotoolkit.display2d.style.labeling.PointLabelDescriptor;
 import org.geotoolkit.display2d.style.labeling.candidate.Candidate;
+import org.geotoolkit.display2d.style.labeling.candidate.CandidateGrid;
 import org.geotoolkit.display2d.style.labeling.candidate.LabelingUtilities;
 import org.geotoolkit.display2d.style.labeling.candidate.LinearCandidate;
 import org.geotoolkit.display2d.style.labeling.candidate.PointCandidate;
@@ -36,6 +38,8 @@ import org.geotoolkit.display2d.style.labeling.candidate.PointCandidate;
 /**
  * Label renderer that apply a simple decimation on labels to remove all
  * overlaping labels and labels partly visible on the map edges.
+ * Candidates are placed by decreasing priority, derived from the size of the
+ * labeled geometry, collisions are tested using a {@link CandidateGrid}.
  * 
  * @author Johann Sorel (Geomatys)
  * @module pending
@@ -44,6 +48,10 @@ public class DecimationLabelRenderer extends DefaultLabelRenderer{
     
     private final SortedSet<Candidate> candidates = new TreeSet<Candidate>(LabelingUtilities.XY_COMPARATOR);
 
+    //candidates waiting for placement, in arrival order
+    private final List<Candidate> pending = new ArrayList<Candidate>();
+    private CandidateGrid grid;
+
     private final List<LabelLayer> layers = new ArrayList<LabelLayer>();
 
     private PointLabelCandidateRenderer pointRenderer;
@@ -63,6 +71,7 @@ public class DecimationLabelRenderer extends DefaultLabelRenderer{
     @Override
     public void setRenderingContext(final RenderingContext2D context){
         super.setRenderingContext(context);
+        grid = new CandidateGrid(context.getCanvasDisplayBounds(), CandidateGrid.DEFAULT_CELL_SIZE);
         LinearRenderer = new LinearLabelCandidateRenderer(context);
         pointRenderer = new PointLabelCandidateRenderer(context);
     }
@@ -91,7 +100,9 @@ public class DecimationLabelRenderer extends DefaultLabelRenderer{
         final Graphics2D g2 = context.getGraphics();
         //enable antialiasing for labels
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
+
+        placeCandidates();
+
         //paint the remaining candidates
         for(Candidate candidate : candidates){
             if(candidate instanceof PointCandidate){
@@ -104,6 +115,26 @@ public class DecimationLabelRenderer extends DefaultLabelRenderer{
         layers.clear();
     }
 
+    /**
+     * Place pending candidates, higher priorities first, candidates
+     * intersecting an already placed candidate are dropped.
+     */
+    private void placeCandidates(){
+        final List<Candidate> sorted;
+        synchronized(pending){
+            sorted = new ArrayList<Candidate>(pending);
+            pending.clear();
+        }
+        //stable sort, arrival order is preserved for a same priority
+        Collections.sort(sorted, LabelingUtilities.PRIORITY_COMPARATOR);
+
+        for(Candidate candidate : sorted){
+            if(grid.addIfFree(candidate)){
+                candidates.add(candidate);
+            }
+        }
+    }
+
     private List<Candidate> optimize(List<Candidate> candidates){
         candidates = LabelingUtilities.clipOutofBounds(context,candidates);
         candidates = LabelingUtilities.sortByXY(candidates);
@@ -116,26 +147,24 @@ public class DecimationLabelRenderer extends DefaultLabelRenderer{
 
             @Override
             public boolean add(LabelDescriptor label) {
+                final int priority = LabelingUtilities.getPriority(label);
                 if(label instanceof PointLabelDescriptor){
                     final Candidate[] pcs = pointRenderer.generateCandidat((PointLabelDescriptor) label);
                     if(pcs == null) return true;
                     for(Candidate c : pcs){
                         final PointCandidate pc = (PointCandidate) c;
-                        pc.setPriority(1);
-                        synchronized(candidates){
-                            if(!LabelingUtilities.intersects(pc,candidates)){
-                                candidates.add(pc);
-                            }else{
-                            }
+                        pc.setPriority(priority);
+                        synchronized(pending){
+                            pending.add(pc);
                         }
                     }
                 }else if(label instanceof LinearLabelDescriptor){
                     final Candidate[] lcs = LinearRenderer.generateCandidat((LinearLabelDescriptor) label);
                     for(Candidate c : lcs){
                         final LinearCandidate lc = (LinearCandidate) c;
-                        lc.setPriority(1);
-                        synchronized(candidates){
-                            candidates.add(lc);
+                        lc.setPriority(priority);
+                        synchronized(pending){
+                            pending.add(lc);
                         }
                     }
                 }
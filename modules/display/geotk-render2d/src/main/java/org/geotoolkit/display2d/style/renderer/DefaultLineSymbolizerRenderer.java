@@ -33,6 +33,7 @@ import java.util.logging.Level;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display.PortrayalException;
 import org.geotoolkit.display.shape.TransformedShape;
+import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
 import org.geotoolkit.display2d.canvas.RenderingContext2D;
 import org.geotoolkit.display2d.primitive.ProjectedCoverage;
@@ -58,10 +59,17 @@ import org.opengis.util.FactoryException;
 public class DefaultLineSymbolizerRenderer extends AbstractSymbolizerRenderer<CachedLineSymbolizer>{
 
     private final CachedStroke cachedStroke;
+    private final boolean batchable;
 
     public DefaultLineSymbolizerRenderer(final SymbolizerRendererService service,final CachedLineSymbolizer symbol, final RenderingContext2D context){
         super(service,symbol,context);
         cachedStroke = symbol.getCachedStroke();
+        batchable = hints != null && Boolean.TRUE.equals(hints.get(GO2Hints.KEY_BATCH_RENDERING))
+                && cachedStroke instanceof CachedStrokeSimple
+                && cachedStroke.isStatic()
+                && !((CachedStrokeSimple)cachedStroke).isMosaicPaint()
+                && ShapeBatch.isOpaque(((CachedStrokeSimple)cachedStroke).getJ2DComposite(null),
+                        ((CachedStrokeSimple)cachedStroke).getJ2DPaint(null, 0, 0, coeff, hints));
     }
 
     /**
@@ -107,33 +115,56 @@ public class DefaultLineSymbolizerRenderer extends AbstractSymbolizerRenderer<Ca
             renderingContext.switchToObjectiveCRS();
         }
 
-        while(graphics.hasNext()){
+        //shapes are accumulated and drawn in one call when the stroke is static
+        ShapeBatch batch = null;
 
-            if(monitor.stopRequested()){
-                break;
-            }
+        try{
+            while(graphics.hasNext()){
 
-            final ProjectedObject projectedFeature = graphics.next();
-            final Object feature = projectedFeature.getCandidate();
-            final ProjectedGeometry projectedGeometry = projectedFeature.getGeometry(geomPropertyName);
+                if(monitor.stopRequested()){
+                    break;
+                }
 
-            //symbolizer doesnt match the featuretype, no geometry found with this name.
-            if(projectedGeometry == null) continue;
+                final ProjectedObject projectedFeature = graphics.next();
+                final Object feature = projectedFeature.getCandidate();
+                final ProjectedGeometry projectedGeometry = projectedFeature.getGeometry(geomPropertyName);
 
-            //test if the symbol is visible on this feature
-            if(!symbol.isVisible(feature)){
-                continue;
-            }
+                //symbolizer doesnt match the featuretype, no geometry found with this name.
+                if(projectedGeometry == null) continue;
 
-            final Shape[] j2dShapes = getShapes(projectedGeometry, feature);
+                //test if the symbol is visible on this feature
+                if(!symbol.isVisible(feature)){
+                    continue;
+                }
 
-            // Do not try to draw this shape if null
-            if (j2dShapes == null) {
-                continue;
-            }
+                final Shape[] j2dShapes = getShapes(projectedGeometry, feature);
+
+                // Do not try to draw this shape if null
+                if (j2dShapes == null) {
+                    continue;
+                }
 
-            for(Shape j2dShape : j2dShapes){
-                portray(symbol, g2d, j2dShape, cachedStroke, feature, coeff, hints);
+                if(batchable){
+                    if(batch == null){
+                        final CachedStrokeSimple cs = (CachedStrokeSimple)cachedStroke;
+                        batch = new ShapeBatch(PathIterator.WIND_NON_ZERO, cs.getJ2DComposite(feature),
+                                cs.getJ2DPaint(feature, 0, 0, coeff, hints), cs.getJ2DStroke(feature,coeff));
+                    }
+                    for(Shape j2dShape : j2dShapes){
+                        if(batch.append(j2dShape, null)){
+                            batch.flush(g2d);
+                        }
+                    }
+                    continue;
+                }
+
+                for(Shape j2dShape : j2dShapes){
+                    portray(symbol, g2d, j2dShape, cachedStroke, feature, coeff, hints);
+                }
+            }
+        }finally{
+            if(batch != null){
+                batch.flush(g2d);
             }
         }
     }
@@ -24,12 +24,14 @@ import java.awt.geom.Area;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Iterator;
 import java.util.logging.Level;
 import javax.measure.unit.Unit;
 import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display.PortrayalException;
 import org.geotoolkit.display.shape.TransformedShape;
+import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
 import org.geotoolkit.display2d.canvas.RenderingContext2D;
 import org.geotoolkit.display2d.primitive.ProjectedCoverage;
@@ -53,10 +55,66 @@ import org.opengis.util.FactoryException;
 public class DefaultPolygonSymbolizerRenderer extends AbstractSymbolizerRenderer<CachedPolygonSymbolizer>{
 
     private final boolean mosaic;
+    private final boolean batchable;
+
+    //batches used while portraying an iterator, see GO2Hints.KEY_BATCH_RENDERING
+    private boolean batching = false;
+    private ShapeBatch fillBatch;
+    private ShapeBatch strokeBatch;
+    private ShapeBatch smallStrokeBatch;
+    //batch receiving shapes, flushed before switching to another one
+    private ShapeBatch currentBatch;
 
     public DefaultPolygonSymbolizerRenderer(final SymbolizerRendererService service,final CachedPolygonSymbolizer symbol, final RenderingContext2D context){
         super(service,symbol,context);
         mosaic = symbol.isMosaic();
+        batchable = hints != null && Boolean.TRUE.equals(hints.get(GO2Hints.KEY_BATCH_RENDERING))
+                && !mosaic && symbol.isStatic() && isOpaqueFillOrStroke(symbol);
+    }
+
+    /**
+     * Only static styles with either an opaque fill or an opaque stroke are batched,
+     * translucent shapes and fills covered by strokes depend on painting order.
+     * Style is static, values do not depend on the candidate.
+     */
+    private boolean isOpaqueFillOrStroke(final CachedPolygonSymbolizer symbol){
+        final boolean fill = symbol.isFillVisible(null);
+        final boolean stroke = symbol.isStrokeVisible(null);
+        if(fill == stroke){
+            return false;
+        }else if(fill){
+            return ShapeBatch.isOpaque(symbol.getJ2DFillComposite(null), symbol.getJ2DFillPaint(null, 0, 0, coeff, hints));
+        }else if(symbol.getCachedStroke() instanceof CachedStrokeSimple){
+            final CachedStrokeSimple cs = (CachedStrokeSimple) symbol.getCachedStroke();
+            return ShapeBatch.isOpaque(cs.getJ2DComposite(null), cs.getJ2DPaint(null, 0, 0, coeff, hints));
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * When batch rendering is enabled and the symbolizer is static, consecutive
+     * shapes are accumulated and painted with a single fill or draw call.
+     */
+    @Override
+    public void portray(final Iterator<? extends ProjectedObject> graphics) throws PortrayalException {
+        if(!batchable){
+            super.portray(graphics);
+            return;
+        }
+
+        batching = true;
+        try{
+            super.portray(graphics);
+        }finally{
+            batching = false;
+            flushBatches();
+            fillBatch = null;
+            strokeBatch = null;
+            smallStrokeBatch = null;
+            currentBatch = null;
+        }
     }
 
     /**
@@ -143,6 +201,15 @@ public class DefaultPolygonSymbolizerRenderer extends AbstractSymbolizerRenderer
 
         final float coeff = this.coeff * sizeCorrection;
         
+        if(batching){
+            final AffineTransform trs = (dispStep == null) ? null :
+                    AffineTransform.getTranslateInstance(dispStep.getX(), dispStep.getY());
+            for(Shape shape : shapes){
+                appendToBatch(shape, trs, candidate, coeff);
+            }
+            return;
+        }
+
         for(Shape shape : shapes){
         
             //we apply the displacement ---------------------------------------
@@ -226,6 +293,73 @@ public class DefaultPolygonSymbolizerRenderer extends AbstractSymbolizerRenderer
 
     }
 
+    /**
+     * Add the shape in the fill or stroke batch, batches are flushed when full.
+     * Style is static so paints and strokes are the same for all candidates.
+     * Shapes with several rings using the even-odd rule are filled one by one.
+     */
+    private void appendToBatch(final Shape shape, final AffineTransform trs, final Object candidate, final float coeff){
+        if(symbol.isFillVisible(candidate)){
+            if(fillBatch == null){
+                //merged polygons must all be filled, even where they overlap
+                fillBatch = new ShapeBatch(PathIterator.WIND_NON_ZERO, symbol.getJ2DFillComposite(candidate),
+                        symbol.getJ2DFillPaint(candidate, 0, 0, coeff, hints), null);
+            }
+            if(ShapeBatch.isNonZeroFill(shape)){
+                append(fillBatch, shape, trs);
+            }else{
+                //holes would be filled in the merged path, paint previous shapes first
+                flushBatches();
+                currentBatch = null;
+                g2d.setComposite(symbol.getJ2DFillComposite(candidate));
+                g2d.setPaint(symbol.getJ2DFillPaint(candidate, 0, 0, coeff, hints));
+                g2d.fill((trs == null) ? shape : trs.createTransformedShape(shape));
+            }
+        }
+
+        if(symbol.isStrokeVisible(candidate)){
+            final CachedStrokeSimple cs = (CachedStrokeSimple)symbol.getCachedStroke();
+            final Stroke stroke = cs.getJ2DStroke(candidate,coeff);
+
+            //NOTE : java2d issue when rendering shapes with size < 1px
+            final Rectangle bounds = shape.getBounds();
+            if(bounds.width>1 || bounds.height>1){
+                if(strokeBatch == null){
+                    strokeBatch = new ShapeBatch(PathIterator.WIND_NON_ZERO, cs.getJ2DComposite(candidate),
+                            cs.getJ2DPaint(candidate, 0, 0, coeff, hints), stroke);
+                }
+                append(strokeBatch, shape, trs);
+            }else{
+                if(smallStrokeBatch == null){
+                    smallStrokeBatch = new ShapeBatch(PathIterator.WIND_NON_ZERO, cs.getJ2DComposite(candidate),
+                            cs.getJ2DPaint(candidate, 0, 0, coeff, hints), null);
+                }
+                append(smallStrokeBatch, stroke.createStrokedShape(shape), trs);
+            }
+        }
+    }
+
+    /**
+     * Add the shape in the given batch, the previous batch is painted first
+     * if it is a different one so shapes are painted in order.
+     */
+    private void append(final ShapeBatch batch, final Shape shape, final AffineTransform trs){
+        if(currentBatch != batch){
+            flushBatches();
+            currentBatch = batch;
+        }
+        if(batch.append(shape, trs)){
+            batch.flush(g2d);
+        }
+    }
+
+    /**
+     * Paint the content of the batch receiving shapes.
+     */
+    private void flushBatches(){
+        if(currentBatch != null) currentBatch.flush(g2d);
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -712,6 +712,8 @@ public class DefaultRasterSymbolizerRenderer extends AbstractCoverageSymbolizerR
         final PixelIterator srcPix   = PixelIteratorFactory.createRowMajorIterator(demImage);
         final Interpolation interpol = Interpolation.create(srcPix, InterpolationCase.BICUBIC, 2);
         final Resample resampl       = new Resample(sourcetodest.inverse(), destMNT, areaIterate, interpol, new double[interpol.getNumBands()]);
+        //-- layers may already be rendered concurrently
+        resampl.setNbThread(1);
         resampl.fillImage();
 
         final GridCoverageBuilder gcb = new GridCoverageBuilder();
@@ -0,0 +1,132 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.style.renderer;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+
+/**
+ * Accumulate shapes sharing the same composite, paint and stroke in a single
+ * path, painted with one fill or draw call.
+ * Used by the polygon and line renderers when {@link org.geotoolkit.display2d.GO2Hints#KEY_BATCH_RENDERING}
+ * is enabled and the symbolizer style is static and opaque, painting the merged path
+ * then gives the same pixels as painting each shape.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+final class ShapeBatch {
+
+    /**
+     * Maximum number of shapes accumulated before the batch must be flushed.
+     */
+    static final int MAX_SHAPES = 512;
+
+    private final Path2D.Double path;
+    private final Composite composite;
+    private final Paint paint;
+    private final Stroke stroke;
+    private int nbShapes = 0;
+
+    /**
+     * @param windingRule path winding rule
+     * @param composite composite used when painting
+     * @param paint paint used when painting
+     * @param stroke stroke used to draw the path, if null the path is filled
+     */
+    ShapeBatch(final int windingRule, final Composite composite, final Paint paint, final Stroke stroke) {
+        this.path = new Path2D.Double(windingRule, 4096);
+        this.composite = composite;
+        this.paint = paint;
+        this.stroke = stroke;
+    }
+
+    /**
+     * Add a shape in the batch.
+     *
+     * @param shape shape to add
+     * @param trs optional transform to apply on the shape, can be null
+     * @return true if the batch is full and should be flushed
+     */
+    boolean append(final Shape shape, final AffineTransform trs){
+        path.append(shape.getPathIterator(trs), false);
+        return ++nbShapes >= MAX_SHAPES;
+    }
+
+    boolean isEmpty(){
+        return nbShapes == 0;
+    }
+
+    /**
+     * Overlapping shapes can be merged only if painting a shape twice gives
+     * the same result as painting it once.
+     *
+     * @return true if the composite and paint fully replace the painted pixels
+     */
+    static boolean isOpaque(final Composite composite, final Paint paint){
+        if(!(composite instanceof AlphaComposite)) return false;
+        final AlphaComposite alpha = (AlphaComposite) composite;
+        return alpha.getRule() == AlphaComposite.SRC_OVER && alpha.getAlpha() >= 1f
+            && paint != null && paint.getTransparency() == Transparency.OPAQUE;
+    }
+
+    /**
+     * Fill batches use the non-zero winding rule so overlapping shapes are all filled.
+     * Shapes using the even-odd rule with several rings, like polygons with holes
+     * which rings are not oriented, would then get their holes filled.
+     *
+     * @return true if filling the shape with the non-zero winding rule gives the same pixels
+     */
+    static boolean isNonZeroFill(final Shape shape){
+        final PathIterator ite = shape.getPathIterator(null);
+        if(ite.getWindingRule() == PathIterator.WIND_NON_ZERO) return true;
+        final double[] coords = new double[6];
+        int nbRing = 0;
+        for(; !ite.isDone(); ite.next()){
+            if(ite.currentSegment(coords) == PathIterator.SEG_MOVETO && ++nbRing > 1){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Paint the accumulated shapes and clear the batch.
+     */
+    void flush(final Graphics2D g2d){
+        if(nbShapes == 0) return;
+        g2d.setComposite(composite);
+        g2d.setPaint(paint);
+        if(stroke != null){
+            g2d.setStroke(stroke);
+            g2d.draw(path);
+        }else{
+            g2d.fill(path);
+        }
+        path.reset();
+        nbShapes = 0;
+    }
+
+}
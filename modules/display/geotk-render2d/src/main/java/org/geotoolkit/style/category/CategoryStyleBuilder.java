@@ -27,9 +27,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
-import org.geotoolkit.data.FeatureIterator;
-import org.geotoolkit.data.query.Query;
-import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.data.FeatureStoreUtilities;
+import org.geotoolkit.data.query.Aggregate;
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.factory.Factory;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.factory.Hints;
@@ -40,7 +40,6 @@ import org.geotoolkit.style.MutableRule;
 import org.geotoolkit.style.MutableStyleFactory;
 import org.geotoolkit.style.StyleConstants;
 import org.geotoolkit.style.interval.RandomPalette;
-import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.type.FeatureType;
 import org.geotoolkit.feature.type.GeometryDescriptor;
 import org.geotoolkit.feature.type.PropertyDescriptor;
@@ -257,29 +256,21 @@ public class CategoryStyleBuilder extends Factory {
     }
 
     public List<MutableRule> create(){
-        //search the different values
+        //search the different values, grouped by the database when possible
         final Set<Object> differentValues = new HashSet<Object>();
         final PropertyName property = currentProperty;
-        final QueryBuilder builder = new QueryBuilder();
-        builder.setTypeName(layer.getCollection().getFeatureType().getName());
-        builder.setProperties(new String[]{property.getPropertyName()});
-        final Query query = builder.buildQuery();
+        final AggregateQuery query = new AggregateQuery(
+                layer.getCollection().getFeatureType().getName(), Filter.INCLUDE,
+                new Expression[]{property}, Aggregate.count());
 
-        FeatureIterator<? extends Feature> features = null;
         try{
-            features = layer.getCollection().subCollection(query).iterator();
-            while(features.hasNext()){
-                final Feature feature = features.next();
-                differentValues.add(property.evaluate(feature));
+            for(Object[] row : FeatureStoreUtilities.aggregate(layer.getCollection(), query)){
+                differentValues.add(row[0]);
             }
         }catch(DataStoreException ex){
             ex.printStackTrace();
         }catch(FeatureStoreRuntimeException ex){
             ex.printStackTrace();
-        }finally{
-            if(features != null){
-                features.close();
-            }
         }
 
         //generate the different rules
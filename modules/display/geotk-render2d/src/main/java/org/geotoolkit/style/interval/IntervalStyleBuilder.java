@@ -29,6 +29,9 @@ import java.util.List;
 import java.util.Set;
 import javax.swing.table.AbstractTableModel;
 import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreUtilities;
+import org.geotoolkit.data.query.Aggregate;
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.factory.Hints;
@@ -93,6 +96,7 @@ public class IntervalStyleBuilder extends AbstractTableModel{
     private METHOD method = METHOD.EL;
 
     private boolean genericAnalyze = false;
+    private boolean valuesLoaded = false;
     private boolean analyze = false;
     private final List<PropertyName> properties = new ArrayList<PropertyName>();
     private long count = 0;
@@ -151,6 +155,7 @@ public class IntervalStyleBuilder extends AbstractTableModel{
 
     public double getMedian() {
         analyze();
+        loadValues();
         return median;
     }
 
@@ -160,6 +165,7 @@ public class IntervalStyleBuilder extends AbstractTableModel{
     }
 
     public Double[] getAllValues(){
+        loadValues();
         return allValues.clone();
     }
 
@@ -320,6 +326,7 @@ public class IntervalStyleBuilder extends AbstractTableModel{
     private void genericAnalyze(){
         if(genericAnalyze) return;
         genericAnalyze = true;
+        valuesLoaded = false;
         properties.clear();
 
         minimum = Double.POSITIVE_INFINITY;
@@ -370,12 +377,84 @@ public class IntervalStyleBuilder extends AbstractTableModel{
         }
 
 
-        //search the extreme values
-        final QueryBuilder query = new QueryBuilder(layer.getCollection().getFeatureType().getName());
-
         if(classification == null || layer == null) return;
         if(!properties.contains(classification)) return;
 
+        //search the extreme values, in a single aggregate query
+        final Expression exp = getClassifiedExpression();
+        try{
+            final Object[] row = FeatureStoreUtilities.aggregate(layer.getCollection(),
+                    new AggregateQuery(schema.getName(), Filter.INCLUDE, null,
+                    Aggregate.count(), Aggregate.sum(exp), Aggregate.min(exp), Aggregate.max(exp))).get(0);
+            count = (Long) row[0];
+            if(row[2] instanceof Number && row[3] instanceof Number){
+                sum = (row[1] == null) ? 0 : ((Number)row[1]).doubleValue();
+                minimum = ((Number)row[2]).doubleValue();
+                maximum = ((Number)row[3]).doubleValue();
+            }else if(row[2] != null){
+                //values are not numbers, they must be converted one by one
+                analyzeConvertedValues(exp);
+            }
+            mean = (minimum+maximum) / 2;
+        }catch(DataStoreException ex){
+            ex.printStackTrace();
+        }
+
+    }
+
+    /**
+     * Compute sum and extreme values of the classified expression converted to numbers,
+     * used when the expression values are not numbers.
+     */
+    private void analyzeConvertedValues(final Expression exp) throws DataStoreException{
+        sum = 0;
+        minimum = Double.POSITIVE_INFINITY;
+        maximum = Double.NEGATIVE_INFINITY;
+        final FeatureIterator<? extends Feature> features = layer.getCollection().iterator();
+        try{
+            while(features.hasNext()){
+                final Number value = exp.evaluate(features.next(), Number.class);
+                if(value == null) continue;
+                final double d = value.doubleValue();
+                if(Double.isNaN(d)) continue;
+                sum += d;
+                minimum = Math.min(minimum, d);
+                maximum = Math.max(maximum, d);
+            }
+        }finally{
+            features.close();
+        }
+        if(minimum > maximum){
+            //no value can be converted
+            minimum = 0;
+            maximum = 0;
+        }
+    }
+
+    /**
+     * @return classification expression, divided by the normalize property if any
+     */
+    private Expression getClassifiedExpression(){
+        if(normalize == null || normalize.equals(noValue)){
+            return classification;
+        }
+        return ff.divide(classification, normalize);
+    }
+
+    /**
+     * Load all the sorted values and the median.
+     * Only needed for quantiles, statistics are computed by genericAnalyze.
+     */
+    private void loadValues(){
+        if(valuesLoaded) return;
+        valuesLoaded = true;
+        allValues = new Double[0];
+        median = 0;
+
+        if(!genericAnalyze || classification == null || layer == null) return;
+        if(!properties.contains(classification)) return;
+
+        final QueryBuilder query = new QueryBuilder(layer.getCollection().getFeatureType().getName());
         final Set<String> qp = new HashSet<String>();
         qp.add(classification.getPropertyName());
         if(normalize != null && !normalize.equals(noValue)){
@@ -383,44 +462,19 @@ public class IntervalStyleBuilder extends AbstractTableModel{
         }
         query.setProperties(qp.toArray(new String[0]));
 
+        final Expression exp = getClassifiedExpression();
         FeatureIterator<? extends Feature> features = null;
         try{
             features = layer.getCollection().subCollection(query.buildQuery()).iterator();
-            List<Double> values = new ArrayList<Double>();
-
+            final List<Double> values = new ArrayList<Double>();
             while(features.hasNext()){
-                Feature sf = features.next();
-                count++;
-
-                Number classifValue = classification.evaluate(sf, Number.class);
-                double value;
-
-                if(classifValue==null){
+                final Number value = exp.evaluate(features.next(), Number.class);
+                if(value != null){
                     //skip null values in analyze
-                    continue;
-                }
-                
-                if(normalize == null || normalize.equals(noValue)){
-                    value = classifValue.doubleValue();
-                }else{
-                    Number normalizeValue = normalize.evaluate(sf, Number.class);
-                    value = classifValue.doubleValue() / normalizeValue.doubleValue();
-                }
-
-                values.add(value);
-                sum += value;
-
-                if(value < minimum){
-                    minimum = value;
-                }
-                if(value > maximum){
-                    maximum = value;
+                    values.add(value.doubleValue());
                 }
-
             }
 
-            mean = (minimum+maximum) / 2;
-
             //find the median
             allValues = values.toArray(new Double[values.size()]);
             Arrays.sort(allValues);
@@ -440,7 +494,6 @@ public class IntervalStyleBuilder extends AbstractTableModel{
                 features.close();
             }
         }
-
     }
 
     private void analyze(){
@@ -456,6 +509,7 @@ public class IntervalStyleBuilder extends AbstractTableModel{
             }
             
         }else if(method == METHOD.QANTILE){
+            loadValues();
             values = new double[nbClasses+1];
             for(int i=0;i<values.length;i++){
                 values[i] = allValues[i*(allValues.length-1)/(values.length-1)];
@@ -0,0 +1,172 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.container;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureStoreUtilities;
+import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.display.PortrayalException;
+import org.geotoolkit.display2d.GO2Hints;
+import org.geotoolkit.display2d.service.CanvasDef;
+import org.geotoolkit.display2d.service.DefaultPortrayalService;
+import org.geotoolkit.display2d.service.SceneDef;
+import org.geotoolkit.display2d.service.ViewDef;
+import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.factory.Hints;
+import org.geotoolkit.feature.FeatureTypeBuilder;
+import org.geotoolkit.feature.simple.SimpleFeature;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
+import org.geotoolkit.map.MapBuilder;
+import org.geotoolkit.map.MapContext;
+import org.geotoolkit.style.DefaultStyleFactory;
+import org.geotoolkit.style.MutableStyleFactory;
+import org.junit.Test;
+import org.opengis.filter.FilterFactory;
+import static org.junit.Assert.*;
+
+/**
+ * Multithreaded rendering must produce the same image as the sequential rendering.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class MultiThreadedRenderingTest {
+
+    private static final GeometryFactory GF = new GeometryFactory();
+    private static final MutableStyleFactory SF = new DefaultStyleFactory();
+    private static final FilterFactory FF = FactoryFinder.getFilterFactory(null);
+
+    /**
+     * Several layers with translucent fills and labels crossing the image
+     * in all directions, labels must be painted once and in the same order.
+     */
+    @Test
+    public void testLayersAndLabels() throws Exception {
+        final MapContext context = MapBuilder.createContext();
+        context.layers().add(MapBuilder.createFeatureLayer(createPolygons(0),
+                SF.style(SF.polygonSymbolizer(SF.stroke(Color.BLACK, 1), SF.fill(new Color(255, 0, 0, 120)), null))));
+        context.layers().add(MapBuilder.createFeatureLayer(createPolygons(5),
+                SF.style(SF.polygonSymbolizer(SF.stroke(Color.BLUE, 2), SF.fill(new Color(0, 255, 0, 120)), null))));
+        context.layers().add(MapBuilder.createFeatureLayer(createPoints(),
+                SF.style(SF.textSymbolizer(SF.fill(Color.BLACK), SF.font(12), SF.halo(Color.WHITE, 1),
+                        FF.property("name"), SF.pointPlacement(), null))));
+
+        final Hints hints = new Hints();
+        hints.put(GO2Hints.KEY_COLOR_MODEL, ColorModel.getRGBdefault());
+        hints.put(GO2Hints.KEY_MULTI_THREAD, Boolean.FALSE);
+        final BufferedImage expected = portray(context, hints);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            hints.put(GO2Hints.KEY_MULTI_THREAD, Boolean.TRUE);
+            hints.put(GO2Hints.KEY_RENDERING_EXECUTOR, executor);
+            compare(expected, portray(context, hints));
+
+            //a single buffer at a time
+            hints.put(GO2Hints.KEY_RENDERING_BUFFER_MEMORY, 1l);
+            compare(expected, portray(context, hints));
+        }finally{
+            executor.shutdown();
+        }
+    }
+
+    private static BufferedImage portray(final MapContext context, final Hints hints) throws PortrayalException{
+        final GeneralEnvelope env = new GeneralEnvelope(CommonCRS.WGS84.normalizedGeographic());
+        env.setRange(0, -180, 180);
+        env.setRange(1, -90, 90);
+        return DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(1200, 600),Color.WHITE),
+                new SceneDef(context,hints),
+                new ViewDef(env));
+    }
+
+    private static void compare(final BufferedImage expected, final BufferedImage result){
+        assertEquals(expected.getWidth(), result.getWidth());
+        assertEquals(expected.getHeight(), result.getHeight());
+        for(int y=0;y<expected.getHeight();y++){
+            for(int x=0;x<expected.getWidth();x++){
+                assertEquals("pixel "+x+","+y, expected.getRGB(x, y), result.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Grid of overlapping squares.
+     */
+    private static FeatureCollection createPolygons(final double offset) throws DataStoreException{
+        final FeatureTypeBuilder sftb = new FeatureTypeBuilder();
+        sftb.setName("polygons");
+        sftb.add("geom", Polygon.class, CommonCRS.WGS84.normalizedGeographic());
+        final SimpleFeatureType sft = sftb.buildSimpleFeatureType();
+        final FeatureCollection col = FeatureStoreUtilities.collection("id", sft);
+
+        final FeatureWriter writer = col.getSession().getFeatureStore().getFeatureWriterAppend(sft.getName());
+        for(int x=-180;x<180;x+=30){
+            for(int y=-90;y<90;y+=30){
+                final Coordinate[] coords = new Coordinate[]{
+                    new Coordinate(x+offset,    y+offset),
+                    new Coordinate(x+offset,    y+offset+40),
+                    new Coordinate(x+offset+40, y+offset+40),
+                    new Coordinate(x+offset+40, y+offset),
+                    new Coordinate(x+offset,    y+offset)};
+                final SimpleFeature sf = (SimpleFeature) writer.next();
+                sf.setAttribute("geom", GF.createPolygon(GF.createLinearRing(coords), null));
+                writer.write();
+            }
+        }
+        writer.close();
+        return col;
+    }
+
+    /**
+     * Labelled points placed every 15 degrees, labels overlap each other.
+     */
+    private static FeatureCollection createPoints() throws DataStoreException{
+        final FeatureTypeBuilder sftb = new FeatureTypeBuilder();
+        sftb.setName("points");
+        sftb.add("geom", Point.class, CommonCRS.WGS84.normalizedGeographic());
+        sftb.add("name", String.class);
+        final SimpleFeatureType sft = sftb.buildSimpleFeatureType();
+        final FeatureCollection col = FeatureStoreUtilities.collection("id", sft);
+
+        final FeatureWriter writer = col.getSession().getFeatureStore().getFeatureWriterAppend(sft.getName());
+        for(int x=-180;x<=180;x+=15){
+            for(int y=-90;y<=90;y+=15){
+                final SimpleFeature sf = (SimpleFeature) writer.next();
+                sf.setAttribute("geom", GF.createPoint(new Coordinate(x, y)));
+                sf.setAttribute("name", "label "+x+" "+y);
+                writer.write();
+            }
+        }
+        writer.close();
+        return col;
+    }
+
+}
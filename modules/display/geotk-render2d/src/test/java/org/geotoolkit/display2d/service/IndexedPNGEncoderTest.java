@@ -0,0 +1,144 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Paletted PNG encoder tests, images are decoded with ImageIO.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class IndexedPNGEncoderTest {
+
+    /**
+     * Image with less than 256 colors must not be altered.
+     */
+    @Test
+    public void testFewColors() throws Exception{
+        final BufferedImage image = new BufferedImage(200, 150, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(10, 10, 50, 50);
+        g.setColor(new Color(0, 0, 255, 128));
+        g.fillOval(40, 40, 100, 80);
+        g.dispose();
+
+        for(int filter=IndexedPNGEncoder.FILTER_NONE; filter<=IndexedPNGEncoder.FILTER_PAETH; filter++){
+            final IndexedPNGEncoder encoder = new IndexedPNGEncoder();
+            encoder.setFilter(filter);
+            assertSameImage(image, decode(encoder, image), 0);
+        }
+    }
+
+    /**
+     * Rows compressed in parallel must give the same image.
+     */
+    @Test
+    public void testParallel() throws Exception{
+        final BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+        for(int y=0; y<256; y++){
+            for(int x=0; x<256; x++){
+                image.setRGB(x, y, ((x/32)*32) << 16 | ((y/32)*32) << 8 | 0xFF000000);
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            final IndexedPNGEncoder encoder = new IndexedPNGEncoder();
+            encoder.setExecutor(executor);
+            encoder.setChunkHeight(20);
+            encoder.setCompressionLevel(9);
+            encoder.setStrategy(Deflater.FILTERED);
+            assertSameImage(image, decode(encoder, image), 0);
+        }finally{
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Image with too many colors is approximated.
+     */
+    @Test
+    public void testQuantization() throws Exception{
+        final BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        for(int y=0; y<256; y++){
+            for(int x=0; x<256; x++){
+                image.setRGB(x, y, x << 16 | y << 8 | ((x+y)/2));
+            }
+        }
+
+        final IndexedPNGEncoder encoder = new IndexedPNGEncoder();
+        final BufferedImage quantized = encoder.quantize(image);
+        assertTrue(quantized.getColorModel() instanceof IndexColorModel);
+        assertTrue(((IndexColorModel)quantized.getColorModel()).getMapSize() <= 256);
+        assertSameImage(image, decode(encoder, image), 32);
+    }
+
+    /**
+     * Paletted images are written with their palette.
+     */
+    @Test
+    public void testPaletted() throws Exception{
+        final IndexColorModel icm = new IndexColorModel(8, 3,
+                new byte[]{0, (byte)255, 0}, new byte[]{0, 0, (byte)255}, new byte[]{0, 0, 0}, 0);
+        final BufferedImage image = new BufferedImage(50, 40, BufferedImage.TYPE_BYTE_INDEXED, icm);
+        for(int y=0; y<40; y++){
+            for(int x=0; x<50; x++){
+                image.getRaster().setSample(x, y, 0, (x+y)%3);
+            }
+        }
+        assertSameImage(image, decode(new IndexedPNGEncoder(), image), 0);
+    }
+
+    private static BufferedImage decode(final IndexedPNGEncoder encoder, final BufferedImage image) throws Exception{
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.write(image, out);
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static void assertSameImage(final BufferedImage expected, final BufferedImage result, final int tolerance){
+        assertEquals(expected.getWidth(), result.getWidth());
+        assertEquals(expected.getHeight(), result.getHeight());
+        for(int y=0; y<expected.getHeight(); y++){
+            for(int x=0; x<expected.getWidth(); x++){
+                final int c1 = expected.getRGB(x, y);
+                final int c2 = result.getRGB(x, y);
+                if((c1 >>> 24) == 0){
+                    assertEquals(0, c2 >>> 24);
+                    continue;
+                }
+                for(int shift=0; shift<32; shift+=8){
+                    assertEquals(((c1>>>shift)&0xFF), ((c2>>>shift)&0xFF), tolerance);
+                }
+            }
+        }
+    }
+
+}
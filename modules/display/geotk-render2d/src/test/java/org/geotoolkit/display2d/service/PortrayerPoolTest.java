@@ -0,0 +1,76 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.service;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import javax.imageio.ImageIO;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CommonCRS;
+import org.geotoolkit.map.MapBuilder;
+import org.geotoolkit.map.MapContext;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pooled portrayers must not leak state between renderings.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class PortrayerPoolTest {
+
+    @Test
+    public void testReuse() throws Exception{
+        final PortrayerPool pool = new PortrayerPool();
+        final MapContext context = MapBuilder.createContext();
+        final GeneralEnvelope env = new GeneralEnvelope(CommonCRS.WGS84.normalizedGeographic());
+        env.setRange(0, -180, 180);
+        env.setRange(1, -90, 90);
+        final Dimension dim = new Dimension(40, 20);
+
+        //rendered in a buffer which stays in the pool
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pool.portray(new CanvasDef(dim, Color.RED), new SceneDef(context), new ViewDef(env),
+                new OutputDef("image/png", out));
+        assertEquals(1, pool.getIdleCount());
+        final BufferedImage red = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(Color.RED.getRGB(), red.getRGB(10, 10));
+
+        //same configuration, the buffer is reused and must be cleared
+        out.reset();
+        pool.portray(new CanvasDef(dim, Color.BLUE), new SceneDef(context), new ViewDef(env),
+                new OutputDef("image/png", out));
+        assertEquals(1, pool.getIdleCount());
+        final BufferedImage blue = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(Color.BLUE.getRGB(), blue.getRGB(10, 10));
+
+        //returned images belong to the caller
+        final BufferedImage image1 = pool.portray(new CanvasDef(dim, Color.BLUE), new SceneDef(context), new ViewDef(env));
+        final BufferedImage image2 = pool.portray(new CanvasDef(dim, Color.BLUE), new SceneDef(context), new ViewDef(env));
+        assertNotSame(image1, image2);
+        assertEquals(Color.BLUE.getRGB(), image1.getRGB(10, 10));
+
+        //background must not be kept from a previous rendering
+        final BufferedImage transparent = pool.portray(new CanvasDef(dim, null), new SceneDef(context), new ViewDef(env));
+        assertEquals(0, transparent.getRGB(10, 10) >>> 24);
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.style;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Polygon;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureStoreUtilities;
+import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.display.PortrayalException;
+import org.geotoolkit.display2d.GO2Hints;
+import org.geotoolkit.display2d.service.CanvasDef;
+import org.geotoolkit.display2d.service.DefaultPortrayalService;
+import org.geotoolkit.display2d.service.SceneDef;
+import org.geotoolkit.display2d.service.ViewDef;
+import org.geotoolkit.factory.Hints;
+import org.geotoolkit.feature.FeatureTypeBuilder;
+import org.geotoolkit.feature.simple.SimpleFeature;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
+import org.geotoolkit.map.MapBuilder;
+import org.geotoolkit.map.MapContext;
+import org.geotoolkit.style.DefaultStyleFactory;
+import org.geotoolkit.style.MutableStyleFactory;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Batch rendering must produce the same image as the default rendering.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class BatchRenderingTest {
+
+    private static final GeometryFactory GF = new GeometryFactory();
+    private static final MutableStyleFactory SF = new DefaultStyleFactory();
+
+    @Test
+    public void testPolygons() throws Exception {
+        final MapContext context = MapBuilder.createContext();
+        context.layers().add(MapBuilder.createFeatureLayer(createCollection(Polygon.class), SF.style(SF.polygonSymbolizer())));
+        compare(context);
+    }
+
+    @Test
+    public void testLines() throws Exception {
+        final MapContext context = MapBuilder.createContext();
+        context.layers().add(MapBuilder.createFeatureLayer(createCollection(LineString.class), SF.style(SF.lineSymbolizer())));
+        compare(context);
+    }
+
+    /**
+     * Overlapping translucent polygons with a stroke are painted one by one,
+     * each fill covers the strokes of the polygons below.
+     */
+    @Test
+    public void testOverlappingTranslucentPolygons() throws Exception {
+        final MapContext context = MapBuilder.createContext();
+        context.layers().add(MapBuilder.createFeatureLayer(createOverlappingPolygons(),
+                SF.style(SF.polygonSymbolizer(SF.stroke(Color.BLACK, 2), SF.fill(new Color(255, 0, 0, 120)), null))));
+        compare(context);
+    }
+
+    /**
+     * Overlapping opaque polygons without stroke are batched,
+     * overlapping areas must still be filled.
+     */
+    @Test
+    public void testOverlappingOpaquePolygons() throws Exception {
+        final MapContext context = MapBuilder.createContext();
+        context.layers().add(MapBuilder.createFeatureLayer(createOverlappingPolygons(),
+                SF.style(SF.polygonSymbolizer(null, SF.fill(Color.BLUE), null))));
+        compare(context);
+    }
+
+    /**
+     * Polygons with holes wound like their shell are not batched,
+     * holes must stay empty.
+     */
+    @Test
+    public void testPolygonsWithHoles() throws Exception {
+        final MapContext context = MapBuilder.createContext();
+        context.layers().add(MapBuilder.createFeatureLayer(createPolygonsWithHoles(),
+                SF.style(SF.polygonSymbolizer(null, SF.fill(Color.BLUE), null))));
+        final BufferedImage expected = compare(context);
+        //center of the first hole, 10 pixels by degree
+        assertEquals(Color.WHITE.getRGB(), expected.getRGB(15, 385));
+        //filled part of the first polygon
+        assertEquals(Color.BLUE.getRGB(), expected.getRGB(5, 395));
+    }
+
+    /**
+     * @return image painted without batch
+     */
+    private static BufferedImage compare(final MapContext context) throws PortrayalException{
+        final GeneralEnvelope env = new GeneralEnvelope(CommonCRS.WGS84.normalizedGeographic());
+        env.setRange(0, 0, 40);
+        env.setRange(1, 0, 40);
+
+        final Hints hints = new Hints();
+        hints.put(GO2Hints.KEY_MULTI_THREAD, Boolean.FALSE);
+        hints.put(GO2Hints.KEY_BATCH_RENDERING, GO2Hints.BATCH_RENDERING_OFF);
+        final BufferedImage expected = DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(400, 400),Color.WHITE),
+                new SceneDef(context,hints),
+                new ViewDef(env));
+
+        hints.put(GO2Hints.KEY_BATCH_RENDERING, GO2Hints.BATCH_RENDERING_ON);
+        final BufferedImage result = DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(400, 400),Color.WHITE),
+                new SceneDef(context,hints),
+                new ViewDef(env));
+
+        for(int y=0;y<400;y++){
+            for(int x=0;x<400;x++){
+                assertEquals("pixel "+x+","+y, expected.getRGB(x, y), result.getRGB(x, y));
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Grid of 20x20 disjoint squares or square outlines.
+     */
+    private static FeatureCollection createCollection(final Class geomClass) throws DataStoreException{
+        final FeatureTypeBuilder sftb = new FeatureTypeBuilder();
+        sftb.setName("test");
+        sftb.add("geom", geomClass, CommonCRS.WGS84.normalizedGeographic());
+        final SimpleFeatureType sft = sftb.buildSimpleFeatureType();
+        final FeatureCollection col = FeatureStoreUtilities.collection("id", sft);
+
+        final FeatureWriter writer = col.getSession().getFeatureStore().getFeatureWriterAppend(sft.getName());
+        for(int x=0;x<20;x++){
+            for(int y=0;y<20;y++){
+                final Coordinate[] coords = new Coordinate[]{
+                    new Coordinate(x*2,   y*2),
+                    new Coordinate(x*2,   y*2+1),
+                    new Coordinate(x*2+1, y*2+1),
+                    new Coordinate(x*2+1, y*2),
+                    new Coordinate(x*2,   y*2)};
+                final SimpleFeature sf = (SimpleFeature) writer.next();
+                if(geomClass == Polygon.class){
+                    sf.setAttribute("geom", GF.createPolygon(GF.createLinearRing(coords), null));
+                }else{
+                    sf.setAttribute("geom", GF.createLineString(coords));
+                }
+                writer.write();
+            }
+        }
+        writer.close();
+        return col;
+    }
+
+    /**
+     * Grid of 10x10 squares with a square hole, holes have the same orientation as shells.
+     */
+    private static FeatureCollection createPolygonsWithHoles() throws DataStoreException{
+        final FeatureTypeBuilder sftb = new FeatureTypeBuilder();
+        sftb.setName("test");
+        sftb.add("geom", Polygon.class, CommonCRS.WGS84.normalizedGeographic());
+        final SimpleFeatureType sft = sftb.buildSimpleFeatureType();
+        final FeatureCollection col = FeatureStoreUtilities.collection("id", sft);
+
+        final FeatureWriter writer = col.getSession().getFeatureStore().getFeatureWriterAppend(sft.getName());
+        for(int x=0;x<10;x++){
+            for(int y=0;y<10;y++){
+                final LinearRing shell = GF.createLinearRing(new Coordinate[]{
+                    new Coordinate(x*4,   y*4),
+                    new Coordinate(x*4,   y*4+3),
+                    new Coordinate(x*4+3, y*4+3),
+                    new Coordinate(x*4+3, y*4),
+                    new Coordinate(x*4,   y*4)});
+                final LinearRing hole = GF.createLinearRing(new Coordinate[]{
+                    new Coordinate(x*4+1, y*4+1),
+                    new Coordinate(x*4+1, y*4+2),
+                    new Coordinate(x*4+2, y*4+2),
+                    new Coordinate(x*4+2, y*4+1),
+                    new Coordinate(x*4+1, y*4+1)});
+                final SimpleFeature sf = (SimpleFeature) writer.next();
+                sf.setAttribute("geom", GF.createPolygon(shell, new LinearRing[]{hole}));
+                writer.write();
+            }
+        }
+        writer.close();
+        return col;
+    }
+
+    /**
+     * Grid of 10x10 squares, each square overlaps its neighbors.
+     */
+    private static FeatureCollection createOverlappingPolygons() throws DataStoreException{
+        final FeatureTypeBuilder sftb = new FeatureTypeBuilder();
+        sftb.setName("test");
+        sftb.add("geom", Polygon.class, CommonCRS.WGS84.normalizedGeographic());
+        final SimpleFeatureType sft = sftb.buildSimpleFeatureType();
+        final FeatureCollection col = FeatureStoreUtilities.collection("id", sft);
+
+        final FeatureWriter writer = col.getSession().getFeatureStore().getFeatureWriterAppend(sft.getName());
+        for(int x=0;x<10;x++){
+            for(int y=0;y<10;y++){
+                final Coordinate[] coords = new Coordinate[]{
+                    new Coordinate(x*2,   y*2),
+                    new Coordinate(x*2,   y*2+3),
+                    new Coordinate(x*2+3, y*2+3),
+                    new Coordinate(x*2+3, y*2),
+                    new Coordinate(x*2,   y*2)};
+                final SimpleFeature sf = (SimpleFeature) writer.next();
+                sf.setAttribute("geom", GF.createPolygon(GF.createLinearRing(coords), null));
+                writer.write();
+            }
+        }
+        writer.close();
+        return col;
+    }
+
+}
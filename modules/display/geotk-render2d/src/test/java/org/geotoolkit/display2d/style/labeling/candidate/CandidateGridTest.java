@@ -0,0 +1,60 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.style.labeling.candidate;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.geotoolkit.display2d.style.labeling.DefaultPointLabelDescriptor;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Grid collision test must give the same placement as the linear test.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class CandidateGridTest {
+
+    @Test
+    public void testSamePlacement(){
+        final Random random = new Random(42);
+        final CandidateGrid grid = new CandidateGrid(new Rectangle(0, 0, 800, 600), CandidateGrid.DEFAULT_CELL_SIZE);
+        final List<Candidate> placed = new ArrayList<>();
+
+        for(int i=0;i<2000;i++){
+            //some candidates are partly outside the grid area
+            final float rotation = (i%3 == 0) ? random.nextFloat()*360 : 0;
+            final PointCandidate candidate = new PointCandidate(
+                    new DefaultPointLabelDescriptor("label", null, null, 0, null, 0, 0, 0, 0, rotation, null, null),
+                    10 + random.nextInt(80), 10, 3,
+                    random.nextFloat()*900 - 50, random.nextFloat()*700 - 50);
+
+            final boolean expected = LabelingUtilities.intersects(candidate, placed);
+            assertEquals(expected, grid.intersects(candidate));
+            if(!expected){
+                placed.add(candidate);
+                grid.add(candidate);
+            }
+        }
+
+        assertEquals(placed.size(), grid.size());
+    }
+
+}
@@ -17,6 +17,8 @@
 
 package org.geotoolkit.filter;
 
+import org.geotoolkit.feature.simple.SimpleFeature;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
 import org.geotoolkit.feature.type.ComplexType;
 import org.opengis.filter.expression.ExpressionVisitor;
 import org.opengis.filter.expression.PropertyName;
@@ -26,6 +28,9 @@ import org.geotoolkit.filter.binding.Binding;
 import org.geotoolkit.filter.binding.Bindings;
 
 /**
+ * Property name which caches the value accessor.
+ * When the expected type is a simple feature type, the attribute index is resolved
+ * once and matching simple features are read by index.
  *
  * @author Johann Sorel (Geomatys)
  */
@@ -35,43 +40,26 @@ class CachedPropertyName extends AbstractExpression implements PropertyName{
 
     private final Binding accessor;
 
+    /**
+     * Expected simple feature type and attribute index in it, index is -1 if unknown.
+     */
+    private final SimpleFeatureType type;
+    private final int index;
+
     CachedPropertyName(final String property, final Class clazz, final ComplexType expectedType) {
         ensureNonNull("property name", property);
         this.property = property;
                 
-        final Binding fallacc = Bindings.getBinding(clazz,property);
-        
-        //try to create a faster accessor
-//        if(Property.class.isAssignableFrom(clazz) && expectedType instanceof SimpleFeatureType ){
-//            final SimpleFeatureType sft = (SimpleFeatureType) expectedType;
-//            final int index = sft.indexOf(property);
-//            this.accessor = new PropertyAccessor() {
-//                @Override
-//                public boolean canHandle(Class object, String xpath, Class target) {
-//                    return true;
-//                }
-//                @Override
-//                public Object get(Object object, String xpath, Class target) throws IllegalArgumentException {
-//                    if(object instanceof SimpleFeature){
-//                        return ((SimpleFeature)object).getAttribute(index);
-//                    }else{
-//                        return fallacc.get(object, xpath, target);
-//                    }
-//                }
-//                @Override
-//                public void set(Object object, String xpath, Object value, Class target) throws IllegalArgumentException {
-//                    if(object instanceof SimpleFeature){
-//                        ((SimpleFeature)object).setAttribute(index,value);
-//                    }else{
-//                        fallacc.set(object,xpath,value,target);
-//                    }
-//                    
-//                }
-//            };
-//        }else{
-            this.accessor = fallacc;
-//        }
-        
+        this.accessor = Bindings.getBinding(clazz,property);
+
+        //resolve the attribute index once, simple features can then be accessed directly
+        if(expectedType instanceof SimpleFeatureType && !property.startsWith("@")){
+            this.type = (SimpleFeatureType) expectedType;
+            this.index = type.indexOf(property);
+        }else{
+            this.type = null;
+            this.index = -1;
+        }
     }
 
     /**
@@ -87,6 +75,9 @@ class CachedPropertyName extends AbstractExpression implements PropertyName{
      */
     @Override
     public Object evaluate(final Object candidate) {
+        if(index >= 0 && candidate instanceof SimpleFeature && ((SimpleFeature)candidate).getType() == type){
+            return ((SimpleFeature)candidate).getAttribute(index);
+        }
         return accessor.get(candidate, property, null);
     }
 
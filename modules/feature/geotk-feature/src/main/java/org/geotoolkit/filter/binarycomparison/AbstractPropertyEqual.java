@@ -145,7 +145,7 @@ public abstract class AbstractPropertyEqual extends AbstractBinaryComparisonOper
         return false;
     }
 
-    private static boolean numberEqual(final Number value1, final Number value2){
+    static boolean numberEqual(final Number value1, final Number value2){
         final Number n1 = (Number) value1;
         final Number n2 = (Number) value2;
 
@@ -0,0 +1,194 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.filter.binarycomparison;
+
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * Comparison filters specialized for a numeric left expression and a constant right expression.
+ * When the left expression evaluates to a {@link Number}, the comparison is made directly
+ * on primitive values without converters, otherwise the default comparison is used.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class NumberComparisons {
+
+    private NumberComparisons(){}
+
+    /**
+     * Create a specialized version of the given comparison filter.
+     *
+     * @param filter comparison to specialize
+     * @param constant numeric value of the right expression
+     * @return specialized comparison, or the original filter if not supported
+     */
+    public static BinaryComparisonOperator specialize(final BinaryComparisonOperator filter, final Number constant){
+        final Expression left = filter.getExpression1();
+        final Expression right = filter.getExpression2();
+        final boolean match = filter.isMatchingCase();
+        final MatchAction action = filter.getMatchAction();
+
+        if(filter instanceof PropertyIsEqualTo){
+            return new NumberIsEqualTo(left, right, match, action, constant);
+        }else if(filter instanceof PropertyIsNotEqualTo){
+            return new NumberIsNotEqualTo(left, right, match, action, constant);
+        }else if(filter instanceof PropertyIsLessThan){
+            return new NumberIsLessThan(left, right, match, action, constant);
+        }else if(filter instanceof PropertyIsLessThanOrEqualTo){
+            return new NumberIsLessThanOrEqualTo(left, right, match, action, constant);
+        }else if(filter instanceof PropertyIsGreaterThan){
+            return new NumberIsGreaterThan(left, right, match, action, constant);
+        }else if(filter instanceof PropertyIsGreaterThanOrEqualTo){
+            return new NumberIsGreaterThanOrEqualTo(left, right, match, action, constant);
+        }
+        return filter;
+    }
+
+    /**
+     * Compare numbers, integer types are compared as long, others as double.
+     */
+    static int compare(final Number value, final Number constant){
+        if(isIntegral(value) && isIntegral(constant)){
+            final long l1 = value.longValue();
+            final long l2 = constant.longValue();
+            return (l1 < l2) ? -1 : ((l1 == l2) ? 0 : 1);
+        }
+        return Double.compare(value.doubleValue(), constant.doubleValue());
+    }
+
+    private static boolean isIntegral(final Number n){
+        return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte;
+    }
+
+    private static final class NumberIsEqualTo extends DefaultPropertyIsEqualTo{
+
+        private final Number constant;
+
+        private NumberIsEqualTo(final Expression left, final Expression right, final boolean match,
+                final MatchAction matchAction, final Number constant) {
+            super(left,right,match,matchAction);
+            this.constant = constant;
+        }
+
+        @Override
+        public boolean evaluate(final Object candidate) {
+            final Object value = left.evaluate(candidate);
+            if(value instanceof Number){
+                return numberEqual((Number)value, constant);
+            }
+            return super.evaluate(candidate);
+        }
+    }
+
+    private static final class NumberIsNotEqualTo extends DefaultPropertyIsNotEqualTo{
+
+        private final Number constant;
+
+        private NumberIsNotEqualTo(final Expression left, final Expression right, final boolean match,
+                final MatchAction matchAction, final Number constant) {
+            super(left,right,match,matchAction);
+            this.constant = constant;
+        }
+
+        @Override
+        public boolean evaluate(final Object candidate) {
+            final Object value = left.evaluate(candidate);
+            if(value instanceof Number){
+                return !numberEqual((Number)value, constant);
+            }
+            return super.evaluate(candidate);
+        }
+    }
+
+    private static final class NumberIsLessThan extends DefaultPropertyIsLessThan{
+
+        private final Number constant;
+
+        private NumberIsLessThan(final Expression left, final Expression right, final boolean match,
+                final MatchAction matchAction, final Number constant) {
+            super(left,right,match,matchAction);
+            this.constant = constant;
+        }
+
+        @Override
+        protected Integer compare(final Object object) {
+            final Object value = left.evaluate(object);
+            return (value instanceof Number) ? NumberComparisons.compare((Number)value, constant) : super.compare(object);
+        }
+    }
+
+    private static final class NumberIsLessThanOrEqualTo extends DefaultPropertyIsLessThanOrEqualTo{
+
+        private final Number constant;
+
+        private NumberIsLessThanOrEqualTo(final Expression left, final Expression right, final boolean match,
+                final MatchAction matchAction, final Number constant) {
+            super(left,right,match,matchAction);
+            this.constant = constant;
+        }
+
+        @Override
+        protected Integer compare(final Object object) {
+            final Object value = left.evaluate(object);
+            return (value instanceof Number) ? NumberComparisons.compare((Number)value, constant) : super.compare(object);
+        }
+    }
+
+    private static final class NumberIsGreaterThan extends DefaultPropertyIsGreaterThan{
+
+        private final Number constant;
+
+        private NumberIsGreaterThan(final Expression left, final Expression right, final boolean match,
+                final MatchAction matchAction, final Number constant) {
+            super(left,right,match,matchAction);
+            this.constant = constant;
+        }
+
+        @Override
+        protected Integer compare(final Object object) {
+            final Object value = left.evaluate(object);
+            return (value instanceof Number) ? NumberComparisons.compare((Number)value, constant) : super.compare(object);
+        }
+    }
+
+    private static final class NumberIsGreaterThanOrEqualTo extends DefaultPropertyIsGreaterThanOrEqualTo{
+
+        private final Number constant;
+
+        private NumberIsGreaterThanOrEqualTo(final Expression left, final Expression right, final boolean match,
+                final MatchAction matchAction, final Number constant) {
+            super(left,right,match,matchAction);
+            this.constant = constant;
+        }
+
+        @Override
+        protected Integer compare(final Object object) {
+            final Object value = left.evaluate(object);
+            return (value instanceof Number) ? NumberComparisons.compare((Number)value, constant) : super.compare(object);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.filter.binaryexpression;
+
+import org.opengis.filter.expression.Add;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Divide;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Multiply;
+import org.opengis.filter.expression.Subtract;
+
+/**
+ * Arithmetic expressions specialized for numeric operands.
+ * When both operands evaluate to {@link Number}, the operation is made directly
+ * on double values without converters, otherwise the default evaluation is used.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class NumberExpressions {
+
+    private NumberExpressions(){}
+
+    /**
+     * Create a specialized version of the given arithmetic expression.
+     *
+     * @param exp expression to specialize
+     * @return specialized expression, or the original expression if not supported
+     */
+    public static BinaryExpression specialize(final BinaryExpression exp){
+        final Expression left = exp.getExpression1();
+        final Expression right = exp.getExpression2();
+
+        if(exp instanceof Add){
+            return new NumberAdd(left, right);
+        }else if(exp instanceof Subtract){
+            return new NumberSubtract(left, right);
+        }else if(exp instanceof Multiply){
+            return new NumberMultiply(left, right);
+        }else if(exp instanceof Divide){
+            return new NumberDivide(left, right);
+        }
+        return exp;
+    }
+
+    private static final class NumberAdd extends DefaultAdd{
+
+        private NumberAdd(final Expression left, final Expression right) {
+            super(left,right);
+        }
+
+        @Override
+        public Object evaluate(final Object object) {
+            final Object val1 = left.evaluate(object);
+            final Object val2 = right.evaluate(object);
+            if(val1 instanceof Number && val2 instanceof Number){
+                return ((Number)val1).doubleValue() + ((Number)val2).doubleValue();
+            }
+            return super.evaluate(object);
+        }
+    }
+
+    private static final class NumberSubtract extends DefaultSubtract{
+
+        private NumberSubtract(final Expression left, final Expression right) {
+            super(left,right);
+        }
+
+        @Override
+        public Object evaluate(final Object object) {
+            final Object val1 = left.evaluate(object);
+            final Object val2 = right.evaluate(object);
+            if(val1 instanceof Number && val2 instanceof Number){
+                return ((Number)val1).doubleValue() - ((Number)val2).doubleValue();
+            }
+            return super.evaluate(object);
+        }
+    }
+
+    private static final class NumberMultiply extends DefaultMultiply{
+
+        private NumberMultiply(final Expression left, final Expression right) {
+            super(left,right);
+        }
+
+        @Override
+        public Object evaluate(final Object object) {
+            final Object val1 = left.evaluate(object);
+            final Object val2 = right.evaluate(object);
+            if(val1 instanceof Number && val2 instanceof Number){
+                return ((Number)val1).doubleValue() * ((Number)val2).doubleValue();
+            }
+            return super.evaluate(object);
+        }
+    }
+
+    private static final class NumberDivide extends DefaultDivide{
+
+        private NumberDivide(final Expression left, final Expression right) {
+            super(left,right);
+        }
+
+        @Override
+        public Object evaluate(final Object object) {
+            final Object val1 = left.evaluate(object);
+            final Object val2 = right.evaluate(object);
+            if(val1 instanceof Number && val2 instanceof Number){
+                return ((Number)val1).doubleValue() / ((Number)val2).doubleValue();
+            }
+            return super.evaluate(object);
+        }
+    }
+
+}
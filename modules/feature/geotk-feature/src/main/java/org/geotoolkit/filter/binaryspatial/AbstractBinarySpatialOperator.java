@@ -19,6 +19,8 @@ package org.geotoolkit.filter.binaryspatial;
 
 import org.geotoolkit.feature.Feature;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 
 import java.io.Serializable;
 import java.util.logging.Logger;
@@ -32,6 +34,7 @@ import org.geotoolkit.referencing.CRS;
 import org.apache.sis.util.logging.Logging;
 
 import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
 import org.opengis.filter.expression.PropertyName;
 import org.opengis.filter.spatial.BinarySpatialOperator;
 import org.opengis.util.FactoryException;
@@ -70,6 +73,9 @@ public abstract class AbstractBinarySpatialOperator<E extends Expression,F exten
     protected final E left;
     protected final F right;
 
+    //cache the literal operand, reprojected and prepared for the last used crs
+    private transient volatile PreparedLiteral preparedLiteral;
+
     protected AbstractBinarySpatialOperator(final E left, final F right){
         ensureNonNull("left", left);
         ensureNonNull("right", right);
@@ -93,6 +99,55 @@ public abstract class AbstractBinarySpatialOperator<E extends Expression,F exten
         return right;
     }
 
+    /**
+     * Get the literal operand if only one of the operands is a literal.
+     *
+     * @return literal operand or null if none or both operands are literals
+     */
+    protected Literal getSingleLiteral(){
+        if(left instanceof Literal){
+            return (right instanceof Literal) ? null : (Literal)left;
+        }else if(right instanceof Literal){
+            return (Literal)right;
+        }
+        return null;
+    }
+
+    /**
+     * Get the literal geometry prepared and reprojected in the crs of the given
+     * candidate geometry.
+     * The literal geometry is reprojected and prepared only once for each crs,
+     * the last result is cached and reused as long as the candidates crs does not change.
+     *
+     * @param literal constant operand
+     * @param candidate geometry of the other operand
+     * @return prepared geometry or null if the literal is not a geometry
+     */
+    protected PreparedGeometry toPreparedGeometry(final Literal literal, final Geometry candidate)
+            throws NoSuchAuthorityCodeException, FactoryException, TransformException{
+        final CoordinateReferenceSystem crs = JTS.findCoordinateReferenceSystem(candidate);
+
+        PreparedLiteral cache = preparedLiteral;
+        if(cache != null && cache.isValid(crs)){
+            return cache.geometry;
+        }
+
+        Geometry geom = toGeometry(null, literal);
+        if(geom == null){
+            return null;
+        }
+        final CoordinateReferenceSystem literalCRS = JTS.findCoordinateReferenceSystem(geom);
+        if(crs != null && literalCRS != null && !CRS.equalsIgnoreMetadata(literalCRS, crs)){
+            final MathTransform trs = CRS.findMathTransform(literalCRS, crs);
+            geom = JTS.transform(geom, trs);
+            JTS.setCRS(geom, crs);
+        }
+
+        cache = new PreparedLiteral(crs, PreparedGeometryFactory.prepare(geom));
+        preparedLiteral = cache;
+        return cache.geometry;
+    }
+
     protected static Unit toUnit(final String str){
         return Units.valueOf(str);
     }
@@ -229,4 +284,23 @@ public abstract class AbstractBinarySpatialOperator<E extends Expression,F exten
 
     }
 
+    /**
+     * Prepared literal geometry and the crs it is expressed in.
+     */
+    private static final class PreparedLiteral {
+
+        private final CoordinateReferenceSystem crs;
+        private final PreparedGeometry geometry;
+
+        private PreparedLiteral(final CoordinateReferenceSystem crs, final PreparedGeometry geometry) {
+            this.crs = crs;
+            this.geometry = geometry;
+        }
+
+        private boolean isValid(final CoordinateReferenceSystem candidate){
+            if(crs == candidate) return true;
+            return crs != null && candidate != null && CRS.equalsIgnoreMetadata(crs, candidate);
+        }
+    }
+
 }
@@ -19,12 +19,14 @@ package org.geotoolkit.filter.binaryspatial;
 
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geotoolkit.util.StringUtilities;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
 import org.opengis.filter.spatial.Intersects;
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.operation.TransformException;
@@ -46,6 +48,29 @@ public class DefaultIntersect extends AbstractBinarySpatialOperator<Expression,E
      */
     @Override
     public boolean evaluate(final Object object) {
+        final Literal literal = getSingleLiteral();
+        if(literal != null){
+            //one operand is constant, reuse it reprojected and prepared
+            final Geometry candidate = toGeometry(object, (literal == left) ? right : left);
+            if(candidate == null){
+                return false;
+            }
+            final PreparedGeometry prepared;
+            try {
+                prepared = toPreparedGeometry(literal, candidate);
+            } catch (FactoryException ex) {
+                Logger.getLogger(DefaultContains.class.getName()).log(Level.WARNING, null, ex);
+                return false;
+            } catch (TransformException ex) {
+                Logger.getLogger(DefaultContains.class.getName()).log(Level.WARNING, null, ex);
+                return false;
+            }
+            if(prepared == null){
+                return false;
+            }
+            return prepared.intersects(candidate);
+        }
+
         Geometry leftGeom = toGeometry(object, left);
         Geometry rightGeom = toGeometry(object, right);
 
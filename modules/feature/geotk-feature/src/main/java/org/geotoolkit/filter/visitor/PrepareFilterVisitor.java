@@ -17,18 +17,74 @@
 
 package org.geotoolkit.filter.visitor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.geotoolkit.feature.type.PropertyDescriptor;
 import org.geotoolkit.filter.FilterUtilities;
 import org.geotoolkit.feature.type.ComplexType;
+import org.geotoolkit.filter.binarycomparison.NumberComparisons;
+import org.geotoolkit.filter.binaryexpression.NumberExpressions;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Id;
+import org.opengis.filter.Not;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNil;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Add;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Divide;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.Multiply;
 import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.expression.Subtract;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.temporal.BinaryTemporalOperator;
 
 /**
  * Simplify and prepare the filter against a given target class.
  * All propertyName expression will be prepared against it.
+ * <p>
+ * The filter is also compiled for evaluation :
+ * <ul>
+ *   <li>arithmetic and comparisons on literals only are evaluated once</li>
+ *   <li>comparisons between a numeric property and a literal, and arithmetic
+ *       expressions, are replaced by number specialized implementations</li>
+ *   <li>AND and OR children are ordered by estimated evaluation cost, cheap
+ *       filters like BBOX and Id first</li>
+ * </ul>
+ * </p>
  *
  * @author Johann Sorel (Geomatys)
  */
 public class PrepareFilterVisitor extends SimplifyingFilterVisitor{
-    
+
+    /**
+     * Order filters by estimated evaluation cost.
+     */
+    private static final Comparator<Filter> COST_COMPARATOR = new Comparator<Filter>() {
+        @Override
+        public int compare(final Filter f1, final Filter f2) {
+            final int c1 = cost(f1);
+            final int c2 = cost(f2);
+            return (c1 < c2) ? -1 : ((c1 == c2) ? 0 : 1);
+        }
+    };
+
     private final Class clazz;
     private final ComplexType expectedType;
 
@@ -42,4 +98,193 @@ public class PrepareFilterVisitor extends SimplifyingFilterVisitor{
         return FilterUtilities.prepare(expression, clazz, expectedType);
     }
 
+    ////////////////////////////////////////////////////////////////////////////
+    // logic operators /////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public Object visit(final And filter, final Object extraData) {
+        final Object result = super.visit(filter, extraData);
+        if(result instanceof And){
+            final List<Filter> children = sortByCost(((And)result).getChildren());
+            if(children != null) return getFactory(extraData).and(children);
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(final Or filter, final Object extraData) {
+        final Object result = super.visit(filter, extraData);
+        if(result instanceof Or){
+            final List<Filter> children = sortByCost(((Or)result).getChildren());
+            if(children != null) return getFactory(extraData).or(children);
+        }
+        return result;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // comparison operators ////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public Object visit(final PropertyIsEqualTo filter, final Object extraData) {
+        return compile(super.visit(filter, extraData));
+    }
+
+    @Override
+    public Object visit(final PropertyIsNotEqualTo filter, final Object extraData) {
+        return compile(super.visit(filter, extraData));
+    }
+
+    @Override
+    public Object visit(final PropertyIsGreaterThan filter, final Object extraData) {
+        return compile(super.visit(filter, extraData));
+    }
+
+    @Override
+    public Object visit(final PropertyIsGreaterThanOrEqualTo filter, final Object extraData) {
+        return compile(super.visit(filter, extraData));
+    }
+
+    @Override
+    public Object visit(final PropertyIsLessThan filter, final Object extraData) {
+        return compile(super.visit(filter, extraData));
+    }
+
+    @Override
+    public Object visit(final PropertyIsLessThanOrEqualTo filter, final Object extraData) {
+        return compile(super.visit(filter, extraData));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // arithmetic expressions //////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public Object visit(final Add expression, final Object extraData) {
+        return compile((BinaryExpression)super.visit(expression, extraData), extraData);
+    }
+
+    @Override
+    public Object visit(final Subtract expression, final Object extraData) {
+        return compile((BinaryExpression)super.visit(expression, extraData), extraData);
+    }
+
+    @Override
+    public Object visit(final Multiply expression, final Object extraData) {
+        return compile((BinaryExpression)super.visit(expression, extraData), extraData);
+    }
+
+    @Override
+    public Object visit(final Divide expression, final Object extraData) {
+        return compile((BinaryExpression)super.visit(expression, extraData), extraData);
+    }
+
+    /**
+     * Evaluate comparisons on literals, specialize numeric property comparisons.
+     */
+    private Object compile(final Object candidate){
+        if(!(candidate instanceof BinaryComparisonOperator)){
+            return candidate;
+        }
+        final BinaryComparisonOperator filter = (BinaryComparisonOperator) candidate;
+        final Expression exp1 = filter.getExpression1();
+        final Expression exp2 = filter.getExpression2();
+        if(exp1 instanceof Literal && exp2 instanceof Literal){
+            return filter.evaluate(null) ? Filter.INCLUDE : Filter.EXCLUDE;
+        }
+        if(exp2 instanceof Literal && isNumeric(exp1)){
+            final Number constant = toNumber((Literal)exp2);
+            if(constant != null){
+                return NumberComparisons.specialize(filter, constant);
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Evaluate arithmetic on literals, specialize other arithmetic expressions.
+     */
+    private Expression compile(final BinaryExpression exp, final Object extraData){
+        final Expression exp1 = exp.getExpression1();
+        final Expression exp2 = exp.getExpression2();
+        if(exp1 instanceof Literal && exp2 instanceof Literal){
+            return getFactory(extraData).literal(exp.evaluate(null));
+        }
+        return NumberExpressions.specialize(exp);
+    }
+
+    /**
+     * @return true if the expression is a property of numeric type in the expected type
+     */
+    private boolean isNumeric(final Expression exp){
+        if(expectedType == null || !(exp instanceof PropertyName)){
+            return false;
+        }
+        final PropertyDescriptor desc;
+        try{
+            desc = expectedType.getDescriptor(((PropertyName)exp).getPropertyName());
+        }catch(IllegalArgumentException ex){
+            //not a simple property name
+            return false;
+        }
+        if(desc == null || desc.getType() == null){
+            return false;
+        }
+        final Class binding = desc.getType().getBinding();
+        return binding == Double.class || binding == Float.class || binding == Integer.class
+            || binding == Long.class || binding == Short.class || binding == Byte.class;
+    }
+
+    private static Number toNumber(final Literal literal){
+        final Object value = literal.getValue();
+        if(value instanceof Number){
+            return (Number) value;
+        }else if(value instanceof String){
+            try{
+                return Double.valueOf((String)value);
+            }catch(NumberFormatException ex){
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return children sorted by cost, or null if order is unchanged
+     */
+    private static List<Filter> sortByCost(final List<Filter> children){
+        final List<Filter> sorted = new ArrayList<Filter>(children);
+        Collections.sort(sorted, COST_COMPARATOR);
+        return sorted.equals(children) ? null : sorted;
+    }
+
+    /**
+     * Estimated relative cost of a filter evaluation.
+     */
+    private static int cost(final Filter filter){
+        if(filter instanceof BBOX || filter instanceof Id
+        || filter instanceof PropertyIsNull || filter instanceof PropertyIsNil){
+            return 1;
+        }else if(filter instanceof BinaryComparisonOperator || filter instanceof PropertyIsBetween){
+            return 2;
+        }else if(filter instanceof BinaryTemporalOperator){
+            return 3;
+        }else if(filter instanceof PropertyIsLike){
+            return 5;
+        }else if(filter instanceof Not){
+            return cost(((Not)filter).getFilter());
+        }else if(filter instanceof BinaryLogicOperator){
+            int cost = 0;
+            for(Filter child : ((BinaryLogicOperator)filter).getChildren()){
+                cost += cost(child);
+            }
+            return cost;
+        }else if(filter instanceof BinarySpatialOperator){
+            //intersects, within, dwithin... require geometry computations
+            return 10;
+        }
+        return 4;
+    }
+
 }
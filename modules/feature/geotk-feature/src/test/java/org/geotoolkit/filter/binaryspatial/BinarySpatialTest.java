@@ -261,5 +261,26 @@ public class BinarySpatialTest {
         assertTrue(within.evaluate(CANDIDATE_1));
 
     }
-    
+
+    /**
+     * Literal operands are prepared and cached, check results stay the same
+     * on both sides and over several evaluations.
+     */
+    @Test
+    public void testPreparedLiteral() {
+
+        final Intersects intersect = FF.intersects(FF.property("testGeometry"), FF.literal(GEOM_INTERSECT));
+        final Contains contains = FF.contains(FF.property("testGeometry"), FF.literal(GEOM_CONTAINS));
+        final Within within = FF.within(FF.property("testGeometry"), FF.literal(GEOM_CONTAINS));
+        final Disjoint disjoint = FF.disjoint(FF.property("testGeometry"), FF.literal(GEOM_DISTANCE_1));
+
+        for(int i=0;i<3;i++){
+            assertTrue(intersect.evaluate(CANDIDATE_1));
+            assertFalse(contains.evaluate(CANDIDATE_1));
+            assertTrue(within.evaluate(CANDIDATE_1));
+            assertTrue(disjoint.evaluate(CANDIDATE_1));
+        }
+
+    }
+
 }
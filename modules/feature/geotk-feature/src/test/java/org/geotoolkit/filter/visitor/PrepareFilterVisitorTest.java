@@ -0,0 +1,108 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.filter.visitor;
+
+import java.util.List;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.filter.FilterUtilities;
+import org.junit.Test;
+import org.opengis.filter.And;
+import org.opengis.filter.Filter;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.spatial.BBOX;
+import static org.geotoolkit.test.Assert.*;
+import static org.geotoolkit.filter.FilterTestConstants.*;
+
+/**
+ * Test prepare filter visitor.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class PrepareFilterVisitorTest {
+
+    /**
+     * Prepared filters must give the same results as the original ones.
+     */
+    @Test
+    public void testSameResults(){
+        final Filter[] filters = new Filter[]{
+            FF.greater(FF.property("testInteger"), FF.literal(100)),
+            FF.greater(FF.property("testInteger"), FF.literal(101)),
+            FF.greaterOrEqual(FF.property("testLong"), FF.literal(101)),
+            FF.less(FF.property("testDouble"), FF.literal(101.5)),
+            FF.lessOrEqual(FF.property("testFloat"), FF.literal("101")),
+            FF.equals(FF.property("testShort"), FF.literal(101d)),
+            FF.notEqual(FF.property("testByte"), FF.literal(101)),
+            FF.equals(FF.property("testString"), FF.literal("test string data")),
+            FF.less(FF.add(FF.property("testInteger"), FF.literal(1)), FF.literal(102.5)),
+            FF.equals(FF.multiply(FF.property("testDouble"), FF.property("testInteger")), FF.literal(10201)),
+            FF.and(FF.greater(FF.property("testInteger"), FF.literal(10)),
+                   FF.bbox("testGeometry", 0, 0, 20, 20, "EPSG:4326"))
+        };
+
+        for(Filter filter : filters){
+            final Filter prepared = FilterUtilities.prepare(filter, Feature.class, FEATURE_TYPE_1);
+            assertEquals(filter.toString(), filter.evaluate(FEATURE_1), prepared.evaluate(FEATURE_1));
+        }
+    }
+
+    /**
+     * Numeric comparisons are specialized but keep their interface.
+     */
+    @Test
+    public void testNumberComparison(){
+        final Filter filter = FF.greater(FF.property("testInteger"), FF.literal(100));
+        final Filter prepared = FilterUtilities.prepare(filter, Feature.class, FEATURE_TYPE_1);
+        assertTrue(prepared instanceof PropertyIsGreaterThan);
+        assertNotSame(filter.getClass(), prepared.getClass());
+        assertTrue(prepared.evaluate(FEATURE_1));
+    }
+
+    /**
+     * Literal only expressions and comparisons are evaluated once.
+     */
+    @Test
+    public void testConstantFolding(){
+        Filter filter = FF.greater(FF.property("testInteger"), FF.add(FF.literal(50), FF.literal(50)));
+        Filter prepared = FilterUtilities.prepare(filter, Feature.class, FEATURE_TYPE_1);
+        final Expression exp = ((PropertyIsGreaterThan)prepared).getExpression2();
+        assertTrue(exp instanceof Literal);
+        assertEquals(100d, ((Number)((Literal)exp).getValue()).doubleValue(), 0d);
+
+        filter = FF.less(FF.literal(1), FF.literal(2));
+        prepared = FilterUtilities.prepare(filter, Feature.class, FEATURE_TYPE_1);
+        assertEquals(Filter.INCLUDE, prepared);
+    }
+
+    /**
+     * AND children are ordered by cost, bbox first.
+     */
+    @Test
+    public void testCostOrdering(){
+        final Filter filter = FF.and(
+                FF.like(FF.property("testString"), "test*", "*", ".", "!"),
+                FF.bbox("testGeometry", 0, 0, 20, 20, "EPSG:4326"));
+        final Filter prepared = FilterUtilities.prepare(filter, Feature.class, FEATURE_TYPE_1);
+        assertTrue(prepared instanceof And);
+        final List<Filter> children = ((And)prepared).getChildren();
+        assertTrue(children.get(0) instanceof BBOX);
+        assertEquals(filter.evaluate(FEATURE_1), prepared.evaluate(FEATURE_1));
+    }
+
+}
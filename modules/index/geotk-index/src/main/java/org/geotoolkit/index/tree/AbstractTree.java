@@ -21,10 +21,12 @@ import org.geotoolkit.internal.tree.CalculatorND;
 import org.geotoolkit.internal.tree.Calculator;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Iterator;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.Classes;
 import static org.geotoolkit.internal.tree.TreeUtilities.*;
 import org.geotoolkit.internal.tree.TreeAccess;
+import org.geotoolkit.path.iterator.HilbertIterator;
 import org.geotoolkit.referencing.CRS;
 import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
@@ -37,6 +39,17 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
  */
 public abstract class AbstractTree<E> implements Tree<E> {
 
+    /**
+     * Bit number of Hilbert curve index used to sort data during bulk loading.<br/>
+     * Hilbert grid own 2<sup>20</sup> cells, 1024 x 1024 in 2D.
+     */
+    private static final int HILBERT_BITS = 20;
+
+    /**
+     * Grid cell index to Hilbert curve index tables, by dimension, created on first use.
+     */
+    private static final int[][] HILBERT_TABLES = new int[HILBERT_BITS + 1][];
+
     /**
      * Object which store Tree informations in memory or on hard disk.
      */
@@ -133,14 +146,7 @@ public abstract class AbstractTree<E> implements Tree<E> {
     @Override
     public void insert(final E object) throws IllegalArgumentException , StoreIndexException{
         try {
-            ArgumentChecks.ensureNonNull("insert : object", object);
-            final Envelope env = treeEltMap.getEnvelope(object);
-            if (!CRS.equalsIgnoreMetadata(crs, env.getCoordinateReferenceSystem()))
-                throw new IllegalArgumentException("During insertion element should have same CoordinateReferenceSystem as Tree.");
-            final double[] coordinates = TreeUtilities.getCoords(env);
-            for (double d : coordinates)
-                if (Double.isNaN(d))
-                    throw new IllegalArgumentException("coordinates contain at least one NAN value");
+            final double[] coordinates = getCoordinates(object);
             treeEltMap.setTreeIdentifier(object, treeIdentifier);
             insert(treeIdentifier, coordinates);
             treeIdentifier++;
@@ -148,6 +154,274 @@ public abstract class AbstractTree<E> implements Tree<E> {
             throw new StoreIndexException(ex);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bulkLoad(final Iterator<? extends E> objects) throws IllegalArgumentException, StoreIndexException {
+        ArgumentChecks.ensureNonNull("bulkLoad : objects", objects);
+        try {
+            int[] identifiers     = new int[1024];
+            double[][] entries    = new double[1024][];
+            int nb = 0;
+            while (objects.hasNext()) {
+                final E object = objects.next();
+                final double[] coordinates = getCoordinates(object);
+                treeEltMap.setTreeIdentifier(object, treeIdentifier);
+                if (nb == identifiers.length) {
+                    identifiers = Arrays.copyOf(identifiers, nb << 1);
+                    entries     = Arrays.copyOf(entries, nb << 1);
+                }
+                identifiers[nb] = treeIdentifier++;
+                entries[nb++]   = coordinates;
+            }
+            if (nb == 0) return;
+            identifiers = Arrays.copyOf(identifiers, nb);
+            entries     = Arrays.copyOf(entries, nb);
+
+            final Node root = getRoot();
+            if (root == null || root.isEmpty()) {
+                bulkInsert(identifiers, entries);
+            } else {
+                // tree already filled, insert one by one following Hilbert order to keep locality.
+                for (int i : hilbertOrder(entries)) {
+                    insert(identifiers[i], entries[i]);
+                }
+            }
+        } catch (IOException ex) {
+            throw new StoreIndexException(this.getClass().getName()+" bulkLoad(), impossible to add elements.", ex);
+        }
+    }
+
+    /**
+     * Return boundary coordinates of the given object, after checking its {@link CoordinateReferenceSystem}.
+     *
+     * @param object data which will be inserted.
+     * @return data boundary.
+     * @throws IOException if problem during {@link Envelope} reading from {@link TreeElementMapper}.
+     */
+    private double[] getCoordinates(final E object) throws IOException {
+        ArgumentChecks.ensureNonNull("insert : object", object);
+        final Envelope env = treeEltMap.getEnvelope(object);
+        if (!CRS.equalsIgnoreMetadata(crs, env.getCoordinateReferenceSystem()))
+            throw new IllegalArgumentException("During insertion element should have same CoordinateReferenceSystem as Tree.");
+        final double[] coordinates = TreeUtilities.getCoords(env);
+        for (double d : coordinates)
+            if (Double.isNaN(d))
+                throw new IllegalArgumentException("coordinates contain at least one NAN value");
+        return coordinates;
+    }
+
+    /**
+     * Fill an empty Tree with all given datas.<br/><br/>
+     *
+     * Datas are packed with Sort-Tile-Recursive : leaf Nodes are filled with {@link #getMaxElements() }
+     * datas of the same tile, see {@link #strOrder(double[][], int) }, and upper Nodes are built
+     * the same way from the Nodes of the level below, until root Node.<br/>
+     * Each Node is written only once, no split is done.
+     *
+     * @param identifiers data tree identifiers.
+     * @param coordinates data boundaries.
+     * @throws IOException if problem during Node writing.
+     * @throws StoreIndexException if problem during root affectation.
+     */
+    protected void bulkInsert(final int[] identifiers, final double[][] coordinates) throws IOException, StoreIndexException {
+        final int maxElements = getMaxElements();
+        final int nb = identifiers.length;
+        final int[] order = strOrder(coordinates, maxElements);
+        Node root = getRoot();
+        if (root == null) {
+            root = createNode(null, IS_LEAF, 0, 0, 0);
+        } else {
+            root.clear();
+            root.setProperties(IS_LEAF);
+        }
+        if (nb <= maxElements) {
+            root.addChildren(createDatas(identifiers, coordinates, order, 0, nb));
+        } else {
+            // leaves
+            Node[] level = new Node[(nb + maxElements - 1) / maxElements];
+            for (int i = 0, n = 0; i < nb; i += maxElements, n++) {
+                final Node leaf = createNode(null, IS_LEAF, 0, 0, 0);
+                leaf.addChildren(createDatas(identifiers, coordinates, order, i, Math.min(i + maxElements, nb)));
+                level[n] = leaf;
+            }
+            // upper levels
+            while (level.length > maxElements) {
+                final double[][] boundaries = new double[level.length][];
+                for (int i = 0; i < level.length; i++) {
+                    boundaries[i] = level[i].getBoundary();
+                }
+                final int[] levelOrder = strOrder(boundaries, maxElements);
+                final Node[] upper = new Node[(level.length + maxElements - 1) / maxElements];
+                for (int i = 0, n = 0; i < level.length; i += maxElements, n++) {
+                    final Node[] children = new Node[Math.min(i + maxElements, level.length) - i];
+                    for (int c = 0; c < children.length; c++) {
+                        children[c] = level[levelOrder[i + c]];
+                    }
+                    final Node parent = createNode(null, IS_OTHER, 0, 0, 0);
+                    parent.addChildren(children);
+                    upper[n] = parent;
+                }
+                level = upper;
+            }
+            root.setProperties(IS_OTHER);
+            root.addChildren(level);
+        }
+        eltCompteur += nb;
+        setRoot(root);
+    }
+
+    /**
+     * Create data Nodes from index {@code from} inclusive to {@code to} exclusive of {@code order} table.
+     */
+    private Node[] createDatas(final int[] identifiers, final double[][] coordinates, final int[] order, final int from, final int to) {
+        final Node[] datas = new Node[to - from];
+        for (int i = from; i < to; i++) {
+            final int index = order[i];
+            datas[i - from] = createNode(coordinates[index], IS_DATA, 0, 0, -identifiers[index]);
+        }
+        return datas;
+    }
+
+    /**
+     * Sort boundaries following Sort-Tile-Recursive order.<br/><br/>
+     *
+     * Boundaries are sorted by center on the first dimension and cut in slabs which hold
+     * the same number of Nodes, each slab is then sorted and cut on the next dimension,
+     * until the last dimension. Consecutive groups of {@code maxElements} boundaries in
+     * the returned order are tiles of close boundaries, which gives little overlapping Nodes.
+     *
+     * @param boundaries data or Node boundaries.
+     * @param maxElements maximum element number per Node.
+     * @return index of boundaries in given table, in STR order.
+     */
+    protected static int[] strOrder(final double[][] boundaries, final int maxElements) {
+        final int[] order = new int[boundaries.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        strSort(boundaries, order, 0, order.length, 0, boundaries[0].length >> 1, maxElements);
+        return order;
+    }
+
+    /**
+     * Sort {@code order} from index {@code from} inclusive to {@code to} exclusive on dimension
+     * {@code d}, then cut it in slabs sorted on the next dimensions.
+     */
+    private static void strSort(final double[][] boundaries, final int[] order, final int from, final int to,
+            final int d, final int dim, final int maxElements) {
+        sortByCenter(boundaries, order, from, to, d, dim);
+        if (d == dim - 1) return;
+        final int nbNodes = (to - from + maxElements - 1) / maxElements;
+        // slab number on this dimension, Nodes are shared out evenly on remaining dimensions.
+        final int nbSlabs  = (int) Math.ceil(Math.pow(nbNodes, 1.0 / (dim - d)));
+        final int slabSize = maxElements * ((nbNodes + nbSlabs - 1) / nbSlabs);
+        for (int i = from; i < to; i += slabSize) {
+            strSort(boundaries, order, i, Math.min(i + slabSize, to), d + 1, dim, maxElements);
+        }
+    }
+
+    /**
+     * Sort {@code order} from index {@code from} inclusive to {@code to} exclusive by boundary
+     * centers on dimension {@code d}.<br/>
+     * Centers are compared as float values, which is enough to cut tiles.
+     */
+    private static void sortByCenter(final double[][] boundaries, final int[] order, final int from, final int to,
+            final int d, final int dim) {
+        final long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            final double[] bound = boundaries[order[i]];
+            int bits = Float.floatToIntBits((float) ((bound[d] + bound[d + dim]) / 2));
+            // negative float bits in reverse order, flip them to get a signed int order.
+            bits ^= (bits >> 31) & 0x7FFFFFFF;
+            keys[i - from] = ((long) bits << 32) | order[i];
+        }
+        Arrays.sort(keys);
+        for (int i = from; i < to; i++) {
+            order[i] = (int) keys[i - from];
+        }
+    }
+
+    /**
+     * Sort datas following Hilbert curve order of their boundary centers.<br/>
+     * Centers are placed in a regular grid over all datas extent, grid cells are
+     * ordered with {@link HilbertIterator}.
+     *
+     * @param coordinates data boundaries.
+     * @return index of datas in coordinates table, in Hilbert order.
+     */
+    protected static int[] hilbertOrder(final double[][] coordinates) {
+        final int nb  = coordinates.length;
+        final int dim = coordinates[0].length >> 1;
+        final double[] min = new double[dim];
+        final double[] max = new double[dim];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        for (double[] coords : coordinates) {
+            for (int d = 0; d < dim; d++) {
+                final double center = (coords[d] + coords[d + dim]) / 2;
+                if (center < min[d]) min[d] = center;
+                if (center > max[d]) max[d] = center;
+            }
+        }
+
+        final int hilbertOrder = Math.max(1, HILBERT_BITS / dim);
+        final int side = 1 << hilbertOrder;
+        // grid cell index -> hilbert curve index, not needed in 1D.
+        final int[] hilbertTable = (dim > 1) ? getHilbertTable(dim) : null;
+
+        final long[] keys = new long[nb];
+        for (int i = 0; i < nb; i++) {
+            final double[] coords = coordinates[i];
+            int index = 0;
+            for (int d = dim - 1; d >= 0; d--) {
+                final double span = max[d] - min[d];
+                int c = 0;
+                if (span > 0) {
+                    final double center = (coords[d] + coords[d + dim]) / 2;
+                    c = Math.min(side - 1, (int) ((center - min[d]) / span * side));
+                }
+                index = index * side + c;
+            }
+            final long hilbert = (hilbertTable == null) ? index : hilbertTable[index];
+            keys[i] = (hilbert << 32) | i;
+        }
+        Arrays.sort(keys);
+        final int[] order = new int[nb];
+        for (int i = 0; i < nb; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Return the table of Hilbert curve index by grid cell index for the given dimension,
+     * computed once with {@link HilbertIterator}.
+     *
+     * @param dim grid dimension, greater than 1.
+     * @return Hilbert curve index of each grid cell.
+     */
+    private static int[] getHilbertTable(final int dim) {
+        synchronized (HILBERT_TABLES) {
+            int[] table = (dim < HILBERT_TABLES.length) ? HILBERT_TABLES[dim] : null;
+            if (table == null) {
+                final int hilbertOrder = Math.max(1, HILBERT_BITS / dim);
+                final int side = 1 << hilbertOrder;
+                final HilbertIterator ite = new HilbertIterator(hilbertOrder, dim);
+                table = new int[1 << (hilbertOrder * dim)];
+                for (int h = 0; ite.hasNext(); h++) {
+                    final int[] cell = ite.next();
+                    int index = 0;
+                    for (int d = dim - 1; d >= 0; d--) {
+                        index = index * side + cell[d];
+                    }
+                    table[index] = h;
+                }
+                if (dim < HILBERT_TABLES.length) HILBERT_TABLES[dim] = table;
+            }
+            return table;
+        }
+    }
     
     /**
      * {@inheritDoc}
@@ -21,6 +21,7 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Iterator;
 
 /**
  * Define a generic Tree.
@@ -61,6 +62,23 @@ public interface Tree<E> extends Closeable {
      * @throws StoreIndexException if problem during reading writing element on file. 
      */
     void insert(final E object) throws StoreIndexException;
+
+    /**
+     * Insert all Objects into Rtree.<br/><br/>
+     *
+     * If Tree is empty, objects are packed in Sort-Tile-Recursive order of their envelope centers,
+     * Nodes are filled and written bottom-up without any split, which is a lot faster than
+     * inserting each object and gives fully packed Nodes.
+     * Else objects are inserted one by one following Hilbert curve order of their envelope centers.
+     *
+     * <blockquote><font size=-1>
+     * <strong>NOTE: all objects envelopes are kept in memory during loading.</strong>
+     * </font></blockquote>
+     *
+     * @param objects all objects which will be inserted.
+     * @throws StoreIndexException if problem during reading writing element on file.
+     */
+    void bulkLoad(final Iterator<? extends E> objects) throws StoreIndexException;
     
     /**
      * Find an object define by user and remove it from RTree. 
@@ -61,6 +61,18 @@ abstract class HilbertRTree<E> extends AbstractTree<E> {
         treeIdentifier = treeAccess.getTreeIdentifier();
     }
     
+    /**
+     * {@inheritDoc }.<br/><br/>
+     * Note : in this implementation, leaf Nodes store datas in Hilbert cells which can not be
+     * filled without computing each data Hilbert value, datas are inserted one by one following Hilbert order.
+     */
+    @Override
+    protected void bulkInsert(final int[] identifiers, final double[][] coordinates) throws IOException, StoreIndexException {
+        for (int i : hilbertOrder(coordinates)) {
+            insert(identifiers[i], coordinates[i]);
+        }
+    }
+    
     /**
      * {@inheritDoc }.<br/><br/>
      * Note : in this implementation, a fully leaf Node is split before be overflowed 
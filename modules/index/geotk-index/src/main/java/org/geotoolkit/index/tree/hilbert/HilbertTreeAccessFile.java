@@ -18,6 +18,7 @@ package org.geotoolkit.index.tree.hilbert;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import org.apache.sis.util.ArraysExt;
 import static org.geotoolkit.internal.tree.TreeUtilities.intersects;
 import org.geotoolkit.index.tree.Node;
@@ -143,23 +144,31 @@ final class HilbertTreeAccessFile extends TreeAccessFile {
         } 
     }
         
+    /**
+     * {@inheritDoc }.<br/>
+     * Hilbert cells without boundary are not explored.
+     */
+    @Override
+    protected boolean intersectsRegion(final double[] boundary, final double[] regionSearch) {
+        return !ArraysExt.hasNaN(boundary) && intersects(boundary, regionSearch, true);
+    }
+        
     /**
      * {@inheritDoc }.
      */
     @Override
-    public synchronized Node readNode(final int indexNode) throws IOException {
-        adjustBuffer(indexNode);
+    protected Node decodeNode(final ByteBuffer buffer, int offset, final int indexNode) {
         final double[] boundary = new double[boundLength];
-        for (int i = 0; i < boundLength; i++) {
-            boundary[i] = byteBuffer.getDouble();
+        for (int i = 0; i < boundLength; i++, offset += 8) {
+            boundary[i] = buffer.getDouble(offset);
         }
-        final byte properties         = byteBuffer.get();
-        final int parentId            = byteBuffer.getInt();
-        final int siblingId           = byteBuffer.getInt();
-        final int childId             = byteBuffer.getInt();
-        final int currentHilbertOrder = byteBuffer.getInt();
-        final int childCount          = byteBuffer.getInt();
-        final int dataCount           = byteBuffer.getInt();
+        final byte properties         = buffer.get(offset);
+        final int parentId            = buffer.getInt(offset + 1);
+        final int siblingId           = buffer.getInt(offset + 5);
+        final int childId             = buffer.getInt(offset + 9);
+        final int currentHilbertOrder = buffer.getInt(offset + 13);
+        final int childCount          = buffer.getInt(offset + 17);
+        final int dataCount           = buffer.getInt(offset + 21);
         final HilbertNode redNode = new HilbertNode(this, indexNode, boundary, properties, parentId, siblingId, childId);
         redNode.setCurrentHilbertOrder(currentHilbertOrder);
         redNode.setChildCount(childCount);
@@ -171,30 +180,26 @@ final class HilbertTreeAccessFile extends TreeAccessFile {
      * {@inheritDoc }.
      */
     @Override
-    public synchronized void writeNode(final Node candidate) throws IOException {
-        final int indexNode    = candidate.getNodeId();
-        adjustBuffer(indexNode);
-        writeBufferLimit = Math.max(writeBufferLimit, byteBuffer.limit());
+    protected void encodeNode(final ByteBuffer buffer, final Node candidate) {
         double[] candidateBound = candidate.getBoundary();
         if (candidateBound == null) candidateBound = nanBound;
         for (int i = 0; i < boundLength; i++) {
-            byteBuffer.putDouble(candidateBound[i]);
+            buffer.putDouble(candidateBound[i]);
         }
-        byteBuffer.put(candidate.getProperties());
-        byteBuffer.putInt(candidate.getParentId());
-        byteBuffer.putInt(candidate.getSiblingId());
-        byteBuffer.putInt(candidate.getChildId());
-        byteBuffer.putInt(((HilbertNode)candidate).getCurrentHilbertOrder());
-        byteBuffer.putInt(candidate.getChildCount());
-        byteBuffer.putInt(((HilbertNode)candidate).getDataCount());
+        buffer.put(candidate.getProperties());
+        buffer.putInt(candidate.getParentId());
+        buffer.putInt(candidate.getSiblingId());
+        buffer.putInt(candidate.getChildId());
+        buffer.putInt(((HilbertNode)candidate).getCurrentHilbertOrder());
+        buffer.putInt(candidate.getChildCount());
+        buffer.putInt(((HilbertNode)candidate).getDataCount());
     }
        
     /**
      * {@inheritDoc }.
      */
     @Override
-     public synchronized Node createNode(double[] boundary, byte properties, int parentId, int siblingId, int childId) {
-         final int currentID = (!recycleID.isEmpty()) ? recycleID.remove(0) : nodeId++;
-            return new HilbertNode(this, currentID, (boundary == null) ? nanBound : boundary, properties, parentId, siblingId, childId);
+     public Node createNode(double[] boundary, byte properties, int parentId, int siblingId, int childId) {
+            return new HilbertNode(this, nextNodeID(), (boundary == null) ? nanBound : boundary, properties, parentId, siblingId, childId);
      }
 }
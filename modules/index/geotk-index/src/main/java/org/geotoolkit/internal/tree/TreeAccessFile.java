@@ -25,8 +25,11 @@ import java.io.ObjectOutputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.sis.util.ArgumentChecks;
 import org.geotoolkit.index.tree.Node;
@@ -37,7 +40,12 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 /**
  * {@link TreeAccess} implementation.<br/>
- * Store all {@link Node} architecture use by {@link Tree} on disk drive.
+ * Store all {@link Node} architecture use by {@link Tree} on disk drive.<br/><br/>
+ *
+ * When the tree file is opened or flushed, Node area is memory mapped and searches
+ * decode Nodes directly from the mapped buffer, many threads may search at the same time.<br/>
+ * Nodes written since the mapping are read from the read/write {@link ByteBuffer} or from
+ * the file channel, other Nodes are still read from the mapping until next {@link #flush() }.
  * 
  * @author Rémi Maréchal (Geomatys).
  */
@@ -101,6 +109,23 @@ public class TreeAccessFile extends TreeAccess {
     protected int writeBufferLimit;
     private long currentBufferPosition;
     private int rwIndex;
+
+    /**
+     * Read only mapping of all Nodes, null if the file has not been mapped.<br/>
+     * The mapping is released when the buffer is garbage collected.
+     */
+    private MappedByteBuffer mappedBuffer;
+
+    /**
+     * Identifiers of Nodes written since last mapping, their mapped content may be out of date.
+     */
+    private final BitSet writtenNodes = new BitSet();
+
+    /**
+     * Searches on {@link #mappedBuffer} share the read lock,
+     * write lock is held by all methods using {@link #byteBuffer} or modifying file.
+     */
+    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
     
     /**
      * Build a {@link Tree} from a already filled {@link File}.<br/><br/>
@@ -232,6 +257,7 @@ public class TreeAccessFile extends TreeAccess {
         
         // root 
         inOutChannel.read(byteBuffer, currentBufferPosition);
+        mapNodes();
         root = this.readNode(1);
     }
     
@@ -429,21 +455,123 @@ public class TreeAccessFile extends TreeAccess {
         } 
     }
         
+    /**
+     * {@inheritDoc }.<br/>
+     * If Nodes are memory mapped, search is made without blocking concurrent searches.
+     */
+    @Override
+    public int[] search(final int nodeID, final double[] regionSearch) throws IOException {
+        rwLock.readLock().lock();
+        try {
+            final MappedByteBuffer buffer = mappedBuffer;
+            if (buffer != null) {
+                final SearchResult result = new SearchResult();
+                mappedSearch(buffer, nodeID, regionSearch, new double[boundLength], result);
+                return Arrays.copyOf(result.values, result.size);
+            }
+        } finally {
+            rwLock.readLock().unlock();
+        }
+        rwLock.writeLock().lock();
+        try {
+            return super.search(nodeID, regionSearch);
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #internalSearch(int) } but read Nodes from mapped buffer
+     * and store results in given {@link SearchResult}.<br/>
+     * Caller must hold read lock.
+     */
+    private void mappedSearch(final MappedByteBuffer mapped, final int nodeID, final double[] regionSearch,
+            final double[] boundary, final SearchResult result) throws IOException {
+        final ByteBuffer buffer;
+        final int offset;
+        if (isMapped(mapped, nodeID)) {
+            buffer = mapped;
+            offset = (nodeID - 1) * nodeSize;
+        } else {
+            buffer = readWrittenNode(nodeID);
+            offset = 0;
+        }
+        final int idIndex = offset + boundLength * 8 + 5;// step boundary, properties (1 byte) and parent ID (int : 4 bytes)
+        final int sibling = buffer.getInt(idIndex);
+        final int child   = buffer.getInt(idIndex + 4);
+        if (sibling != 0) {
+            mappedSearch(mapped, sibling, regionSearch, boundary, result);
+        }
+        for (int i = 0; i < boundLength; i++) {
+            boundary[i] = buffer.getDouble(offset + i * 8);
+        }
+        if (intersectsRegion(boundary, regionSearch)) {
+            if (child > 0) {
+                mappedSearch(mapped, child, regionSearch, boundary, result);
+            } else {
+                if (child == 0)
+                    throw new IllegalStateException("child index should never be 0.");
+                result.add(-child);
+            }
+        }
+    }
+
+    /**
+     * Return true if Node with given boundary should be explored by search.
+     *
+     * @param boundary Node boundary.
+     * @param regionSearch boundary of search region.
+     * @return true if Node intersects region search.
+     */
+    protected boolean intersectsRegion(final double[] boundary, final double[] regionSearch) {
+        return intersects(boundary, regionSearch, true);
+    }
+
     /**
      * {@inheritDoc }.
      */
     @Override
-    public synchronized Node readNode(final int indexNode) throws IOException {
-        adjustBuffer(indexNode);
+    public Node readNode(final int indexNode) throws IOException {
+        rwLock.readLock().lock();
+        try {
+            final MappedByteBuffer buffer = mappedBuffer;
+            if (buffer != null) {
+                if (isMapped(buffer, indexNode)) {
+                    return decodeNode(buffer, (indexNode - 1) * nodeSize, indexNode);
+                }
+                return decodeNode(readWrittenNode(indexNode), 0, indexNode);
+            }
+        } finally {
+            rwLock.readLock().unlock();
+        }
+        rwLock.writeLock().lock();
+        try {
+            adjustBuffer(indexNode);
+            return decodeNode(byteBuffer, byteBuffer.position(), indexNode);
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Build Node from buffer at specified position.<br/>
+     * Only absolute get methods are used, buffer position is not modified.
+     *
+     * @param buffer buffer which contains Node.
+     * @param offset Node position in buffer.
+     * @param indexNode Node identifier.
+     * @return red Node.
+     */
+    protected Node decodeNode(final ByteBuffer buffer, int offset, final int indexNode) {
         final double[] boundary = new double[boundLength];
-        for (int i = 0; i < boundLength; i++) {
-            boundary[i] = byteBuffer.getDouble();
+        for (int i = 0; i < boundLength; i++, offset += 8) {
+            boundary[i] = buffer.getDouble(offset);
         }
-        final byte properties  = byteBuffer.get();
-        final int parentId     = byteBuffer.getInt();
-        final int siblingId    = byteBuffer.getInt();
-        final int childId      = byteBuffer.getInt();
-        final int childCount   = byteBuffer.getInt();
+        final byte properties  = buffer.get(offset);
+        final int parentId     = buffer.getInt(offset + 1);
+        final int siblingId    = buffer.getInt(offset + 5);
+        final int childId      = buffer.getInt(offset + 9);
+        final int childCount   = buffer.getInt(offset + 13);
         final Node redNode = new Node(this, indexNode, boundary, properties, parentId, siblingId, childId);
         redNode.setChildCount(childCount);
         return redNode;
@@ -453,20 +581,99 @@ public class TreeAccessFile extends TreeAccess {
      * {@inheritDoc }.
      */
     @Override
-    public synchronized void writeNode(final Node candidate) throws IOException {
-        final int indexNode    = candidate.getNodeId();
-        adjustBuffer(indexNode);
-        writeBufferLimit = Math.max(writeBufferLimit, byteBuffer.limit());
+    public void writeNode(final Node candidate) throws IOException {
+        rwLock.writeLock().lock();
+        try {
+            if (mappedBuffer != null) writtenNodes.set(candidate.getNodeId());
+            adjustBuffer(candidate.getNodeId());
+            writeBufferLimit = Math.max(writeBufferLimit, byteBuffer.limit());
+            encodeNode(byteBuffer, candidate);
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write Node at buffer current position.
+     *
+     * @param buffer buffer positioned at Node place.
+     * @param candidate Node which will be written.
+     */
+    protected void encodeNode(final ByteBuffer buffer, final Node candidate) {
         double[] candidateBound = candidate.getBoundary();
         if (candidateBound == null) candidateBound = nanBound;
         for (int i = 0; i < boundLength; i++) {
-            byteBuffer.putDouble(candidateBound[i]);
+            buffer.putDouble(candidateBound[i]);
+        }
+        buffer.put(candidate.getProperties());
+        buffer.putInt(candidate.getParentId());
+        buffer.putInt(candidate.getSiblingId());
+        buffer.putInt(candidate.getChildId());
+        buffer.putInt(candidate.getChildCount());
+    }
+
+    /**
+     * Map all written Nodes in memory.<br/>
+     * Caller must hold write lock and {@link #byteBuffer} content must already be written in file.
+     *
+     * @throws IOException if problem during file mapping.
+     */
+    private void mapNodes() throws IOException {
+        unmapNodes();
+        final long length = Math.min((long) (nodeId - 1) * nodeSize, inOutChannel.size() - beginPosition);
+        if (length <= 0 || length > Integer.MAX_VALUE) return;
+        final MappedByteBuffer buffer = inOutChannel.map(FileChannel.MapMode.READ_ONLY, beginPosition, length);
+        buffer.order(byteBuffer.order());
+        mappedBuffer = buffer;
+    }
+
+    /**
+     * Drop Nodes mapping, the mapping is released when the buffer is garbage collected.<br/>
+     * Caller must hold write lock.
+     */
+    private void unmapNodes() {
+        mappedBuffer = null;
+        writtenNodes.clear();
+    }
+
+    /**
+     * Return true if Node content can be read from given mapping.<br/>
+     * Caller must hold read or write lock.
+     *
+     * @param mapped current Nodes mapping.
+     * @param nodeID Node identifier.
+     */
+    private boolean isMapped(final MappedByteBuffer mapped, final int nodeID) {
+        return !writtenNodes.get(nodeID) && (long) nodeID * nodeSize <= mapped.capacity();
+    }
+
+    /**
+     * Read a Node which is not in the mapping.<br/>
+     * The Node is copied from the read/write {@link ByteBuffer} if it is in its current window,
+     * read from the file channel otherwise. Neither {@link ByteBuffer} nor channel positions are
+     * modified, so the caller only needs to hold read lock.
+     *
+     * @param nodeID Node identifier.
+     * @return buffer which contains the Node at position 0.
+     * @throws IOException if problem during file reading.
+     */
+    private ByteBuffer readWrittenNode(final int nodeID) throws IOException {
+        final ByteBuffer node = ByteBuffer.allocate(nodeSize);
+        node.order(byteBuffer.order());
+        final long filePosition = beginPosition + (long) (nodeID - 1) * nodeSize;
+        if (filePosition >= currentBufferPosition && filePosition + nodeSize <= currentBufferPosition + bufferLength) {
+            final int offset = (int) (filePosition - currentBufferPosition);
+            for (int i = 0; i < nodeSize; i++) {
+                node.put(i, byteBuffer.get(offset + i));
+            }
+        } else {
+            while (node.hasRemaining()) {
+                if (inOutChannel.read(node, filePosition + node.position()) < 0) {
+                    throw new IOException("Node "+nodeID+" is beyond end of tree file.");
+                }
+            }
         }
-        byteBuffer.put(candidate.getProperties());
-        byteBuffer.putInt(candidate.getParentId());
-        byteBuffer.putInt(candidate.getSiblingId());
-        byteBuffer.putInt(candidate.getChildId());
-        byteBuffer.putInt(candidate.getChildCount());
+        return node;
     }
     
     /**
@@ -501,45 +708,85 @@ public class TreeAccessFile extends TreeAccess {
      * {@inheritDoc }.
      */
     @Override
-    public synchronized void removeNode(final Node candidate) {
-        recycleID.add(candidate.getNodeId());
+    public Node createNode(double[] boundary, byte properties, int parentId, int siblingId, int childId) {
+        return new Node(this, nextNodeID(), boundary, properties, parentId, siblingId, childId);
     }
-    
+
+    /**
+     * Return identifier of the next created Node, a recycled one if possible.<br/>
+     * Write lock is held because {@link #flush() } maps Nodes from current identifier.
+     *
+     * @return next Node identifier.
+     */
+    protected int nextNodeID() {
+        rwLock.writeLock().lock();
+        try {
+            return (recycleID.isEmpty()) ? nodeId++ : recycleID.remove(0);
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
     /**
      * {@inheritDoc }.
      */
     @Override
-    public synchronized void rewind() throws IOException {
-        super.rewind();
-        byteBuffer.position(0);
-        byteBuffer.limit(writeBufferLimit);
-        int writtenByte = 0;
-        while (writtenByte != writeBufferLimit) {
-            writtenByte = inOutChannel.write(byteBuffer, currentBufferPosition);
+    public void removeNode(final Node candidate) {
+        rwLock.writeLock().lock();
+        try {
+            recycleID.add(candidate.getNodeId());
+        } finally {
+            rwLock.writeLock().unlock();
         }
-        inOutChannel.position(beginPosition);
-        currentBufferPosition = beginPosition;
-        writeBufferLimit = 0;
     }
-
+    
     /**
      * {@inheritDoc }.
      */
     @Override
-     public synchronized void flush() throws IOException {
+    public void rewind() throws IOException {
+        rwLock.writeLock().lock();
+        try {
+            unmapNodes();
+            super.rewind();
+            byteBuffer.position(0);
+            byteBuffer.limit(writeBufferLimit);
+            int writtenByte = 0;
+            while (writtenByte != writeBufferLimit) {
+                writtenByte = inOutChannel.write(byteBuffer, currentBufferPosition);
+            }
+            inOutChannel.position(beginPosition);
+            currentBufferPosition = beginPosition;
+            writeBufferLimit = 0;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
 
-        byteBuffer.position(0);
-        byteBuffer.limit(writeBufferLimit);
-        int writtenByte = 0;
-        while (writtenByte != writeBufferLimit) {
-            writtenByte = inOutChannel.write(byteBuffer, currentBufferPosition);
+    /**
+     * {@inheritDoc }.<br/>
+     * Nodes are memory mapped again after flush.
+     */
+    @Override
+     public void flush() throws IOException {
+        rwLock.writeLock().lock();
+        try {
+            byteBuffer.position(0);
+            byteBuffer.limit(writeBufferLimit);
+            int writtenByte = 0;
+            while (writtenByte != writeBufferLimit) {
+                writtenByte = inOutChannel.write(byteBuffer, currentBufferPosition);
+            }
+            // write nodeID
+            inOutChannel.position(22);
+            inOutStream.writeInt(nodeId);
+            inOutStream.writeInt(treeIdentifier);
+            inOutStream.writeInt(eltNumber);
+            adjustBuffer(nodeId);
+            mapNodes();
+        } finally {
+            rwLock.writeLock().unlock();
         }
-        // write nodeID
-        inOutChannel.position(22);
-        inOutStream.writeInt(nodeId);
-        inOutStream.writeInt(treeIdentifier);
-        inOutStream.writeInt(eltNumber);
-        adjustBuffer(nodeId);
      }
 
 
@@ -547,20 +794,26 @@ public class TreeAccessFile extends TreeAccess {
      * {@inheritDoc }.
      */
     @Override
-     public synchronized void close() throws IOException {
-        byteBuffer.position(0);
-        byteBuffer.limit(writeBufferLimit);
-        int writtenByte = 0;
-        while (writtenByte != writeBufferLimit) {
-            writtenByte = inOutChannel.write(byteBuffer, currentBufferPosition);
+     public void close() throws IOException {
+        rwLock.writeLock().lock();
+        try {
+            unmapNodes();
+            byteBuffer.position(0);
+            byteBuffer.limit(writeBufferLimit);
+            int writtenByte = 0;
+            while (writtenByte != writeBufferLimit) {
+                writtenByte = inOutChannel.write(byteBuffer, currentBufferPosition);
+            }
+            // write nodeID
+            inOutChannel.position(22); 
+            inOutStream.writeInt(nodeId);
+            inOutStream.writeInt(treeIdentifier);
+            inOutStream.writeInt(eltNumber);
+            //close
+            inOutChannel.close();
+        } finally {
+            rwLock.writeLock().unlock();
         }
-        // write nodeID
-        inOutChannel.position(22); 
-        inOutStream.writeInt(nodeId);
-        inOutStream.writeInt(treeIdentifier);
-        inOutStream.writeInt(eltNumber);
-        //close
-        inOutChannel.close();
      }
 
     /**
@@ -597,4 +850,19 @@ public class TreeAccessFile extends TreeAccess {
             return (CoordinateReferenceSystem) crsInputS.readObject();
         }
     }
+
+    /**
+     * Growable integer table which store search results of one search.
+     */
+    private static final class SearchResult {
+        private int[] values = new int[100];
+        private int size = 0;
+
+        private void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+    }
 }
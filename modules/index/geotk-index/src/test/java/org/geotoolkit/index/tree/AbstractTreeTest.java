@@ -21,6 +21,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import junit.framework.Assert;
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.util.ArgumentChecks;
@@ -28,6 +32,9 @@ import org.junit.Test;
 import static org.geotoolkit.internal.tree.TreeUtilities.*;
 import static org.geotoolkit.index.tree.TreeTest.createEntry;
 import org.geotoolkit.internal.tree.TreeAccess;
+import org.geotoolkit.internal.tree.TreeAccessFile;
+import org.junit.Assume;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.cs.CoordinateSystem;
@@ -172,6 +179,30 @@ public abstract class AbstractTreeTest extends TreeTest {
         }
     }
     
+    /**
+     * Test if tree contain all elements loaded by {@link Tree#bulkLoad(java.util.Iterator) }.
+     */
+    @Test
+    public void bulkLoadTest() throws StoreIndexException, IOException {
+        tree.setRoot(null);
+        tEM.clear();
+        final List<double[]> lBulk = new ArrayList<double[]>();
+        for (double[] data : lData) {
+            lBulk.add(data.clone());
+        }
+        tree.bulkLoad(lBulk.iterator());
+        tree.flush();
+        assertTrue(tree.getElementsNumber() == lSize);
+        tAF = ((AbstractTree)tree).getTreeAccess();
+        checkNode(tree.getRoot(), lData);
+
+        final GeneralEnvelope rG = new GeneralEnvelope(crs);
+        rG.setEnvelope(tree.getRoot().getBoundary().clone());
+        final int[] tabSearch = tree.searchID(rG);
+        assertTrue(tabSearch.length == lSize);
+        assertTrue(compareLists(lData, Arrays.asList(getResult(tabSearch))));
+    }
+
     /**
      * Compare node properties from its children.<br/>
      * Compare Node boundary from its sub-Nodes boundary sum.<br/>
@@ -367,6 +398,73 @@ public abstract class AbstractTreeTest extends TreeTest {
         assertTrue("comparison between tabSearch from iterator not equals with tabSearch", compareID(tabSearch, tabIterSearch));
         assertTrue(compareLists(lData, Arrays.asList(getResult(tabSearch))));
     }
+
+    /**
+     * Test that searches made in parallel always find all elements while an other thread
+     * rewrites Nodes, creates and removes Nodes and flushes the tree file.
+     */
+    @Test
+    public void concurrentSearchTest() throws Exception {
+        tree.setRoot(null);
+        insert();
+        final TreeAccess access = ((AbstractTree) tree).getTreeAccess();
+        Assume.assumeTrue(access instanceof TreeAccessFile);
+
+        final List<Node> nodes = new ArrayList<Node>();
+        collectNodes(access, tree.getRoot().getNodeId(), nodes);
+        final GeneralEnvelope rG = new GeneralEnvelope(crs);
+        rG.setEnvelope(tree.getRoot().getBoundary().clone());
+        final int[] expected = tree.searchID(rG);
+        Arrays.sort(expected);
+        assertTrue(expected.length == lSize);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            final List<Future<Object>> results = new ArrayList<Future<Object>>();
+            results.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    for (int i = 0; i < 20; i++) {
+                        //-- same content, only invalidates the mapping
+                        for (Node node : nodes) {
+                            access.writeNode(node);
+                        }
+                        access.removeNode(access.createNode(null, (byte) 0, 0, 0, 0));
+                        access.flush();
+                    }
+                    return null;
+                }
+            }));
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        for (int i = 0; i < 100; i++) {
+                            final int[] tabSearch = tree.searchID(rG);
+                            Arrays.sort(tabSearch);
+                            assertArrayEquals(expected, tabSearch);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Object> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Add in list the Node with the given identifier, its siblings and all its children Nodes.
+     */
+    private static void collectNodes(final TreeAccess access, final int nodeID, final List<Node> nodes) throws IOException {
+        final Node node = access.readNode(nodeID);
+        nodes.add(node);
+        if (node.getSiblingId() != 0) collectNodes(access, node.getSiblingId(), nodes);
+        if (node.getChildId() > 0)    collectNodes(access, node.getChildId(), nodes);
+    }
         
     /**
      * Return result given by {@link TreeElementMapper} from tree identifier table given in parameter.
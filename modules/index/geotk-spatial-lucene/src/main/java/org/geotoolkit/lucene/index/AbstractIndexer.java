@@ -204,6 +204,7 @@ public abstract class AbstractIndexer<E> extends IndexLucene {
             }
             // writer.optimize(); no longer justified
             writer.close();
+            QueryResultCache.invalidate(getFileDirectory());
 
             // we store the numeric fields in a properties file int the index directory
             storeNumericFieldsFile();
@@ -275,6 +276,7 @@ public abstract class AbstractIndexer<E> extends IndexLucene {
             }
             // writer.optimize(); no longer justified
             writer.close();
+            QueryResultCache.invalidate(getFileDirectory());
             
             // we store the numeric fields in a properties file int the index directory
             storeNumericFieldsFile();
@@ -323,6 +325,7 @@ public abstract class AbstractIndexer<E> extends IndexLucene {
             writer.addDocument(createDocument(meta, docId));
             LOGGER.log(Level.FINER, "Metadata: {0} indexed", getIdentifier(meta));
             writer.close();
+            QueryResultCache.invalidate(getFileDirectory());
             if (rTree != null) {
                 rTree.getTreeElementMapper().flush();
                 rTree.flush();
@@ -354,6 +357,7 @@ public abstract class AbstractIndexer<E> extends IndexLucene {
     private void stopIndexation(final IndexWriter writer, final String serviceID) throws IOException {
         // writer.optimize(); no longer justified
         writer.close();
+        QueryResultCache.invalidate(getFileDirectory());
         FileUtilities.deleteDirectory(getFileDirectory());
         if (indexationToStop.contains(serviceID)) {
             indexationToStop.remove(serviceID);
@@ -427,6 +431,7 @@ public abstract class AbstractIndexer<E> extends IndexLucene {
 
             writer.commit();
             writer.close();
+            QueryResultCache.invalidate(getFileDirectory());
             
         } catch (CorruptIndexException ex) {
             LOGGER.log(Level.WARNING, "CorruptIndexException while indexing document: " + ex.getMessage(), ex);
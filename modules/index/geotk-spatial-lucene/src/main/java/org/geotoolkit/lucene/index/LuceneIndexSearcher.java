@@ -20,7 +20,6 @@ package org.geotoolkit.lucene.index;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -69,14 +68,9 @@ public class LuceneIndexSearcher extends IndexLucene {
     private final static Query SIMPLE_QUERY = new TermQuery(new Term("metafile", "doc"));
 
     /**
-     * A map of cached request
+     * A cache of request results, created with the searcher.
      */
-    private final Map<SpatialQuery, Set<String>> cachedQueries = new ConcurrentHashMap<>();
-
-    /**
-     * The maximum size of the map of queries.
-     */
-    private static final int MAX_CACHED_QUERIES_SIZE = 50;
+    private final QueryResultCache cachedQueries;
 
     /**
      * A flag indicating if the cache system for query is enabled.
@@ -176,6 +170,7 @@ public class LuceneIndexSearcher extends IndexLucene {
                 throw new IndexingException("The index searcher can't find a index directory.");
             }
             isCacheEnabled        = true;
+            cachedQueries         = new QueryResultCache(currentIndexDirectory);
             initSearcher();
             initIdentifiersList();
 
@@ -321,11 +316,16 @@ public class LuceneIndexSearcher extends IndexLucene {
             final Set<String> results = new LinkedHashSet<>();
             spatialQuery.applyRtreeOnFilter(rTree, envelopeOnly);
 
+            //index generation searched, results are not cached if the index changes meanwhile
+            final long generation = isCacheEnabled ? cachedQueries.getIndexGeneration() : 0;
+
             //we look for a cached Query
-            if (isCacheEnabled && cachedQueries.containsKey(spatialQuery)) {
+            if (isCacheEnabled) {
                 final Set<String> cachedResults = cachedQueries.get(spatialQuery);
-                LOGGER.log(logLevel, "returning result from cache ({0} matching documents)", results.size());
-                return cachedResults;
+                if (cachedResults != null) {
+                    LOGGER.log(logLevel, "returning result from cache ({0} matching documents)", cachedResults.size());
+                    return cachedResults;
+                }
             }
 
             int maxRecords = (int) searcher.collectionStatistics("id").maxDoc();
@@ -469,7 +469,7 @@ public class LuceneIndexSearcher extends IndexLucene {
             }
 
             //we put the query in cache
-            putInCache(spatialQuery, results);
+            putInCache(spatialQuery, results, generation);
             
             LOGGER.log(logLevel, results.size() + " total matching documents (" + (System.currentTimeMillis() - start) + "ms)");
             return results;
@@ -498,21 +498,27 @@ public class LuceneIndexSearcher extends IndexLucene {
     
     /**
      * Add a query and its results to the cache.
-     * if the map has reach the maximum size the older query is removed from the cache.
+     * if the cache has reach its maximum size the least recently used queries are removed from the cache.
      *
      * @param query a Lucene spatial query.
      * @param results A list of metadataIdentifier.
+     * @param generation index generation obtained before the search.
      */
-    private void putInCache(final SpatialQuery query, final Set<String> results) {
+    private void putInCache(final SpatialQuery query, final Set<String> results, final long generation) {
         if (isCacheEnabled) {
-            // if we had reach the maximum cache size we remove the first request
-            if (cachedQueries.size() >= MAX_CACHED_QUERIES_SIZE) {
-                cachedQueries.remove(cachedQueries.keySet().iterator().next());
-            }
-            cachedQueries.put(query, results);
+            cachedQueries.put(query, results, generation);
         }
     }
 
+    /**
+     * Return the query results cache, mostly to access its statistics.
+     *
+     * @return the query results cache.
+     */
+    public QueryResultCache getQueryCache() {
+        return cachedQueries;
+    }
+
     /**
      * Free the resources when closing the searcher.
      */
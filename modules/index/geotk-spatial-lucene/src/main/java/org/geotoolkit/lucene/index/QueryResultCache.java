@@ -0,0 +1,284 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 3 of the License, or (at your option) any later version.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.lucene.index;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.geotoolkit.lucene.filter.SpatialQuery;
+
+/**
+ * A bounded cache of query results, used by the {@link LuceneIndexSearcher}.
+ *
+ * The cache size is bounded by the total number of identifiers it holds and by
+ * the number of queries, least recently used queries are evicted first.
+ * Entries expire after a time to live, and all entries are dropped when the
+ * index generation changes, see {@link #invalidate(java.io.File)}.
+ *
+ * @author Guilhem legal (Geomatys)
+ * @module pending
+ */
+public class QueryResultCache {
+
+    /**
+     * Default maximum number of identifiers held by the cache.
+     */
+    public static final int DEFAULT_MAX_IDENTIFIERS = 100000;
+
+    /**
+     * Default maximum number of cached queries.
+     */
+    public static final int DEFAULT_MAX_QUERIES = 50;
+
+    /**
+     * Default time to live of an entry in milliseconds : 10 minutes.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 10 * 60 * 1000;
+
+    /**
+     * Index directory -> generation, increased each time an indexer commits.
+     */
+    private static final ConcurrentMap<File, AtomicLong> GENERATIONS = new ConcurrentHashMap<>();
+
+    private final File indexDirectory;
+    private final int maxIdentifiers;
+    private final int maxQueries;
+    private final long timeToLive;
+
+    /**
+     * Cached entries in access order.
+     */
+    private final LinkedHashMap<SpatialQuery, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+    private int nbIdentifiers = 0;
+
+    //statistics
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * Create a cache with default bounds.
+     *
+     * @param indexDirectory the index directory, used to follow index generations.
+     */
+    public QueryResultCache(final File indexDirectory) {
+        this(indexDirectory, DEFAULT_MAX_IDENTIFIERS, DEFAULT_MAX_QUERIES, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param indexDirectory the index directory, used to follow index generations.
+     * @param maxIdentifiers maximum number of identifiers held by the cache,
+     *        results bigger than this value are not cached.
+     * @param maxQueries maximum number of cached queries.
+     * @param timeToLive time to live of an entry in milliseconds, zero or negative for no expiration.
+     */
+    public QueryResultCache(final File indexDirectory, final int maxIdentifiers, final int maxQueries, final long timeToLive) {
+        this.indexDirectory = indexDirectory;
+        this.maxIdentifiers = maxIdentifiers;
+        this.maxQueries     = maxQueries;
+        this.timeToLive     = timeToLive;
+        this.generation     = getGeneration(indexDirectory);
+    }
+
+    /**
+     * Return the cached results of the query.
+     *
+     * @param query a spatial query.
+     * @return a copy of the cached identifiers, or null if the query is not in the cache.
+     */
+    public synchronized Set<String> get(final SpatialQuery query) {
+        checkGeneration();
+        final Entry entry = entries.get(query);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            remove(query);
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return new LinkedHashSet<>(entry.results);
+    }
+
+    /**
+     * Return the current generation of the index, must be obtained before
+     * searching and given back to {@link #put(SpatialQuery, Set, long)}.
+     *
+     * @return the index generation.
+     */
+    public long getIndexGeneration() {
+        return getGeneration(indexDirectory);
+    }
+
+    /**
+     * Add a query and its results to the cache, least recently used queries
+     * are evicted if a bound is reached.
+     * The results are not cached if the index has been modified since the search started.
+     *
+     * @param query a spatial query.
+     * @param results the query result identifiers, a copy is stored.
+     * @param searchGeneration the index generation obtained before the search,
+     *        see {@link #getIndexGeneration()}.
+     */
+    public synchronized void put(final SpatialQuery query, final Set<String> results, final long searchGeneration) {
+        checkGeneration();
+        if (searchGeneration != generation) {
+            //results may come from the previous index generation
+            return;
+        }
+        if (results.size() > maxIdentifiers) {
+            //would flush the whole cache for a single entry
+            return;
+        }
+        remove(query);
+
+        final long now = System.currentTimeMillis();
+        final Iterator<Map.Entry<SpatialQuery, Entry>> ite = entries.entrySet().iterator();
+        while (ite.hasNext() && (entries.size() >= maxQueries || nbIdentifiers + results.size() > maxIdentifiers)) {
+            final Entry eldest = ite.next().getValue();
+            ite.remove();
+            nbIdentifiers -= eldest.results.size();
+            if (!isExpired(eldest, now)) {
+                evictionCount++;
+            }
+        }
+
+        entries.put(query, new Entry(new LinkedHashSet<>(results), now));
+        nbIdentifiers += results.size();
+    }
+
+    /**
+     * Remove all the entries, statistics are preserved.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        nbIdentifiers = 0;
+    }
+
+    /**
+     * @return the number of cached queries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of identifiers held by the cache.
+     */
+    public synchronized int getIdentifierCount() {
+        return nbIdentifiers;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the ratio of requests returned from the cache, between 0 and 1.
+     */
+    public synchronized double getHitRatio() {
+        final long total = hitCount + missCount;
+        return (total == 0) ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryResultCache[queries=" + entries.size() + ", identifiers=" + nbIdentifiers
+                + ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+    }
+
+    private void remove(final SpatialQuery query) {
+        final Entry old = entries.remove(query);
+        if (old != null) {
+            nbIdentifiers -= old.results.size();
+        }
+    }
+
+    private boolean isExpired(final Entry entry, final long now) {
+        return timeToLive > 0 && (now - entry.creationTime) > timeToLive;
+    }
+
+    /**
+     * Drop all entries if the index has been modified since they were cached.
+     */
+    private void checkGeneration() {
+        final long current = getGeneration(indexDirectory);
+        if (current != generation) {
+            clear();
+            generation = current;
+        }
+    }
+
+    private static AtomicLong generationCounter(final File indexDirectory) {
+        final File key = indexDirectory.getAbsoluteFile();
+        AtomicLong counter = GENERATIONS.get(key);
+        if (counter == null) {
+            counter = new AtomicLong();
+            final AtomicLong previous = GENERATIONS.putIfAbsent(key, counter);
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+        return counter;
+    }
+
+    private static long getGeneration(final File indexDirectory) {
+        return (indexDirectory == null) ? 0 : generationCounter(indexDirectory).get();
+    }
+
+    /**
+     * Start a new generation for the given index directory, the caches of this
+     * index will drop their entries on next access.
+     * Called by the indexers each time they commit changes.
+     *
+     * @param indexDirectory the modified index directory.
+     */
+    public static void invalidate(final File indexDirectory) {
+        if (indexDirectory != null) {
+            generationCounter(indexDirectory).incrementAndGet();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Set<String> results;
+        private final long creationTime;
+
+        private Entry(final Set<String> results, final long creationTime) {
+            this.results = results;
+            this.creationTime = creationTime;
+        }
+    }
+}
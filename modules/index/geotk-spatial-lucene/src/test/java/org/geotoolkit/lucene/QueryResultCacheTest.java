@@ -0,0 +1,123 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.lucene;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.geotoolkit.lucene.filter.SpatialQuery;
+import org.geotoolkit.lucene.index.QueryResultCache;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Guilhem Legal (Geomatys)
+ */
+public class QueryResultCacheTest {
+
+    private static Set<String> ids(final String ... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+
+    @Test
+    public void identifierBoundTest() throws Exception {
+        final QueryResultCache cache = new QueryResultCache(new File("cacheTest1"), 5, 10, 0);
+        final SpatialQuery q1 = new SpatialQuery("title:a");
+        final SpatialQuery q2 = new SpatialQuery("title:b");
+        final SpatialQuery q3 = new SpatialQuery("title:c");
+
+        cache.put(q1, ids("1", "2"), cache.getIndexGeneration());
+        cache.put(q2, ids("3", "4"), cache.getIndexGeneration());
+        assertEquals(4, cache.getIdentifierCount());
+
+        //q1 is the most recently used
+        assertEquals(ids("1", "2"), cache.get(q1));
+
+        //q2 must be evicted to respect the identifier bound
+        cache.put(q3, ids("5", "6"), cache.getIndexGeneration());
+        assertEquals(4, cache.getIdentifierCount());
+        assertNull(cache.get(q2));
+        assertNotNull(cache.get(q1));
+        assertNotNull(cache.get(q3));
+        assertEquals(1, cache.getEvictionCount());
+
+        //too big results are not cached
+        cache.put(q2, ids("1", "2", "3", "4", "5", "6"), cache.getIndexGeneration());
+        assertNull(cache.get(q2));
+    }
+
+    @Test
+    public void copyTest() throws Exception {
+        final QueryResultCache cache = new QueryResultCache(new File("cacheTest2"));
+        final SpatialQuery q1 = new SpatialQuery("title:a");
+        final Set<String> results = ids("1", "2");
+        cache.put(q1, results, cache.getIndexGeneration());
+
+        //modifying the results must not alter the cache
+        results.add("3");
+        cache.get(q1).add("4");
+        assertEquals(ids("1", "2"), cache.get(q1));
+    }
+
+    @Test
+    public void invalidationTest() throws Exception {
+        final File dir = new File("cacheTest3");
+        final QueryResultCache cache = new QueryResultCache(dir);
+        final SpatialQuery q1 = new SpatialQuery("title:a");
+        cache.put(q1, ids("1"), cache.getIndexGeneration());
+        assertNotNull(cache.get(q1));
+
+        QueryResultCache.invalidate(dir);
+        assertNull(cache.get(q1));
+        assertEquals(0, cache.size());
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio(), 0.0);
+    }
+
+    /**
+     * Results of a search started before an index modification must not be cached.
+     */
+    @Test
+    public void concurrentInvalidationTest() throws Exception {
+        final File dir = new File("cacheTest5");
+        final QueryResultCache cache = new QueryResultCache(dir);
+        final SpatialQuery q1 = new SpatialQuery("title:a");
+
+        final long generation = cache.getIndexGeneration();
+        //index modified while searching
+        QueryResultCache.invalidate(dir);
+        cache.put(q1, ids("1"), generation);
+        assertNull(cache.get(q1));
+        assertEquals(0, cache.size());
+
+        cache.put(q1, ids("1"), cache.getIndexGeneration());
+        assertNotNull(cache.get(q1));
+    }
+
+    @Test
+    public void expirationTest() throws Exception {
+        final QueryResultCache cache = new QueryResultCache(new File("cacheTest4"), 100, 10, 1);
+        final SpatialQuery q1 = new SpatialQuery("title:a");
+        cache.put(q1, ids("1"), cache.getIndexGeneration());
+        Thread.sleep(20);
+        assertNull(cache.get(q1));
+    }
+}
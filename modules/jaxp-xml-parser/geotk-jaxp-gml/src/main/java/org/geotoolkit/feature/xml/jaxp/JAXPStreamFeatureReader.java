@@ -22,15 +22,14 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -38,16 +37,16 @@ import javax.xml.stream.XMLStreamReader;
 
 import org.geotoolkit.data.FeatureStoreUtilities;
 import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.memory.GenericMaxFeatureIterator;
+import org.geotoolkit.data.memory.GenericStartIndexFeatureIterator;
+import org.geotoolkit.data.memory.GenericWrapFeatureIterator;
 import org.geotoolkit.feature.xml.Utils;
 import org.geotoolkit.feature.xml.XmlFeatureReader;
-import org.geotoolkit.feature.xml.jaxb.JAXBEventHandler;
 import org.geotoolkit.feature.xml.jaxb.JAXBFeatureTypeReader;
-import org.geotoolkit.geometry.isoonjts.spatialschema.geometry.JTSGeometry;
-import org.geotoolkit.geometry.isoonjts.spatialschema.geometry.aggregate.JTSMultiCurve;
 import org.geotoolkit.geometry.jts.JTSEnvelope2D;
 import org.geotoolkit.internal.jaxb.JTSWrapperMarshallerPool;
-import org.geotoolkit.internal.jaxb.LineStringPosListType;
-import org.geotoolkit.internal.jaxb.PolygonType;
 import org.apache.sis.util.ObjectConverters;
 import org.apache.sis.xml.MarshallerPool;
 import org.apache.sis.xml.Namespaces;
@@ -64,15 +63,10 @@ import org.geotoolkit.feature.type.PropertyDescriptor;
 
 import static javax.xml.stream.events.XMLEvent.*;
 import net.iharder.Base64;
-import org.geotoolkit.geometry.isoonjts.spatialschema.geometry.geometry.JTSLineString;
-import org.geotoolkit.geometry.jts.JTS;
-import org.geotoolkit.gml.GeometrytoJTS;
-import org.geotoolkit.gml.xml.AbstractGeometry;
 import org.geotoolkit.gml.xml.GMLMarshallerPool;
 import org.geotoolkit.feature.ComplexAttribute;
 import org.geotoolkit.feature.type.ComplexType;
 import org.geotoolkit.feature.type.PropertyType;
-import org.opengis.util.FactoryException;
 import org.apache.sis.util.Numbers;
 import org.geotoolkit.feature.Attribute;
 
@@ -103,6 +97,11 @@ public class JAXPStreamFeatureReader extends StaxStreamReader implements XmlFeat
 
     private URL base = null;
 
+    /**
+     * Geometry decoder for current input, created on first geometry.
+     */
+    private StaxGeometryReader geometryReader = null;
+
     public JAXPStreamFeatureReader() {
         this(new ArrayList<FeatureType>());
     }
@@ -135,9 +134,73 @@ public class JAXPStreamFeatureReader extends StaxStreamReader implements XmlFeat
         return read();
     }
 
+    /**
+     * Read the features of the given XML source one at a time.
+     *
+     * @see #readAsStream(java.lang.Object, int, int)
+     */
+    public FeatureReader<FeatureType,Feature> readAsStream(final Object xml) throws IOException, XMLStreamException {
+        return readAsStream(xml, 0, -1);
+    }
+
+    /**
+     * Read the features of the given XML source one at a time.<br/>
+     * Feature collection members are parsed when requested, memory use does not
+     * depend on the number of features. Features before the start index are
+     * skipped without being parsed and parsing stops after maxFeatures features.<br/>
+     * The returned reader must be closed, this reader input is then released,
+     * input streams given as source are closed too.
+     *
+     * @param xml An Xml source of the feature/feature collection.
+     * @param startIndex number of features to skip
+     * @param maxFeatures maximum number of features to return, negative for no limit
+     * @return FeatureReader
+     */
+    public FeatureReader<FeatureType,Feature> readAsStream(final Object xml, final int startIndex, final int maxFeatures)
+            throws IOException, XMLStreamException {
+        setInput(xml);
+        while (reader.hasNext() && reader.getEventType() != START_ELEMENT) {
+            reader.next();
+        }
+
+        if (reader.getEventType() == START_ELEMENT && "FeatureCollection".equals(reader.getLocalName())) {
+            readEmbeddedFeatureTypes();
+            return new StreamFeatureReader((xml instanceof InputStream) ? (InputStream) xml : null, startIndex, maxFeatures);
+        }
+
+        //single feature or transaction, those are small
+        final Object obj;
+        try {
+            obj = read();
+        } finally {
+            reset();
+            if (xml instanceof InputStream) {
+                ((InputStream) xml).close();
+            }
+        }
+        final FeatureCollection col;
+        if (obj instanceof FeatureCollection) {
+            col = (FeatureCollection) obj;
+        } else {
+            col = FeatureStoreUtilities.collection("id", featureTypes.size() == 1 ? featureTypes.get(0) : null);
+            if (obj instanceof Feature) {
+                col.add(obj);
+            }
+        }
+        FeatureReader freader = GenericWrapFeatureIterator.wrapToReader(col.iterator(), col.getFeatureType());
+        if (startIndex > 0) {
+            freader = GenericStartIndexFeatureIterator.wrap(freader, startIndex);
+        }
+        if (maxFeatures >= 0) {
+            freader = GenericMaxFeatureIterator.wrap(freader, maxFeatures);
+        }
+        return freader;
+    }
+
     @Override
     public void setInput(Object input) throws IOException, XMLStreamException {
         super.setInput(input);
+        geometryReader = null;
         if(input instanceof URL){
             base = (URL) input;
         }else if(input instanceof URI){
@@ -161,34 +224,7 @@ public class JAXPStreamFeatureReader extends StaxStreamReader implements XmlFeat
             if (event == START_ELEMENT) {
 
                 // we search an embedded featureType description
-                String schemaLocation = reader.getAttributeValue(Namespaces.XSI, "schemaLocation");
-                if (isReadEmbeddedFeatureType() && schemaLocation != null) {
-                    final JAXBFeatureTypeReader featureTypeReader = new JAXBFeatureTypeReader();
-                    schemaLocation = schemaLocation.trim();
-                    final String[] urls = schemaLocation.split(" ");
-                    for (int i = 0; i < urls.length; i++) {
-                        final String namespace = urls[i];
-                        if (!(namespace.equalsIgnoreCase("http://www.opengis.net/gml") || namespace.equalsIgnoreCase("http://www.opengis.net/wfs")) && i + 1 < urls.length) {
-                            final String fturl = urls[i + 1];
-                            try {
-                                final URL url = Utils.resolveURL(base, fturl);
-                                List<FeatureType> fts = (List<FeatureType>) featureTypeReader.read(url.openStream());
-                                for (FeatureType ft : fts) {
-                                    if (!featureTypes.contains(ft)) {
-                                        featureTypes.add(ft);
-                                    }
-                                }
-                            } catch (MalformedURLException | URISyntaxException ex) {
-                                LOGGER.log(Level.WARNING, null, ex);
-                            } catch (IOException | JAXBException ex) {
-                                LOGGER.log(Level.WARNING, null, ex);
-                            }
-                            i = i + 2;
-                        } else if(namespace.equalsIgnoreCase("http://www.opengis.net/gml") || namespace.equalsIgnoreCase("http://www.opengis.net/wfs")) {
-                            i++;
-                        }
-                    }
-                }
+                readEmbeddedFeatureTypes();
 
                 final Name name  = Utils.getNameFromQname(reader.getName());
                 String id = "no-gml-id";
@@ -233,21 +269,67 @@ public class JAXPStreamFeatureReader extends StaxStreamReader implements XmlFeat
         return null;
     }
 
+    /**
+     * Read the feature types referenced in the schema location of current element,
+     * if property READ_EMBEDDED_FEATURE_TYPE is set.
+     */
+    private void readEmbeddedFeatureTypes() {
+        String schemaLocation = reader.getAttributeValue(Namespaces.XSI, "schemaLocation");
+        if (isReadEmbeddedFeatureType() && schemaLocation != null) {
+            final JAXBFeatureTypeReader featureTypeReader = new JAXBFeatureTypeReader();
+            schemaLocation = schemaLocation.trim();
+            final String[] urls = schemaLocation.split(" ");
+            for (int i = 0; i < urls.length; i++) {
+                final String namespace = urls[i];
+                if (!(namespace.equalsIgnoreCase("http://www.opengis.net/gml") || namespace.equalsIgnoreCase("http://www.opengis.net/wfs")) && i + 1 < urls.length) {
+                    final String fturl = urls[i + 1];
+                    try {
+                        final URL url = Utils.resolveURL(base, fturl);
+                        List<FeatureType> fts = (List<FeatureType>) featureTypeReader.read(url.openStream());
+                        for (FeatureType ft : fts) {
+                            if (!featureTypes.contains(ft)) {
+                                featureTypes.add(ft);
+                            }
+                        }
+                    } catch (MalformedURLException | URISyntaxException ex) {
+                        LOGGER.log(Level.WARNING, null, ex);
+                    } catch (IOException | JAXBException ex) {
+                        LOGGER.log(Level.WARNING, null, ex);
+                    }
+                    i = i + 2;
+                } else if(namespace.equalsIgnoreCase("http://www.opengis.net/gml") || namespace.equalsIgnoreCase("http://www.opengis.net/wfs")) {
+                    i++;
+                }
+            }
+        }
+    }
+
     private Object readFeatureCollection(final String id) throws XMLStreamException {
         FeatureCollection collection = null;
+        FeatureType ft;
+        while ((ft = toNextFeature()) != null) {
+            if (collection == null) {
+                collection = FeatureStoreUtilities.collection(id, ft);
+            }
+            collection.add(readFeature(getFeatureId(), ft));
+        }
+        return collection;
+    }
+
+    /**
+     * Move to the start element of the next feature in a feature collection.
+     * Feature members and bounds are skipped.
+     *
+     * @return type of the next feature or null if the collection end has been reached
+     */
+    private FeatureType toNextFeature() throws XMLStreamException {
         while (reader.hasNext()) {
             int event = reader.next();
 
-
             //we are looking for the root mark
             if (event == START_ELEMENT) {
                 final Name name = Utils.getNameFromQname(reader.getName());
 
-                String fid = null;
-                if (reader.getAttributeCount() > 0) {
-                    fid = reader.getAttributeValue(0);
-                }
-
                 if (name.getLocalPart().equals("featureMember") || name.getLocalPart().equals("featureMembers")) {
                     continue;
 
@@ -265,33 +347,36 @@ public class JAXPStreamFeatureReader extends StaxStreamReader implements XmlFeat
                     final JTSEnvelope2D bounds = readBounds(srsName);
 
                 } else {
-                    if (fid == null) {
-                        LOGGER.info("Missing feature id : generating a random one");
-                        fid = UUID.randomUUID().toString();
-                    }
-
-                    boolean find = false;
-                    StringBuilder expectedFeatureType = new StringBuilder();
+                    final StringBuilder expectedFeatureType = new StringBuilder();
                     for (FeatureType ft : featureTypes) {
                         if (ft.getName().equals(name)) {
-                            if (collection == null) {
-                                collection = FeatureStoreUtilities.collection(id, ft);
-                            }
-                            collection.add(readFeature(fid, ft));
-                            find = true;
+                            return ft;
                         }
                         expectedFeatureType.append(ft.getName()).append('\n');
                     }
 
-                    if (!find) {
-                        throw new IllegalArgumentException("The xml does not describe the same type of feature: \n "
-                                + "Expected: " + expectedFeatureType.toString() + '\n'
-                                + "But was: " + name);
-                    }
+                    throw new IllegalArgumentException("The xml does not describe the same type of feature: \n "
+                            + "Expected: " + expectedFeatureType.toString() + '\n'
+                            + "But was: " + name);
                 }
             }
         }
-        return collection;
+        return null;
+    }
+
+    /**
+     * @return identifier of the feature at current start element, a random one is generated if missing
+     */
+    private String getFeatureId() {
+        String fid = null;
+        if (reader.getAttributeCount() > 0) {
+            fid = reader.getAttributeValue(0);
+        }
+        if (fid == null) {
+            LOGGER.info("Missing feature id : generating a random one");
+            fid = UUID.randomUUID().toString();
+        }
+        return fid;
     }
 
     private ComplexAttribute readFeature(final String id, final ComplexType featureType) throws XMLStreamException {
@@ -368,50 +453,9 @@ public class JAXPStreamFeatureReader extends StaxStreamReader implements XmlFeat
                         while (event != START_ELEMENT) {
                             event = reader.next();
                         }
-                        final MarshallerPool pool = getPool();
-                        try {
-                            final Unmarshaller unmarshaller;
-                            unmarshaller = pool.acquireUnmarshaller();
-                            unmarshaller.setEventHandler(new JAXBEventHandler());
-                            final Geometry jtsGeom;
-                            final Object geometry = ((JAXBElement) unmarshaller.unmarshal(reader)).getValue();
-                            pool.recycle(unmarshaller);
-                            if (geometry instanceof JTSGeometry) {
-                                final JTSGeometry isoGeom = (JTSGeometry) geometry;
-                                if (isoGeom instanceof JTSMultiCurve) {
-                                    ((JTSMultiCurve)isoGeom).applyCRSonChild();
-                                }
-                                jtsGeom = isoGeom.getJTSGeometry();
-                            } else if (geometry instanceof PolygonType) {
-                                final PolygonType polygon = ((PolygonType)geometry);
-                                jtsGeom = polygon.getJTSPolygon().getJTSGeometry();
-                                if(polygon.getCoordinateReferenceSystem() != null) {
-                                    JTS.setCRS(jtsGeom, polygon.getCoordinateReferenceSystem());
-                                }
-                            } else if (geometry instanceof LineStringPosListType) {
-                                final JTSLineString line = ((LineStringPosListType)geometry).getJTSLineString();
-                                jtsGeom = line.getJTSGeometry();
-                                if(line.getCoordinateReferenceSystem() != null) {
-                                    JTS.setCRS(jtsGeom, line.getCoordinateReferenceSystem());
-                                }
-                            } else if (geometry instanceof AbstractGeometry) {
-                                try {
-                                    jtsGeom = GeometrytoJTS.toJTS((AbstractGeometry) geometry);
-                                } catch (FactoryException ex) {
-                                    throw new XMLStreamException("Factory Exception while transforming GML object to JTS", ex);
-                                }
-                            } else {
-                                throw new IllegalArgumentException("unexpected geometry type:" + geometry);
-                            }
-                            namedProperties.put(propName,FF.createAttribute(jtsGeom, (AttributeDescriptor)pdesc, null));
-                            propertyContainer.add(namedProperties.get(propName));
-                        } catch (JAXBException ex) {
-                            String msg = ex.getMessage();
-                            if (msg == null && ex.getLinkedException() != null) {
-                                msg = ex.getLinkedException().getMessage();
-                            }
-                            throw new IllegalArgumentException("JAXB exception while reading the feature geometry: " + msg, ex);
-                        }
+                        final Geometry jtsGeom = getGeometryReader().read();
+                        namedProperties.put(propName,FF.createAttribute(jtsGeom, (AttributeDescriptor)pdesc, null));
+                        propertyContainer.add(namedProperties.get(propName));
 
                     } else if (propertyType instanceof ComplexType) {
 
@@ -609,6 +653,19 @@ public class JAXPStreamFeatureReader extends StaxStreamReader implements XmlFeat
         return bounds;
     }
 
+    /**
+     * Return the geometry decoder for current input.
+     * GML geometries are decoded directly from the stax reader,
+     * JAXB is used for the JTSWrapper binding package.
+     */
+    private StaxGeometryReader getGeometryReader() {
+        if (geometryReader == null) {
+            final MarshallerPool pool = getPool();
+            geometryReader = new StaxGeometryReader(reader, pool, pool != GMLMarshallerPool.getInstance());
+        }
+        return geometryReader;
+    }
+
     /**
      * Return a MarshallerPool depending on the property BINDING_PACKAGE.
      *
@@ -641,4 +698,97 @@ public class JAXPStreamFeatureReader extends StaxStreamReader implements XmlFeat
     public void setReadEmbeddedFeatureType(boolean readEmbeddedFeatureType) {
         this.properties.put(READ_EMBEDDED_FEATURE_TYPE, readEmbeddedFeatureType);
     }
+
+    /**
+     * Pull feature reader over the members of a feature collection.
+     */
+    private final class StreamFeatureReader implements FeatureReader<FeatureType,Feature> {
+
+        private final InputStream stream;
+        private int toSkip;
+        private int remaining;
+        private FeatureType type;
+        private Feature next = null;
+        private boolean closed = false;
+
+        private StreamFeatureReader(final InputStream stream, final int startIndex, final int maxFeatures) {
+            this.stream = stream;
+            this.toSkip = startIndex;
+            this.remaining = maxFeatures;
+            this.type = (featureTypes.size() == 1) ? featureTypes.get(0) : null;
+        }
+
+        @Override
+        public FeatureType getFeatureType() {
+            if (type == null) {
+                //type is defined by the first feature
+                hasNext();
+                if (type == null && !featureTypes.isEmpty()) {
+                    type = featureTypes.get(0);
+                }
+            }
+            return type;
+        }
+
+        @Override
+        public boolean hasNext() throws FeatureStoreRuntimeException {
+            if (next != null) {
+                return true;
+            }
+            if (closed || remaining == 0) {
+                return false;
+            }
+            try {
+                FeatureType ft;
+                while ((ft = toNextFeature()) != null) {
+                    if (toSkip > 0) {
+                        toTagEnd(ft.getName().getLocalPart());
+                        toSkip--;
+                        continue;
+                    }
+                    if (type == null) {
+                        type = ft;
+                    }
+                    next = (Feature) readFeature(getFeatureId(), ft);
+                    if (remaining > 0) {
+                        remaining--;
+                    }
+                    return true;
+                }
+            } catch (XMLStreamException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            }
+            return false;
+        }
+
+        @Override
+        public Feature next() throws FeatureStoreRuntimeException {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more features.");
+            }
+            final Feature f = next;
+            next = null;
+            return f;
+        }
+
+        @Override
+        public void remove() {
+            throw new FeatureStoreRuntimeException("Not supported.");
+        }
+
+        @Override
+        public void close() throws FeatureStoreRuntimeException {
+            if (closed) return;
+            closed = true;
+            next = null;
+            try {
+                reset();
+                if (stream != null) {
+                    stream.close();
+                }
+            } catch (IOException | XMLStreamException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            }
+        }
+    }
 }
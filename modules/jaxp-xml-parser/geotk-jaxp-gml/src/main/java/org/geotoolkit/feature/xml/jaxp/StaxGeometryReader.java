@@ -0,0 +1,553 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.feature.xml.jaxp;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.sis.xml.MarshallerPool;
+import org.geotoolkit.feature.xml.jaxb.JAXBEventHandler;
+import org.geotoolkit.geometry.isoonjts.spatialschema.geometry.JTSGeometry;
+import org.geotoolkit.geometry.isoonjts.spatialschema.geometry.aggregate.JTSMultiCurve;
+import org.geotoolkit.geometry.isoonjts.spatialschema.geometry.geometry.JTSLineString;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.geometry.jts.coordinatesequence.LiteCoordinateSequence;
+import org.geotoolkit.geometry.jts.coordinatesequence.LiteCoordinateSequenceFactory;
+import org.geotoolkit.gml.GeometrytoJTS;
+import org.geotoolkit.gml.xml.AbstractGeometry;
+import org.geotoolkit.gml.xml.AbstractRing;
+import org.geotoolkit.gml.xml.Curve;
+import org.geotoolkit.internal.jaxb.LineStringPosListType;
+import org.geotoolkit.internal.jaxb.PolygonType;
+import org.geotoolkit.referencing.CRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+
+import static javax.xml.stream.events.XMLEvent.*;
+
+/**
+ * Decode GML 3.1.1 and 3.2.1 geometries directly from a stax reader to JTS.
+ * Points, line strings, linear rings, polygons and their multi geometries are
+ * parsed without JAXB, coordinates are read in packed coordinate sequences.
+ * Other geometries, and unsupported elements inside supported geometries,
+ * are unmarshalled with JAXB then converted to JTS.
+ *
+ * Up to three ordinates of each position are kept, geometries with a Z
+ * ordinate have 3D coordinate sequences. CRS are decoded as in {@link GeometrytoJTS},
+ * a multi geometry without srsName takes the CRS of its first member which has one.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+final class StaxGeometryReader {
+
+    private static final Logger LOGGER = Logger.getLogger("org.geotoolkit.feature.xml.jaxp");
+
+    private static final String GML_311 = "http://www.opengis.net/gml";
+    private static final String GML_321 = "http://www.opengis.net/gml/3.2";
+
+    private static final GeometryFactory GF = new GeometryFactory(new LiteCoordinateSequenceFactory());
+
+    private final XMLStreamReader reader;
+    private final MarshallerPool pool;
+    private final boolean jaxbOnly;
+
+    /**
+     * Decoded CRS by srsName, the boolean key part is the longitude first flag.
+     */
+    private final Map<String,CoordinateReferenceSystem> crsCache = new HashMap<>();
+
+    /**
+     * Ordinates buffer, reused for all geometries.
+     * Three ordinates per position, Z is NaN when missing.
+     */
+    private double[] ordinates = new double[96];
+    private int nbOrdinates = 0;
+    private boolean hasZ = false;
+
+    /**
+     * @param reader stax reader
+     * @param pool marshaller pool used for unsupported geometries
+     * @param jaxbOnly true to decode all geometries with JAXB
+     */
+    StaxGeometryReader(final XMLStreamReader reader, final MarshallerPool pool, final boolean jaxbOnly) {
+        this.reader = reader;
+        this.pool = pool;
+        this.jaxbOnly = jaxbOnly;
+    }
+
+    /**
+     * Read the geometry starting at current element.
+     * The reader is left on the event following the geometry end element.
+     *
+     * @return JTS geometry
+     * @throws XMLStreamException
+     */
+    Geometry read() throws XMLStreamException {
+        if(jaxbOnly){
+            return readJAXB();
+        }
+        return readGeometry();
+    }
+
+    private boolean isSupported(final String name){
+        final String ns = reader.getNamespaceURI();
+        if(!GML_311.equals(ns) && !GML_321.equals(ns)){
+            return false;
+        }
+        switch(name){
+            case "Point" :
+            case "LineString" :
+            case "LinearRing" :
+            case "Polygon" :
+            case "MultiPoint" :
+            case "MultiLineString" :
+            case "MultiCurve" :
+            case "MultiPolygon" :
+            case "MultiSurface" : return true;
+            default : return false;
+        }
+    }
+
+    /**
+     * Read geometry at current start element, JAXB is used for unsupported types.
+     */
+    private Geometry readGeometry() throws XMLStreamException {
+        final String name = reader.getLocalName();
+        if(!isSupported(name)){
+            return readJAXB();
+        }
+
+        final String srsName = reader.getAttributeValue(null, "srsName");
+        final Geometry geom = readSupportedGeometry(name);
+        if(srsName != null){
+            //GeometrytoJTS forces longitude first only for points and line strings
+            JTS.setCRS(geom, getCRS(srsName, "Point".equals(name) || "LineString".equals(name)));
+        }
+        return geom;
+    }
+
+    private Geometry readSupportedGeometry(final String name) throws XMLStreamException {
+        switch(name){
+            case "Point" : {
+                final CoordinateSequence cs = readCoordinates();
+                if(cs.size() == 0){
+                    throw new IllegalArgumentException("A GML point must specify coordinates or direct position.");
+                }
+                return GF.createPoint(cs);
+            }
+            case "LineString" : return GF.createLineString(readCoordinates());
+            case "LinearRing" : return GF.createLinearRing(readCoordinates());
+            case "Polygon" : return readPolygon();
+            case "MultiPoint" : {
+                final List<Geometry> members = readMembers();
+                final List<Point> points = new ArrayList<>();
+                for(Geometry member : members){
+                    if(member instanceof Point){
+                        points.add((Point)member);
+                    }else if(member instanceof MultiPoint){
+                        for(int i=0,n=member.getNumGeometries();i<n;i++){
+                            points.add((Point)member.getGeometryN(i));
+                        }
+                    }else{
+                        throw new IllegalArgumentException("unexpected Point type:" + member);
+                    }
+                }
+                return withMemberCRS(GF.createMultiPoint(points.toArray(new Point[points.size()])), members);
+            }
+            case "MultiLineString" :
+            case "MultiCurve" : {
+                final List<Geometry> members = readMembers();
+                final List<LineString> lines = new ArrayList<>();
+                for(Geometry member : members){
+                    if(member instanceof LineString){
+                        lines.add((LineString)member);
+                    }else if(member instanceof MultiLineString){
+                        for(int i=0,n=member.getNumGeometries();i<n;i++){
+                            lines.add((LineString)member.getGeometryN(i));
+                        }
+                    }else{
+                        throw new IllegalArgumentException("unexpected Curve type:" + member);
+                    }
+                }
+                return withMemberCRS(GF.createMultiLineString(lines.toArray(new LineString[lines.size()])), members);
+            }
+            default : {
+                final List<Geometry> members = readMembers();
+                final List<Polygon> polygons = new ArrayList<>();
+                for(Geometry member : members){
+                    if(member instanceof Polygon){
+                        polygons.add((Polygon)member);
+                    }else if(member instanceof MultiPolygon){
+                        for(int i=0,n=member.getNumGeometries();i<n;i++){
+                            polygons.add((Polygon)member.getGeometryN(i));
+                        }
+                    }else{
+                        throw new IllegalArgumentException("unexpected Surface type:" + member);
+                    }
+                }
+                return withMemberCRS(GF.createMultiPolygon(polygons.toArray(new Polygon[polygons.size()])), members);
+            }
+        }
+    }
+
+    /**
+     * Set on the multi geometry the CRS of the first member which has one.
+     * The CRS is replaced if the multi geometry has a srsName.
+     */
+    private static Geometry withMemberCRS(final Geometry geom, final List<Geometry> members){
+        for(Geometry member : members){
+            if(member.getUserData() instanceof CoordinateReferenceSystem){
+                JTS.setCRS(geom, (CoordinateReferenceSystem) member.getUserData());
+                break;
+            }
+        }
+        return geom;
+    }
+
+    /**
+     * Read all positions in current element : pos, posList, coordinates and coord.
+     * Other elements are traversed, this handles pointProperty in line strings.
+     */
+    private CoordinateSequence readCoordinates() throws XMLStreamException {
+        final String srsDimension = reader.getAttributeValue(null, "srsDimension");
+        final int dimension = (srsDimension == null) ? 2 : Integer.parseInt(srsDimension);
+        nbOrdinates = 0;
+        hasZ = false;
+
+        int depth = 1;
+        while(depth > 0){
+            final int event = reader.next();
+            if(event == START_ELEMENT){
+                switch(reader.getLocalName()){
+                    case "posList" : {
+                        final String dim = reader.getAttributeValue(null, "srsDimension");
+                        parsePositions(reader.getElementText(), (dim == null) ? dimension : Integer.parseInt(dim));
+                        break;
+                    }
+                    case "pos" : {
+                        //a single position, all ordinates are in it
+                        parsePositions(reader.getElementText(), Integer.MAX_VALUE);
+                        break;
+                    }
+                    case "coordinates" : {
+                        parseCoordinates(reader.getAttributeValue(null, "decimal"), reader.getAttributeValue(null, "cs"),
+                                reader.getAttributeValue(null, "ts"), reader.getElementText());
+                        break;
+                    }
+                    case "X" : {
+                        append(Double.parseDouble(reader.getElementText().trim()));
+                        break;
+                    }
+                    case "Y" : {
+                        append(Double.parseDouble(reader.getElementText().trim()));
+                        append(Double.NaN);
+                        break;
+                    }
+                    case "Z" : {
+                        //replace the NaN appended after Y
+                        ordinates[nbOrdinates-1] = Double.parseDouble(reader.getElementText().trim());
+                        hasZ = true;
+                        break;
+                    }
+                    default : depth++;
+                }
+            }else if(event == END_ELEMENT){
+                depth--;
+            }
+        }
+        reader.next();
+
+        if(hasZ){
+            return new PackedCoordinateSequence.Double(Arrays.copyOf(ordinates, nbOrdinates), 3);
+        }
+        final int nb = nbOrdinates / 3;
+        final double[] xy = new double[nb*2];
+        for(int i=0;i<nb;i++){
+            xy[i*2]   = ordinates[i*3];
+            xy[i*2+1] = ordinates[i*3+1];
+        }
+        return new LiteCoordinateSequence(xy);
+    }
+
+    private Polygon readPolygon() throws XMLStreamException {
+        LinearRing shell = null;
+        final List<LinearRing> holes = new ArrayList<>();
+
+        reader.next();
+        while(true){
+            final int event = reader.getEventType();
+            if(event == START_ELEMENT){
+                switch(reader.getLocalName()){
+                    case "exterior" :
+                    case "outerBoundaryIs" : shell = readRing(); break;
+                    case "interior" :
+                    case "innerBoundaryIs" : holes.add(readRing()); break;
+                    default : skipElement();
+                }
+            }else if(event == END_ELEMENT){
+                reader.next();
+                break;
+            }else{
+                reader.next();
+            }
+        }
+
+        if(shell == null){
+            throw new IllegalArgumentException("A GML polygon must specify an exterior ring.");
+        }
+        return GF.createPolygon(shell, holes.toArray(new LinearRing[holes.size()]));
+    }
+
+    /**
+     * Read the ring in current exterior or interior element.
+     */
+    private LinearRing readRing() throws XMLStreamException {
+        LinearRing ring = null;
+        for(Geometry geom : readMembers()){
+            if(geom instanceof LinearRing){
+                ring = (LinearRing) geom;
+            }else{
+                throw new IllegalArgumentException("unexpected Ring type:" + geom);
+            }
+        }
+        if(ring == null){
+            throw new IllegalArgumentException("A GML polygon boundary must contain a ring.");
+        }
+        return ring;
+    }
+
+    /**
+     * Read all geometries in current element, member properties are traversed.
+     * Reader is left on the event following the current element end.
+     */
+    private List<Geometry> readMembers() throws XMLStreamException {
+        final List<Geometry> members = new ArrayList<>();
+        int depth = 1;
+        reader.next();
+        while(depth > 0){
+            final int event = reader.getEventType();
+            if(event == START_ELEMENT){
+                final String name = reader.getLocalName();
+                if(name.endsWith("Member") || name.endsWith("Members")){
+                    depth++;
+                    reader.next();
+                }else if(isGeometry(name)){
+                    members.add(readGeometry());
+                }else{
+                    skipElement();
+                }
+            }else{
+                if(event == END_ELEMENT) depth--;
+                reader.next();
+            }
+        }
+        return members;
+    }
+
+    /**
+     * GML object element names start with an upper case, property names with a lower case.
+     */
+    private static boolean isGeometry(final String name){
+        return !name.isEmpty() && Character.isUpperCase(name.charAt(0));
+    }
+
+    /**
+     * Unmarshall current element with JAXB and convert it to JTS.
+     */
+    private Geometry readJAXB() throws XMLStreamException {
+        final Object geometry;
+        try {
+            final Unmarshaller unmarshaller = pool.acquireUnmarshaller();
+            unmarshaller.setEventHandler(new JAXBEventHandler());
+            geometry = ((JAXBElement) unmarshaller.unmarshal(reader)).getValue();
+            pool.recycle(unmarshaller);
+        } catch (JAXBException ex) {
+            String msg = ex.getMessage();
+            if (msg == null && ex.getLinkedException() != null) {
+                msg = ex.getLinkedException().getMessage();
+            }
+            throw new IllegalArgumentException("JAXB exception while reading the feature geometry: " + msg, ex);
+        }
+
+        final Geometry jtsGeom;
+        if (geometry instanceof JTSGeometry) {
+            final JTSGeometry isoGeom = (JTSGeometry) geometry;
+            if (isoGeom instanceof JTSMultiCurve) {
+                ((JTSMultiCurve)isoGeom).applyCRSonChild();
+            }
+            jtsGeom = isoGeom.getJTSGeometry();
+        } else if (geometry instanceof PolygonType) {
+            final PolygonType polygon = ((PolygonType)geometry);
+            jtsGeom = polygon.getJTSPolygon().getJTSGeometry();
+            if(polygon.getCoordinateReferenceSystem() != null) {
+                JTS.setCRS(jtsGeom, polygon.getCoordinateReferenceSystem());
+            }
+        } else if (geometry instanceof LineStringPosListType) {
+            final JTSLineString line = ((LineStringPosListType)geometry).getJTSLineString();
+            jtsGeom = line.getJTSGeometry();
+            if(line.getCoordinateReferenceSystem() != null) {
+                JTS.setCRS(jtsGeom, line.getCoordinateReferenceSystem());
+            }
+        } else if (geometry instanceof AbstractRing) {
+            try {
+                jtsGeom = GeometrytoJTS.toJTS((AbstractRing) geometry);
+            } catch (FactoryException ex) {
+                throw new XMLStreamException("Factory Exception while transforming GML object to JTS", ex);
+            }
+        } else if (geometry instanceof Curve) {
+            try {
+                final List<LineString> lines = GeometrytoJTS.toJTS((Curve) geometry);
+                jtsGeom = GF.createMultiLineString(lines.toArray(new LineString[lines.size()]));
+            } catch (FactoryException ex) {
+                throw new XMLStreamException("Factory Exception while transforming GML object to JTS", ex);
+            }
+        } else if (geometry instanceof AbstractGeometry) {
+            try {
+                jtsGeom = GeometrytoJTS.toJTS((AbstractGeometry) geometry);
+            } catch (FactoryException ex) {
+                throw new XMLStreamException("Factory Exception while transforming GML object to JTS", ex);
+            }
+        } else {
+            throw new IllegalArgumentException("unexpected geometry type:" + geometry);
+        }
+        return jtsGeom;
+    }
+
+    /**
+     * Skip current element, reader is left on the event following its end.
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while(depth > 0){
+            final int event = reader.next();
+            if(event == START_ELEMENT) depth++;
+            else if(event == END_ELEMENT) depth--;
+        }
+        reader.next();
+    }
+
+    /**
+     * Parse white space separated ordinates, only the three first ordinates
+     * of each position are kept.
+     */
+    private void parsePositions(final String text, final int dimension){
+        final double[] position = new double[3];
+        int index = 0;
+        final int length = text.length();
+        int i = 0;
+        while(i < length){
+            //skip white spaces
+            while(i < length && Character.isWhitespace(text.charAt(i))) i++;
+            if(i == length) break;
+            final int start = i;
+            while(i < length && !Character.isWhitespace(text.charAt(i))) i++;
+            if(index < 3){
+                position[index] = Double.parseDouble(text.substring(start, i));
+            }
+            index++;
+            if(index == dimension){
+                appendPosition(position, index);
+                index = 0;
+            }
+        }
+        if(index > 0){
+            //single position of unknown dimension
+            appendPosition(position, index);
+        }
+    }
+
+    /**
+     * Parse a GML coordinates element text.
+     */
+    private void parseCoordinates(final String decimal, String cs, String ts, final String text){
+        if(cs == null) cs = ",";
+        if(ts == null || ts.trim().isEmpty()) ts = " \t\n\r";
+        final boolean replaceDecimal = decimal != null && !".".equals(decimal);
+
+        final double[] position = new double[3];
+        final StringTokenizer tuples = new StringTokenizer(text, ts);
+        while(tuples.hasMoreTokens()){
+            final StringTokenizer values = new StringTokenizer(tuples.nextToken(), cs);
+            int i = 0;
+            for(; i<3 && values.hasMoreTokens(); i++){
+                String value = values.nextToken().trim();
+                if(replaceDecimal) value = value.replace(decimal, ".");
+                position[i] = Double.parseDouble(value);
+            }
+            appendPosition(position, i);
+        }
+    }
+
+    /**
+     * Append a position, Z is NaN if the position has only two ordinates.
+     */
+    private void appendPosition(final double[] position, final int dimension){
+        append(position[0]);
+        append(position[1]);
+        if(dimension > 2){
+            append(position[2]);
+            hasZ = true;
+        }else{
+            append(Double.NaN);
+        }
+    }
+
+    private void append(final double value){
+        if(nbOrdinates == ordinates.length){
+            ordinates = Arrays.copyOf(ordinates, ordinates.length * 2);
+        }
+        ordinates[nbOrdinates++] = value;
+    }
+
+    private CoordinateReferenceSystem getCRS(final String srsName, final boolean longitudeFirst){
+        final String key = srsName + longitudeFirst;
+        if(crsCache.containsKey(key)){
+            return crsCache.get(key);
+        }
+        CoordinateReferenceSystem crs = null;
+        try {
+            crs = longitudeFirst ? CRS.decode(srsName, true) : CRS.decode(srsName);
+        } catch (FactoryException ex) {
+            LOGGER.log(Level.WARNING, "Could not decode CRS which name is : " + srsName, ex);
+        }
+        crsCache.put(key, crs);
+        return crs;
+    }
+
+}
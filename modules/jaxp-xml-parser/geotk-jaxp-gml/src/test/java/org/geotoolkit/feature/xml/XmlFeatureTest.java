@@ -42,6 +42,7 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.feature.xml.jaxp.JAXPStreamFeatureReader;
 import org.geotoolkit.feature.xml.jaxp.JAXPStreamFeatureWriter;
@@ -61,6 +62,7 @@ import org.geotoolkit.feature.xml.jaxp.ElementFeatureWriter;
 import org.geotoolkit.util.FileUtilities;
 import org.apache.sis.util.logging.Logging;
 import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.type.FeatureType;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
@@ -308,6 +310,29 @@ public class XmlFeatureTest {
         expectedIte.close();
     }
     
+    @Test
+    public void testReadSimpleCollectionAsStream() throws IOException, XMLStreamException{
+        final JAXPStreamFeatureReader reader = new JAXPStreamFeatureReader(simpleTypeBasic);
+        FeatureReader<FeatureType,Feature> ite = reader.readAsStream(XmlFeatureTest.class
+                .getResourceAsStream("/org/geotoolkit/feature/xml/CollectionSimple.xml"));
+        assertEquals(simpleTypeBasic, ite.getFeatureType());
+        int count = 0;
+        while(ite.hasNext()){
+            assertNotNull(ite.next());
+            count++;
+        }
+        ite.close();
+        assertEquals(collectionSimple.size(), count);
+
+        //start index and max features applied while parsing
+        ite = reader.readAsStream(XmlFeatureTest.class
+                .getResourceAsStream("/org/geotoolkit/feature/xml/CollectionSimple.xml"), 1, 1);
+        assertTrue(ite.hasNext());
+        ite.next();
+        assertFalse(ite.hasNext());
+        ite.close();
+    }
+
     @Ignore
     @Test
     public void testReadSimpleCollectionEmbeddedFT() throws JAXBException, IOException, XMLStreamException{
@@ -0,0 +1,134 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.feature.xml.jaxp;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Polygon;
+import java.io.StringReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.gml.xml.GMLMarshallerPool;
+import org.junit.Test;
+
+import static javax.xml.stream.events.XMLEvent.*;
+import static org.junit.Assert.*;
+
+/**
+ * Stax GML geometry decoding must match the JAXB decoding.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class StaxGeometryReaderTest {
+
+    private static final String NS = " xmlns:gml=\"http://www.opengis.net/gml\"";
+
+    @Test
+    public void testPoint() throws XMLStreamException{
+        compare("<gml:Point"+NS+" srsName=\"EPSG:4326\"><gml:pos>10.5 -3</gml:pos></gml:Point>");
+        compare("<gml:Point"+NS+"><gml:coordinates>10.5,-3</gml:coordinates></gml:Point>");
+    }
+
+    @Test
+    public void testLineString() throws XMLStreamException{
+        compare("<gml:LineString"+NS+" srsName=\"EPSG:4326\"><gml:posList>1 2 3 4 5 6</gml:posList></gml:LineString>");
+        compare("<gml:LineString"+NS+" srsName=\"EPSG:4326\"><gml:pos>1 2</gml:pos><gml:pos>3 4</gml:pos></gml:LineString>");
+        compare("<gml:LineString"+NS+" srsName=\"EPSG:4326\"><gml:coordinates>1,2 3,4 5,6</gml:coordinates></gml:LineString>");
+    }
+
+    @Test
+    public void testPolygon() throws XMLStreamException{
+        final Geometry geom = compare("<gml:Polygon"+NS+" srsName=\"EPSG:4326\">"
+                + "<gml:exterior><gml:LinearRing><gml:posList>0 0 0 10 10 10 10 0 0 0</gml:posList></gml:LinearRing></gml:exterior>"
+                + "<gml:interior><gml:LinearRing><gml:posList>2 2 2 4 4 4 4 2 2 2</gml:posList></gml:LinearRing></gml:interior>"
+                + "</gml:Polygon>");
+        assertTrue(geom instanceof Polygon);
+        assertEquals(1, ((Polygon)geom).getNumInteriorRing());
+    }
+
+    @Test
+    public void testMultiPolygon() throws XMLStreamException{
+        final Geometry geom = compare("<gml:MultiPolygon"+NS+" srsName=\"EPSG:4326\">"
+                + "<gml:polygonMember><gml:Polygon><gml:exterior><gml:LinearRing>"
+                + "<gml:posList>0 0 0 10 10 10 10 0 0 0</gml:posList></gml:LinearRing></gml:exterior></gml:Polygon></gml:polygonMember>"
+                + "<gml:polygonMember><gml:Polygon><gml:exterior><gml:LinearRing srsDimension=\"3\">"
+                + "<gml:posList>20 20 1 20 30 1 30 30 1 20 20 1</gml:posList></gml:LinearRing></gml:exterior></gml:Polygon></gml:polygonMember>"
+                + "</gml:MultiPolygon>");
+        assertTrue(geom instanceof MultiPolygon);
+        assertEquals(2, geom.getNumGeometries());
+    }
+
+    /**
+     * Z ordinates must be kept, missing ones are NaN.
+     */
+    @Test
+    public void testZ() throws XMLStreamException{
+        Geometry geom = read("<gml:Point"+NS+"><gml:pos>10.5 -3 7</gml:pos></gml:Point>", false);
+        assertEquals(7, geom.getCoordinate().z, 0);
+
+        geom = read("<gml:LineString"+NS+" srsDimension=\"3\"><gml:posList>1 2 3 4 5 6</gml:posList></gml:LineString>", false);
+        final Coordinate[] coords = geom.getCoordinates();
+        assertEquals(2, coords.length);
+        assertEquals(new Coordinate(1, 2, 3), coords[0]);
+        assertEquals(6, coords[1].z, 0);
+
+        geom = read("<gml:LineString"+NS+"><gml:coordinates>1,2,3 4,5</gml:coordinates></gml:LineString>", false);
+        assertEquals(3, geom.getCoordinates()[0].z, 0);
+        assertTrue(Double.isNaN(geom.getCoordinates()[1].z));
+
+        geom = read("<gml:LineString"+NS+"><gml:posList>1 2 3 4</gml:posList></gml:LineString>", false);
+        assertTrue(Double.isNaN(geom.getCoordinate().z));
+    }
+
+    /**
+     * The srsName of members is used when the multi geometry has none.
+     */
+    @Test
+    public void testMemberCRS() throws Exception{
+        final Geometry geom = compare("<gml:MultiPoint"+NS+">"
+                + "<gml:pointMember><gml:Point srsName=\"EPSG:4326\"><gml:pos>1 2</gml:pos></gml:Point></gml:pointMember>"
+                + "<gml:pointMember><gml:Point><gml:pos>3 4</gml:pos></gml:Point></gml:pointMember>"
+                + "</gml:MultiPoint>");
+        assertTrue(geom instanceof MultiPoint);
+        assertEquals(2, geom.getNumGeometries());
+        assertNotNull(JTS.findCoordinateReferenceSystem(geom));
+        assertNotNull(JTS.findCoordinateReferenceSystem(geom.getGeometryN(0)));
+    }
+
+    /**
+     * Decode the geometry with both stax and JAXB, and check they are equal.
+     */
+    private static Geometry compare(final String xml) throws XMLStreamException{
+        final Geometry stax = read(xml, false);
+        final Geometry jaxb = read(xml, true);
+        assertTrue(stax.toText()+" "+jaxb.toText(), stax.equalsExact(jaxb));
+        return stax;
+    }
+
+    private static Geometry read(final String xml, final boolean jaxbOnly) throws XMLStreamException{
+        final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        while(reader.next() != START_ELEMENT);
+        final StaxGeometryReader geomReader = new StaxGeometryReader(reader, GMLMarshallerPool.getInstance(), jaxbOnly);
+        return geomReader.read();
+    }
+
+}
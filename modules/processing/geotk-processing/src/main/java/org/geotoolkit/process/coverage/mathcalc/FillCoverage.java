@@ -24,7 +24,12 @@ import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.apache.sis.geometry.GeneralDirectPosition;
 import org.apache.sis.geometry.GeneralEnvelope;
@@ -40,12 +45,14 @@ import org.geotoolkit.coverage.io.GridCoverageWriteParam;
 import org.geotoolkit.coverage.io.GridCoverageWriter;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.geometry.HyperCubeIterator;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.referencing.CRS;
 import org.geotoolkit.referencing.operation.matrix.GeneralMatrix;
 import org.geotoolkit.util.BufferedImageUtilities;
 import org.opengis.coverage.grid.GridEnvelope;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.datum.PixelInCell;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransformFactory;
@@ -88,8 +95,6 @@ public class FillCoverage {
         // prepare dynamic pick object
         final GridEnvelope ge = gg.getExtent();
         final int nbDim = ge.getDimension();
-        final DirectPosition positionGrid = new GeneralDirectPosition(gg.getCoordinateReferenceSystem());
-        final DirectPosition positionGeo = new GeneralDirectPosition(gg.getCoordinateReferenceSystem());
 
         //calculate the hyper-cube where we will need to recalculate values
         final MathTransform gridToCrs = gg.getGridToCRS();
@@ -131,8 +136,16 @@ public class FillCoverage {
             final HyperCubeIterator.HyperCube cube = ite.next();
             final int[] hcubeLower = cube.getLower();
             final int[] hcubeUpper = cube.getUpper();
-            for(int i=2;i<nbDim;i++){
-                positionGrid.setOrdinate(i, hcubeLower[i]);
+            final int width = hcubeUpper[0]-hcubeLower[0];
+
+            //grid coordinates of a row, only the first ordinate changes
+            final double[] gridRow = new double[width*nbDim];
+            final double[] geoRow = new double[width*nbDim];
+            for(int x=0;x<width;x++){
+                gridRow[x*nbDim] = hcubeLower[0]+x;
+                for(int i=2;i<nbDim;i++){
+                    gridRow[x*nbDim+i] = hcubeLower[i];
+                }
             }
 
             //create the slice coverage
@@ -143,17 +156,16 @@ public class FillCoverage {
             final WritableRaster raster = zoneImage.getRaster();
 
 
-            //loop on all pixels
-            final double[] sampleData = new double[1];
+            //loop on all rows, a row is transformed and evaluated at once
+            final double[] sampleData = new double[width];
             try{
-                for(int x=hcubeLower[0],xn=hcubeUpper[0];x<xn;x++){
-                    for(int y=hcubeLower[1],yn=hcubeUpper[1];y<yn;y++){
-                        positionGrid.setOrdinate(0, x);
-                        positionGrid.setOrdinate(1, y);
-                        gridToCrs.transform(positionGrid, positionGeo);
-                        evaluator.evaluate(positionGeo, sampleData);
-                        raster.setSample(x-hcubeLower[0], y-hcubeLower[1], 0, sampleData[0]);
+                for(int y=hcubeLower[1],yn=hcubeUpper[1];y<yn;y++){
+                    for(int x=0;x<width;x++){
+                        gridRow[x*nbDim+1] = y;
                     }
+                    gridToCrs.transform(gridRow, 0, geoRow, 0, width);
+                    evaluate(evaluator, gg.getCoordinateReferenceSystem(), geoRow, nbDim, sampleData, 1, width);
+                    raster.setSamples(0, y-hcubeLower[1], width, 1, 0, sampleData);
                 }
             }catch(TransformException ex){
                 throw new CoverageStoreException(ex.getMessage(), ex);
@@ -186,34 +198,124 @@ public class FillCoverage {
     
     /**
      * Fill given coverage reference, providing it with processed images.
+     * Tiles are computed and written in parallel.
      * 
      * @param evaluator
      * @param outRef 
      */
     public static void fill(PyramidalCoverageReference outRef, SampleEvaluator evaluator)
             throws DataStoreException, TransformException, FactoryException {
+        fill(outRef, evaluator, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Fill given coverage reference, providing it with processed images.<br/>
+     * Tiles are computed on the shared worker threads and by the calling thread,
+     * at most nbThread tiles are submitted and not finished at the same time.
+     *
+     * @param outRef
+     * @param evaluator
+     * @param nbThread maximum number of tiles computed and written at the same time
+     */
+    public static void fill(final PyramidalCoverageReference outRef, final SampleEvaluator evaluator, final int nbThread)
+            throws DataStoreException, TransformException, FactoryException {
         
         final ColorModel cm = outRef.getColorModel();
         final SampleModel sm = outRef.getSampleModel();
-        
-        for(Pyramid pyramid : outRef.getPyramidSet().getPyramids()){
-            for(GridMosaic mosaic : pyramid.getMosaics()){
-                final Dimension tileSize = mosaic.getTileSize();
-                final double[] upperLeftGeo = mosaic.getUpperLeftCorner().getCoordinate();
-                
-                final Dimension gridSize = mosaic.getGridSize();
-                for(int y=0;y<gridSize.height;y++){
-                    for(int x=0;x<gridSize.width;x++){
-                        final MathTransform gridToCRS = AbstractGridMosaic.getTileGridToCRS(mosaic, new Point(x, y), PixelInCell.CELL_CENTER);
-                        final MathTransform crsToGrid = gridToCRS.inverse();
-                        final double[] baseCoord = new double[upperLeftGeo.length];
-                        crsToGrid.transform(upperLeftGeo, 0, baseCoord, 0, 1);
-                        final MathCalcImageEvaluator eval = new MathCalcImageEvaluator(baseCoord, gridToCRS, evaluator.copy());
-                        final ProcessedRenderedImage image = new ProcessedRenderedImage(sm, cm, eval, tileSize.width, tileSize.height);
-                        outRef.writeTile(pyramid.getId(), mosaic.getId(), x, y, image);
+
+        final int maxTasks = Math.max(1, nbThread);
+        final Deque<FutureTask<Object>> tasks = new ArrayDeque<>(maxTasks);
+        try{
+            for(final Pyramid pyramid : outRef.getPyramidSet().getPyramids()){
+                for(final GridMosaic mosaic : pyramid.getMosaics()){
+                    final Dimension tileSize = mosaic.getTileSize();
+                    final double[] upperLeftGeo = mosaic.getUpperLeftCorner().getCoordinate();
+
+                    final Dimension gridSize = mosaic.getGridSize();
+                    for(int y=0;y<gridSize.height;y++){
+                        for(int x=0;x<gridSize.width;x++){
+                            final MathTransform gridToCRS = AbstractGridMosaic.getTileGridToCRS(mosaic, new Point(x, y), PixelInCell.CELL_CENTER);
+                            final MathTransform crsToGrid = gridToCRS.inverse();
+                            final double[] baseCoord = new double[upperLeftGeo.length];
+                            crsToGrid.transform(upperLeftGeo, 0, baseCoord, 0, 1);
+                            final MathCalcImageEvaluator eval = new MathCalcImageEvaluator(baseCoord, gridToCRS, evaluator.copy());
+                            final ProcessedRenderedImage image = new ProcessedRenderedImage(sm, cm, eval, tileSize.width, tileSize.height);
+                            final int tileX = x;
+                            final int tileY = y;
+                            if(tasks.size() == maxTasks){
+                                finish(tasks.poll());
+                            }
+                            final FutureTask<Object> task = new FutureTask<>(new Callable<Object>() {
+                                @Override
+                                public Object call() throws DataStoreException {
+                                    outRef.writeTile(pyramid.getId(), mosaic.getId(), tileX, tileY, image);
+                                    return null;
+                                }
+                            });
+                            tasks.add(task);
+                            Threads.executeWork(task);
+                        }
                     }
                 }
             }
+
+            //wait for all tiles
+            while(!tasks.isEmpty()){
+                finish(tasks.poll());
+            }
+        }catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new DataStoreException(ex.getMessage(), ex);
+        }catch(ExecutionException ex){
+            final Throwable cause = ex.getCause();
+            if(cause instanceof DataStoreException){
+                throw (DataStoreException) cause;
+            }
+            throw new DataStoreException(cause.getMessage(), cause);
+        }finally{
+            for(FutureTask<Object> task : tasks){
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Wait for the given tile task, the task is executed in current thread if no
+     * worker started it yet. Waiting on a queued task could block forever when
+     * the calling thread is itself a worker of the shared pool.
+     */
+    private static void finish(final FutureTask<Object> task) throws InterruptedException, ExecutionException {
+        task.run();
+        task.get();
+    }
+
+    /**
+     * Evaluate the sample values of several coordinates, coordinates are given
+     * to the evaluator at once if it is a {@link BlockSampleEvaluator}.
+     *
+     * @param evaluator sample evaluator
+     * @param crs coordinates crs
+     * @param coords coordinates, nbDim values for each position
+     * @param nbDim number of dimensions of the coordinates
+     * @param sampleBuffer new samples, nbBands values for each position
+     * @param nbBands number of samples for each position
+     * @param nbPoints number of positions
+     */
+    public static void evaluate(final SampleEvaluator evaluator, final CoordinateReferenceSystem crs,
+            final double[] coords, final int nbDim, final double[] sampleBuffer, final int nbBands, final int nbPoints){
+        if(evaluator instanceof BlockSampleEvaluator){
+            ((BlockSampleEvaluator)evaluator).evaluate(coords, nbDim, sampleBuffer, nbBands, nbPoints);
+            return;
+        }
+
+        final GeneralDirectPosition position = (crs != null) ? new GeneralDirectPosition(crs) : new GeneralDirectPosition(nbDim);
+        final double[] pointBuffer = new double[nbBands];
+        for(int p=0;p<nbPoints;p++){
+            for(int i=0;i<nbDim;i++){
+                position.setOrdinate(i, coords[p*nbDim+i]);
+            }
+            evaluator.evaluate(position, pointBuffer);
+            System.arraycopy(pointBuffer, 0, sampleBuffer, p*nbBands, nbBands);
         }
     }
     
@@ -235,4 +337,22 @@ public class FillCoverage {
 
     }
 
+    /**
+     * Sample evaluator able to evaluate several coordinates in a single call.
+     */
+    public static interface BlockSampleEvaluator extends SampleEvaluator {
+
+        /**
+         * Evaluate the new sample values at given geographic coordinates.
+         *
+         * @param coords , coordinates where to evaluate the samples, nbDim values for each position.
+         * @param nbDim , number of dimensions of the coordinates.
+         * @param sampleBuffer , new samples must be set in this buffer, nbBands values for each position.
+         * @param nbBands , number of samples for each position.
+         * @param nbPoints , number of positions.
+         */
+        void evaluate(double[] coords, int nbDim, double[] sampleBuffer, int nbBands, int nbPoints);
+
+    }
+
 }
@@ -18,6 +18,7 @@
 package org.geotoolkit.process.coverage.mathcalc;
 
 import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -35,7 +36,7 @@ import org.opengis.util.FactoryException;
  *
  * @author Johann Sorel (Geomatys)
  */
-public class MathCalcCoverageEvaluator implements FillCoverage.SampleEvaluator {
+public class MathCalcCoverageEvaluator implements FillCoverage.BlockSampleEvaluator {
 
     private final GeneralDirectPosition positionGeo;
     private final DynamicPick pick;
@@ -62,6 +63,19 @@ public class MathCalcCoverageEvaluator implements FillCoverage.SampleEvaluator {
         sampleBuffer[0] = exp.evaluate(pick, Double.class);
     }
 
+    @Override
+    public void evaluate(double[] coords, int nbDim, double[] sampleBuffer, int nbBands, int nbPoints) {
+        pick.setBlock(coords, nbDim, nbPoints);
+        try{
+            for(int i=0;i<nbPoints;i++){
+                pick.blockIndex = i;
+                sampleBuffer[i*nbBands] = exp.evaluate(pick, Double.class);
+            }
+        }finally{
+            pick.blockIndex = -1;
+        }
+    }
+
     @Override
     public FillCoverage.SampleEvaluator copy() throws FactoryException {
         return new MathCalcCoverageEvaluator(this);
@@ -75,6 +89,15 @@ public class MathCalcCoverageEvaluator implements FillCoverage.SampleEvaluator {
         private final GeneralDirectPosition[] coverageCoord;
         private final DirectPosition coord;
         private final double[] sampleBuffer;
+
+        //block of coordinates, coordinates are transformed to a coverage crs
+        //only when the expression uses this coverage
+        private double[] block;
+        private int blockDim;
+        private int blockSize;
+        private int blockIndex = -1;
+        private final double[][] blockCoverageCoords;
+        private final boolean[] blockTransformed;
         
         private DynamicPick(Coverage[] coverages, String[] mapping, DirectPosition coord) throws FactoryException{
             this.coverages = coverages;
@@ -87,6 +110,61 @@ public class MathCalcCoverageEvaluator implements FillCoverage.SampleEvaluator {
                 baseToCoverage[i] = CRS.findMathTransform(coord.getCoordinateReferenceSystem(), coverages[i].getCoordinateReferenceSystem());
                 coverageCoord[i] = new GeneralDirectPosition(coverages[i].getCoordinateReferenceSystem());
             }
+            blockCoverageCoords = new double[coverages.length][0];
+            blockTransformed = new boolean[coverages.length];
+        }
+
+        private void setBlock(double[] coords, int nbDim, int nbPoints){
+            this.block = coords;
+            this.blockDim = nbDim;
+            this.blockSize = nbPoints;
+            Arrays.fill(blockTransformed, false);
+        }
+
+        /**
+         * Set the coverage coordinate from the current block position.
+         * If the block can not be transformed at once, positions are transformed
+         * one by one and those which fail are set to NaN, a single warning is logged
+         * for the block.
+         *
+         * @return false if the current block position could not be transformed
+         */
+        private boolean updateBlockCoord(int i){
+            final int covDim = coverageCoord[i].getDimension();
+            if(!blockTransformed[i]){
+                if(blockCoverageCoords[i].length < blockSize*covDim){
+                    blockCoverageCoords[i] = new double[blockSize*covDim];
+                }
+                try{
+                    baseToCoverage[i].transform(block, 0, blockCoverageCoords[i], 0, blockSize);
+                }catch(Exception ex){
+                    Logger.getLogger(MathCalcProcess.class.getName()).log(Level.WARNING, ex.getMessage(), ex);
+                    transformPositions(i);
+                }
+                blockTransformed[i] = true;
+            }
+            final double[] coords = blockCoverageCoords[i];
+            for(int k=0;k<covDim;k++){
+                final double ordinate = coords[blockIndex*covDim+k];
+                if(Double.isNaN(ordinate)) return false;
+                coverageCoord[i].setOrdinate(k, ordinate);
+            }
+            return true;
+        }
+
+        /**
+         * Transform the block positions one by one, positions which fail are set to NaN.
+         */
+        private void transformPositions(int i){
+            final int covDim = coverageCoord[i].getDimension();
+            final double[] coords = blockCoverageCoords[i];
+            for(int p=0;p<blockSize;p++){
+                try{
+                    baseToCoverage[i].transform(block, p*blockDim, coords, p*covDim, 1);
+                }catch(Exception ex){
+                    Arrays.fill(coords, p*covDim, (p+1)*covDim, Double.NaN);
+                }
+            }
         }
         
         @Override
@@ -97,11 +175,17 @@ public class MathCalcCoverageEvaluator implements FillCoverage.SampleEvaluator {
             for(int i=0;i<mapping.length;i++){
                 if(mapping[i].equals(name)){
                     index = i;
-                    try {
-                        baseToCoverage[i].transform(coord, coverageCoord[i]);
-                    } catch (Exception ex) {
-                        Logger.getLogger(MathCalcProcess.class.getName()).log(Level.WARNING, ex.getMessage(), ex);
-                        return Double.NaN;
+                    if(blockIndex >= 0){
+                        if(!updateBlockCoord(i)){
+                            return Double.NaN;
+                        }
+                    }else{
+                        try {
+                            baseToCoverage[i].transform(coord, coverageCoord[i]);
+                        } catch (Exception ex) {
+                            Logger.getLogger(MathCalcProcess.class.getName()).log(Level.WARNING, ex.getMessage(), ex);
+                            return Double.NaN;
+                        }
                     }
                     break;
                 }
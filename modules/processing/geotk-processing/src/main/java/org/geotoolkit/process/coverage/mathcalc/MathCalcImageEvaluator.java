@@ -30,7 +30,7 @@ import org.opengis.referencing.operation.MathTransform;
  *
  * @author Johann Sorel (Geomatys)
  */
-public class MathCalcImageEvaluator implements ProcessedRenderedImage.Evaluator {
+public class MathCalcImageEvaluator implements ProcessedRenderedImage.RowEvaluator {
 
     private final MathTransform gridToCrs;
     private final SampleEvaluator coverageEvaluator;
@@ -38,6 +38,10 @@ public class MathCalcImageEvaluator implements ProcessedRenderedImage.Evaluator
     private final double[] crsCoord;
     private final GeneralDirectPosition geoPos;
 
+    //row buffers
+    private double[] gridRow = new double[0];
+    private double[] crsRow = new double[0];
+
     /**
      * 
      * @param baseGridCoord
@@ -62,9 +66,63 @@ public class MathCalcImageEvaluator implements ProcessedRenderedImage.Evaluator
             Logger.getLogger(MathCalcProcess.class.getName()).log(Level.WARNING, ex.getMessage(), ex);
             //we should use NoData value
             Arrays.fill(sampleBuffer, Double.NaN);
+            return;
         }
         geoPos.setCoordinate(crsCoord);
         coverageEvaluator.evaluate(geoPos, sampleBuffer);
     }
+
+    @Override
+    public void evaluateRow(int x, int y, int width, double[] sampleBuffer) {
+        final int gridDim = gridCoord.length;
+        final int crsDim = crsCoord.length;
+        if(gridRow.length < width*gridDim){
+            gridRow = new double[width*gridDim];
+            crsRow = new double[width*crsDim];
+        }
+        gridCoord[1] = y;
+        for(int i=0;i<width;i++){
+            gridCoord[0] = x+i;
+            System.arraycopy(gridCoord, 0, gridRow, i*gridDim, gridDim);
+        }
+        final int nbBands = sampleBuffer.length / width;
+        try {
+            gridToCrs.transform(gridRow, 0, crsRow, 0, width);
+        } catch (Exception ex) {
+            //some pixels can not be transformed, evaluate the row pixel per pixel
+            evaluatePixels(x, y, width, nbBands, sampleBuffer, ex);
+            return;
+        }
+        FillCoverage.evaluate(coverageEvaluator, null, crsRow, crsDim, sampleBuffer, nbBands, width);
+    }
+
+    /**
+     * Evaluate a row pixel per pixel, pixels which can not be transformed are set to NaN.
+     * A single warning is logged for the row.
+     *
+     * @param rowError exception thrown by the row transform
+     */
+    private void evaluatePixels(int x, int y, int width, int nbBands, double[] sampleBuffer, Exception rowError) {
+        Logger.getLogger(MathCalcProcess.class.getName()).log(Level.WARNING, rowError.getMessage(), rowError);
+        final double[] pixelBuffer = new double[nbBands];
+        gridCoord[1] = y;
+        for(int i=0;i<width;i++){
+            gridCoord[0] = x+i;
+            boolean valid = true;
+            try {
+                gridToCrs.transform(gridCoord, 0, crsCoord, 0, 1);
+            } catch (Exception ex) {
+                valid = false;
+            }
+            if(valid){
+                geoPos.setCoordinate(crsCoord);
+                coverageEvaluator.evaluate(geoPos, pixelBuffer);
+            }else{
+                //we should use NoData value
+                Arrays.fill(pixelBuffer, Double.NaN);
+            }
+            System.arraycopy(pixelBuffer, 0, sampleBuffer, i*nbBands, nbBands);
+        }
+    }
     
 }
@@ -18,12 +18,21 @@ package org.geotoolkit.process.vector.convexhull;
 
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreUtilities;
 import org.geotoolkit.geometry.jts.SRIDGenerator;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.process.AbstractProcess;
+import org.geotoolkit.process.ProcessException;
 
 import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.Property;
@@ -38,6 +47,8 @@ import static org.geotoolkit.parameter.Parameters.*;
  * Compute the convex hull from a FeatureCollection. An optional parameter
  * geometry_name set the GeometryAttribute name used to compute the convex hull.
  * By default the process use the default GeometryAttribute in Features.
+ * Collections from a feature store are split in partitions read concurrently,
+ * the hulls of the partitions are merged.
  * @author Quentin Boileau
  * @module pending
  */
@@ -54,7 +65,7 @@ public class ConvexHullProcess extends AbstractProcess {
      *  {@inheritDoc }
      */
     @Override
-    protected void execute() {
+    protected void execute() throws ProcessException {
         final FeatureCollection<Feature> inputFeatureList   = value(FEATURE_IN, inputParameters);
         final String geometryName                           = value(GEOMETRY_NAME, inputParameters);
 
@@ -64,42 +75,108 @@ public class ConvexHullProcess extends AbstractProcess {
     }
 
     /**
-     * Compute the convex hull from a feature collection on a geometry attribute name
+     * Compute the convex hull from a feature collection on a geometry attribute name.
+     * The first partition is read by the calling thread, the other ones by the
+     * shared worker threads. Partitions not started by a worker when the caller
+     * reaches them are read by the caller.
+     *
      * @param inputFeatureList
      * @param geometryName
      * @return the convex hull geometry
      */
-    private Geometry computeConvexHull(final FeatureCollection<Feature> inputFeatureList, String geometryName) {
+    private Geometry computeConvexHull(final FeatureCollection<Feature> inputFeatureList, String geometryName)
+            throws ProcessException {
+        if (geometryName == null) {
+            final GeometryDescriptor desc = inputFeatureList.getFeatureType().getGeometryDescriptor();
+            if (desc != null) {
+                geometryName = desc.getLocalName();
+            }
+        }
+
+        final List<FeatureIterator> partitions;
+        try {
+            partitions = FeatureStoreUtilities.split(inputFeatureList, Runtime.getRuntime().availableProcessors());
+        } catch (DataStoreException ex) {
+            throw new ProcessException(ex.getMessage(), this, ex);
+        }
 
+        final List<FutureTask<HullTask>> tasks = new ArrayList<>();
+        for (FeatureIterator partition : partitions) {
+            tasks.add(new FutureTask<>(new HullTask(partition, geometryName)));
+        }
+        for (int i = 1; i < tasks.size(); i++) {
+            Threads.executeWork(tasks.get(i));
+        }
 
         Geometry convexHull = new GeometryFactory().buildGeometry(Collections.EMPTY_LIST);
         CoordinateReferenceSystem crs = null;
-        final FeatureIterator<Feature> iter = inputFeatureList.iterator();
         try {
-            while (iter.hasNext()) {
-                final Feature feature = iter.next();
-
-                //in the first pass, if the geometry attribute name is null, we use the default geometry attribute name
-                if (geometryName == null) {
-                    geometryName = feature.getDefaultGeometryProperty().getName().getLocalPart();
-                }
-                for (Property property : feature.getProperties()) {
-                    if (property.getDescriptor() instanceof GeometryDescriptor) {
-                        final GeometryDescriptor desc = (GeometryDescriptor) property.getDescriptor();
-                        if (desc.getName().getLocalPart().equals(geometryName)) {
-                            crs = desc.getCoordinateReferenceSystem();
-
-                            final Geometry tmpGeom = (Geometry) property.getValue();
-                            convexHull = convexHull.union(tmpGeom);
-                            convexHull = convexHull.convexHull();
-                        }
-                    }
+            for (FutureTask<HullTask> task : tasks) {
+                task.run();
+                final HullTask result = task.get();
+                convexHull = convexHull.union(result.hull).convexHull();
+                if (result.crs != null) {
+                    crs = result.crs;
                 }
             }
+        } catch (InterruptedException ex) {
+            throw new ProcessException(ex.getMessage(), this, ex);
+        } catch (ExecutionException ex) {
+            throw new ProcessException(ex.getCause().getMessage(), this, ex.getCause());
         } finally {
-            iter.close();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (tasks.get(i).cancel(false)) {
+                    //task never started, its partition is still open
+                    partitions.get(i).close();
+                }
+            }
         }
         convexHull.setSRID(SRIDGenerator.toSRID(crs, SRIDGenerator.Version.V1));
         return convexHull;
     }
+
+    /**
+     * Compute the convex hull of one partition, the iterator is closed.
+     */
+    private static final class HullTask implements Callable<HullTask> {
+
+        private final FeatureIterator<Feature> iter;
+        private String geometryName;
+        private Geometry hull = new GeometryFactory().buildGeometry(Collections.EMPTY_LIST);
+        private CoordinateReferenceSystem crs = null;
+
+        private HullTask(final FeatureIterator<Feature> iter, final String geometryName) {
+            this.iter = iter;
+            this.geometryName = geometryName;
+        }
+
+        @Override
+        public HullTask call() {
+            try {
+                while (iter.hasNext()) {
+                    final Feature feature = iter.next();
+
+                    //in the first pass, if the geometry attribute name is null, we use the default geometry attribute name
+                    if (geometryName == null) {
+                        geometryName = feature.getDefaultGeometryProperty().getName().getLocalPart();
+                    }
+                    for (Property property : feature.getProperties()) {
+                        if (property.getDescriptor() instanceof GeometryDescriptor) {
+                            final GeometryDescriptor desc = (GeometryDescriptor) property.getDescriptor();
+                            if (desc.getName().getLocalPart().equals(geometryName)) {
+                                crs = desc.getCoordinateReferenceSystem();
+
+                                final Geometry tmpGeom = (Geometry) property.getValue();
+                                hull = hull.union(tmpGeom);
+                                hull = hull.convexHull();
+                            }
+                        }
+                    }
+                }
+            } finally {
+                iter.close();
+            }
+            return this;
+        }
+    }
 }
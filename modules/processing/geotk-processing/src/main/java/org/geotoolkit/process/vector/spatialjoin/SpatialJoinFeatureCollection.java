@@ -17,13 +17,22 @@
 package org.geotoolkit.process.vector.spatialjoin;
 
 import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.memory.FeatureSpatialIndex;
 import org.geotoolkit.data.memory.WrapFeatureCollection;
 
 import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.type.FeatureType;
+import org.geotoolkit.feature.type.GeometryDescriptor;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
 
 /**
- * FeatureCollection for SpatialJoin process
+ * FeatureCollection for SpatialJoin process.
+ * Source features are loaded once in a spatial index, in the crs of the
+ * target default geometry.
  * @author Quentin Boileau
  * @module pending
  */
@@ -32,6 +41,7 @@ public class SpatialJoinFeatureCollection extends WrapFeatureCollection {
     private final FeatureType newFeatureType;
     private final FeatureCollection<Feature> sourceFC;
     private final boolean method;
+    private FeatureSpatialIndex sourceIndex = null;
 
     /**
      * Create the new
@@ -62,6 +72,29 @@ public class SpatialJoinFeatureCollection extends WrapFeatureCollection {
      */
     @Override
     protected Feature modify(final Feature original) {
-        return SpatialJoinProcess.join(original, newFeatureType, sourceFC, method);
+        return SpatialJoinProcess.join(original, newFeatureType, getSourceIndex(), method);
+    }
+
+    /**
+     * Build the source features spatial index on first call.
+     */
+    private synchronized FeatureSpatialIndex getSourceIndex() {
+        if (sourceIndex == null) {
+            final GeometryDescriptor geomDesc = getOriginalFeatureCollection().getFeatureType().getGeometryDescriptor();
+            final CoordinateReferenceSystem crs = (geomDesc != null) ? geomDesc.getCoordinateReferenceSystem() : null;
+            final FeatureSpatialIndex index = new FeatureSpatialIndex(crs);
+            final FeatureIterator<Feature> ite = sourceFC.iterator();
+            try {
+                index.addAll(ite);
+            } catch (FactoryException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            } catch (TransformException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            } finally {
+                ite.close();
+            }
+            sourceIndex = index;
+        }
+        return sourceIndex;
     }
 }
@@ -18,23 +18,20 @@ package org.geotoolkit.process.vector.spatialjoin;
 
 import com.vividsolutions.jts.geom.Geometry;
 
-import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geotoolkit.data.FeatureCollection;
-import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.memory.FeatureSpatialIndex;
 import org.geotoolkit.feature.AttributeDescriptorBuilder;
 import org.geotoolkit.feature.AttributeTypeBuilder;
 import org.geotoolkit.feature.FeatureTypeBuilder;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.geotoolkit.geometry.jts.JTS;
 import org.geotoolkit.process.AbstractProcess;
-import org.geotoolkit.process.ProcessDescriptor;
-import org.geotoolkit.process.ProcessException;
-import org.geotoolkit.process.vector.intersect.IntersectDescriptor;
-import org.geotoolkit.process.vector.nearest.NearestDescriptor;
+import org.geotoolkit.process.vector.VectorProcessUtils;
 
 import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.Property;
@@ -45,6 +42,8 @@ import org.geotoolkit.feature.type.GeometryDescriptor;
 import org.geotoolkit.feature.type.PropertyDescriptor;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
 
 import static org.geotoolkit.process.vector.spatialjoin.SpatialJoinDescriptor.*;
 import static org.geotoolkit.parameter.Parameters.*;
@@ -95,12 +94,12 @@ public class SpatialJoinProcess extends AbstractProcess {
      *
      * @param target the target Feature
      * @param newType the concatenated FeatureType
-     * @param sourceFC the source FeatureCollection
+     * @param sourceIndex spatial index of the source features
      * @param method the used method. True -> Intersect, False -> Nearest
      * @return the joined feature
      */
     static Feature join(final Feature target, final FeatureType newType,
-            final FeatureCollection<Feature> sourceFC, final boolean method) {
+            final FeatureSpatialIndex sourceIndex, final boolean method) {
 
         Feature resultFeature = FeatureUtilities.defaultFeature(newType, target.getIdentifier().getID());
 
@@ -109,66 +108,47 @@ public class SpatialJoinProcess extends AbstractProcess {
             resultFeature.getProperty(targetProperty.getName()).setValue(targetProperty.getValue());
         }
 
-        ProcessDescriptor desc;
-        org.geotoolkit.process.Process proc;
-        ParameterValueGroup in;
-        ArrayList<Feature> featureOutArray;
+        final CoordinateReferenceSystem indexCRS = sourceIndex.getCoordinateReferenceSystem();
 
         //for each target feature geometry
         for (final Property property : target.getProperties()) {
             if (property.getDescriptor() instanceof GeometryDescriptor) {
-                final Geometry targetGeometry = (Geometry) property.getValue();
+                Geometry targetGeometry = (Geometry) property.getValue();
+                if (targetGeometry == null) {
+                    continue;
+                }
                 final GeometryDescriptor geomDesc = (GeometryDescriptor) property.getDescriptor();
                 final CoordinateReferenceSystem geomCRS = geomDesc.getCoordinateReferenceSystem();
 
                 JTS.setCRS(targetGeometry, geomCRS);//add CRS to the used data geometry
-                //use intersect method
-                if (method) {
-                    desc = IntersectDescriptor.INSTANCE;
-                    in = desc.getInputDescriptor().createValue();
-                    in.parameter(IntersectDescriptor.FEATURE_IN.getName().getCode()).setValue(sourceFC);
-                    in.parameter(IntersectDescriptor.GEOMETRY_IN.getName().getCode()).setValue(targetGeometry);
-                    proc = desc.createProcess(in);
-
-                } else {//use nearest method
-                    desc = NearestDescriptor.INSTANCE;
-                    in = desc.getInputDescriptor().createValue();
-                    in.parameter(NearestDescriptor.FEATURE_IN.getName().getCode()).setValue(sourceFC);
-                    in.parameter(NearestDescriptor.GEOMETRY_IN.getName().getCode()).setValue(targetGeometry);
-                    proc = desc.createProcess(in);
-                }
 
-                //run it
-                final FeatureCollection<Feature> featureOut;
+                //source geometries are indexed in the index crs
                 try {
-                    featureOut = (FeatureCollection<Feature>) proc.call().parameter("feature_out").getValue();
-                } catch (ProcessException ex) {
+                    if (indexCRS != null && geomCRS != null) {
+                        targetGeometry = VectorProcessUtils.repojectGeometry(indexCRS, geomCRS, targetGeometry);
+                    }
+                } catch (FactoryException ex) {
+                    Logger.getLogger(SpatialJoinProcess.class.getName()).log(Level.WARNING, null, ex);
+                    return null;
+                } catch (TransformException ex) {
                     Logger.getLogger(SpatialJoinProcess.class.getName()).log(Level.WARNING, null, ex);
                     return null;
                 }
 
-                featureOutArray = new ArrayList<Feature>(featureOut);
-
-                if (method) {//intersect method
-
-                    if (featureOutArray.isEmpty()) { //no intersection
-                        return resultFeature;
-                    } else {
-
-                        if (featureOutArray.size() > 1) { //more than one intersection
-                            final Feature biggestFeature = biggestIntersection(featureOut, targetGeometry);
-                            resultFeature = copyAttributes(target, biggestFeature, newType);
-                        } else {// only one intersection
-                            resultFeature = copyAttributes(target, featureOutArray.get(0), newType);
-                        }
-                    }
+                final List<FeatureSpatialIndex.Entry> matches;
+                if (method) { //use intersect method
+                    matches = sourceIndex.intersects(targetGeometry);
+                } else { //use nearest method
+                    matches = sourceIndex.nearest(targetGeometry);
+                }
 
-                } else {//nearest method
-                    if (featureOutArray.isEmpty()) {
-                        return resultFeature;
-                    } else {
-                        resultFeature = copyAttributes(target, featureOutArray.get(0), newType);
-                    }
+                if (matches.isEmpty()) { //no intersection or no source feature
+                    return resultFeature;
+                } else if (method && matches.size() > 1) { //more than one intersection
+                    final Feature biggestFeature = biggestIntersection(matches, targetGeometry);
+                    resultFeature = copyAttributes(target, biggestFeature, newType);
+                } else {
+                    resultFeature = copyAttributes(target, matches.get(0).getFeature(), newType);
                 }
             }
         }
@@ -208,42 +188,22 @@ public class SpatialJoinProcess extends AbstractProcess {
     /**
      * Return the Feature with the biggest intersection area with the geometry.
      * If there is many Feature with the same area, the function return th first founded.
-     * @param outFC
+     * @param matches source geometries intersecting the geometry
      * @param intersectGeometry
      * @return the Feature
      */
-    static Feature biggestIntersection(final FeatureCollection<Feature> outFC, final Geometry intersectGeometry) {
+    static Feature biggestIntersection(final List<FeatureSpatialIndex.Entry> matches, final Geometry intersectGeometry) {
         double area = 0.0;
+        Feature biggest = matches.get(0).getFeature();
 
-        final ArrayList<Feature> listID = new ArrayList<Feature>();
-
-        final FeatureIterator<Feature> iter = outFC.iterator(null);
-        try{
-            while (iter.hasNext()) {
-                final Feature feature = iter.next();
-                for (final Property property : feature.getProperties()) {
-                    if (property.getDescriptor() instanceof GeometryDescriptor) {
-
-                        final Geometry geom = (Geometry) property.getValue();
-
-                        final double computeArea = intersectGeometry.intersection(geom).getArea();
-                        if (computeArea > area) {
-                            listID.clear();
-                            area = computeArea;
-                            listID.add(feature);
-
-                        } else {
-                            if (computeArea == area) {
-                                listID.add(feature);
-                            }
-                        }
-                    }
-                }
+        for (final FeatureSpatialIndex.Entry entry : matches) {
+            final double computeArea = intersectGeometry.intersection(entry.getGeometry()).getArea();
+            if (computeArea > area) {
+                area = computeArea;
+                biggest = entry.getFeature();
             }
-        }finally{
-            iter.close();
         }
-        return listID.get(0);
+        return biggest;
     }
 
     /**
@@ -26,6 +26,7 @@ import java.awt.image.WritableRaster;
 import java.util.*;
 
 import org.apache.sis.geometry.GeneralDirectPosition;
+import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.apache.sis.referencing.CommonCRS;
 import org.apache.sis.referencing.crs.DefaultCompoundCRS;
 import org.apache.sis.referencing.crs.DefaultGeographicCRS;
@@ -36,6 +37,7 @@ import org.geotoolkit.coverage.CoverageStore;
 import org.geotoolkit.coverage.GridCoverageStack;
 import org.geotoolkit.coverage.GridMosaic;
 import org.geotoolkit.coverage.GridSampleDimension;
+import org.geotoolkit.coverage.ProcessedRenderedImage;
 import org.geotoolkit.coverage.Pyramid;
 import org.geotoolkit.coverage.PyramidalCoverageReference;
 import org.geotoolkit.coverage.grid.GridCoverage2D;
@@ -43,6 +45,7 @@ import org.geotoolkit.coverage.grid.GridCoverageBuilder;
 import org.geotoolkit.coverage.grid.ViewType;
 import org.geotoolkit.coverage.io.GridCoverageReader;
 import org.geotoolkit.coverage.memory.MPCoverageStore;
+import org.geotoolkit.cql.CQL;
 import org.geotoolkit.feature.type.DefaultName;
 import org.geotoolkit.feature.type.Name;
 import org.geotoolkit.geometry.GeneralEnvelope;
@@ -55,6 +58,7 @@ import org.opengis.coverage.Coverage;
 import org.opengis.coverage.grid.GridCoverage;
 import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
 
 /**
  *
@@ -314,6 +318,100 @@ public class MathCalcTest {
 
     }
 
+    /**
+     * Block and row evaluations must give the same samples as the evaluation
+     * of each pixel.
+     */
+    @Test
+    public void blockEvaluationTest() throws Exception{
+        final int width = 64;
+        final int height = 48;
+
+        final CoordinateReferenceSystem crs = CommonCRS.WGS84.defaultGeographic();
+        final GeneralEnvelope env = new GeneralEnvelope(crs);
+        env.setRange(0, 0, 6.4);
+        env.setRange(1, 0, 4.8);
+        final GridCoverage2D baseCoverage = createGradientCoverage2D(env, width, height);
+
+        final MathCalcCoverageEvaluator evaluator = new MathCalcCoverageEvaluator(
+                new Coverage[]{baseCoverage}, new String[]{"A"}, CQL.parseExpression("A*2+1"), crs);
+        //pixel index to pixel center
+        final MathTransform gridToCrs = new AffineTransform2D(0.1, 0, 0, -0.1, 0.05, 4.75);
+
+        //pixel per pixel evaluation
+        final double[] expected = new double[width*height];
+        final GeneralDirectPosition position = new GeneralDirectPosition(crs);
+        final double[] sample = new double[1];
+        final double[] point = new double[2];
+        for(int y=0;y<height;y++){
+            for(int x=0;x<width;x++){
+                point[0] = x;
+                point[1] = y;
+                gridToCrs.transform(point, 0, point, 0, 1);
+                position.setCoordinate(point);
+                evaluator.evaluate(position, sample);
+                expected[y*width+x] = sample[0];
+                Assert.assertEquals(2*(x+y*width)+1, sample[0], DELTA);
+            }
+        }
+
+        //block evaluation, one row at a time
+        final double[] coords = new double[width*2];
+        final double[] rowBuffer = new double[width];
+        for(int y=0;y<height;y++){
+            for(int x=0;x<width;x++){
+                coords[x*2] = x;
+                coords[x*2+1] = y;
+            }
+            gridToCrs.transform(coords, 0, coords, 0, width);
+            FillCoverage.evaluate(evaluator, crs, coords, 2, rowBuffer, 1, width);
+            assertRowEquals(expected, y*width, rowBuffer, width);
+        }
+
+        //image evaluator, row and pixel evaluations
+        final MathCalcImageEvaluator imageEvaluator = new MathCalcImageEvaluator(new double[2], gridToCrs, evaluator.copy());
+        for(int y=0;y<height;y++){
+            imageEvaluator.evaluateRow(0, y, width, rowBuffer);
+            assertRowEquals(expected, y*width, rowBuffer, width);
+            for(int x=0;x<width;x++){
+                imageEvaluator.evaluate(x, y, sample);
+                Assert.assertEquals(expected[y*width+x], sample[0], DELTA);
+            }
+        }
+
+        //processed image tiles, with and without row evaluation
+        final int tileSize = 16;
+        final RenderedImage model = createRenderedImage(1, 1, 0, 0);
+        final ProcessedRenderedImage rowImage = new ProcessedRenderedImage(model.getSampleModel(), model.getColorModel(),
+                imageEvaluator, width, height, 0, 0, width/tileSize, height/tileSize, 0, 0, tileSize, tileSize, 0, 0);
+        final ProcessedRenderedImage pixelImage = new ProcessedRenderedImage(model.getSampleModel(), model.getColorModel(),
+                new ProcessedRenderedImage.Evaluator() {
+                    @Override
+                    public void evaluate(int x, int y, double[] sampleBuffer) {
+                        imageEvaluator.evaluate(x, y, sampleBuffer);
+                    }
+                }, width, height, 0, 0, width/tileSize, height/tileSize, 0, 0, tileSize, tileSize, 0, 0);
+        for(int ty=0;ty<height/tileSize;ty++){
+            for(int tx=0;tx<width/tileSize;tx++){
+                final Raster rowTile = rowImage.getTile(tx, ty);
+                final Raster pixelTile = pixelImage.getTile(tx, ty);
+                for(int y=0;y<tileSize;y++){
+                    for(int x=0;x<tileSize;x++){
+                        final double value = expected[(ty*tileSize+y)*width + tx*tileSize+x];
+                        Assert.assertEquals(value, rowTile.getSampleDouble(x, y, 0), DELTA);
+                        Assert.assertEquals(value, pixelTile.getSampleDouble(x, y, 0), DELTA);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertRowEquals(double[] expected, int offset, double[] row, int width){
+        for(int x=0;x<width;x++){
+            Assert.assertEquals("at "+(offset+x), expected[offset+x], row[x], DELTA);
+        }
+    }
+
     /**
      *
      * @param ref
@@ -367,6 +465,24 @@ public class MathCalcTest {
         return baseGcb1.getGridCoverage2D();
     }
 
+    /**
+     * @return coverage which sample at (x,y) is x + y*width
+     */
+    private static GridCoverage2D createGradientCoverage2D(Envelope env, int width, int height){
+        final BufferedImage baseImage = BufferedImageUtilities.createImage(width, height, 1 , DataBuffer.TYPE_FLOAT);
+        final WritableRaster raster = baseImage.getRaster();
+        for(int x=0;x<width;x++){
+            for(int y=0;y<height;y++){
+                raster.setSample(x, y, 0, x + y*width);
+            }
+        }
+        final GridCoverageBuilder gcb = new GridCoverageBuilder();
+        gcb.setName("gradient");
+        gcb.setRenderedImage(baseImage);
+        gcb.setEnvelope(env);
+        return gcb.getGridCoverage2D();
+    }
+
     private static BufferedImage createRenderedImage(int width, int height, float fillValue1, float fillValue2){
         final BufferedImage baseImage = BufferedImageUtilities.createImage(width, height, 1 , DataBuffer.TYPE_FLOAT);
         final WritableRaster baseRaster1 = baseImage.getRaster();
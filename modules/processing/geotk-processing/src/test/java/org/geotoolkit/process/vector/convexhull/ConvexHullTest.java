@@ -27,6 +27,8 @@ import com.vividsolutions.jts.geom.MultiPoint;
 
 import org.geotoolkit.data.FeatureStoreUtilities;
 import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.memory.MemoryFeatureStore;
+import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.feature.FeatureTypeBuilder;
 import org.geotoolkit.feature.simple.SimpleFeatureBuilder;
 import org.geotoolkit.process.ProcessDescriptor;
@@ -96,6 +98,28 @@ public class ConvexHullTest extends AbstractProcessTest {
 
     }
 
+    /**
+     * Collections of a feature store are read in partitions, the result must
+     * be the same.
+     */
+    @Test
+    public void testPartitionedConvexHull() throws Exception {
+
+        final FeatureCollection<?> featureList = buildFeatureList();
+        final MemoryFeatureStore store = new MemoryFeatureStore();
+        store.createFeatureType(type.getName(), type);
+        store.addFeatures(type.getName(), featureList);
+        final FeatureCollection<?> storeList = store.createSession(false).getFeatureCollection(QueryBuilder.all(type.getName()));
+
+        ProcessDescriptor desc = ProcessFinder.getProcessDescriptor("vector", "convexhull");
+        ParameterValueGroup in = desc.getInputDescriptor().createValue();
+        in.parameter("feature_in").setValue(storeList);
+        org.geotoolkit.process.Process proc = desc.createProcess(in);
+
+        final Geometry resultGeom = (Geometry) proc.call().parameter("geometry_out").getValue();
+        assertTrue(buildGeometryResult1().equals(resultGeom));
+    }
+
     private static SimpleFeatureType createSimpleType() throws NoSuchAuthorityCodeException, FactoryException {
         final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
         ftb.setName("IntersectTest");
@@ -52,7 +52,12 @@ import java.nio.channels.SeekableByteChannel;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 import java.util.logging.Logger;
 import javax.imageio.IIOException;
 import javax.imageio.ImageReader;
@@ -71,9 +76,11 @@ import org.apache.sis.util.logging.Logging;
 import org.geotoolkit.image.SampleModels;
 import org.geotoolkit.image.io.InputStreamAdapter;
 import org.geotoolkit.image.io.SampleConverter;
+import org.geotoolkit.image.io.SpatialImageReadParam;
 import org.geotoolkit.image.io.SpatialImageReader;
 import org.geotoolkit.image.io.UnsupportedImageFormatException;
 import org.geotoolkit.image.io.metadata.SpatialMetadata;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.internal.image.ScaledColorSpace;
 import org.geotoolkit.internal.image.io.DimensionAccessor;
 import org.geotoolkit.lang.SystemOverride;
@@ -185,6 +192,11 @@ public class TiffImageReader extends SpatialImageReader {
     private final static short LZW_CLEAR_CODE = 256;
     private final static short LZW_EOI_CODE   = 257;
 
+    /**
+     * Minimum source region pixel number from which deflate compressed blocks are decompressed in parallel.
+     */
+    private final static int DEFLATE_PARALLEL_THRESHOLD = 512 * 512;
+
     /**
      * Reading channel initialized from input, used for imageStream and reverse reading channels creation.
      */
@@ -347,6 +359,16 @@ public class TiffImageReader extends SpatialImageReader {
         return ((long[]) newSubFil.get(ATT_VALUE))[0] != 0;
     }
 
+    /**
+     * Return true if the current layer is a reduced resolution version of its image, else false.
+     * @return true if the current layer NewSubfileType tag has its first bit set.
+     */
+    private boolean isReducedResolution() {
+        final Map newSubFil = headProperties.get(NewSubfileType);
+        if (newSubFil == null) return false;
+        return (((long[]) newSubFil.get(ATT_VALUE))[0] & 1) != 0;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -771,7 +793,7 @@ public class TiffImageReader extends SpatialImageReader {
     @Override
     public BufferedImage read(final int imageIndex, final ImageReadParam param) throws IOException {
         checkLayers();
-        final BufferedImage image = readLayer(getLayerIndex(imageIndex), param);
+        final BufferedImage image = readBestResolution(imageIndex, param);
 
         //if the image contains floats or double, datas are already in geophysic type
         //we must replace noData values by NaN.
@@ -800,6 +822,84 @@ public class TiffImageReader extends SpatialImageReader {
         return image;
     }
 
+    /**
+     * Reads the image at the given index, or its reduced resolution overview which best matches
+     * the requested subsampling if the given parameters are a {@link SpatialImageReadParam} which
+     * {@linkplain SpatialImageReadParam#isSubsamplingChangeAllowed() allows subsampling change}.<br/>
+     * In this last case the source region and subsampling of the given parameters are modified
+     * to express, in full resolution image coordinates, the area and resolution really read.
+     *
+     * @param  imageIndex The index of the image to read.
+     * @param  param Parameters used to control the reading process, or {@code null}.
+     * @return The image.
+     * @throws IOException If an error occurred while reading the image.
+     */
+    private BufferedImage readBestResolution(final int imageIndex, final ImageReadParam param) throws IOException {
+        final int layerIndex = getLayerIndex(imageIndex);
+        if (!(param instanceof SpatialImageReadParam)
+         || !((SpatialImageReadParam) param).isSubsamplingChangeAllowed()
+         || (param.getSourceXSubsampling() == 1 && param.getSourceYSubsampling() == 1)
+         || param.getDestination() != null) {
+            return readLayer(layerIndex, param);
+        }
+
+        //-- full resolution image properties --//
+        selectLayer(layerIndex);
+        final int fullWidth    = imageWidth;
+        final int fullHeight   = imageHeight;
+        final int fullSamples  = samplesPerPixel;
+        final long[] fullBits  = bitsPerSample;
+        final int subsampleX   = param.getSourceXSubsampling();
+        final int subsampleY   = param.getSourceYSubsampling();
+
+        //-- find the overview with the highest reduction factors lower or equal than subsampling --//
+        int bestLayer = layerIndex;
+        int bestFactX = 1, bestFactY = 1;
+        for (int overviewLayer : imgAndThumbs.get(layerIndex)) {
+            selectLayer(overviewLayer);
+            if (!isReducedResolution()
+             || samplesPerPixel != fullSamples
+             || !Arrays.equals(bitsPerSample, fullBits)) continue;
+            final int factX = (int) Math.round(fullWidth  / (double) imageWidth);
+            final int factY = (int) Math.round(fullHeight / (double) imageHeight);
+            if (factX <= subsampleX && factY <= subsampleY && (long) factX * factY > (long) bestFactX * bestFactY) {
+                bestLayer = overviewLayer;
+                bestFactX = factX;
+                bestFactY = factY;
+            }
+        }
+        if (bestLayer == layerIndex) return readLayer(layerIndex, param);
+        selectLayer(bestLayer);
+
+        //-- source region in overview coordinates --//
+        Rectangle region = param.getSourceRegion();
+        if (region == null) region = new Rectangle(fullWidth, fullHeight);
+        final int minX = Math.max(0, region.x / bestFactX);
+        final int minY = Math.max(0, region.y / bestFactY);
+        final int maxX = Math.min(imageWidth,  (region.x + region.width  + bestFactX - 1) / bestFactX);
+        final int maxY = Math.min(imageHeight, (region.y + region.height + bestFactY - 1) / bestFactY);
+        if (maxX <= minX || maxY <= minY) return readLayer(layerIndex, param);
+
+        final SpatialImageReadParam overviewParam = getDefaultReadParam();
+        overviewParam.setSourceRegion(new Rectangle(minX, minY, maxX - minX, maxY - minY));
+        overviewParam.setSourceSubsampling(Math.max(1, subsampleX / bestFactX), Math.max(1, subsampleY / bestFactY), 0, 0);
+        overviewParam.setSourceBands(param.getSourceBands());
+        overviewParam.setDestinationBands(param.getDestinationBands());
+        overviewParam.setDestinationType(param.getDestinationType());
+        overviewParam.setDestinationOffset(param.getDestinationOffset());
+        final BufferedImage image = readLayer(bestLayer, overviewParam);
+
+        //-- express read area and resolution in full resolution coordinates --//
+        final int regionX = minX * bestFactX;
+        final int regionY = minY * bestFactY;
+        param.setSourceRegion(new Rectangle(regionX, regionY,
+                Math.min(fullWidth,  maxX * bestFactX) - regionX,
+                Math.min(fullHeight, maxY * bestFactY) - regionY));
+        param.setSourceSubsampling(overviewParam.getSourceXSubsampling() * bestFactX,
+                                   overviewParam.getSourceYSubsampling() * bestFactY, 0, 0);
+        return image;
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -925,6 +1025,8 @@ public class TiffImageReader extends SpatialImageReader {
                     samplesPerPixel =  0;
                     bitsPerSample   = null;
                     tileOffsets     = null;
+                    stripOffsets    = null;
+                    stripByteCounts = null;
                     rawImageType    = null;
 
                     headProperties  = metaHeads[layerIndex];
@@ -1233,12 +1335,12 @@ public class TiffImageReader extends SpatialImageReader {
             case Compression: { //-- Compression.
                 assert count == 1 : "with tiff compression tag, count should be equal 1.";
                 compression = (int) (imageStream.readShort() & 0xFFFF);
-                if (compression != 1 && compression != 32773 && compression != 5) { // '1' stands for "uncompressed". // '32 773' stands for packbits compression
+                if (compression != 1 && compression != 32773 && compression != 5
+                 && compression != 8 && compression != 32946) { // '1' stands for "uncompressed". // '32 773' stands for packbits compression. // '8' and '32 946' stand for deflate compression
                     final Object nameCompress;
                     switch (compression) {
                         case 6:  nameCompress = "JPEG";      break;
                         case 7:  nameCompress = "JPEG";      break;
-                        case 8:  nameCompress = "Deflate";   break;
                         default: nameCompress = compression; break;
                     }
                     throw new UnsupportedImageFormatException(error(Errors.Keys.ILLEGAL_PARAMETER_VALUE_2,
@@ -1693,6 +1795,8 @@ public class TiffImageReader extends SpatialImageReader {
         if (compression == 32773) {
             assert stripOffsets != null : "with compression 32773 (packbits) : image should be writen in strip offset use case.";
             readFromStrip32773(image.getRaster(), param, srcRegion, dstRegion);
+        } else if (compression == 8 || compression == 32946) {
+            readFromDeflate(image.getRaster(), param, srcRegion, dstRegion);
         } else if (compression == 5) {
             if (stripOffsets != null) {
                 readFromStripLZW(image.getRaster(), param, srcRegion, dstRegion);
@@ -3082,6 +3186,276 @@ public class TiffImageReader extends SpatialImageReader {
         }
     }
 
+    /**
+     * Processes to the image reading of Deflate (8) or Adobe Deflate (32946) compressed
+     * strips or tiles, and stores the pixels in the given raster.<br/>
+     * Compressed blocks are read sequentially from the stream, when read area contains
+     * enough blocks their decompression and copy into raster are made in parallel.
+     *
+     * @param  raster    The raster where to store the pixel values.
+     * @param  param     Parameters used to control the reading process, or {@code null}.
+     * @param  srcRegion The region to read in source image.
+     * @param  dstRegion The region to write in the given raster.
+     * @throws IOException If an error occurred while reading the image.
+     */
+    private void readFromDeflate(final WritableRaster raster, final ImageReadParam param,
+            final Rectangle srcRegion, final Rectangle dstRegion) throws IOException
+    {
+        clearAbortRequest();
+        final int numBands = raster.getNumBands();
+        checkReadParamBandSettings(param, samplesPerPixel, numBands);
+        final int[]      sourceBands;
+        final int[] destinationBands;
+        final int sourceXSubsampling;
+        final int sourceYSubsampling;
+        if (param != null) {
+            sourceBands        = param.getSourceBands();
+            destinationBands   = param.getDestinationBands();
+            sourceXSubsampling = param.getSourceXSubsampling();
+            sourceYSubsampling = param.getSourceYSubsampling();
+        } else {
+            sourceBands        = null;
+            destinationBands   = null;
+            sourceXSubsampling = 1;
+            sourceYSubsampling = 1;
+        }
+        if (sourceBands != null || destinationBands != null) {
+            throw new IIOException("Source and target bands not yet supported.");
+        }
+
+        final int dataType = raster.getSampleModel().getDataType();
+        final long bitpersampl = bitsPerSample[0];
+        if (bitpersampl % Byte.SIZE != 0 || bitpersampl != DataBuffer.getDataTypeSize(dataType)) {
+            throw new IIOException("Deflate compression with "+bitpersampl+" bits per sample is not supported.");
+        }
+        final int sampleSize = (int) bitpersampl / Byte.SIZE;
+
+        //-- planar configuration --//
+        final Map<String, Object> planarConfig = headProperties.get(PlanarConfiguration);
+        short pC = 1;
+        /*
+         * If samples per pixel = 1, planar configuration has no impact.
+         */
+        if (planarConfig != null && samplesPerPixel > 1) {
+            pC = ((short[]) planarConfig.get(ATT_VALUE)) [0];
+        }
+        final int pixelLength = (pC == 1) ? samplesPerPixel : 1;
+
+        //-- predictor study ---//
+        final Map<String, Object> predictor = (headProperties.get(Predictor));
+        final short predic    = (predictor != null) ? (short) ((long[]) predictor.get(ATT_VALUE)) [0] : 1;
+        if (predic != TiffPredictor.NONE && predic != TiffPredictor.HORIZONTAL && predic != TiffPredictor.FLOATING_POINT) {
+            throw new IIOException("Unsupported predictor : "+predic);
+        }
+
+        //-- fillOrder --//
+        final Map<String, Object> fillOrder = headProperties.get(FillOrder);
+        short fO = 1;
+        if (fillOrder != null) {
+            fO = (short) ((long[]) fillOrder.get(ATT_VALUE)) [0];
+        }
+        //-- adapt imageStream in function of fill order value --//
+        final ImageInputStream rasterReader = getImageInputStream(fO == 2);
+        final ByteOrder byteOrder           = imageStream.getByteOrder();
+
+        //-- strips are considered as tiles of image width --//
+        final long[] blockOffsets;
+        final long[] blockByteCounts;
+        final int blockWidth, blockHeight;
+        if (tileOffsets != null) {
+            final Map<String, Object> tbcObj = headProperties.get(TileByteCounts);
+            if (tbcObj == null) throw new IIOException("Missing TileByteCounts tag, impossible to read deflate tiles.");
+            blockOffsets    = tileOffsets;
+            blockByteCounts = (long[]) tbcObj.get(ATT_VALUE);
+            blockWidth      = tileWidth;
+            blockHeight     = tileHeight;
+        } else {
+            blockOffsets    = stripOffsets;
+            blockByteCounts = stripByteCounts;
+            blockWidth      = imageWidth;
+            blockHeight     = (rowsPerStrip <= 0 || rowsPerStrip > imageHeight) ? imageHeight : rowsPerStrip;
+        }
+        final int numXBlock = (imageWidth  + blockWidth  - 1) / blockWidth;
+        final int numYBlock = (imageHeight + blockHeight - 1) / blockHeight;
+
+        //-- block index from source area --//
+        final int minBlockX = srcRegion.x / blockWidth;
+        final int minBlockY = srcRegion.y / blockHeight;
+        final int maxBlockX = (srcRegion.x + srcRegion.width  + blockWidth  - 1) / blockWidth;
+        final int maxBlockY = (srcRegion.y + srcRegion.height + blockHeight - 1) / blockHeight;
+
+        final List<DeflateBlock> blocks = new ArrayList<>();
+        for (int s = 0; s < samplesPerPixel; s += pixelLength) {
+            final int blockIndexOffset = s * numXBlock * numYBlock;
+            for (int by = minBlockY; by < maxBlockY; by++) {
+                for (int bx = minBlockX; bx < maxBlockX; bx++) {
+                    //-- strips and tiles of image boundary may be shorter --//
+                    final int height = (tileOffsets != null) ? blockHeight : Math.min(blockHeight, imageHeight - by * blockHeight);
+                    blocks.add(new DeflateBlock(blockIndexOffset + by * numXBlock + bx, bx * blockWidth, by * blockHeight,
+                            blockWidth, height, s, raster, srcRegion, dstRegion, sourceXSubsampling, sourceYSubsampling,
+                            pixelLength, sampleSize, predic, byteOrder));
+                }
+            }
+        }
+
+        final boolean parallel = blocks.size() > 1 && (long) srcRegion.width * srcRegion.height >= DEFLATE_PARALLEL_THRESHOLD;
+        final int batchSize    = parallel ? 2 * Runtime.getRuntime().availableProcessors() : 1;
+        for (int b = 0; b < blocks.size(); b += batchSize) {
+            if (abortRequested()) return;
+            final List<DeflateBlock> batch = blocks.subList(b, Math.min(blocks.size(), b + batchSize));
+
+            //-- stream is not thread safe, compressed bytes are read sequentially --//
+            for (DeflateBlock block : batch) {
+                rasterReader.seek(blockOffsets[block.index]);
+                block.compressed = new byte[(int) blockByteCounts[block.index]];
+                rasterReader.readFully(block.compressed);
+            }
+
+            if (!parallel) {
+                for (DeflateBlock block : batch) block.decode();
+                continue;
+            }
+            //-- first block is decoded by current thread, others by Geotk worker threads.
+            //-- Blocks not started yet are decoded by current thread, which may itself
+            //-- be a worker thread waiting in the same pool. --//
+            final List<FutureTask<Object>> tasks = new ArrayList<>(batch.size() - 1);
+            for (int t = 1; t < batch.size(); t++) {
+                final FutureTask<Object> task = new FutureTask<Object>(batch.get(t));
+                Threads.executeWork(task);
+                tasks.add(task);
+            }
+            try {
+                batch.get(0).decode();
+                for (FutureTask<Object> task : tasks) {
+                    //-- does nothing if a worker already started the task --//
+                    task.run();
+                    task.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IIOException("Deflate decompression interrupted.", ex);
+            } catch (ExecutionException ex) {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new IIOException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * One Deflate compressed strip or tile, decompressed and copied into destination raster
+     * from {@link #call() }. Each block writes a distinct area of the raster.
+     */
+    private static final class DeflateBlock implements Callable<Object> {
+
+        private final int index, minX, minY, width, height, band;
+        private final WritableRaster raster;
+        private final Rectangle srcRegion, dstRegion;
+        private final int sourceXSubsampling, sourceYSubsampling;
+        private final int pixelLength, sampleSize;
+        private final short predictor;
+        private final ByteOrder byteOrder;
+
+        /**
+         * Compressed bytes, filled by reader before decompression.
+         */
+        private byte[] compressed;
+
+        private DeflateBlock(final int index, final int minX, final int minY, final int width, final int height,
+                final int band, final WritableRaster raster, final Rectangle srcRegion, final Rectangle dstRegion,
+                final int sourceXSubsampling, final int sourceYSubsampling, final int pixelLength,
+                final int sampleSize, final short predictor, final ByteOrder byteOrder) {
+            this.index              = index;
+            this.minX               = minX;
+            this.minY               = minY;
+            this.width              = width;
+            this.height             = height;
+            this.band               = band;
+            this.raster             = raster;
+            this.srcRegion          = srcRegion;
+            this.dstRegion          = dstRegion;
+            this.sourceXSubsampling = sourceXSubsampling;
+            this.sourceYSubsampling = sourceYSubsampling;
+            this.pixelLength        = pixelLength;
+            this.sampleSize         = sampleSize;
+            this.predictor          = predictor;
+            this.byteOrder          = byteOrder;
+        }
+
+        @Override
+        public Object call() throws IOException {
+            decode();
+            return null;
+        }
+
+        /**
+         * Decompress block, undo predictor and copy samples which intersect source region into raster.
+         */
+        private void decode() throws IOException {
+            final byte[] data = new byte[width * height * pixelLength * sampleSize];
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                int pos = 0;
+                while (pos < data.length) {
+                    final int n = inflater.inflate(data, pos, data.length - pos);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+                    pos += n;
+                }
+                if (pos < data.length) {
+                    throw new IIOException("Truncated deflate block at index "+index+", expected "+data.length+" bytes, found "+pos);
+                }
+            } catch (DataFormatException ex) {
+                throw new IIOException(ex.getMessage(), ex);
+            } finally {
+                inflater.end();
+            }
+            compressed = null;
+            TiffPredictor.decode(data, predictor, width, pixelLength, sampleSize, byteOrder == ByteOrder.BIG_ENDIAN);
+
+            //-- intersection between srcRegion and current block, aligned on subsampling --//
+            final int interMinX = Math.max(srcRegion.x, minX);
+            final int interMinY = Math.max(srcRegion.y, minY);
+            final int interMaxX = Math.min(srcRegion.x + srcRegion.width,  minX + width);
+            final int interMaxY = Math.min(srcRegion.y + srcRegion.height, minY + height);
+            final int x0 = srcRegion.x + ((interMinX - srcRegion.x + sourceXSubsampling - 1) / sourceXSubsampling) * sourceXSubsampling;
+            final int y0 = srcRegion.y + ((interMinY - srcRegion.y + sourceYSubsampling - 1) / sourceYSubsampling) * sourceYSubsampling;
+            if (x0 >= interMaxX || y0 >= interMaxY) return;
+            final int count = (interMaxX - x0 + sourceXSubsampling - 1) / sourceXSubsampling;
+            final int dstX  = dstRegion.x + (x0 - srcRegion.x) / sourceXSubsampling;
+
+            final ByteBuffer buff = ByteBuffer.wrap(data).order(byteOrder);
+            final int dataType    = raster.getSampleModel().getDataType();
+            final int[]    iRow = (dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE) ? null : new int[count];
+            final float[]  fRow = (dataType == DataBuffer.TYPE_FLOAT)  ? new float[count]  : null;
+            final double[] dRow = (dataType == DataBuffer.TYPE_DOUBLE) ? new double[count] : null;
+            final int pixelStride = sourceXSubsampling * pixelLength * sampleSize;
+
+            for (int y = y0; y < interMaxY; y += sourceYSubsampling) {
+                final int dstY = dstRegion.y + (y - srcRegion.y) / sourceYSubsampling;
+                for (int k = 0; k < pixelLength; k++) {
+                    int pos = (((y - minY) * width + (x0 - minX)) * pixelLength + k) * sampleSize;
+                    for (int i = 0; i < count; i++, pos += pixelStride) {
+                        switch (dataType) {
+                            case DataBuffer.TYPE_BYTE   : iRow[i] = buff.get(pos) & 0xFF;        break;
+                            case DataBuffer.TYPE_USHORT : iRow[i] = buff.getShort(pos) & 0xFFFF; break;
+                            case DataBuffer.TYPE_SHORT  : iRow[i] = buff.getShort(pos);          break;
+                            case DataBuffer.TYPE_INT    : iRow[i] = buff.getInt(pos);            break;
+                            case DataBuffer.TYPE_FLOAT  : fRow[i] = buff.getFloat(pos);          break;
+                            case DataBuffer.TYPE_DOUBLE : dRow[i] = buff.getDouble(pos);         break;
+                            default: throw new AssertionError(dataType);
+                        }
+                    }
+                    switch (dataType) {
+                        case DataBuffer.TYPE_FLOAT  : raster.setSamples(dstX, dstY, count, 1, band + k, fRow); break;
+                        case DataBuffer.TYPE_DOUBLE : raster.setSamples(dstX, dstY, count, 1, band + k, dRow); break;
+                        default                     : raster.setSamples(dstX, dstY, count, 1, band + k, iRow); break;
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Return an image input stream for data usage.
      * @param reversedReading True if we want the returned stream to inverse byte values at reading. False otherwise.
@@ -30,12 +30,76 @@ import org.geotoolkit.image.io.SpatialImageWriteParam;
  */
 public class TiffImageWriteParam extends SpatialImageWriteParam {
 
+    /**
+     * Predictor applied before deflate compression.
+     *
+     * @see #setPredictor(short)
+     */
+    private short predictor = TiffPredictor.NONE;
+
+    /**
+     * Maximum number of reduced resolution overviews written after the image.
+     *
+     * @see #setOverviewLevels(int)
+     */
+    private int overviewLevels = 0;
+
     public TiffImageWriteParam(ImageWriter writer) {
         super(writer);
         canOffsetTiles      = false;
         canWriteCompressed  = true;
         canWriteProgressive = false;
         canWriteTiles       = true;
-        compressionTypes    = new String[]{"LZW", "PackBits"};
+        compressionTypes    = new String[]{"LZW", "PackBits", "Deflate"};
+    }
+
+    /**
+     * Returns predictor applied on samples before deflate compression.
+     *
+     * @return 1 for no prediction, 2 for horizontal differencing or 3 for floating point prediction.
+     */
+    public short getPredictor() {
+        return predictor;
+    }
+
+    /**
+     * Set predictor applied on samples before deflate compression, ignored with other compressions.<br/>
+     * Horizontal differencing (2) improves compression ratio of continuous integer datas,
+     * floating point prediction (3) should only be used with float or double samples.
+     *
+     * @param predictor 1 for no prediction, 2 for horizontal differencing or 3 for floating point prediction.
+     */
+    public void setPredictor(final short predictor) {
+        if (predictor != TiffPredictor.NONE && predictor != TiffPredictor.HORIZONTAL && predictor != TiffPredictor.FLOATING_POINT) {
+            throw new IllegalArgumentException("Unsupported predictor : "+predictor);
+        }
+        this.predictor = predictor;
+    }
+
+    /**
+     * Returns maximum number of reduced resolution overviews written after the image.
+     *
+     * @return overview number, 0 if none.
+     */
+    public int getOverviewLevels() {
+        return overviewLevels;
+    }
+
+    /**
+     * Set maximum number of reduced resolution overviews written after the image.<br/>
+     * Each overview halves the resolution of the previous one, with the same tiling and compression
+     * than the image, and is written as a reduced resolution layer (NewSubfileType = 1).
+     * Overview generation stops when an overview fits in one tile, even if less than
+     * {@code overviewLevels} overviews have been written.<br/>
+     * Combined with tiling, this produces files readers can browse at any scale
+     * by reading only the tiles of the most appropriate resolution.
+     *
+     * @param overviewLevels overview number, 0 if none.
+     */
+    public void setOverviewLevels(final int overviewLevels) {
+        if (overviewLevels < 0) {
+            throw new IllegalArgumentException("Overview levels should be positive, found : "+overviewLevels);
+        }
+        this.overviewLevels = overviewLevels;
     }
 }
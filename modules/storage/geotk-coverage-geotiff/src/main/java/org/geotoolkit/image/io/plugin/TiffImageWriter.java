@@ -35,6 +35,8 @@ import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -52,6 +54,7 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
 import javax.imageio.IIOException;
 import javax.imageio.IIOImage;
 import javax.imageio.ImageTypeSpecifier;
@@ -111,6 +114,13 @@ public class TiffImageWriter extends SpatialImageWriter {
      */
     private final static String packbits = "PackBits";
 
+    /**
+     * String use to determinate deflate compression type.
+     *
+     * @see TiffImageWriteParam#compressionTypes
+     */
+    private final static String deflate  = "Deflate";
+
     /**
      * Size of data structures in standard TIFF files ({@code SIZE_*}) and in big TIFF files
      * ({@code SIZE_BIG_*}). In standard TIFF, the size of structures for counting the number
@@ -301,6 +311,21 @@ public class TiffImageWriter extends SpatialImageWriter {
      */
     private int compression;
 
+    /**
+     * Predictor value of current image writing, only applied with deflate compression.
+     *
+     * @see TiffPredictor
+     */
+    private short predictor = TiffPredictor.NONE;
+
+    /**
+     * Uncompressed bytes of the current strip or tile, in {@link #currentBO} order,
+     * compressed at the end of each strip or tile during deflate compression.
+     *
+     * @see #writeWithDeflateCompression(int, int)
+     */
+    private final ByteArrayOutputStream deflateBuffer = new ByteArrayOutputStream();
+
     /**
      * {@code Rectangle} which define boundary of the current written image.<br/>
      * See {@linkplain #computeRegions(java.awt.image.RenderedImage, javax.imageio.ImageWriteParam) }.
@@ -391,9 +416,11 @@ public class TiffImageWriter extends SpatialImageWriter {
 
         assert compObj != null;
         final int comp = ((short[]) compObj.get(ATT_VALUE))[0];
-        assert comp == 1 || comp == 5 || comp == 32773 : "compression of current layer is not supported. layer index : "+layerIndex+" compression value : "+compression;
+        assert comp == 1 || comp == 5 || comp == 8 || comp == 32773 : "compression of current layer is not supported. layer index : "+layerIndex+" compression value : "+compression;
 
         compression = comp;
+        final Map<String, Object> predObj = headProperties.get(Predictor);
+        predictor = (predObj == null) ? TiffPredictor.NONE : ((short[]) predObj.get(ATT_VALUE))[0];
 
         final int imageWidth;
         final short imgWT = (short) iwObj.get(ATT_TYPE);
@@ -500,6 +527,7 @@ public class TiffImageWriter extends SpatialImageWriter {
                 write(buff, headProperties, null, ifdPosition);
             }
         }
+        writeOverviews(img, param);
     }
 
     /**
@@ -573,6 +601,108 @@ public class TiffImageWriter extends SpatialImageWriter {
             addProperty(NewSubfileType, TYPE_LONG, 1, new long[]{1}, headProperties);
             write(buff, headProperties, param, ifdPosition);
         }
+        writeOverviews(img, param);
+    }
+
+    /**
+     * Write reduced resolution overviews of the given image, as asked by
+     * {@link TiffImageWriteParam#getOverviewLevels() }, with the same tiling and compression.<br/>
+     * Each overview halves the resolution of the previous one, generation stops
+     * when an overview fits in one tile (or in 256 x 256 pixels without tiling).
+     *
+     * @param image full resolution image, already written.
+     * @param param properties used to write the image or null.
+     * @throws IOException if problem during writing.
+     * @see #createOverview(java.awt.image.RenderedImage)
+     */
+    private void writeOverviews(final RenderedImage image, final ImageWriteParam param) throws IOException {
+        if (!(param instanceof TiffImageWriteParam)) return;
+        final TiffImageWriteParam tiffParam = (TiffImageWriteParam) param;
+        if (tiffParam.getOverviewLevels() == 0) return;
+        if (param.getSourceRegion() != null || param.getSourceXSubsampling() != 1 || param.getSourceYSubsampling() != 1) {
+            LOGGER.log(Level.WARNING, "Tiff Image writer does not write overviews of a source region or subsampled image. Overviews are ignored.");
+            return;
+        }
+
+        final boolean tiled   = param.getTilingMode() == ImageWriteParam.MODE_EXPLICIT;
+        final int blockWidth  = tiled ? param.getTileWidth()  : 256;
+        final int blockHeight = tiled ? param.getTileHeight() : 256;
+
+        final TiffImageWriteParam overviewParam = new TiffImageWriteParam(this);
+        if (tiled) {
+            overviewParam.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+            overviewParam.setTiling(blockWidth, blockHeight, 0, 0);
+        }
+        if (param.getCompressionMode() == ImageWriteParam.MODE_EXPLICIT) {
+            overviewParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            overviewParam.setCompressionType(param.getCompressionType());
+        }
+        overviewParam.setPredictor(tiffParam.getPredictor());
+
+        RenderedImage overview = image;
+        for (int l = 0; l < tiffParam.getOverviewLevels()
+                && (overview.getWidth() > blockWidth || overview.getHeight() > blockHeight); l++) {
+            overview = createOverview(overview);
+            assert headProperties == null;
+            //-- a new distinct map for each layer --//
+            headProperties = new TreeMap<>();
+            //-- add reduced resolution tiff tag --//
+            addProperty(NewSubfileType, TYPE_LONG, 1, new long[]{1}, headProperties);
+            write(overview, headProperties, overviewParam, ifdPosition);
+        }
+    }
+
+    /**
+     * Create an image of half resolution of the given image.<br/>
+     * Each destination pixel is the mean of the 2 x 2 source pixel block, NaN excluded,
+     * except for indexed color images where the upper left pixel of the block is used.
+     *
+     * @param image source image.
+     * @return half resolution image.
+     */
+    private static BufferedImage createOverview(final RenderedImage image) {
+        final int srcWidth  = image.getWidth();
+        final int srcHeight = image.getHeight();
+        final int width     = (srcWidth  + 1) / 2;
+        final int height    = (srcHeight + 1) / 2;
+
+        final ColorModel cm        = image.getColorModel();
+        final SampleModel sm       = image.getSampleModel().createCompatibleSampleModel(width, height);
+        final WritableRaster dst   = Raster.createWritableRaster(sm, null);
+        final boolean nearest      = cm instanceof IndexColorModel;
+        final int dataType         = sm.getDataType();
+        final boolean isFloat      = dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE;
+        final int numBands         = sm.getNumBands();
+
+        final double[] row0   = new double[srcWidth];
+        final double[] row1   = new double[srcWidth];
+        final double[] dstRow = new double[width];
+        for (int y = 0; y < height; y++) {
+            final int srcY = image.getMinY() + 2 * y;
+            final int rows = Math.min(2, srcHeight - 2 * y);
+            final Raster src = image.getData(new Rectangle(image.getMinX(), srcY, srcWidth, rows));
+            for (int b = 0; b < numBands; b++) {
+                src.getSamples(image.getMinX(), srcY, srcWidth, 1, b, row0);
+                if (rows == 2) src.getSamples(image.getMinX(), srcY + 1, srcWidth, 1, b, row1);
+                for (int x = 0; x < width; x++) {
+                    final int sx = 2 * x;
+                    if (nearest) {
+                        dstRow[x] = row0[sx];
+                        continue;
+                    }
+                    double sum = 0;
+                    int count  = 0;
+                    for (int dx = 0; dx < 2 && sx + dx < srcWidth; dx++) {
+                        if (!Double.isNaN(row0[sx + dx])) { sum += row0[sx + dx]; count++; }
+                        if (rows == 2 && !Double.isNaN(row1[sx + dx])) { sum += row1[sx + dx]; count++; }
+                    }
+                    final double mean = (count == 0) ? Double.NaN : sum / count;
+                    dstRow[x] = isFloat ? mean : Math.rint(mean);
+                }
+                dst.setSamples(0, y, width, 1, b, dstRow);
+            }
+        }
+        return new BufferedImage(cm, dst, cm.isAlphaPremultiplied(), null);
     }
 
     /**
@@ -621,6 +751,7 @@ public class TiffImageWriter extends SpatialImageWriter {
         //-- a new distinct map for each layer --//
         headProperties = new TreeMap<>();
         write(image, headProperties, param, ifdPosition);
+        writeOverviews(image, param);
     }
 
     /**
@@ -1296,6 +1427,8 @@ public class TiffImageWriter extends SpatialImageWriter {
                     compression = 5;
                 } else if (packbits.equalsIgnoreCase(comp)) {
                     compression = 32773;
+                } else if (deflate.equalsIgnoreCase(comp)) {
+                    compression = 8;
                 } else {
                     throw new IllegalStateException("the compression type : "+comp+". Is not known. Impossible to write image.");
                 }
@@ -1304,6 +1437,19 @@ public class TiffImageWriter extends SpatialImageWriter {
         assert compression <= 0xFFFF : "compression exceed short max value";
         addProperty(Compression, TYPE_USHORT, 1, new short[]{(short) compression}, properties);
 
+        //-- predictor, only with deflate compression --//
+        predictor = TiffPredictor.NONE;
+        if (compression == 8 && param instanceof TiffImageWriteParam) {
+            predictor = ((TiffImageWriteParam) param).getPredictor();
+            if (predictor == TiffPredictor.FLOATING_POINT
+             && sm.getDataType() != DataBuffer.TYPE_FLOAT && sm.getDataType() != DataBuffer.TYPE_DOUBLE) {
+                throw new IllegalStateException("Floating point predictor is only supported with floating point samples.");
+            }
+            if (predictor != TiffPredictor.NONE) {
+                addProperty(Predictor, TYPE_USHORT, 1, new short[]{predictor}, properties);
+            }
+        }
+
         //-- planar configuration
         final short planarConfig = getPlanarConfiguration(sm);
         addProperty(PlanarConfiguration, TYPE_USHORT, 1, new short[]{planarConfig}, properties);
@@ -1428,6 +1574,8 @@ public class TiffImageWriter extends SpatialImageWriter {
                     compression = 5;
                 } else if (packbits.equalsIgnoreCase(comp)) {
                     compression = 32773;
+                } else if (deflate.equalsIgnoreCase(comp)) {
+                    compression = 8;
                 } else {
                     throw new IllegalStateException("the compression type : "+comp+". Is not known. Impossible to write image.");
                 }
@@ -1436,6 +1584,19 @@ public class TiffImageWriter extends SpatialImageWriter {
         assert compression <= 0xFFFF : "compression exceed short max value";
         addProperty(Compression, TYPE_USHORT, 1, new short[]{(short) compression}, properties);
 
+        //-- predictor, only with deflate compression --//
+        predictor = TiffPredictor.NONE;
+        if (compression == 8 && param instanceof TiffImageWriteParam) {
+            predictor = ((TiffImageWriteParam) param).getPredictor();
+            if (predictor == TiffPredictor.FLOATING_POINT
+             && sm.getDataType() != DataBuffer.TYPE_FLOAT && sm.getDataType() != DataBuffer.TYPE_DOUBLE) {
+                throw new IllegalStateException("Floating point predictor is only supported with floating point samples.");
+            }
+            if (predictor != TiffPredictor.NONE) {
+                addProperty(Predictor, TYPE_USHORT, 1, new short[]{predictor}, properties);
+            }
+        }
+
         /*
          * Some globals class attribut have been already initialized to define writing made.
          * See method computeRegion.
@@ -1968,6 +2129,7 @@ public class TiffImageWriter extends SpatialImageWriter {
                          * flushed when we write LZW end of file value.
                          */
                         if (compression == 5) writeWithLZWCompression(LZW_EOI_CODE);
+                        if (compression == 8) writeWithDeflateCompression(currentImgTW, pixelLength);
 
                         final long currentOffset = channel.getStreamPosition();
                         final long currentTileByteCount = currentOffset - tileOffsetBeg;
@@ -2102,6 +2264,7 @@ public class TiffImageWriter extends SpatialImageWriter {
                      * flushed when we write LZW end of file value.
                      */
                     if (compression == 5) writeWithLZWCompression(LZW_EOI_CODE);
+                    if (compression == 8) writeWithDeflateCompression(currentImgTW, pixelLength);
 
                     final long currentOffset = channel.getStreamPosition();
                     final long currentTileByteCount = currentOffset - tileOffsetBeg;
@@ -2147,7 +2310,7 @@ public class TiffImageWriter extends SpatialImageWriter {
         if (compress == 1) {
             //-- no compression --//
              write(sourceArray, datatype, arrayOffset, arrayLength);
-        } else if (compress == 5 || compress == 32773) {
+        } else if (compress == 5 || compress == 8 || compress == 32773) {
             //-- with compression --//
             writeWithCompression(sourceArray, datatype, arrayOffset, arrayLength, bitPerSample);
         } else {
@@ -2776,6 +2939,7 @@ public class TiffImageWriter extends SpatialImageWriter {
                     write(destOffsetRowArray, dataType, 0, destRegion.width * pixelLength, bitPerSample, compression);
 
                     if (compression == 5) writeWithLZWCompression(LZW_EOI_CODE);
+                    if (compression == 8) writeWithDeflateCompression(destRegion.width, pixelLength);
                     lastByte32773     += currentByteCount;
                     precLastByte32773 += currentByteCount;
                     final long currentStripOffset = channel.getStreamPosition();
@@ -2862,6 +3026,7 @@ public class TiffImageWriter extends SpatialImageWriter {
                    }
 
                    if (compression == 5) writeWithLZWCompression(LZW_EOI_CODE);
+                   if (compression == 8) writeWithDeflateCompression(destRegion.width, pixelLength);
                    lastByte32773     += currentByteCount;
                    precLastByte32773 += currentByteCount;
                    final long currentStripOffset = channel.getStreamPosition();
@@ -2957,6 +3122,8 @@ public class TiffImageWriter extends SpatialImageWriter {
                     writeWithPackBitsCompression((byte) val);
                 } else if (compression == 5) {
                     writeWithLZWCompression((byte) val);
+                } else if (compression == 8) {
+                    deflateBuffer.write((int) val);
                 } else {
                     throw new IllegalStateException("no compression value should never append.");
                 }
@@ -2965,6 +3132,34 @@ public class TiffImageWriter extends SpatialImageWriter {
         }
     }
 
+    /**
+     * Compress and write into stream {@linkplain #channel} all bytes of the current
+     * strip or tile stored in {@link #deflateBuffer}, after applying {@link #predictor}.
+     *
+     * @param rowLength pixel number by row of the current strip or tile.
+     * @param pixelLength sample number by pixel.
+     * @throws IOException if problem during buffer writing.
+     */
+    private void writeWithDeflateCompression(final int rowLength, final int pixelLength) throws IOException {
+        final byte[] data = deflateBuffer.toByteArray();
+        deflateBuffer.reset();
+        TiffPredictor.encode(data, predictor, rowLength, pixelLength, bitPerSample / Byte.SIZE, ByteOrder.BIG_ENDIAN.equals(currentBO));
+
+        final Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final byte[] compressed = new byte[8192];
+            while (!deflater.finished()) {
+                final int n = deflater.deflate(compressed);
+                channel.write(compressed, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+        channel.flush();
+    }
+
     /**
      * Write the given value into stream {@linkplain #channel}
      * in accordance with LZW algorithm compression.
@@ -0,0 +1,181 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+/**
+ * Horizontal differencing (predictor 2) and floating point (predictor 3) predictors
+ * applied on uncompressed strip or tile bytes, in file byte order.<br/>
+ * Each method works row by row, a row is composed of {@code rowLength} pixels
+ * of {@code pixelLength} samples of {@code sampleSize} bytes.
+ *
+ * @author Remi Marechal (Geomatys).
+ */
+final class TiffPredictor {
+
+    /**
+     * No prediction scheme.
+     */
+    static final short NONE = 1;
+
+    /**
+     * Horizontal differencing.
+     */
+    static final short HORIZONTAL = 2;
+
+    /**
+     * Floating point horizontal differencing, from Adobe Photoshop TIFF Technical Note 3.
+     */
+    static final short FLOATING_POINT = 3;
+
+    private TiffPredictor() {
+    }
+
+    /**
+     * Undo prediction on the given decompressed datas.
+     *
+     * @param data decompressed bytes of one strip or tile.
+     * @param predictor predictor tag value.
+     * @param rowLength pixel number by row.
+     * @param pixelLength sample number by pixel.
+     * @param sampleSize byte number by sample.
+     * @param bigEndian {@code true} if datas are stored in big endian order.
+     */
+    static void decode(final byte[] data, final short predictor, final int rowLength,
+            final int pixelLength, final int sampleSize, final boolean bigEndian) {
+        if (predictor == NONE) return;
+        final int rowBytes = rowBytes(rowLength, pixelLength, sampleSize);
+        final int numRows  = data.length / rowBytes;
+        switch (predictor) {
+            case HORIZONTAL : {
+                for (int r = 0; r < numRows; r++) {
+                    final int rowOffset = r * rowBytes;
+                    final int stride = pixelLength * sampleSize;
+                    for (int i = rowOffset + stride, max = rowOffset + rowBytes; i < max; i += sampleSize) {
+                        set(data, i, sampleSize, bigEndian, get(data, i, sampleSize, bigEndian) + get(data, i - stride, sampleSize, bigEndian));
+                    }
+                }
+                return;
+            }
+            case FLOATING_POINT : {
+                final int wc = rowLength * pixelLength;
+                final byte[] row = new byte[rowBytes];
+                for (int r = 0; r < numRows; r++) {
+                    final int rowOffset = r * rowBytes;
+                    //-- cumulate byte differences --//
+                    for (int i = rowOffset + pixelLength, max = rowOffset + rowBytes; i < max; i++) {
+                        data[i] += data[i - pixelLength];
+                    }
+                    //-- byte planes, most significant first, to interleaved samples --//
+                    System.arraycopy(data, rowOffset, row, 0, rowBytes);
+                    for (int s = 0; s < wc; s++) {
+                        for (int b = 0; b < sampleSize; b++) {
+                            data[rowOffset + s * sampleSize + (bigEndian ? b : sampleSize - 1 - b)] = row[b * wc + s];
+                        }
+                    }
+                }
+                return;
+            }
+            default : throw new IllegalArgumentException("Unsupported predictor : "+predictor);
+        }
+    }
+
+    /**
+     * Apply prediction on the given uncompressed datas, inverse of
+     * {@link #decode(byte[], short, int, int, int, boolean) }.
+     *
+     * @param data uncompressed bytes of one strip or tile.
+     * @param predictor predictor tag value.
+     * @param rowLength pixel number by row.
+     * @param pixelLength sample number by pixel.
+     * @param sampleSize byte number by sample.
+     * @param bigEndian {@code true} if datas are stored in big endian order.
+     */
+    static void encode(final byte[] data, final short predictor, final int rowLength,
+            final int pixelLength, final int sampleSize, final boolean bigEndian) {
+        if (predictor == NONE) return;
+        final int rowBytes = rowBytes(rowLength, pixelLength, sampleSize);
+        final int numRows  = data.length / rowBytes;
+        switch (predictor) {
+            case HORIZONTAL : {
+                for (int r = 0; r < numRows; r++) {
+                    final int rowOffset = r * rowBytes;
+                    final int stride = pixelLength * sampleSize;
+                    for (int i = rowOffset + rowBytes - sampleSize, min = rowOffset + stride; i >= min; i -= sampleSize) {
+                        set(data, i, sampleSize, bigEndian, get(data, i, sampleSize, bigEndian) - get(data, i - stride, sampleSize, bigEndian));
+                    }
+                }
+                return;
+            }
+            case FLOATING_POINT : {
+                final int wc = rowLength * pixelLength;
+                final byte[] row = new byte[rowBytes];
+                for (int r = 0; r < numRows; r++) {
+                    final int rowOffset = r * rowBytes;
+                    //-- interleaved samples to byte planes, most significant first --//
+                    for (int s = 0; s < wc; s++) {
+                        for (int b = 0; b < sampleSize; b++) {
+                            row[b * wc + s] = data[rowOffset + s * sampleSize + (bigEndian ? b : sampleSize - 1 - b)];
+                        }
+                    }
+                    System.arraycopy(row, 0, data, rowOffset, rowBytes);
+                    //-- byte differences --//
+                    for (int i = rowOffset + rowBytes - 1, min = rowOffset + pixelLength; i >= min; i--) {
+                        data[i] -= data[i - pixelLength];
+                    }
+                }
+                return;
+            }
+            default : throw new IllegalArgumentException("Unsupported predictor : "+predictor);
+        }
+    }
+
+    /**
+     * Return byte number by row, checked before being used as divisor.
+     *
+     * @throws IllegalArgumentException if a row does not contain any byte.
+     */
+    private static int rowBytes(final int rowLength, final int pixelLength, final int sampleSize) {
+        final int rowBytes = rowLength * pixelLength * sampleSize;
+        if (rowBytes <= 0) {
+            throw new IllegalArgumentException("Invalid row size : "+rowLength+" pixels of "+pixelLength
+                    +" samples of "+sampleSize+" bytes.");
+        }
+        return rowBytes;
+    }
+
+    /**
+     * Read an unsigned integer sample of {@code sampleSize} bytes.
+     */
+    private static long get(final byte[] data, final int offset, final int sampleSize, final boolean bigEndian) {
+        long value = 0;
+        for (int b = 0; b < sampleSize; b++) {
+            final int shift = bigEndian ? (sampleSize - 1 - b) * Byte.SIZE : b * Byte.SIZE;
+            value |= (data[offset + b] & 0xFFL) << shift;
+        }
+        return value;
+    }
+
+    /**
+     * Write the {@code sampleSize} lowest bytes of the given value, overflow is discarded.
+     */
+    private static void set(final byte[] data, final int offset, final int sampleSize, final boolean bigEndian, final long value) {
+        for (int b = 0; b < sampleSize; b++) {
+            final int shift = bigEndian ? (sampleSize - 1 - b) * Byte.SIZE : b * Byte.SIZE;
+            data[offset + b] = (byte) (value >>> shift);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2005-2014, Open Source Geospatial Foundation (OSGeo)
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin.TiffReader;
+
+import javax.imageio.ImageWriteParam;
+import org.geotoolkit.image.io.plugin.TestTiffImageReaderWriter;
+import org.geotoolkit.image.io.plugin.TiffImageWriteParam;
+
+import java.io.IOException;
+
+/**
+ * Improve tests from {@link TestTiffImageReaderWriter} for reading action,
+ * with Deflate compression, horizontal differencing predictor and tiled writing made.
+ *
+ * @author Remi Marechal (Geomatys).
+ */
+public class DeflateTiledReaderTest extends DeflateTiffReaderTest {
+
+    public DeflateTiledReaderTest() throws IOException {
+        super();
+        ((TiffImageWriteParam) writerParam).setPredictor((short) 2);
+        writerParam.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+
+        final int tileWidth  = (random.nextInt(7) + 1) * 16;
+        final int tileHeight = (random.nextInt(7) + 1) * 16;
+        writerParam.setTiling(tileWidth, tileHeight, 0, 0);
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin.TiffReader;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import javax.imageio.ImageWriteParam;
+import org.geotoolkit.image.io.SpatialImageReadParam;
+import org.geotoolkit.image.io.plugin.TiffImageReader;
+import org.geotoolkit.image.io.plugin.TiffImageWriteParam;
+import org.geotoolkit.image.io.plugin.TiffImageWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test writing of reduced resolution overviews and their use when reading with subsampling.
+ *
+ * @author Remi Marechal (Geomatys).
+ */
+public class OverviewTiffReaderTest {
+
+    @Test
+    public void overviewReadTest() throws IOException {
+        final File file = Files.createTempFile("overview", ".tiff").toFile();
+        try {
+            final BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_BYTE_GRAY);
+            final WritableRaster raster = image.getRaster();
+            for (int y = 0; y < 512; y++) {
+                for (int x = 0; x < 512; x++) {
+                    raster.setSample(x, y, 0, (x / 4) % 256);
+                }
+            }
+
+            final TiffImageWriter writer = new TiffImageWriter(null);
+            final TiffImageWriteParam writeParam = (TiffImageWriteParam) writer.getDefaultWriteParam();
+            writeParam.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setTiling(64, 64, 0, 0);
+            writeParam.setOverviewLevels(5);
+            writer.setOutput(file);
+            writer.write(image, writeParam);
+            writer.dispose();
+
+            final TiffImageReader reader = new TiffImageReader(null);
+            reader.setInput(file);
+            //-- 512 -> 256 -> 128 -> 64, overviews stop when they fit in one tile --//
+            assertEquals(1, reader.getNumImages(true));
+            assertEquals(3, reader.getNumThumbnails(0));
+            assertEquals(64, reader.getThumbnailWidth(0, 2));
+
+            //-- without permission, full resolution image is subsampled --//
+            SpatialImageReadParam readParam = reader.getDefaultReadParam();
+            readParam.setSourceSubsampling(4, 4, 0, 0);
+            BufferedImage result = reader.read(0, readParam);
+            assertEquals(128, result.getWidth());
+            assertEquals(4, readParam.getSourceXSubsampling());
+
+            //-- with permission, overview of factor 4 is read without subsampling --//
+            readParam = reader.getDefaultReadParam();
+            readParam.setSubsamplingChangeAllowed(true);
+            readParam.setSourceSubsampling(6, 6, 0, 0);
+            readParam.setSourceRegion(new Rectangle(64, 0, 256, 128));
+            result = reader.read(0, readParam);
+            assertEquals(64, result.getWidth());
+            assertEquals(32, result.getHeight());
+            assertEquals(4, readParam.getSourceXSubsampling());
+            assertEquals(4, readParam.getSourceYSubsampling());
+            assertEquals(new Rectangle(64, 0, 256, 128), readParam.getSourceRegion());
+            //-- overview pixel is the mean of full resolution pixels --//
+            assertEquals(16, result.getRaster().getSample(0, 0, 0));
+            assertEquals(17, result.getRaster().getSample(1, 0, 0));
+            reader.dispose();
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+}
@@ -70,4 +70,13 @@ public class BiCubicInterpolation1 extends BiCubicInterpolation {
         final double x  = t-t0;
         return checkValue(f[0] + (a1 + (a2 + a3*x)*x)*x);
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Interpolation copy() {
+        final PixelIterator pix = copyIterator();
+        return (pix == null) ? null : new BiCubicInterpolation1(pix, borderChoice, fillValue);
+    }
 }
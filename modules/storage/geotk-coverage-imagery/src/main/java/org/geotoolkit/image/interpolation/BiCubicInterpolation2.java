@@ -103,4 +103,13 @@ public class BiCubicInterpolation2 extends BiCubicInterpolation {
         }
         return checkValue(res);
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Interpolation copy() {
+        final PixelIterator pix = copyIterator();
+        return (pix == null) ? null : new BiCubicInterpolation2(pix, borderChoice, fillValue);
+    }
 }
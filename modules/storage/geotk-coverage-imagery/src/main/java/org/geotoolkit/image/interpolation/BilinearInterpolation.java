@@ -59,4 +59,13 @@ public class BilinearInterpolation extends SeparableInterpolation {
         assert (f.length == 2) : " bilinear interpolation table not conform";
         return (t-t0)*(f[1]-f[0]) + f[0];
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Interpolation copy() {
+        final PixelIterator pix = copyIterator();
+        return (pix == null) ? null : new BilinearInterpolation(pix, borderChoice, fillValue);
+    }
 }
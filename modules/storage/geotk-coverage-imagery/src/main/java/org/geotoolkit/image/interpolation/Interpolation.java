@@ -17,8 +17,10 @@
 package org.geotoolkit.image.interpolation;
 
 import java.awt.Rectangle;
+import java.awt.image.RenderedImage;
 import java.util.Arrays;
 import org.geotoolkit.image.iterator.PixelIterator;
+import org.geotoolkit.image.iterator.PixelIteratorFactory;
 
 /**
  * <p>Define standard interpolation.<br/><br/>
@@ -364,6 +366,29 @@ public abstract class Interpolation {
         return numBands;
     }
 
+    /**
+     * <p>Returns a new interpolation of the same kind, which read the same source image with its own iterator.<br/>
+     * Interpolation and {@link PixelIterator} are not thread-safe, a copy is needed by each thread 
+     * which interpolate concurrently.</p>
+     *
+     * @return a copy of this interpolation, or {@code null} if this interpolation can not be copied.
+     * @see Resample#fillImage() 
+     */
+    public Interpolation copy() {
+        return null;
+    }
+
+    /**
+     * Returns a new iterator which travel the same image area than {@link #pixelIterator}.
+     *
+     * @return a new iterator, or {@code null} if the current iterator travel a raster instead of an image.
+     */
+    protected PixelIterator copyIterator() {
+        final RenderedImage image = pixelIterator.getRenderedImage();
+        if (image == null) return null;
+        return PixelIteratorFactory.createDefaultIterator(image, pixelIterator.getBoundary(true));
+    }
+
     /**
      * <p>Return Interpolation object.<br/><br/>
      *
@@ -162,4 +162,13 @@ public class LanczosInterpolation extends Interpolation {
     public double[] interpolate(double x, double y) {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Interpolation copy() {
+        final PixelIterator pix = copyIterator();
+        return (pix == null) ? null : new LanczosInterpolation(pix, lanczosWindow, borderChoice, fillValue);
+    }
 }
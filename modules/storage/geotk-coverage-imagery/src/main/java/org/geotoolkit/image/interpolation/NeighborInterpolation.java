@@ -82,4 +82,13 @@ public class NeighborInterpolation extends Interpolation {
         }
         return result;
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Interpolation copy() {
+        final PixelIterator pix = copyIterator();
+        return (pix == null) ? null : new NeighborInterpolation(pix, fillValue);
+    }
 }
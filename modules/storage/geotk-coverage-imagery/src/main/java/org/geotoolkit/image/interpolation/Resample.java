@@ -20,7 +20,13 @@ import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.image.DataBuffer;
 import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
 import java.awt.image.WritableRenderedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.geometry.GeneralDirectPosition;
 import org.apache.sis.geometry.GeneralEnvelope;
@@ -29,6 +35,7 @@ import org.geotoolkit.geometry.Envelopes;
 import org.geotoolkit.image.io.large.WritableLargeRenderedImage;
 import org.geotoolkit.image.iterator.PixelIterator;
 import org.geotoolkit.image.iterator.PixelIteratorFactory;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.math.XMath;
 import org.opengis.referencing.datum.PixelInCell;
 import org.opengis.referencing.operation.MathTransform;
@@ -49,6 +56,16 @@ public class Resample {
     private static final double[] CLAMP_SHORT  = new double[]{Short.MIN_VALUE,   Short.MAX_VALUE};
     private static final double[] CLAMP_USHORT = new double[]{0,                 0xFFFF};
     private static final double[] CLAMP_INT    = new double[]{Integer.MIN_VALUE, Integer.MAX_VALUE};
+
+    /**
+     * Minimum destination area, in pixels, from which destination image is filled concurrently.
+     */
+    private static final int MIN_PARALLEL_AREA = 512 * 512;
+
+    /**
+     * Minimum height of destination rows strips, when destination tiles are split to feed all threads.
+     */
+    private static final int MIN_STRIP_HEIGHT = 64;
             
     /**
      * Transform multi-dimensional point (in our case pixel coordinate) from target image
@@ -113,6 +130,12 @@ public class Resample {
      */
     ResampleGrid theGrid;
 
+    /**
+     * Number of threads use to fill destination image.
+     * @see #setNbThread(int) 
+     */
+    private int nbThread = Runtime.getRuntime().availableProcessors();
+
     /**
      * <p>Fill destination image from interpolation of source pixels.<br/>
      * Source pixel coordinate is obtained from invert transformation of destination pixel coordinates.<br/>
@@ -357,9 +380,11 @@ public class Resample {
     /**
      * Fill destination image from pre-computed grid.
      * 
+     * @param destIterator iterator on destination area to fill.
+     * @param interpol interpolation of source image pixels, used only by the current thread.
      * @throws TransformException 
      */
-    private void fillImageByGrid() throws TransformException {
+    private void fillImageByGrid(final PixelIterator destIterator, final Interpolation interpol) throws TransformException {
         
         final double[] theGridArray  = theGrid.getGrid();
         final int stepX              = theGrid.getStepX();
@@ -417,7 +442,7 @@ public class Resample {
                 final int interMaxRastX = StrictMath.min(rMaxX, rectBound.x + rectBound.width);
                 
                 //-- define minimum and maximum needed grid index in X direction. 
-                final int gCMinX = (int) (interMinRastX - minGridY / stepX) + minGridXIndex;
+                final int gCMinX = (int) ((interMinRastX - minGridX) / stepX) + minGridXIndex;
                 /*
                  * Max grid index in X direction equal Math.ceil(intersectionX / stepX) + 1.
                  * With + 1 because gridWidth = sub-division on X axis + 1;
@@ -602,9 +627,14 @@ public class Resample {
     /**
      * Fill image without any grid, all pixels coordinates are transform by given {@link MathTransform}.
      * 
+     * @param destIterator iterator on destination area to fill.
+     * @param interpol interpolation of source image pixels, used only by the current thread.
      * @throws TransformException 
      */
-    private void fillImageByAffineTransform(AffineTransform destCoordToSource) throws TransformException {
+    private void fillImageByAffineTransform(final PixelIterator destIterator, final Interpolation interpol,
+            final AffineTransform destCoordToSource) throws TransformException {
+        final double[] srcCoords  = new double[2];
+        final double[] destCoords = new double[2];
         int band;
         while (destIterator.next()) {
             band = 0;
@@ -638,9 +668,13 @@ public class Resample {
     /**
      * Fill image without any grid, all pixels coordinates are transform by given {@link MathTransform}.
      * 
+     * @param destIterator iterator on destination area to fill.
+     * @param interpol interpolation of source image pixels, used only by the current thread.
      * @throws TransformException 
      */
-    private void fillImageByTransform() throws TransformException {
+    private void fillImageByTransform(final PixelIterator destIterator, final Interpolation interpol) throws TransformException {
+        final double[] srcCoords  = new double[2];
+        final double[] destCoords = new double[2];
         int band;
         while (destIterator.next()) {
             band = 0;
@@ -671,34 +705,277 @@ public class Resample {
     }
     
     /**
-     * Fill destination image from source image pixel interpolation.
+     * <p>Fill destination image from source image pixel interpolation.<br/><br/>
+     * 
+     * When destination area is large enough, it is split by destination tiles 
+     * (and by rows strips if there are less tiles than threads), which are filled 
+     * concurrently, each thread with its own copy of the {@link Interpolation}.<br/>
+     * Pixels are written straight into destination writable tiles.</p>
+     * 
+     * @throws TransformException
+     * @see #setNbThread(int) 
+     * @see Interpolation#copy() 
      */
     public void fillImage() throws TransformException {
+        Object grid = null;
         if (destToSourceMathTransform instanceof MathTransform2D) {
             try {
                 final GridFactory gridFact = new GridFactory(0.125);
-                final Object object = gridFact.create((MathTransform2D) destToSourceMathTransform, destIterator.getBoundary(false));
-                if (object instanceof AffineTransform) {
-                    fillImageByAffineTransform((AffineTransform) object);
-                } else {
-                    theGrid = (ResampleGrid) object;
-                    fillImageByGrid();
-                }
-                return;
+                grid = gridFact.create((MathTransform2D) destToSourceMathTransform, destIterator.getBoundary(false));
+                if (grid instanceof ResampleGrid) theGrid = (ResampleGrid) grid;
             } catch (TransformException ex) {
                 //-- leave to fall back
             } catch (ArithmeticException e) {
                 //-- leave to fall back
             }
         }
-        fillImageByTransform();
+        
+        final Rectangle area = destIterator.getBoundary(true);
+        if (nbThread > 1 && (long) area.width * area.height >= MIN_PARALLEL_AREA) {
+            final List<Rectangle> partitions = partition(area);
+            if (partitions.size() > 1) {
+                final int nbTask = StrictMath.min(nbThread, partitions.size());
+                final Interpolation[] interpolations = new Interpolation[nbTask];
+                boolean copied = true;
+                for (int i = 0; i < nbTask && copied; i++) {
+                    interpolations[i] = interpol.copy();
+                    copied = interpolations[i] != null;
+                }
+                if (copied) {
+                    fillConcurrently(grid, partitions, interpolations);
+                    return;
+                }
+            }
+        }
+        fill(grid, destIterator, interpol);
+    }
+    
+    /**
+     * Fill destination area traveled by given iterator, from grid, affine transform 
+     * or {@link MathTransform} if grid is {@code null}.
+     * 
+     * @param grid {@link ResampleGrid}, {@link AffineTransform} or {@code null}.
+     * @param destIterator iterator on destination area to fill.
+     * @param interpol interpolation of source image pixels, used only by the current thread.
+     * @throws TransformException 
+     */
+    private void fill(final Object grid, final PixelIterator destIterator, final Interpolation interpol) throws TransformException {
+        if (grid instanceof AffineTransform) {
+            fillImageByAffineTransform(destIterator, interpol, (AffineTransform) grid);
+        } else if (grid instanceof ResampleGrid) {
+            fillImageByGrid(destIterator, interpol);
+        } else {
+            fillImageByTransform(destIterator, interpol);
+        }
+    }
+    
+    /**
+     * Fill all given destination areas with {@code interpolations.length} threads, 
+     * the current thread and Geotk worker threads.<br/>
+     * Each thread takes the next unfilled area until all areas are filled.
+     * The current thread never waits for a task which has not started, so this method 
+     * can be called from a worker thread without exhausting the shared pool.
+     * 
+     * @param grid {@link ResampleGrid}, {@link AffineTransform} or {@code null}.
+     * @param partitions destination areas, each one within a single destination tile.
+     * @param interpolations one interpolation by thread.
+     * @throws TransformException 
+     */
+    private void fillConcurrently(final Object grid, final List<Rectangle> partitions, 
+            final Interpolation[] interpolations) throws TransformException {
+        final AtomicInteger nextPartition = new AtomicInteger();
+        final List<FillTask> tasks = new ArrayList<>(interpolations.length - 1);
+        for (int i = 1; i < interpolations.length; i++) {
+            final FillTask task = new FillTask(grid, partitions, nextPartition, interpolations[i]);
+            Threads.executeWork(task);
+            tasks.add(task);
+        }
+        
+        Throwable error = null;
+        try {
+            int p;
+            while ((p = nextPartition.getAndIncrement()) < partitions.size()) {
+                fillTile(grid, partitions.get(p), interpolations[0]);
+            }
+        } catch (TransformException | RuntimeException | Error ex) {
+            nextPartition.set(partitions.size());
+            error = ex;
+        }
+        
+        //-- tasks not started yet will do nothing, wait for the others
+        for (FillTask task : tasks) {
+            if (!task.started.compareAndSet(false, true)) {
+                try {
+                    task.done.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    nextPartition.set(partitions.size());
+                    if (error == null) error = ex;
+                    break;
+                }
+                if (error == null) error = task.error;
+            }
+        }
+        
+        if (error == null)                        return;
+        if (error instanceof TransformException) throw (TransformException) error;
+        if (error instanceof RuntimeException)   throw (RuntimeException) error;
+        if (error instanceof Error)              throw (Error) error;
+        throw new TransformException(error.getMessage(), error);
+    }
+    
+    /**
+     * Fill destination areas from a Geotk worker thread, see 
+     * {@link #fillConcurrently(java.lang.Object, java.util.List, org.geotoolkit.image.interpolation.Interpolation[]) }.
+     */
+    private final class FillTask implements Runnable {
+        
+        private final Object grid;
+        private final List<Rectangle> partitions;
+        private final AtomicInteger nextPartition;
+        private final Interpolation interpolation;
+        
+        /** Set by the worker when it starts, or by the caller to skip the task. */
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable error;
+        
+        private FillTask(final Object grid, final List<Rectangle> partitions, 
+                final AtomicInteger nextPartition, final Interpolation interpolation) {
+            this.grid          = grid;
+            this.partitions    = partitions;
+            this.nextPartition = nextPartition;
+            this.interpolation = interpolation;
+        }
+        
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) return;
+            try {
+                int p;
+                while ((p = nextPartition.getAndIncrement()) < partitions.size()) {
+                    fillTile(grid, partitions.get(p), interpolation);
+                }
+            } catch (TransformException | RuntimeException | Error ex) {
+                nextPartition.set(partitions.size());
+                error = ex;
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+    
+    /**
+     * Fill destination area, which should be within a single destination tile, 
+     * writing directly in the destination writable tile.
+     * 
+     * @param grid {@link ResampleGrid}, {@link AffineTransform} or {@code null}.
+     * @param area destination area to fill.
+     * @param interpolation interpolation of source image pixels, used only by the current thread.
+     * @throws TransformException 
+     */
+    private void fillTile(final Object grid, final Rectangle area, final Interpolation interpolation) throws TransformException {
+        final int tileX = tileIndex(area.x, imageDest.getTileGridXOffset(), imageDest.getTileWidth());
+        final int tileY = tileIndex(area.y, imageDest.getTileGridYOffset(), imageDest.getTileHeight());
+        //-- destination images are not required to be thread-safe when giving tiles.
+        final WritableRaster raster;
+        synchronized (imageDest) {
+            raster = imageDest.getWritableTile(tileX, tileY);
+        }
+        try {
+            fill(grid, PixelIteratorFactory.createDefaultWriteableIterator(raster, raster, area), interpolation);
+        } finally {
+            synchronized (imageDest) {
+                imageDest.releaseWritableTile(tileX, tileY);
+            }
+        }
+    }
+    
+    /**
+     * Split destination area by destination tiles.<br/>
+     * If there are less tiles than threads, tiles are also split in rows strips, 
+     * to give work to all threads.
+     * 
+     * @param area destination area to split.
+     * @return destination areas, each one within a single destination tile.
+     */
+    private List<Rectangle> partition(final Rectangle area) {
+        final int tileWidth  = imageDest.getTileWidth();
+        final int tileHeight = imageDest.getTileHeight();
+        final int offsetX    = imageDest.getTileGridXOffset();
+        final int offsetY    = imageDest.getTileGridYOffset();
+        final int areaMaxX   = area.x + area.width;
+        final int areaMaxY   = area.y + area.height;
+        
+        final int minTileX = tileIndex(area.x, offsetX, tileWidth);
+        final int minTileY = tileIndex(area.y, offsetY, tileHeight);
+        final int maxTileX = tileIndex(areaMaxX - 1, offsetX, tileWidth);
+        final int maxTileY = tileIndex(areaMaxY - 1, offsetY, tileHeight);
+        final long nbTiles = (long) (maxTileX - minTileX + 1) * (maxTileY - minTileY + 1);
+        
+        //-- rows strip height within each tile.
+        int stripHeight = tileHeight;
+        if (nbTiles < nbThread) {
+            final int rows = StrictMath.min(tileHeight, area.height);
+            stripHeight = StrictMath.max(MIN_STRIP_HEIGHT, (int) ((rows * nbTiles + nbThread - 1) / nbThread));
+        }
+        
+        final List<Rectangle> partitions = new ArrayList<>();
+        for (int ty = minTileY; ty <= maxTileY; ty++) {
+            final int tMinY = StrictMath.max(area.y, ty * tileHeight + offsetY);
+            final int tMaxY = StrictMath.min(areaMaxY, (ty + 1) * tileHeight + offsetY);
+            for (int tx = minTileX; tx <= maxTileX; tx++) {
+                final int tMinX = StrictMath.max(area.x, tx * tileWidth + offsetX);
+                final int tMaxX = StrictMath.min(areaMaxX, (tx + 1) * tileWidth + offsetX);
+                for (int y = tMinY; y < tMaxY; y += stripHeight) {
+                    partitions.add(new Rectangle(tMinX, y, tMaxX - tMinX, StrictMath.min(stripHeight, tMaxY - y)));
+                }
+            }
+        }
+        return partitions;
+    }
+    
+    /**
+     * Returns index of the tile which contains given pixel coordinate.
+     * 
+     * @param coord pixel coordinate.
+     * @param offset tile grid offset.
+     * @param tileSize tile size in the same direction.
+     * @return tile index.
+     */
+    private static int tileIndex(final int coord, final int offset, final int tileSize) {
+        final int delta = coord - offset;
+        return (delta >= 0) ? delta / tileSize : (delta - tileSize + 1) / tileSize;
+    }
+
+    /**
+     * Returns number of threads use to fill destination image.
+     * 
+     * @return number of threads use to fill destination image.
+     */
+    public int getNbThread() {
+        return nbThread;
+    }
+
+    /**
+     * Set number of threads use to fill destination image.<br/>
+     * Default value is the number of available processors.<br/>
+     * Only one thread is used if the value is lesser than 2, if the destination area is small 
+     * or if the {@link Interpolation} can not be {@linkplain Interpolation#copy() copied}.<br/>
+     * Additional threads are taken from the shared Geotk worker pool, callers which already 
+     * fill several images concurrently should set this value to 1.
+     * 
+     * @param nbThread number of threads use to fill destination image.
+     */
+    public void setNbThread(final int nbThread) {
+        this.nbThread = nbThread;
     }
 
     /**
-     * Please use {@link #fillImageByTransform() } method.
+     * Please use {@link #fillImage() } method.
      * 
      * @throws TransformException
-     * @deprecated replace by {@link #fillImageByTransform() }.
+     * @deprecated replace by {@link #fillImage() }.
      */
     @Deprecated
     public void fillImagePx() throws TransformException {
@@ -20,6 +20,7 @@ import java.awt.Transparency;
 import java.awt.color.ColorSpace;
 import java.awt.image.*;
 import javax.imageio.ImageTypeSpecifier;
+import javax.media.jai.TiledImage;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.apache.sis.referencing.operation.transform.MathTransforms;
@@ -355,6 +356,109 @@ public class ResampleTest {
         assertArrayEquals(expectedResultByFeedBack, testedArray, tol);
     } 
     
+    /**
+     * Test that destination image filled concurrently is the same as image filled by a single thread.
+     */
+    @Test
+    public void parallelResampleTest() throws NoSuchAuthorityCodeException, FactoryException, TransformException {
+        
+        final ColorSpace cs = ColorSpace.getInstance(ColorSpace.CS_GRAY);
+        final ColorModel cm = new ComponentColorModel(cs, new int[]{Double.SIZE}, false, false, Transparency.OPAQUE, DataBuffer.TYPE_DOUBLE);
+        final ImageTypeSpecifier imgTypeSpec = new ImageTypeSpecifier(cm, cm.createCompatibleSampleModel(1, 1));
+        sourceImg = imgTypeSpec.createBufferedImage(64, 64);
+        final WritableRaster raster = sourceImg.getWritableTile(0, 0);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                raster.setSample(x, y, 0, (x * 7 + y * 13) % 32);
+            }
+        }
+        
+        final ProjectedCRS projCRS = (ProjectedCRS) CRS.decode("EPSG:2154");
+        final MathTransform mt = projCRS.getConversionFromBase().getMathTransform();
+        final Envelope srcEnv  = new Envelope2D(projCRS.getBaseCRS(), 45, -8, 5, 16);
+        final Envelope destEnv = Envelopes.transform(mt, srcEnv);
+        
+        final AffineTransform2D srcGridToCrs  = new AffineTransform2D(srcEnv.getSpan(0) / 64, 0, 0, -srcEnv.getSpan(1) / 64, srcEnv.getMinimum(0), srcEnv.getMaximum(1));
+        final AffineTransform2D destGridToCrs = new AffineTransform2D(destEnv.getSpan(0) / 1024, 0, 0, -destEnv.getSpan(1) / 1024, destEnv.getMinimum(0), destEnv.getMaximum(1));
+        final MathTransform pixSrcGridToCrs  = MathTransforms.concatenate(pixelInCellCenter, srcGridToCrs);
+        final MathTransform pixDestGridToCrs = MathTransforms.concatenate(pixelInCellCenter, destGridToCrs);
+        final MathTransform destToSrc = MathTransforms.concatenate(pixSrcGridToCrs, mt, pixDestGridToCrs.inverse()).inverse();
+        
+        final double[][] results = new double[2][];
+        for (int i = 0; i < 2; i++) {
+            setTargetImage(1024, 1024, DataBuffer.TYPE_DOUBLE, -1000);
+            final Resample resample = new Resample(destToSrc, targetImage, sourceImg,
+                    InterpolationCase.BICUBIC, ResampleBorderComportement.EXTRAPOLATION, new double[]{0});
+            resample.setNbThread((i == 0) ? 1 : 4);
+            resample.fillImage();
+            results[i] = ((DataBufferDouble) targetImage.getTile(0, 0).getDataBuffer()).getData(0);
+        }
+        assertArrayEquals(results[0], results[1], 0);
+    }
+    
+    /**
+     * Test that a tiled destination image which does not start at (0,0) is filled 
+     * the same way by a single thread, by several threads, and without grid 
+     * from the exact transform.
+     */
+    @Test
+    public void parallelTiledResampleTest() throws NoSuchAuthorityCodeException, FactoryException, TransformException {
+        
+        //-- linear source values, bilinear interpolation is exact on them.
+        final ColorSpace cs = ColorSpace.getInstance(ColorSpace.CS_GRAY);
+        final ColorModel cm = new ComponentColorModel(cs, new int[]{Double.SIZE}, false, false, Transparency.OPAQUE, DataBuffer.TYPE_DOUBLE);
+        final ImageTypeSpecifier imgTypeSpec = new ImageTypeSpecifier(cm, cm.createCompatibleSampleModel(1, 1));
+        sourceImg = imgTypeSpec.createBufferedImage(64, 64);
+        final WritableRaster raster = sourceImg.getWritableTile(0, 0);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                raster.setSample(x, y, 0, x + 2 * y);
+            }
+        }
+        
+        //-- destination area within source area, to not depend on border comportement.
+        final ProjectedCRS projCRS = (ProjectedCRS) CRS.decode("EPSG:2154");
+        final MathTransform mt = projCRS.getConversionFromBase().getMathTransform();
+        final Envelope srcEnv  = new Envelope2D(projCRS.getBaseCRS(), 45, -8, 5, 16);
+        final Envelope destEnv = Envelopes.transform(mt, new Envelope2D(projCRS.getBaseCRS(), 46, -7, 3, 14));
+        
+        final int minX = -300, minY = 130, width = 1000, height = 1000;
+        final double scaleX = destEnv.getSpan(0) / width;
+        final double scaleY = destEnv.getSpan(1) / height;
+        final AffineTransform2D srcGridToCrs  = new AffineTransform2D(srcEnv.getSpan(0) / 64, 0, 0, -srcEnv.getSpan(1) / 64, srcEnv.getMinimum(0), srcEnv.getMaximum(1));
+        final AffineTransform2D destGridToCrs = new AffineTransform2D(scaleX, 0, 0, -scaleY, 
+                destEnv.getMinimum(0) - minX * scaleX, destEnv.getMaximum(1) + minY * scaleY);
+        final MathTransform pixSrcGridToCrs  = MathTransforms.concatenate(pixelInCellCenter, srcGridToCrs);
+        final MathTransform pixDestGridToCrs = MathTransforms.concatenate(pixelInCellCenter, destGridToCrs);
+        final MathTransform destToSrc = MathTransforms.concatenate(pixSrcGridToCrs, mt, pixDestGridToCrs.inverse()).inverse();
+        
+        final double[][] results = new double[3][];
+        for (int i = 0; i < 3; i++) {
+            final TiledImage dest = new TiledImage(minX, minY, width, height, 0, 0, 
+                    cm.createCompatibleSampleModel(256, 256), cm);
+            final PixelIterator pix = PixelIteratorFactory.createDefaultWriteableIterator(dest, dest);
+            while (pix.next()) {
+                pix.setSampleDouble(-1000);
+            }
+            final Resample resample = new Resample(destToSrc, dest, sourceImg,
+                    InterpolationCase.BILINEAR, ResampleBorderComportement.EXTRAPOLATION, new double[]{0});
+            if (i == 2) {
+                //-- exact transform for each pixel, without grid.
+                resample.fillImagePx();
+            } else {
+                resample.setNbThread((i == 0) ? 1 : 4);
+                resample.fillImage();
+            }
+            results[i] = dest.getData().getSamples(minX, minY, width, height, 0, (double[]) null);
+        }
+        assertArrayEquals(results[0], results[1], 0);
+        for (double sample : results[0]) {
+            assertTrue(sample != -1000);
+        }
+        //-- grid tolerance is 0.125 pixel, source values change by at most 3 by pixel.
+        assertArrayEquals(results[2], results[0], 0.5);
+    }
+    
     /**
      * Study grid built during resample an verify pertinency of its values from 
      * destination coordinates transformed by {@link MathTransform}.
@@ -49,6 +49,7 @@ import org.geotoolkit.coverage.CoverageStoreContentEvent;
 import org.geotoolkit.coverage.CoverageStoreManagementEvent;
 import org.geotoolkit.coverage.GridMosaic;
 import org.geotoolkit.coverage.GridSampleDimension;
+import org.geotoolkit.coverage.MosaicTileCache;
 import org.geotoolkit.coverage.Pyramid;
 import org.geotoolkit.coverage.PyramidSet;
 import org.geotoolkit.coverage.PyramidalModelWriter;
@@ -403,6 +404,7 @@ public class PGCoverageReference extends AbstractPyramidalCoverageReference {
 
             insertStmt = cnx.createStatement();
             insertStmt.executeUpdate(query.toString());
+            MosaicTileCache.getDefault().remove(pyramidSet, pyramidId, mosaicId, col, row);
 
             final CoverageStoreContentEvent event = fireTileUpdated(pyramidId, mosaicId, Collections.singletonList(new Point(col,row)));
             getStore().forwardContentEvent(event);
@@ -434,6 +436,7 @@ public class PGCoverageReference extends AbstractPyramidalCoverageReference {
             sql.append(" AND \"positionX\" = ").append(col);
             sql.append(" AND \"positionY\" = ").append(row);
             stmt.executeUpdate(sql.toString());
+            MosaicTileCache.getDefault().remove(pyramidSet, pyramidId, mosaicId, col, row);
         }catch(SQLException ex){
             throw new DataStoreException(ex.getMessage(), ex);
         }finally{
@@ -22,18 +22,20 @@ import javax.imageio.ImageReader;
 import java.awt.*;
 import java.awt.image.*;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.util.ArgumentChecks;
-import org.apache.sis.util.collection.Cache;
 import org.geotoolkit.image.io.mosaic.Tile;
 import org.geotoolkit.math.XMath;
 
 /**
  * Implementation of RenderedImage using GridMosaic.
  * With this a GridMosaic can be see as a RenderedImage.
+ * Decoded tiles are stored in the shared {@link MosaicTileCache}.
  *
  * @author Thomas Rouby (Geomatys)
  * @author Quentin Boileau (Geomatys)
@@ -44,11 +46,6 @@ public class GridMosaicRenderedImage implements RenderedImage {
 
     private static final Logger LOGGER = Logging.getLogger(GridMosaicRenderedImage.class);
 
-    /**
-     * A tile cache
-     */
-    private final Cache<Point,Raster> tileCache = new Cache<>(10, 12, true);
-
     /**
      * The original mosaic to read
      */
@@ -303,50 +300,56 @@ public class GridMosaicRenderedImage implements RenderedImage {
         tileX += gridRange.x;
         tileY += gridRange.y;
 
-        Raster raster;
-        try {
-            raster = this.tileCache.get(new Point(tileX, tileY));
-        } catch (IllegalArgumentException ex) {
-            raster = null;
-        }
+        final MosaicTileCache cache = MosaicTileCache.getDefault();
+        Raster raster = cache.get(mosaic, tileX, tileY);
 
         if (raster == null) {
+            //tiles written while reading are not cached
+            final long generation = cache.getGeneration();
             try {
-                DataBuffer buffer = null;
-
                 if (!mosaic.isMissing(tileX,tileY)) {
                     final TileReference tile = mosaic.getTile(tileX,tileY, null);
                     if (tile != null) {
-                        if (tile.getInput() instanceof RenderedImage) {
-                            buffer = ((RenderedImage)tile.getInput()).getData().getDataBuffer();
-                        } else {
-                            final ImageReader reader = tile.getImageReader();
-                            buffer = reader.read(0).getData().getDataBuffer();
-                            reader.dispose();
-                        }
+                        raster = MosaicTileCache.read(tile);
                     }
                 }
 
-                if(buffer==null){
+                if(raster==null){
                     //create an empty buffer
-                    buffer = getSampleModel().createDataBuffer();
+                    raster = Raster.createWritableRaster(getSampleModel(), getSampleModel().createDataBuffer(), null);
                 }
 
-                //create a raster from tile image with tile position offset.
                 LOGGER.log(Level.FINE, "Request tile {0}:{1} ", new Object[]{tileX,tileY});
-                final int rX = tileX*this.getTileWidth();
-                final int rY = tileY*this.getTileHeight();
-
-                raster = Raster.createWritableRaster(getSampleModel(), buffer, new Point(rX, rY));
-
-                this.tileCache.put(new Point(tileX, tileY), raster);
+                cache.put(mosaic, tileX, tileY, raster, generation);
+                prefetchNeighbors(tileX, tileY);
 
             } catch ( DataStoreException | IOException e) {
                 LOGGER.log(Level.WARNING, e.getMessage(), e);
+                return null;
             }
         }
 
-        return raster;
+        //create a raster from tile image with tile position offset.
+        //the data buffer is shared with the cache, the raster must not be writable.
+        final int rX = tileX*this.getTileWidth();
+        final int rY = tileY*this.getTileHeight();
+        return Raster.createRaster(getSampleModel(), raster.getDataBuffer(), new Point(rX, rY));
+    }
+
+    /**
+     * Load asynchronously the tiles around a tile which was not in cache,
+     * they are likely to be requested next.
+     */
+    private void prefetchNeighbors(int tileX, int tileY) {
+        final List<Point> neighbors = new ArrayList<>(8);
+        for (int y = Math.max(tileY-1, gridRange.y), ymax = Math.min(tileY+2, gridRange.y+gridRange.height); y < ymax; y++) {
+            for (int x = Math.max(tileX-1, gridRange.x), xmax = Math.min(tileX+2, gridRange.x+gridRange.width); x < xmax; x++) {
+                if ((x != tileX || y != tileY) && !mosaic.isMissing(x, y)) {
+                    neighbors.add(new Point(x, y));
+                }
+            }
+        }
+        MosaicTileCache.getDefault().prefetch(mosaic, neighbors);
     }
 
     private boolean isTileMissing(int x, int y) throws DataStoreException{
@@ -0,0 +1,476 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageReader;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.logging.Logging;
+import org.geotoolkit.internal.Threads;
+
+/**
+ * Process wide cache of decoded mosaic tiles, shared by all {@link GridMosaicRenderedImage}.
+ * Tiles are identified by their pyramid set, pyramid id, mosaic id and position in the mosaic grid,
+ * this way all renderings of a {@link PyramidalCoverageReference} share the same tiles.
+ *
+ * The cache is bounded by the memory size of the cached rasters, the least recently
+ * used tiles are evicted first. Hit, miss and eviction counts are kept for monitoring.
+ *
+ * Coverage references must invalidate the tiles they write or delete. A tile read
+ * before an invalidation is not cached, see {@link #getGeneration() }.
+ *
+ * Pyramid sets are weakly referenced, the tiles of a pyramid set which is
+ * garbage collected are removed from the cache.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class MosaicTileCache {
+
+    private static final Logger LOGGER = Logging.getLogger(MosaicTileCache.class);
+
+    /**
+     * Default maximum memory used by cached tiles, 64Mb.
+     */
+    public static final long DEFAULT_MAX_MEMORY = 64l * 1024l * 1024l;
+
+    private static final MosaicTileCache INSTANCE = new MosaicTileCache(DEFAULT_MAX_MEMORY);
+
+    /**
+     * Cached tiles in access order, least recently used first.
+     */
+    private final LinkedHashMap<Key,Raster> tiles = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Tiles currently loaded by a prefetch task.
+     */
+    private final Set<Key> loading = new HashSet<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Cleared references of the pyramid sets of cached tiles.
+     */
+    private final ReferenceQueue<PyramidSet> releasedSets = new ReferenceQueue<>();
+
+    private long maxMemory;
+    private long memory = 0;
+
+    /**
+     * Increased each time tiles are invalidated.
+     */
+    private long generation = 0;
+
+    /**
+     * @param maxMemory maximum memory in bytes used by cached tiles
+     */
+    public MosaicTileCache(final long maxMemory) {
+        ArgumentChecks.ensurePositive("maxMemory", maxMemory);
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * @return cache shared by all mosaic rendered images
+     */
+    public static MosaicTileCache getDefault() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return maximum memory in bytes used by cached tiles
+     */
+    public synchronized long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Change maximum memory, tiles are evicted if current memory exceed it.
+     *
+     * @param maxMemory maximum memory in bytes used by cached tiles
+     */
+    public synchronized void setMaxMemory(final long maxMemory) {
+        ArgumentChecks.ensurePositive("maxMemory", maxMemory);
+        this.maxMemory = maxMemory;
+        evict();
+    }
+
+    /**
+     * @return memory in bytes used by cached tiles
+     */
+    public synchronized long getMemory() {
+        return memory;
+    }
+
+    /**
+     * @return number of cached tiles
+     */
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Return the current generation of the cache, it changes each time tiles are
+     * removed. Must be obtained before reading a tile which will be cached with
+     * {@link #put(org.geotoolkit.coverage.GridMosaic, int, int, java.awt.image.Raster, long) }.
+     *
+     * @return cache generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return number of tiles found in cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of tiles requested but not found in cache
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of tiles removed from cache to release memory
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Get a cached tile.
+     *
+     * @param mosaic tile mosaic
+     * @param col tile column
+     * @param row tile row
+     * @return cached raster or null
+     */
+    public Raster get(final GridMosaic mosaic, final int col, final int row) {
+        final Raster raster;
+        synchronized(this){
+            raster = tiles.get(new Key(mosaic, col, row, null));
+        }
+        if(raster != null){
+            hits.incrementAndGet();
+        }else{
+            misses.incrementAndGet();
+        }
+        return raster;
+    }
+
+    /**
+     * Cache a tile, least recently used tiles are evicted if needed.
+     * Tiles larger than the maximum memory are not cached.
+     *
+     * @param mosaic tile mosaic
+     * @param col tile column
+     * @param row tile row
+     * @param raster decoded tile
+     */
+    public void put(final GridMosaic mosaic, final int col, final int row, final Raster raster) {
+        put(new Key(mosaic, col, row, releasedSets), raster);
+    }
+
+    /**
+     * Cache a tile read by the caller, the tile is ignored if tiles have been
+     * invalidated since given generation : it may have been read before a write.
+     *
+     * @param mosaic tile mosaic
+     * @param col tile column
+     * @param row tile row
+     * @param raster decoded tile
+     * @param readGeneration cache generation obtained before reading the tile
+     */
+    public void put(final GridMosaic mosaic, final int col, final int row, final Raster raster,
+            final long readGeneration) {
+        final Key key = new Key(mosaic, col, row, releasedSets);
+        synchronized(this){
+            if(readGeneration == generation){
+                put(key, raster);
+            }
+        }
+    }
+
+    private synchronized void put(final Key key, final Raster raster) {
+        purge();
+        final long size = getMemorySize(raster);
+        if(size > maxMemory) return;
+        final Raster previous = tiles.put(key, raster);
+        if(previous != null){
+            memory -= getMemorySize(previous);
+        }
+        memory += size;
+        evict();
+    }
+
+    /**
+     * Remove a tile from cache.
+     *
+     * @param set pyramid set
+     * @param pyramidId pyramid identifier
+     * @param mosaicId mosaic identifier
+     * @param col tile column
+     * @param row tile row
+     */
+    public synchronized void remove(final PyramidSet set, final String pyramidId, final String mosaicId,
+            final int col, final int row) {
+        final Key key = new Key(set, pyramidId, mosaicId, col, row, null);
+        generation++;
+        loading.remove(key);
+        final Raster raster = tiles.remove(key);
+        if(raster != null){
+            memory -= getMemorySize(raster);
+        }
+    }
+
+    /**
+     * Remove all tiles of a mosaic from cache.
+     *
+     * @param set pyramid set
+     * @param pyramidId pyramid identifier
+     * @param mosaicId mosaic identifier
+     */
+    public synchronized void removeAll(final PyramidSet set, final String pyramidId, final String mosaicId) {
+        generation++;
+        final Iterator<Map.Entry<Key,Raster>> ite = tiles.entrySet().iterator();
+        while(ite.hasNext()){
+            final Map.Entry<Key,Raster> entry = ite.next();
+            if(entry.getKey().isInMosaic(set, pyramidId, mosaicId)){
+                memory -= getMemorySize(entry.getValue());
+                ite.remove();
+            }
+        }
+        final Iterator<Key> lite = loading.iterator();
+        while(lite.hasNext()){
+            if(lite.next().isInMosaic(set, pyramidId, mosaicId)){
+                lite.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all tiles from cache, statistics are preserved.
+     */
+    public synchronized void clear() {
+        generation++;
+        tiles.clear();
+        loading.clear();
+        memory = 0;
+    }
+
+    /**
+     * Load and cache tiles asynchronously.
+     * Tiles already cached or being loaded are ignored, tiles are read
+     * using {@link GridMosaic#getTiles(java.util.Collection, java.util.Map) }.
+     *
+     * @param mosaic tiles mosaic
+     * @param positions tile positions
+     */
+    public void prefetch(final GridMosaic mosaic, final Collection<? extends Point> positions) {
+        final List<Point> toLoad = new ArrayList<>();
+        final List<Key> keys = new ArrayList<>();
+        synchronized(this){
+            for(Point pt : positions){
+                final Key key = new Key(mosaic, pt.x, pt.y, releasedSets);
+                if(!tiles.containsKey(key) && loading.add(key)){
+                    toLoad.add(pt);
+                    keys.add(key);
+                }
+            }
+        }
+        if(toLoad.isEmpty()) return;
+
+        Threads.executeWork(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    final BlockingQueue<Object> queue = mosaic.getTiles(toLoad, null);
+                    while(true){
+                        final Object obj = queue.take();
+                        if(obj == GridMosaic.END_OF_QUEUE) break;
+                        if(obj instanceof TileReference){
+                            final TileReference tile = (TileReference) obj;
+                            final Point pt = tile.getPosition();
+                            final Key key = new Key(mosaic, pt.x, pt.y, releasedSets);
+                            final Raster raster = read(tile);
+                            synchronized(MosaicTileCache.this){
+                                //tile may have been invalidated while loading
+                                if(loading.remove(key)){
+                                    put(key, raster);
+                                }
+                            }
+                        }
+                    }
+                }catch(DataStoreException | IOException ex){
+                    LOGGER.log(Level.FINE, ex.getMessage(), ex);
+                }catch(InterruptedException ex){
+                    Thread.currentThread().interrupt();
+                }finally{
+                    synchronized(MosaicTileCache.this){
+                        loading.removeAll(keys);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Decode a tile.
+     *
+     * @param tile tile to read
+     * @return tile raster
+     * @throws IOException if tile reading failed
+     */
+    public static Raster read(final TileReference tile) throws IOException {
+        if(tile.getInput() instanceof RenderedImage){
+            return ((RenderedImage)tile.getInput()).getData();
+        }
+        final ImageReader reader = tile.getImageReader();
+        try{
+            return reader.read(tile.getImageIndex()).getData();
+        }finally{
+            reader.dispose();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MosaicTileCache[tiles=" + tiles.size() + ", memory=" + memory + "/" + maxMemory
+                + ", hits=" + hits.get() + ", misses=" + misses.get() + ", evictions=" + evictions.get() + "]";
+    }
+
+    /**
+     * Remove least recently used tiles until memory is under the limit.
+     * Caller must hold the lock.
+     */
+    private void evict() {
+        final Iterator<Raster> ite = tiles.values().iterator();
+        while(memory > maxMemory && ite.hasNext()){
+            memory -= getMemorySize(ite.next());
+            ite.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove the tiles of garbage collected pyramid sets.
+     * Caller must hold the lock.
+     */
+    private void purge() {
+        boolean released = false;
+        while(releasedSets.poll() != null){
+            released = true;
+        }
+        if(!released) return;
+        final Iterator<Map.Entry<Key,Raster>> ite = tiles.entrySet().iterator();
+        while(ite.hasNext()){
+            final Map.Entry<Key,Raster> entry = ite.next();
+            if(entry.getKey().set.get() == null){
+                memory -= getMemorySize(entry.getValue());
+                ite.remove();
+            }
+        }
+        final Iterator<Key> lite = loading.iterator();
+        while(lite.hasNext()){
+            if(lite.next().set.get() == null){
+                lite.remove();
+            }
+        }
+    }
+
+    private static long getMemorySize(final Raster raster) {
+        final DataBuffer buffer = raster.getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /**
+     * Tile identifier.
+     * The pyramid set is weakly referenced and compared by identity.
+     */
+    private static final class Key {
+
+        private final WeakReference<PyramidSet> set;
+        private final int setHash;
+        private final String pyramidId;
+        private final String mosaicId;
+        private final int col;
+        private final int row;
+
+        /**
+         * @param queue queue notified when the pyramid set is garbage collected,
+         *        null for keys which are not stored
+         */
+        private Key(final GridMosaic mosaic, final int col, final int row, final ReferenceQueue<PyramidSet> queue) {
+            this(mosaic.getPyramid().getPyramidSet(), mosaic.getPyramid().getId(), mosaic.getId(), col, row, queue);
+        }
+
+        private Key(final PyramidSet set, final String pyramidId, final String mosaicId, final int col, final int row,
+                final ReferenceQueue<PyramidSet> queue) {
+            this.set = new WeakReference<>(set, queue);
+            this.setHash = System.identityHashCode(set);
+            this.pyramidId = pyramidId;
+            this.mosaicId = mosaicId;
+            this.col = col;
+            this.row = row;
+        }
+
+        private boolean isInMosaic(final PyramidSet set, final String pyramidId, final String mosaicId) {
+            return set != null && this.set.get() == set
+                && Objects.equals(this.pyramidId, pyramidId) && Objects.equals(this.mosaicId, mosaicId);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if(obj == this) return true;
+            if(!(obj instanceof Key)) return false;
+            final Key other = (Key) obj;
+            return col == other.col && row == other.row && other.isInMosaic(set.get(), pyramidId, mosaicId);
+        }
+
+        @Override
+        public int hashCode() {
+            return setHash + 31 * Objects.hashCode(pyramidId)
+                    + 97 * Objects.hashCode(mosaicId) + 7 * col + 131 * row;
+        }
+    }
+
+}
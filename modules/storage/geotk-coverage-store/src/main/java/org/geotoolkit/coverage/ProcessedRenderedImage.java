@@ -152,6 +152,18 @@ public class ProcessedRenderedImage extends AbstractRenderedImage {
         //TODO take in consideration other values
         final int offsetX = tileX * tileWidth;
         final int offsetY = tileY * tileHeight;
+
+        if(evaluator instanceof RowEvaluator){
+            //evaluate and write a full row at once
+            final RowEvaluator rowEvaluator = (RowEvaluator) evaluator;
+            final double[] rowBuffer = new double[tileWidth*nbBand];
+            for(int y=0;y<tileHeight;y++){
+                rowEvaluator.evaluateRow(offsetX, y+offsetY, tileWidth, rowBuffer);
+                raster.setPixels(0, y, tileWidth, 1, rowBuffer);
+            }
+            return raster;
+        }
+
         for(int y=0;y<tileHeight;y++){
             for(int x=0;x<tileWidth;x++){
                 evaluator.evaluate(x+offsetX, y+offsetY, sampleBuffer);
@@ -169,5 +181,20 @@ public class ProcessedRenderedImage extends AbstractRenderedImage {
         void evaluate(int x, int y, double[] sampleBuffer);
         
     }
+
+    /**
+     * Evaluator able to compute a row of pixels in a single call.
+     */
+    public static interface RowEvaluator extends Evaluator {
+
+        /**
+         * @param x first pixel column
+         * @param y pixel row
+         * @param width number of pixels to evaluate
+         * @param sampleBuffer pixel samples, bands are interleaved
+         */
+        void evaluateRow(int x, int y, int width, double[] sampleBuffer);
+
+    }
     
 }
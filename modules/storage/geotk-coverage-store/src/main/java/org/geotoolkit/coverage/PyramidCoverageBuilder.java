@@ -21,8 +21,15 @@ import java.awt.image.*;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.imageio.ImageReader;
 import javax.swing.ProgressMonitor;
 import org.apache.sis.geometry.GeneralDirectPosition;
@@ -42,6 +49,7 @@ import org.geotoolkit.image.interpolation.LanczosInterpolation;
 import org.geotoolkit.image.interpolation.Resample;
 import org.geotoolkit.image.interpolation.ResampleBorderComportement;
 import org.geotoolkit.image.iterator.PixelIteratorFactory;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.internal.image.ImageUtilities;
 import org.geotoolkit.internal.referencing.CRSUtilities;
 import org.geotoolkit.process.ProcessDescriptor;
@@ -155,6 +163,11 @@ public class PyramidCoverageBuilder {
      */
     private boolean reuseTiles = false;
 
+    /**
+     * Relative tolerance used to detect scale levels twice larger than the previous one.
+     */
+    private static final double SCALE_TOLERANCE = 1E-9;
+
     /**
      * Global number of tiles which will be generate.
      * @see PyramidCoverageBuilder#initListener(java.util.Map, org.geotoolkit.process.ProcessListener)
@@ -384,13 +397,6 @@ public class PyramidCoverageBuilder {
         final Envelope covEnv       = gg2d.getEnvelope2D();
         
 //        final RenderedImage baseImg = gridCoverage2D.getRenderedImage();
-        // work on pixels coordinates.
-        final double envWidth       = envDest.getSpan(widthAxis);
-        final double envHeight      = envDest.getSpan(heightAxis);
-//        final int nbBand            = baseImg.getSampleModel().getNumBands();
-//        final int dataType          = baseImg.getSampleModel().getDataType();
-        final double min0           = envDest.getMinimum(widthAxis);
-        final double max1           = envDest.getMaximum(heightAxis);
         //MathTransform2D
 //        final MathTransform destCrs_to_coverageCRS = CRS.findMathTransform(CRSUtilities.getCRS2D(envDest.getCoordinateReferenceSystem()), gg2d.getCoordinateReferenceSystem2D(), true);
         
@@ -398,8 +404,6 @@ public class PyramidCoverageBuilder {
         GeneralEnvelope envDest2D = GeneralEnvelope.castOrCopy(CRS.transform(envDest, envDestCRS2D));
         final MathTransform destCrs_to_coverageCRS = CRS.findMathTransform(envDestCRS2D, gg2d.getCoordinateReferenceSystem2D(), true);
         
-        final Dimension tileSize              = new Dimension(tileWidth, tileHeight);
-        
         final GeneralEnvelope covEnvInDestCRS = CRS.transform(destCrs_to_coverageCRS.inverse(), covEnv);
 //        final GeneralEnvelope clipEnv   = ReferencingUtilities.intersectEnvelopes(covEnvInDestCRS, envDest);
         final GeneralEnvelope clipEnv   = ReferencingUtilities.intersectEnvelopes(covEnvInDestCRS, envDest2D);
@@ -421,8 +425,12 @@ public class PyramidCoverageBuilder {
         //----------------------------------------------------------------------
         
         
-        //-- one mosaic for each level scale
-        for (double pixelScal : scaleLevel) {
+        //-- levels are built by chains, only the first level of each chain is read, see LevelChain
+        final double[] scales = scaleLevel.clone();
+        Arrays.sort(scales);
+        for (int start = 0; start < scales.length;) {
+            final int end         = chainEnd(scales, start);
+            final double pixelScal = scales[start];
             res[widthAxis] = res[heightAxis] = pixelScal;
             //-- output image size
             readParam.setResolution(res);
@@ -433,64 +441,10 @@ public class PyramidCoverageBuilder {
             final MathTransform destCrs_to_covGrid     = MathTransforms.concatenate(destCrs_to_coverageCRS, coverageCRS_to_grid).inverse();
 
             final double[] fill    = getFillValue(gridCoverage2D, fillValue);
-            
-            final double imgWidth  = envWidth  / pixelScal;
-            final double imgHeight = envHeight / pixelScal;
-            final double sx        = envWidth  / imgWidth;
-            final double sy        = envHeight / imgHeight;
-            final MathTransform2D globalGridDest_to_crs = new AffineTransform2D(sx, 0, 0, -sy, min0, max1);
-//            final MathTransform covCRS_to_gridDest      = MathTransforms.concatenate(globalGridDest_to_crs, destCrs_to_coverageCRS).inverse();
-
-            //-- mosaic size
-            final int nbrTileX  = (int) Math.ceil(imgWidth  / tileWidth);
-            final int nbrTileY  = (int) Math.ceil(imgHeight / tileHeight);
-
-            //-- coverage extent on mosaic space
-            final GeneralEnvelope coverageExtent = Envelopes.transform(globalGridDest_to_crs.inverse(), clipEnv);
-
-            //-- coverage intersection tile index
-            final int startTileX = (int) coverageExtent.getMinimum(widthAxis)   / tileWidth;
-            final int startTileY = (int) coverageExtent.getMinimum(heightAxis)  / tileHeight;
-            final int endTileX   = (int) (coverageExtent.getMaximum(widthAxis)  + tileWidth - 1)  / tileWidth;
-            final int endTileY   = (int) (coverageExtent.getMaximum(heightAxis) + tileHeight - 1) / tileHeight;
-
-            final GridMosaic mosaic = getOrCreateMosaic(pm, pyramidID, new Dimension(nbrTileX, nbrTileY), tileSize, upperLeft, pixelScal);
-            final String mosaicId   = mosaic.getId();
-
-            //final Interpolation interpolation = Interpolation.create(PixelIteratorFactory.createRowMajorIterator(baseImg), interpolationCase, lanczosWindow);
-
-            for (int cTY = startTileY; cTY < endTileY; cTY++) {
-                for (int cTX = startTileX; cTX < endTileX; cTX++) {
-                    final int destMinX = cTX * tileWidth;
-                    final int destMinY = cTY * tileHeight;
-                    boolean noFill = false;
-
-                    WritableRenderedImage destImg;
-                    if (reuseTiles && !mosaic.isMissing(cTX, cTY)) {
-                        TileReference tile = mosaic.getTile(cTX, cTY, null);
-                        destImg = getImageFromTile(tile);
-                        noFill = true;
-                    } else {
-                        destImg = BufferedImageUtilities.createImage(tileWidth, tileHeight, baseImg);
-                        //-- ensure fill value is set.
-                        ImageUtilities.fill(destImg, fill[0]);
-                    }
-
-                    if (processListener != null) {
-                        processListener.progressing(new ProcessEvent(fakeProcess, (++niemeTile) + "/" + globalTileNumber, (niemeTile * 100 / globalTileNumber)));
-                    }
-
-                    //-- dest grid --> dest envelope coordinate --> base envelope --> base grid
-                    //-- concatene : dest grid_to_crs, dest_crs_to_coverageCRS, coverageCRS_to_grid coverage
-                    final MathTransform2D gridDest_to_crs = new AffineTransform2D(sx, 0, 0, -sy, min0 + sx * (destMinX + 0.5), max1 - sy * (destMinY + 0.5)).inverse();
-                    final MathTransform mt = MathTransforms.concatenate(destCrs_to_covGrid, gridDest_to_crs);
 
-                    final Resample resample = new Resample(mt.inverse(), destImg, baseImg, interpolationCase, lanczosWindow,
-                            ResampleBorderComportement.FILL_VALUE, (noFill ? null : fill));
-                    resample.fillImage();
-                    pm.writeTile(pyramidID, mosaicId, cTX, cTY, destImg);
-                }
-            }
+            new LevelChain(pm, pyramidID, Arrays.copyOfRange(scales, start, end), baseImg, destCrs_to_covGrid, fill,
+                    upperLeft, envDest, clipEnv, widthAxis, heightAxis, processListener).run();
+            start = end;
         }
     }
 
@@ -723,13 +677,7 @@ public class PyramidCoverageBuilder {
         final RenderedImage baseImg = gridCoverage2D.getRenderedImage();
         // work on pixels coordinates.
         final MathTransform2D coverageCRS_to_grid = gg2d.getGridToCRS2D(PixelOrientation.CENTER).inverse();
-        final double envWidth       = envDest.getSpan(widthAxis);
-        final double envHeight      = envDest.getSpan(heightAxis);
-        final int nbBand            = baseImg.getSampleModel().getNumBands();
         final double[] fill         = getFillValue(gridCoverage2D, fillValue);
-        final int dataType          = baseImg.getSampleModel().getDataType();
-        final double min0           = envDest.getMinimum(widthAxis);
-        final double max1           = envDest.getMaximum(heightAxis);
         //MathTransform2D
 //        final MathTransform destCrs_to_coverageCRS = CRS.findMathTransform(CRSUtilities.getCRS2D(envDest.getCoordinateReferenceSystem()), gridCoverage2D.getCoordinateReferenceSystem2D(), true);
         
@@ -738,73 +686,485 @@ public class PyramidCoverageBuilder {
         final MathTransform destCrs_to_coverageCRS = CRS.findMathTransform(envDestCRS2D, gridCoverage2D.getCoordinateReferenceSystem2D(), true);
         
         final MathTransform destCrs_to_covGrid     = MathTransforms.concatenate(destCrs_to_coverageCRS, coverageCRS_to_grid).inverse();
-        final Dimension tileSize                   = new Dimension(tileWidth, tileHeight);
         
         final GeneralEnvelope covEnvInDestCRS = CRS.transform(destCrs_to_coverageCRS.inverse(), covEnv);
 //        final GeneralEnvelope clipEnv   = ReferencingUtilities.intersectEnvelopes(covEnvInDestCRS, envDest);
         final GeneralEnvelope clipEnv   = ReferencingUtilities.intersectEnvelopes(covEnvInDestCRS, envDest2D);
         
-        //one mosaic for each level scale
-        for (double pixelScal : scaleLevel) {
-            //output image size
-
-            final double imgWidth  = envWidth / pixelScal;
-            final double imgHeight = envHeight / pixelScal;
-            final double sx     = envWidth  / imgWidth;
-            final double sy     = envHeight / imgHeight;
-            final MathTransform2D globalGridDest_to_crs = new AffineTransform2D(sx, 0, 0, -sy, min0, max1);
-//            final MathTransform covCRS_to_gridDest      = MathTransforms.concatenate(globalGridDest_to_crs, destCrs_to_coverageCRS).inverse();
-
-            //mosaic size
-            final int nbrTileX  = (int)Math.ceil(imgWidth/tileWidth);
-            final int nbrTileY  = (int)Math.ceil(imgHeight/tileHeight);
-
-            //coverage extent on mosaic space
-            final GeneralEnvelope coverageExtent = Envelopes.transform(globalGridDest_to_crs.inverse(), clipEnv);
-
-            //coverage intersection tile index
-            final int startTileX = (int)coverageExtent.getMinimum(widthAxis) / tileWidth;
-            final int startTileY = (int)coverageExtent.getMinimum(heightAxis) / tileHeight;
-            final int endTileX   = (int)(coverageExtent.getMaximum(widthAxis) + tileWidth - 1) / tileWidth;
-            final int endTileY   = (int)(coverageExtent.getMaximum(heightAxis) + tileHeight - 1) / tileHeight;
-
-            final GridMosaic mosaic = getOrCreateMosaic(pm, pyramidID, new Dimension(nbrTileX, nbrTileY), tileSize, upperLeft, pixelScal);
-            final String mosaicId   = mosaic.getId();
-
-            //final Interpolation interpolation = Interpolation.create(PixelIteratorFactory.createRowMajorIterator(baseImg), interpolationCase, lanczosWindow);
-
-            for (int cTY = startTileY; cTY < endTileY; cTY++) {
-                for (int cTX = startTileX; cTX < endTileX; cTX++) {
-                    final int destMinX = cTX * tileWidth;
-                    final int destMinY = cTY * tileHeight;
-                    boolean noFill = false;
-
-                    WritableRenderedImage destImg;
-                    if (reuseTiles && !mosaic.isMissing(cTX, cTY)) {
-                        TileReference tile = mosaic.getTile(cTX, cTY, null);
-                        destImg = getImageFromTile(tile);
-                        noFill = true;
+        //-- levels are built by chains, see LevelChain
+        final double[] scales = scaleLevel.clone();
+        Arrays.sort(scales);
+        for (int start = 0; start < scales.length;) {
+            final int end = chainEnd(scales, start);
+            new LevelChain(pm, pyramidID, Arrays.copyOfRange(scales, start, end), baseImg, destCrs_to_covGrid, fill,
+                    upperLeft, envDest, clipEnv, widthAxis, heightAxis, processListener).run();
+            start = end;
+        }
+    }
+
+    /**
+     * Find the end of the level chain beginning at given index.<br/>
+     * A level belongs to the chain when its scale is twice the scale of the previous level,
+     * its tiles can then be computed from the four tiles of the previous level.<br/>
+     * When tiles are re-used, each level is resampled from source and chains are only one level long.
+     *
+     * @param scales scale levels sorted in ascending order.
+     * @param start index of chain first level.
+     * @return index after the chain last level.
+     */
+    private int chainEnd(final double[] scales, final int start) {
+        int end = start + 1;
+        if (reuseTiles) return end;
+        while (end < scales.length && Math.abs(scales[end] - 2 * scales[end - 1]) <= SCALE_TOLERANCE * scales[end]) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Notify listener a tile has been computed.
+     * Called concurrently from worker threads.
+     */
+    private synchronized void progress(final ProcessListener processListener) {
+        if (processListener != null) {
+            processListener.progressing(new ProcessEvent(fakeProcess, (++niemeTile) + "/" + globalTileNumber, (niemeTile * 100 / globalTileNumber)));
+        }
+    }
+
+    /**
+     * Compute a tile from the four tiles which cover the same area at half scale.<br/>
+     * Each destination pixel is the mean of the 2 x 2 source pixels, fill values and NaN excluded,
+     * or the first valid pixel when interpolation is {@link InterpolationCase#NEIGHBOR}.<br/>
+     * Children tiles are ordered : upper left, upper right, lower left, lower right.
+     *
+     * @param children the four children tiles, a {@code null} child is considered filled.
+     * @param fill fill value for each band.
+     * @return computed tile or {@code null} if all children are {@code null}.
+     */
+    private WritableRenderedImage downsample(final RenderedImage[] children, final double[] fill) {
+        final Raster[] rasters = new Raster[children.length];
+        RenderedImage model = null;
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] == null) continue;
+            if (model == null) model = children[i];
+            rasters[i] = (children[i] instanceof BufferedImage) ? ((BufferedImage) children[i]).getRaster() : children[i].getData();
+        }
+        if (model == null) return null;
+
+        final BufferedImage destImg = BufferedImageUtilities.createImage(tileWidth, tileHeight, model);
+        final WritableRaster dest   = destImg.getRaster();
+        final int nbBand            = dest.getNumBands();
+        final int dataType          = dest.getSampleModel().getDataType();
+        final boolean integral      = dataType != DataBuffer.TYPE_FLOAT && dataType != DataBuffer.TYPE_DOUBLE;
+        final boolean neighbor      = interpolationCase == InterpolationCase.NEIGHBOR;
+
+        for (int y = 0; y < tileHeight; y++) {
+            for (int x = 0; x < tileWidth; x++) {
+                for (int b = 0; b < nbBand; b++) {
+                    final double fillValue = fill[Math.min(b, fill.length - 1)];
+                    double sum = 0;
+                    int count  = 0;
+                    pixels:
+                    for (int dy = 0; dy < 2; dy++) {
+                        //-- pixel row in the 2 x 2 children mosaic, tile size may be odd
+                        final int fy = 2 * y + dy;
+                        for (int dx = 0; dx < 2; dx++) {
+                            final int fx = 2 * x + dx;
+                            final Raster raster = rasters[(fy / tileHeight) * 2 + fx / tileWidth];
+                            if (raster == null) continue;
+                            final double value = raster.getSampleDouble(raster.getMinX() + fx % tileWidth, raster.getMinY() + fy % tileHeight, b);
+                            if (Double.isNaN(value) || value == fillValue) continue;
+                            sum += value;
+                            count++;
+                            if (neighbor) break pixels;
+                        }
+                    }
+                    if (count == 0) {
+                        dest.setSample(x, y, b, fillValue);
                     } else {
-                        destImg = BufferedImageUtilities.createImage(tileWidth, tileHeight, baseImg);
-                        //ensure fill value is set.
-                        ImageUtilities.fill(destImg, fill[0]);
+                        final double mean = sum / count;
+                        dest.setSample(x, y, b, integral ? Math.rint(mean) : mean);
                     }
+                }
+            }
+        }
+        return destImg;
+    }
+
+    /**
+     * <p>Pyramid levels computed in one pass over the tiles of their first level.<br/><br/>
+     *
+     * First level tiles are resampled from source image, each following level has
+     * exactly twice the scale of the previous one and its tiles are computed from the four
+     * tiles of the previous level as soon as they are written.<br/>
+     * Chains only apply to exact 2x scale steps, see {@link #chainEnd(double[], int)},
+     * any other level begins a new chain and is resampled from source image.<br/>
+     * Tiles are computed depth first by one thread per processor, the calling thread included,
+     * only the tiles waiting for their parent are kept in memory.</p>
+     */
+    private final class LevelChain {
+
+        private final PyramidalCoverageReference pm;
+        private final String pyramidID;
+        private final RenderedImage baseImg;
+        private final MathTransform destCrs_to_covGrid;
+        private final double[] fill;
+        private final ProcessListener processListener;
+
+        /**
+         * First level grid to crs properties.
+         */
+        private final double sx, sy, min0, max1;
+
+        /**
+         * First level mosaic, used when tiles are re-used.
+         */
+        private final GridMosaic mosaic;
+
+        /**
+         * Mosaic id and coverage intersection tile index for each level.
+         */
+        private final String[] mosaicIds;
+        private final int[] startTileX, startTileY, endTileX, endTileY;
+
+        /**
+         * First exception thrown by a worker, remaining tiles are not computed after it.
+         */
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        /**
+         * Number of chain last level tiles not written yet.
+         */
+        private CountDownLatch remaining;
+
+        /**
+         * Split level tasks, in quadtree order.
+         */
+        private final List<SplitTask> tasks = new ArrayList<>();
+
+        private LevelChain(PyramidalCoverageReference pm, String pyramidID, double[] scales, RenderedImage baseImg,
+                MathTransform destCrs_to_covGrid, double[] fill, DirectPosition upperLeft, Envelope envDest,
+                Envelope clipEnv, int widthAxis, int heightAxis, ProcessListener processListener)
+                throws DataStoreException, TransformException {
+            this.pm                 = pm;
+            this.pyramidID          = pyramidID;
+            this.baseImg            = baseImg;
+            this.destCrs_to_covGrid = destCrs_to_covGrid;
+            this.fill               = fill;
+            this.processListener    = processListener;
+
+            // work on pixels coordinates.
+            final double envWidth  = envDest.getSpan(widthAxis);
+            final double envHeight = envDest.getSpan(heightAxis);
+            min0 = envDest.getMinimum(widthAxis);
+            max1 = envDest.getMaximum(heightAxis);
+            sx   = envWidth  / (envWidth  / scales[0]);
+            sy   = envHeight / (envHeight / scales[0]);
+
+            final int nbLevel = scales.length;
+            final Dimension tileSize = new Dimension(tileWidth, tileHeight);
+            mosaicIds  = new String[nbLevel];
+            startTileX = new int[nbLevel];
+            startTileY = new int[nbLevel];
+            endTileX   = new int[nbLevel];
+            endTileY   = new int[nbLevel];
+            GridMosaic firstMosaic = null;
+
+            //-- one mosaic for each level scale
+            for (int l = 0; l < nbLevel; l++) {
+                final double pixelScal = scales[l];
+                //-- output image size
+                final double imgWidth  = envWidth  / pixelScal;
+                final double imgHeight = envHeight / pixelScal;
+
+                //-- mosaic size
+                final int nbrTileX  = (int) Math.ceil(imgWidth  / tileWidth);
+                final int nbrTileY  = (int) Math.ceil(imgHeight / tileHeight);
+
+                if (l == 0) {
+                    final MathTransform2D globalGridDest_to_crs = new AffineTransform2D(sx, 0, 0, -sy, min0, max1);
+
+                    //-- coverage extent on mosaic space
+                    final GeneralEnvelope coverageExtent = Envelopes.transform(globalGridDest_to_crs.inverse(), clipEnv);
+
+                    //-- coverage intersection tile index
+                    startTileX[0] = (int) coverageExtent.getMinimum(widthAxis)   / tileWidth;
+                    startTileY[0] = (int) coverageExtent.getMinimum(heightAxis)  / tileHeight;
+                    endTileX[0]   = (int) (coverageExtent.getMaximum(widthAxis)  + tileWidth - 1)  / tileWidth;
+                    endTileY[0]   = (int) (coverageExtent.getMaximum(heightAxis) + tileHeight - 1) / tileHeight;
+                } else {
+                    //-- each tile covers four tiles of previous level
+                    startTileX[l] = startTileX[l - 1] >> 1;
+                    startTileY[l] = startTileY[l - 1] >> 1;
+                    endTileX[l]   = (endTileX[l - 1] + 1) >> 1;
+                    endTileY[l]   = (endTileY[l - 1] + 1) >> 1;
+                }
 
-                    if (processListener != null) {
-                        processListener.progressing(new ProcessEvent(fakeProcess, (++niemeTile) + "/" + globalTileNumber, (niemeTile * 100 / globalTileNumber)));
+                final GridMosaic gm = getOrCreateMosaic(pm, pyramidID, new Dimension(nbrTileX, nbrTileY), tileSize, upperLeft, pixelScal);
+                if (l == 0) firstMosaic = gm;
+                mosaicIds[l] = gm.getId();
+            }
+            mosaic = firstMosaic;
+        }
+
+        /**
+         * Compute and write all tiles of the chain.
+         * This method returns when all tiles are written.
+         */
+        private void run() throws DataStoreException, TransformException, IOException {
+            final int top   = mosaicIds.length - 1;
+            final int split = splitLevel();
+            remaining = new CountDownLatch((endTileX[top] - startTileX[top]) * (endTileY[top] - startTileY[top]));
+            for (int cTY = startTileY[top]; cTY < endTileY[top]; cTY++) {
+                for (int cTX = startTileX[top]; cTX < endTileX[top]; cTX++) {
+                    schedule(top, cTX, cTY, split, null, 0);
+                }
+            }
+            //-- calling thread takes part in the work, it is the "+1" thread
+            final int nbWorker = Math.min(Runtime.getRuntime().availableProcessors(), tasks.size()) - 1;
+            final ExecutorService executor = (nbWorker > 0)
+                    ? Executors.newFixedThreadPool(nbWorker, Threads.createThreadFactory("PyramidCoverageBuilder #"))
+                    : null;
+            try {
+                if (executor != null) {
+                    for (final SplitTask task : tasks) executor.execute(task);
+                }
+                //-- tasks not started yet are computed here, only tasks started by workers are awaited
+                for (final SplitTask task : tasks) task.run();
+                remaining.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                final CancellationException cex = new CancellationException();
+                cex.initCause(ex);
+                error.compareAndSet(null, cex);
+                throw cex;
+            } finally {
+                tasks.clear();
+                if (executor != null) executor.shutdown();
+            }
+            final Throwable cause = error.get();
+            if (cause instanceof DataStoreException) throw (DataStoreException) cause;
+            if (cause instanceof TransformException) throw (TransformException) cause;
+            if (cause instanceof IOException)        throw (IOException) cause;
+            if (cause instanceof RuntimeException)   throw (RuntimeException) cause;
+            if (cause instanceof Error)              throw (Error) cause;
+        }
+
+        /**
+         * Level from which each tile is computed with all its children tiles in one worker task.<br/>
+         * This is the highest level with enough tiles to keep all processors busy.
+         */
+        private int splitLevel() {
+            final int minTasks = 4 * Runtime.getRuntime().availableProcessors();
+            for (int l = mosaicIds.length - 1; l > 0; l--) {
+                if ((long) (endTileX[l] - startTileX[l]) * (endTileY[l] - startTileY[l]) >= minTasks) return l;
+            }
+            return 0;
+        }
+
+        /**
+         * Return true if tile intersects the coverage at given level.
+         */
+        private boolean inCoverage(final int level, final int cTX, final int cTY) {
+            return cTX >= startTileX[level] && cTX < endTileX[level]
+                && cTY >= startTileY[level] && cTY < endTileY[level];
+        }
+
+        /**
+         * Schedule the computation of a tile and of all its children tiles.<br/>
+         * Tiles are visited in quadtree order so the four children of a tile end close in time
+         * and few tiles wait for their siblings in memory.<br/>
+         * Split level tiles are computed with their children in one {@link SplitTask},
+         * tiles above are computed by the thread which delivers their last child tile.
+         *
+         * @param parent parent tile waiting for this tile, {@code null} for chain last level.
+         * @param index tile index in parent children.
+         */
+        private void schedule(final int level, final int cTX, final int cTY, final int split,
+                final ParentTile parent, final int index) {
+            if (level == split) {
+                tasks.add(new SplitTask(level, cTX, cTY, parent, index));
+                return;
+            }
+            int nbChild = 0;
+            for (int i = 0; i < 4; i++) {
+                if (inCoverage(level - 1, 2 * cTX + (i & 1), 2 * cTY + (i >> 1))) nbChild++;
+            }
+            final ParentTile tile = new ParentTile(level, cTX, cTY, parent, index, nbChild);
+            for (int i = 0; i < 4; i++) {
+                final int childX = 2 * cTX + (i & 1);
+                final int childY = 2 * cTY + (i >> 1);
+                if (inCoverage(level - 1, childX, childY)) {
+                    schedule(level - 1, childX, childY, split, tile, i);
+                }
+            }
+        }
+
+        /**
+         * Computation of a split level tile with all its children tiles.<br/>
+         * The task is executed once, by the first thread which claims it.
+         */
+        private final class SplitTask implements Runnable {
+
+            private final int level;
+            private final int cTX;
+            private final int cTY;
+            private final ParentTile parent;
+            private final int index;
+
+            /**
+             * Set by the thread which computes this task.
+             */
+            private final AtomicBoolean started = new AtomicBoolean();
+
+            private SplitTask(final int level, final int cTX, final int cTY, final ParentTile parent, final int index) {
+                this.level  = level;
+                this.cTX    = cTX;
+                this.cTY    = cTY;
+                this.parent = parent;
+                this.index  = index;
+            }
+
+            /**
+             * Compute the tile if no other thread did, do nothing otherwise.
+             */
+            @Override
+            public void run() {
+                if (!started.compareAndSet(false, true)) return;
+                RenderedImage img = null;
+                if (error.get() == null) {
+                    try {
+                        img = computeTile(level, cTX, cTY);
+                    } catch (Throwable ex) {
+                        error.compareAndSet(null, ex);
                     }
+                }
+                deliver(parent, index, img);
+            }
+        }
 
-                    //dest grid --> dest envelope coordinate --> base envelope --> base grid
-                    //concatene : dest grid_to_crs, dest_crs_to_coverageCRS, coverageCRS_to_grid coverage
-                    final MathTransform2D gridDest_to_crs = new AffineTransform2D(sx, 0, 0, -sy, min0 + sx * (destMinX + 0.5), max1 - sy * (destMinY + 0.5)).inverse();
-                    final MathTransform mt = MathTransforms.concatenate(destCrs_to_covGrid, gridDest_to_crs);
+        /**
+         * Give a computed tile to its parent.<br/>
+         * When it is the last expected child, the parent tile is computed and written
+         * in current thread and given to its own parent, and so on up to the chain last level.
+         *
+         * @param parent parent tile, {@code null} if the tile belongs to the chain last level.
+         * @param index tile index in parent children.
+         * @param image tile image, may be {@code null}.
+         */
+        private void deliver(ParentTile parent, int index, RenderedImage image) {
+            while (parent != null) {
+                parent.children[index] = image;
+                if (parent.pending.decrementAndGet() != 0) return;
+                image = null;
+                if (error.get() == null) {
+                    try {
+                        image = writeTile(parent.level, parent.cTX, parent.cTY, downsample(parent.children, fill));
+                    } catch (Throwable ex) {
+                        error.compareAndSet(null, ex);
+                    }
+                }
+                Arrays.fill(parent.children, null);
+                index  = parent.index;
+                parent = parent.parent;
+            }
+            remaining.countDown();
+        }
 
-                    final Resample resample = new Resample(mt.inverse(), destImg, baseImg, interpolationCase, lanczosWindow,
-                            ResampleBorderComportement.FILL_VALUE, (noFill ? null : fill));
-                    resample.fillImage();
-                    pm.writeTile(pyramidID, mosaicId, cTX, cTY, destImg);
+        /**
+         * Compute and write a tile and all its children tiles in current thread.
+         *
+         * @return tile image to be downsampled by the parent tile, {@code null} for the chain
+         * last level or if the tile does not intersect the coverage.
+         */
+        private RenderedImage computeTile(final int level, final int cTX, final int cTY)
+                throws DataStoreException, TransformException, IOException {
+            if (!inCoverage(level, cTX, cTY)) return null;
+            final WritableRenderedImage destImg;
+            if (level == 0) {
+                destImg = resampleTile(cTX, cTY);
+            } else {
+                final RenderedImage[] children = new RenderedImage[4];
+                for (int i = 0; i < 4; i++) {
+                    children[i] = computeTile(level - 1, 2 * cTX + (i & 1), 2 * cTY + (i >> 1));
                 }
+                destImg = downsample(children, fill);
+            }
+            return writeTile(level, cTX, cTY, destImg);
+        }
+
+        /**
+         * Write tile if not {@code null}.
+         *
+         * @return tile image to be downsampled by the parent tile, {@code null} for the chain last level.
+         */
+        private RenderedImage writeTile(final int level, final int cTX, final int cTY, final WritableRenderedImage destImg)
+                throws DataStoreException {
+            if (destImg == null) return null;
+            progress(processListener);
+            pm.writeTile(pyramidID, mosaicIds[level], cTX, cTY, destImg);
+            return (level == mosaicIds.length - 1) ? null : destImg;
+        }
+
+        /**
+         * Resample first level tile from source image.
+         */
+        private WritableRenderedImage resampleTile(final int cTX, final int cTY) throws TransformException, IOException, DataStoreException {
+            final int destMinX = cTX * tileWidth;
+            final int destMinY = cTY * tileHeight;
+            boolean noFill = false;
+
+            WritableRenderedImage destImg;
+            if (reuseTiles && !mosaic.isMissing(cTX, cTY)) {
+                TileReference tile = mosaic.getTile(cTX, cTY, null);
+                destImg = getImageFromTile(tile);
+                noFill = true;
+            } else {
+                destImg = BufferedImageUtilities.createImage(tileWidth, tileHeight, baseImg);
+                //-- ensure fill value is set.
+                ImageUtilities.fill(destImg, fill[0]);
             }
+
+            //-- dest grid --> dest envelope coordinate --> base envelope --> base grid
+            //-- concatene : dest grid_to_crs, dest_crs_to_coverageCRS, coverageCRS_to_grid coverage
+            final MathTransform2D gridDest_to_crs = new AffineTransform2D(sx, 0, 0, -sy, min0 + sx * (destMinX + 0.5), max1 - sy * (destMinY + 0.5)).inverse();
+            final MathTransform mt = MathTransforms.concatenate(destCrs_to_covGrid, gridDest_to_crs);
+
+            final Resample resample = new Resample(mt.inverse(), destImg, baseImg, interpolationCase, lanczosWindow,
+                    ResampleBorderComportement.FILL_VALUE, (noFill ? null : fill));
+            //-- tiles are already computed concurrently
+            resample.setNbThread(1);
+            resample.fillImage();
+            return destImg;
+        }
+    }
+
+    /**
+     * Tile of a level chain waiting for its children tiles.<br/>
+     * Children tiles are ordered : upper left, upper right, lower left, lower right.
+     */
+    private static final class ParentTile {
+
+        private final int level;
+        private final int cTX;
+        private final int cTY;
+        private final ParentTile parent;
+        private final int index;
+        private final RenderedImage[] children = new RenderedImage[4];
+
+        /**
+         * Number of children tiles not delivered yet.
+         */
+        private final AtomicInteger pending;
+
+        private ParentTile(final int level, final int cTX, final int cTY, final ParentTile parent,
+                final int index, final int nbChild) {
+            this.level   = level;
+            this.cTX     = cTX;
+            this.cTY     = cTY;
+            this.parent  = parent;
+            this.index   = index;
+            this.pending = new AtomicInteger(nbChild);
         }
     }
 
@@ -497,6 +497,8 @@ public class PyramidalModelWriter extends GridCoverageWriter {
 
             try {
                 final Resample resample = new Resample(destImgToCrsCoverage, currentlyTile, tileAreaWork, interpolation, new double[nbBand]);
+                //-- tiles are already updated concurrently
+                resample.setNbThread(1);
                 resample.fillImage();
                 pm.writeTile(pyramid.getId(), mosaic.getId(), idx, idy, currentlyTile);
             } catch (Exception ex) {
@@ -199,6 +199,7 @@ public class MPCoverageReference extends AbstractPyramidalCoverageReference {
                     throw new IllegalArgumentException("Uncorrect image size ["+image.getWidth()+","+image.getHeight()+"] expecting size ["+tileSize.width+","+tileSize.height+"]");
                 }
                 gm.setTile(tileX, tileY, new MPTileReference(image, 0, new Point(tileX, tileY)));
+                MosaicTileCache.getDefault().remove(pyramidSet, pyram.getId(), gm.getId(), tileX, tileY);
                 return;
             }
         }
@@ -215,6 +216,7 @@ public class MPCoverageReference extends AbstractPyramidalCoverageReference {
             final MPGridMosaic gm = (MPGridMosaic)m;
             if (gm.getId().equalsIgnoreCase(mosaicId)) {
                 gm.setTile(tileX,tileY,null);
+                MosaicTileCache.getDefault().remove(pyramidSet, pyramid.getId(), gm.getId(), tileX, tileY);
                 return;
             }
         }
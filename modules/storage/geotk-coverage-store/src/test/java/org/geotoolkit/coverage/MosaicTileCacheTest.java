@@ -0,0 +1,101 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import org.apache.sis.geometry.GeneralDirectPosition;
+import org.apache.sis.referencing.CommonCRS;
+import org.geotoolkit.coverage.memory.MPCoverageStore;
+import org.geotoolkit.feature.type.DefaultName;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Shared mosaic tile cache tests.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class MosaicTileCacheTest {
+
+    /**
+     * Tiles are evicted in least recently used order when memory limit is reached.
+     */
+    @Test
+    public void testEviction() throws Exception{
+        final PyramidalCoverageReference ref = (PyramidalCoverageReference) new MPCoverageStore().create(new DefaultName("cache"));
+        final Pyramid pyramid = ref.createPyramid(CommonCRS.WGS84.normalizedGeographic());
+        final GridMosaic mosaic = ref.createMosaic(pyramid.getId(), new Dimension(3, 1), new Dimension(10, 10),
+                new GeneralDirectPosition(-180, 90), 1);
+
+        final Raster raster = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB).getRaster();
+        final MosaicTileCache cache = new MosaicTileCache(2 * 10 * 10 * 4);
+
+        cache.put(mosaic, 0, 0, raster);
+        cache.put(mosaic, 1, 0, raster);
+        assertEquals(2, cache.size());
+        assertEquals(800, cache.getMemory());
+
+        //access first tile, second tile becomes the least recently used
+        assertSame(raster, cache.get(mosaic, 0, 0));
+        cache.put(mosaic, 2, 0, raster);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(mosaic, 1, 0));
+        assertSame(raster, cache.get(mosaic, 0, 0));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.remove(ref.getPyramidSet(), pyramid.getId(), mosaic.getId(), 0, 0);
+        assertEquals(1, cache.size());
+        cache.removeAll(ref.getPyramidSet(), pyramid.getId(), mosaic.getId());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMemory());
+    }
+
+    /**
+     * A tile read before an invalidation must not be cached.
+     */
+    @Test
+    public void testGeneration() throws Exception{
+        final PyramidalCoverageReference ref = (PyramidalCoverageReference) new MPCoverageStore().create(new DefaultName("cache"));
+        final Pyramid pyramid = ref.createPyramid(CommonCRS.WGS84.normalizedGeographic());
+        final GridMosaic mosaic = ref.createMosaic(pyramid.getId(), new Dimension(2, 1), new Dimension(10, 10),
+                new GeneralDirectPosition(-180, 90), 1);
+
+        final Raster raster = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB).getRaster();
+        final MosaicTileCache cache = new MosaicTileCache(MosaicTileCache.DEFAULT_MAX_MEMORY);
+
+        //tile written while the previous content was read
+        long generation = cache.getGeneration();
+        cache.remove(ref.getPyramidSet(), pyramid.getId(), mosaic.getId(), 0, 0);
+        cache.put(mosaic, 0, 0, raster, generation);
+        assertNull(cache.get(mosaic, 0, 0));
+
+        generation = cache.getGeneration();
+        cache.put(mosaic, 0, 0, raster, generation);
+        assertSame(raster, cache.get(mosaic, 0, 0));
+
+        generation = cache.getGeneration();
+        cache.removeAll(ref.getPyramidSet(), pyramid.getId(), mosaic.getId());
+        cache.put(mosaic, 1, 0, raster, generation);
+        assertEquals(0, cache.size());
+    }
+
+}
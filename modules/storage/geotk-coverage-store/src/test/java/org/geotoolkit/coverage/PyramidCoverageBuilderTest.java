@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -249,6 +250,95 @@ public class PyramidCoverageBuilderTest {
         testImage(tileImg, expectedImage, 3);
     }
 
+    /**
+     * Test pyramid levels computed from the previous level.
+     * Levels are 300, 150 and 75 pixels wide, so 3, 2 and 1 tiles, each tile must be the mean
+     * of its four children tiles, also at mosaic border where some children tiles are missing.
+     */
+    @Test
+    public void testMultiScale() throws DataStoreException, TransformException, IOException, FactoryException {
+        final int tileSize = 100;
+
+        final GeneralEnvelope env = new GeneralEnvelope(EPSG4326);
+        env.setRange(0, 0, +30);
+        env.setRange(1, 0, +30);
+        final AffineTransform af = new AffineTransform(0.1, 0, 0, -0.1, 0, 30);
+        final CoverageReference ref = createCoverage("cov", env, af, createRandomImage(300, 300));
+
+        final MPCoverageStore mpCovStore = new MPCoverageStore();
+        final PyramidCoverageBuilder pcb = new PyramidCoverageBuilder(new Dimension(tileSize, tileSize), InterpolationCase.BILINEAR, 2);
+        final double[] scales = new double[]{0.1, 0.2, 0.4};
+        final Map<Envelope, double[]> map = new HashMap<>();
+        map.put(env, scales);
+
+        final Name name = new DefaultName("memory_store_test");
+        pcb.create(ref, mpCovStore, name, map, new double[4], null, null);
+
+        final AbstractPyramidalCoverageReference outRef = (AbstractPyramidalCoverageReference) mpCovStore.getCoverageReference(name);
+        final Pyramid pyramid = outRef.getPyramidSet().getPyramids().iterator().next();
+        assertArrayEquals(scales, pyramid.getScales(), 0.0000001);
+
+        final GridMosaic[] mosaics = new GridMosaic[scales.length];
+        for (GridMosaic gm : pyramid.getMosaics()) {
+            for (int l = 0; l < scales.length; l++) {
+                if (Math.abs(gm.getScale() - scales[l]) < 0.0000001) mosaics[l] = gm;
+            }
+        }
+        assertEquals(new Dimension(3,3), mosaics[0].getGridSize());
+        assertEquals(new Dimension(2,2), mosaics[1].getGridSize());
+        assertEquals(new Dimension(1,1), mosaics[2].getGridSize());
+
+        for (int l = 1; l < scales.length; l++) {
+            final Dimension gridSize = mosaics[l].getGridSize();
+            for (int ty = 0; ty < gridSize.height; ty++) {
+                for (int tx = 0; tx < gridSize.width; tx++) {
+                    final Raster parent = getTileData(mosaics[l], tx, ty);
+                    assertNotNull(parent);
+                    final Raster[] children = new Raster[4];
+                    for (int i = 0; i < 4; i++) {
+                        children[i] = getTileData(mosaics[l - 1], 2 * tx + (i & 1), 2 * ty + (i >> 1));
+                    }
+                    testMean(parent, children, tileSize, "level " + l + " tile " + tx + "," + ty);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check each parent pixel is the rounded mean of the 2 x 2 children pixels, fill value 0 excluded.
+     */
+    private static void testMean(Raster parent, Raster[] children, int tileSize, String message) {
+        for (int y = 0; y < tileSize; y++) {
+            for (int x = 0; x < tileSize; x++) {
+                for (int b = 0; b < parent.getNumBands(); b++) {
+                    double sum = 0;
+                    int count  = 0;
+                    for (int dy = 0; dy < 2; dy++) {
+                        for (int dx = 0; dx < 2; dx++) {
+                            final int fx = 2 * x + dx;
+                            final int fy = 2 * y + dy;
+                            final Raster child = children[(fy / tileSize) * 2 + fx / tileSize];
+                            if (child == null) continue;
+                            final int value = child.getSample(child.getMinX() + fx % tileSize, child.getMinY() + fy % tileSize, b);
+                            if (value == 0) continue;
+                            sum += value;
+                            count++;
+                        }
+                    }
+                    final int expected = (count == 0) ? 0 : (int) Math.rint(sum / count);
+                    assertEquals(message + " pixel " + x + "," + y + " band " + b,
+                            expected, parent.getSample(parent.getMinX() + x, parent.getMinY() + y, b));
+                }
+            }
+        }
+    }
+
+    private static Raster getTileData(GridMosaic mosaic, int tx, int ty) throws DataStoreException {
+        final Dimension gridSize = mosaic.getGridSize();
+        if (tx >= gridSize.width || ty >= gridSize.height || mosaic.isMissing(tx, ty)) return null;
+        return ((RenderedImage) mosaic.getTile(tx, ty, null).getInput()).getData();
+    }
+
     private CoverageReference createCoverage(String name, GeneralEnvelope env, AffineTransform gridToCRS, RenderedImage image) throws DataStoreException {
         final GridCoverageBuilder gcb = new GridCoverageBuilder();
         gcb.setName(name);
@@ -292,6 +382,20 @@ public class PyramidCoverageBuilderTest {
         }
     }
 
+    /**
+     * Image filled with random opaque colors, no sample is 0.
+     */
+    private static BufferedImage createRandomImage(int width, int height){
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Random random = new Random(42);
+        for(int y=0;y<height;y++){
+            for(int x=0;x<width;x++){
+                image.setRGB(x, y, new Color(1 + random.nextInt(255), 1 + random.nextInt(255), 1 + random.nextInt(255)).getRGB());
+            }
+        }
+        return image;
+    }
+
     private static BufferedImage createImage(int width, int height, Color color){
         final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         final Graphics2D g = image.createGraphics();
@@ -41,6 +41,7 @@ import org.apache.sis.xml.MarshallerPool;
 import org.geotoolkit.coverage.AbstractPyramidalCoverageReference;
 import org.geotoolkit.coverage.GridMosaic;
 import org.geotoolkit.coverage.GridSampleDimension;
+import org.geotoolkit.coverage.MosaicTileCache;
 import org.geotoolkit.coverage.Pyramid;
 import org.geotoolkit.coverage.grid.ViewType;
 import org.geotoolkit.coverage.io.CoverageStoreException;
@@ -593,6 +594,7 @@ public class XMLCoverageReference extends AbstractPyramidalCoverageReference {
         checkOrSetSampleColor(image);
         
         mosaic.createTile(col,row,image);
+        MosaicTileCache.getDefault().remove(set, pyramidId, mosaicId, col, row);
         if (!mosaic.cacheTileState && mosaic.tileExist != null) {
             save();
         }
@@ -613,6 +615,7 @@ public class XMLCoverageReference extends AbstractPyramidalCoverageReference {
         checkOrSetSampleColor(image);
         
         mosaic.writeTiles(image, area, onlyMissing, monitor);
+        MosaicTileCache.getDefault().removeAll(set, pyramidId, mosaicId);
         if (!mosaic.cacheTileState && mosaic.tileExist != null) {
             save();
         }
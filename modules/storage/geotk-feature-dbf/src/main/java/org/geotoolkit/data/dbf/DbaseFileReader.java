@@ -95,6 +95,14 @@ public final class DbaseFileReader implements Closeable{
 
             return entry;
         }
+
+        /**
+         * @return true if the record is marked as deleted, only possible when
+         *         deleted records are not skipped
+         */
+        public boolean isDeleted() {
+            return buffer.get(buffer.position()) == '*';
+        }
         
     }
 
@@ -110,6 +118,7 @@ public final class DbaseFileReader implements Closeable{
 
     protected boolean useMemoryMappedBuffer;
     protected boolean randomAccessEnabled;
+    private boolean skipDeleted = true;
 
     /**
      * Creates a new instance of DBaseFileReader
@@ -200,6 +209,17 @@ public final class DbaseFileReader implements Closeable{
         return header;
     }
 
+    /**
+     * Define if records marked as deleted are skipped, true by default.
+     * When deleted records are returned, the n-th row returned by {@link #next()}
+     * is the n-th record of the file, like the records of the shx file.
+     * 
+     * @param skipDeleted false to return deleted records, see {@link Row#isDeleted()}
+     */
+    public void setSkipDeleted(final boolean skipDeleted) {
+        this.skipDeleted = skipDeleted;
+    }
+
     /**
      * Query the reader as to whether there is another record.
      * 
@@ -242,7 +262,7 @@ public final class DbaseFileReader implements Closeable{
 
             // read the deleted flag
             char deleted = (char) buffer.get();
-            if (deleted == '*') {
+            if (skipDeleted && deleted == '*') {
                 //record was deleted, move to next one, -1 for the delete flag we just read
                 buffer.position(buffer.position()+header.getRecordLength()-1);
                 continue;
@@ -29,14 +29,14 @@ import java.util.Set;
 import javax.xml.stream.XMLStreamException;
 import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.AbstractFeatureStore;
-import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureStoreFactory;
 import org.geotoolkit.data.FeatureStoreFinder;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.data.FeatureWriter;
-import org.geotoolkit.data.memory.GenericWrapFeatureIterator;
 import org.geotoolkit.data.query.DefaultQueryCapabilities;
 import org.geotoolkit.data.query.Query;
+import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.query.QueryCapabilities;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.feature.Feature;
@@ -102,19 +102,22 @@ public class GMLFeatureStore extends AbstractFeatureStore implements DataFileSto
     @Override
     public synchronized Set<Name> getNames() throws DataStoreException {
         if(featureType==null){
+            //only the root element and first feature are parsed
             final JAXPStreamFeatureReader reader = new JAXPStreamFeatureReader();
             reader.setReadEmbeddedFeatureType(true);
+            FeatureReader stream = null;
             try {
-                Object obj = reader.read(file);
-                if(obj instanceof FeatureCollection){
-                    featureType = ((FeatureCollection)obj).getFeatureType();
-                }else{
-                    throw new DataStoreException("File does not contain a FeatureCollection, found a "+obj);
-                }
-            } catch (IOException | XMLStreamException ex) {
+                stream = reader.readAsStream(file);
+                featureType = stream.getFeatureType();
+            } catch (IOException | XMLStreamException | FeatureStoreRuntimeException ex) {
                 throw new DataStoreException(ex.getMessage(),ex);
             } finally{
-                reader.dispose();
+                if(stream != null){
+                    stream.close();
+                }
+            }
+            if(featureType == null){
+                throw new DataStoreException("File does not contain a FeatureCollection of known type.");
             }
         }
         return Collections.singleton(featureType.getName());
@@ -144,23 +147,29 @@ public class GMLFeatureStore extends AbstractFeatureStore implements DataFileSto
     public FeatureReader getFeatureReader(Query query) throws DataStoreException {
         typeCheck(query.getTypeName());
 
+        //start index and max features can be handled while parsing when there is no filter or sorting
+        Query remaining = query;
+        int startIndex = 0;
+        int maxFeatures = -1;
+        if((query.getFilter() == null || query.getFilter() == Filter.INCLUDE)
+           && QueryBuilder.isNaturalSortBy(query.getSortBy())){
+            startIndex = query.getStartIndex();
+            maxFeatures = (query.getMaxFeatures() == null) ? -1 : query.getMaxFeatures();
+            final QueryBuilder qb = new QueryBuilder(query);
+            qb.setStartIndex(0);
+            qb.setMaxFeatures(null);
+            remaining = qb.buildQuery();
+        }
+
         final JAXPStreamFeatureReader reader = new JAXPStreamFeatureReader(featureType);
-        final FeatureCollection col;
+        final FeatureReader freader;
         try {
-            Object obj = reader.read(file);
-            if(obj instanceof FeatureCollection){
-                col = (FeatureCollection)obj;
-            }else{
-                throw new DataStoreException("File does not contain a FeatureCollection, found a "+obj);
-            }
+            freader = reader.readAsStream(file, startIndex, maxFeatures);
         } catch (IOException | XMLStreamException ex) {
             throw new DataStoreException(ex.getMessage(),ex);
-        } finally{
-            reader.dispose();
         }
 
-        final FeatureReader freader = GenericWrapFeatureIterator.wrapToReader(col.iterator(),featureType);
-        return handleRemaining(freader, query);
+        return handleRemaining(freader, remaining);
     }
 
     // WRITING SUPPORT : TODO //////////////////////////////////////////////////
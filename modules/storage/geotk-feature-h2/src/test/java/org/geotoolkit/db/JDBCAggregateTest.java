@@ -0,0 +1,153 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.geotoolkit.data.FeatureStore;
+import org.geotoolkit.data.FeatureStoreUtilities;
+import org.geotoolkit.data.query.Aggregate;
+import org.geotoolkit.data.query.AggregateQuery;
+import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.db.h2.H2StoreTest;
+import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.feature.type.Name;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * Test aggregate queries computed by the database, results must be the
+ * same as the aggregation of the iterated features.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class JDBCAggregateTest {
+
+    private static final FilterFactory FF = FactoryFinder.getFilterFactory(null);
+
+    @Test
+    public void aggregateTest() throws Exception{
+        final FeatureStore store = H2StoreTest.createStore("aggregate", 10,
+                "CREATE TABLE \"parcel\" (\"id\" INTEGER PRIMARY KEY, \"kind\" VARCHAR(16), \"area\" DOUBLE, \"nb\" INTEGER)",
+                "INSERT INTO \"parcel\" VALUES (1, 'A', 1.5, 1)",
+                "INSERT INTO \"parcel\" VALUES (2, 'A', 2.5, 2)",
+                "INSERT INTO \"parcel\" VALUES (3, 'B', NULL, 3)",
+                "INSERT INTO \"parcel\" VALUES (4, 'B', 4.0, NULL)",
+                "INSERT INTO \"parcel\" VALUES (5, NULL, 5.0, 5)",
+                "INSERT INTO \"parcel\" VALUES (6, NULL, NULL, 6)",
+                "INSERT INTO \"parcel\" VALUES (7, 'C', 0.5, 7)");
+        final Name name = store.getNames().iterator().next();
+
+        final Aggregate[] aggregates = new Aggregate[]{
+            Aggregate.count(),
+            Aggregate.count(FF.property("area")),
+            Aggregate.sum(FF.property("area")),
+            Aggregate.min(FF.property("nb")),
+            Aggregate.max(FF.property("area")),
+            Aggregate.avg(FF.property("nb"))
+        };
+        final Expression[] groupBy = new Expression[]{FF.property("kind")};
+
+        //group by, null values in a group of their own
+        AggregateQuery query = new AggregateQuery(name, Filter.INCLUDE, groupBy, aggregates);
+        List<List<Object>> rows = compare(store, query);
+        assertEquals(4, rows.size());
+        assertEquals(Arrays.<Object>asList(null, 2l, 1l, 5.0, 5, 5.0, 5.5), rows.get(0));
+        assertEquals(Arrays.<Object>asList("A", 2l, 2l, 4.0, 1, 2.5, 1.5), rows.get(1));
+        assertEquals(Arrays.<Object>asList("B", 2l, 1l, 4.0, 3, 4.0, 3.0), rows.get(2));
+
+        //filtered group by
+        query = new AggregateQuery(name, FF.greater(FF.property("id"), FF.literal(2)), groupBy, aggregates);
+        rows = compare(store, query);
+        assertEquals(3, rows.size());
+
+        //filter matching nothing, one row without group by
+        final Filter none = FF.greater(FF.property("id"), FF.literal(1000));
+        query = new AggregateQuery(name, none, null, aggregates);
+        rows = compare(store, query);
+        assertEquals(Collections.singletonList(Arrays.<Object>asList(0l, 0l, null, null, null, null)), rows);
+
+        //filter matching nothing, no row with group by
+        query = new AggregateQuery(name, none, groupBy, aggregates);
+        assertTrue(compare(store, query).isEmpty());
+    }
+
+    /**
+     * Minimum and maximum keep the type of the values, long values above 2^53
+     * must not lose precision.
+     */
+    @Test
+    public void minMaxTypeTest() throws Exception{
+        final FeatureStore store = H2StoreTest.createStore("aggregateminmax", 10,
+                "CREATE TABLE \"counter\" (\"id\" INTEGER PRIMARY KEY, \"value\" BIGINT)",
+                "INSERT INTO \"counter\" VALUES (1, 9007199254740995)",
+                "INSERT INTO \"counter\" VALUES (2, 9007199254740993)",
+                "INSERT INTO \"counter\" VALUES (3, NULL)");
+        final Name name = store.getNames().iterator().next();
+
+        final AggregateQuery query = new AggregateQuery(name, Filter.INCLUDE, null, new Aggregate[]{
+            Aggregate.min(FF.property("value")),
+            Aggregate.max(FF.property("value"))
+        });
+        final List<List<Object>> rows = compare(store, query);
+        assertEquals(Collections.singletonList(Arrays.<Object>asList(9007199254740993l, 9007199254740995l)), rows);
+    }
+
+    /**
+     * Compare the database aggregation with the aggregation of the iterated
+     * features and of the filtered collection.
+     *
+     * @return rows sorted by group values, null first
+     */
+    private static List<List<Object>> compare(final FeatureStore store, final AggregateQuery query) throws Exception{
+        final List<List<Object>> expected = sort(FeatureStoreUtilities.aggregate(
+                store.getFeatureReader(QueryBuilder.all(query.getTypeName())), query));
+
+        assertEquals(query.toString(), expected, sort(store.aggregate(query)));
+
+        final AggregateQuery collectionQuery = query.derivate(query.getTypeName(), Filter.INCLUDE);
+        assertEquals(query.toString(), expected, sort(FeatureStoreUtilities.aggregate(
+                store.createSession(false).getFeatureCollection(
+                QueryBuilder.filtered(query.getTypeName(), query.getFilter())), collectionQuery)));
+        return expected;
+    }
+
+    private static List<List<Object>> sort(final List<Object[]> rows){
+        final List<List<Object>> lst = new ArrayList<>();
+        for(Object[] row : rows){
+            lst.add(Arrays.asList(row));
+        }
+        Collections.sort(lst, new Comparator<List<Object>>() {
+            @Override
+            public int compare(List<Object> r1, List<Object> r2) {
+                final Object v1 = r1.isEmpty() ? null : r1.get(0);
+                final Object v2 = r2.isEmpty() ? null : r2.get(0);
+                if(v1 == null) return (v2 == null) ? 0 : -1;
+                if(v2 == null) return 1;
+                return String.valueOf(v1).compareTo(String.valueOf(v2));
+            }
+        });
+        return lst;
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.db;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.db.h2.H2StoreTest;
+import org.geotoolkit.db.reverse.ColumnMetaModel;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.FeatureUtilities;
+import org.geotoolkit.feature.type.FeatureType;
+import org.geotoolkit.feature.type.Name;
+import org.geotoolkit.feature.type.PropertyDescriptor;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Test batch inserts of feature collections with keys calculated from the
+ * column maximum.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class JDBCBatchInsertTest {
+
+    /**
+     * Provided keys mixed with generated keys, generated keys must skip the
+     * provided ones, including those still pending in the batch.
+     */
+    @Test
+    public void mixedKeyTest() throws Exception{
+        final DefaultJDBCFeatureStore store = (DefaultJDBCFeatureStore) H2StoreTest.createStore("batchmixed", 10,
+                "CREATE TABLE \"parcel\" (\"id\" INTEGER PRIMARY KEY, \"name\" VARCHAR(64))");
+        final Name name = store.getNames().iterator().next();
+        final FeatureType ft = store.getFeatureType(name);
+
+        final List<Feature> features = new ArrayList<>();
+        final Set<Integer> expected = new HashSet<>();
+        for(int i=0;i<30;i++){
+            final Feature f = FeatureUtilities.defaultFeature(ft, "id-"+i);
+            f.setPropertyValue("name", "parcel"+i);
+            if(i == 0){
+                f.setPropertyValue("id", 50);
+            }else if(i == 10){
+                f.setPropertyValue("id", 70);
+            }
+            features.add(f);
+        }
+        //first generated key follows the pending provided key 50
+        for(int i=50;i<60;i++) expected.add(i);
+        //generated keys after the provided key 70
+        for(int i=70;i<90;i++) expected.add(i);
+
+        insert(store, features, ft);
+
+        assertEquals(expected, H2StoreTest.readKeys(store, name));
+        assertEquals("parcel.50", features.get(0).getUserData().get("fid"));
+        assertEquals("parcel.51", features.get(1).getUserData().get("fid"));
+        assertEquals("parcel.71", features.get(11).getUserData().get("fid"));
+    }
+
+    /**
+     * Incremented big decimal keys must keep their type.
+     */
+    @Test
+    public void decimalKeyTest() throws Exception{
+        final DefaultJDBCFeatureStore store = (DefaultJDBCFeatureStore) H2StoreTest.createStore("batchdecimal", 10,
+                "CREATE TABLE \"lot\" (\"id\" DECIMAL(20,0) PRIMARY KEY, \"name\" VARCHAR(64))");
+        final Name name = store.getNames().iterator().next();
+        final FeatureType ft = store.getFeatureType(name);
+
+        final List<Feature> features = new ArrayList<>();
+        for(int i=0;i<3;i++){
+            final Feature f = FeatureUtilities.defaultFeature(ft, "id-"+i);
+            f.setPropertyValue("name", "lot"+i);
+            features.add(f);
+        }
+        insert(store, features, ft);
+
+        final FeatureCollection<Feature> res = store.createSession(false).getFeatureCollection(QueryBuilder.all(name));
+        final Set<BigDecimal> keys = new HashSet<>();
+        try(FeatureIterator<Feature> ite = res.iterator()){
+            while(ite.hasNext()){
+                final Object key = ite.next().getProperty("id").getValue();
+                assertTrue(key instanceof BigDecimal);
+                keys.add(((BigDecimal)key).stripTrailingZeros());
+            }
+        }
+        assertEquals(3, keys.size());
+        assertTrue(keys.contains(BigDecimal.ONE));
+        assertTrue(keys.contains(new BigDecimal(3)));
+
+        final ColumnMetaModel bigInt = new ColumnMetaModel("s", "t", "id", Types.BIGINT, "BIGINT",
+                BigInteger.class, ColumnMetaModel.Type.NON_INCREMENTING);
+        assertEquals(new BigInteger("9223372036854775808"), bigInt.increment(BigInteger.valueOf(Long.MAX_VALUE)));
+        final ColumnMetaModel bigDec = new ColumnMetaModel("s", "t", "id", Types.DECIMAL, "DECIMAL",
+                BigDecimal.class, ColumnMetaModel.Type.NON_INCREMENTING);
+        assertEquals(new BigDecimal(11), bigDec.increment(BigDecimal.TEN));
+    }
+
+    /**
+     * Two batch inserts running at the same time must not calculate the same keys.
+     */
+    @Test
+    public void concurrentBatchInsertTest() throws Exception{
+        final DefaultJDBCFeatureStore store = (DefaultJDBCFeatureStore) H2StoreTest.createStore("batchconcurrent", 10,
+                "CREATE TABLE \"parcel\" (\"id\" INTEGER PRIMARY KEY, \"name\" VARCHAR(64))");
+        final Name name = store.getNames().iterator().next();
+        final FeatureType ft = store.getFeatureType(name);
+
+        final int nbWriter = 2;
+        final int nbFeature = 50;
+        final ExecutorService executor = Executors.newFixedThreadPool(nbWriter);
+        try{
+            final List<Future<Object>> results = new ArrayList<>();
+            for(int w=0;w<nbWriter;w++){
+                final int writer = w;
+                results.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        final List<Feature> features = new ArrayList<>();
+                        for(int i=0;i<nbFeature;i++){
+                            final Feature f = FeatureUtilities.defaultFeature(ft, "id-"+i);
+                            f.setPropertyValue("name", "writer"+writer+"-"+i);
+                            features.add(f);
+                        }
+                        insert(store, features, ft);
+                        return null;
+                    }
+                }));
+            }
+            for(Future<Object> result : results){
+                result.get();
+            }
+        }finally{
+            executor.shutdown();
+        }
+
+        final Set<Integer> keys = H2StoreTest.readKeys(store, name);
+        assertEquals(nbWriter*nbFeature, keys.size());
+        for(int i=1;i<=nbWriter*nbFeature;i++){
+            assertTrue(keys.contains(i));
+        }
+    }
+
+    /**
+     * All columns generated by the database, the insert statement has no column.
+     */
+    @Test
+    public void defaultValuesTest() throws Exception{
+        final DefaultJDBCFeatureStore store = (DefaultJDBCFeatureStore) H2StoreTest.createStore("batchdefault", 10,
+                "CREATE TABLE \"counter\" (\"id\" INTEGER AUTO_INCREMENT PRIMARY KEY)");
+        final Name name = store.getNames().iterator().next();
+        final FeatureType ft = store.getFeatureType(name);
+
+        final String sql = store.getQueryBuilder().insertPreparedSQL(ft, new ArrayList<PropertyDescriptor>());
+        assertTrue(sql, sql.endsWith(" DEFAULT VALUES"));
+
+        final List<Feature> features = new ArrayList<>();
+        for(int i=0;i<3;i++){
+            features.add(FeatureUtilities.defaultFeature(ft, "id-"+i));
+        }
+        insert(store, features, ft);
+
+        final Set<Integer> keys = H2StoreTest.readKeys(store, name);
+        assertEquals(3, keys.size());
+        assertTrue(keys.contains(1));
+        assertTrue(keys.contains(3));
+    }
+
+    private static void insert(final DefaultJDBCFeatureStore store, final List<Feature> features,
+            final FeatureType ft) throws Exception{
+        try(Connection cnx = store.getDataSource().getConnection()){
+            store.insert(features, ft, cnx);
+        }
+    }
+
+}
@@ -19,12 +19,27 @@ package org.geotoolkit.db.h2;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LineString;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureStore;
+import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.factory.HintsPending;
 import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.FeatureTypeBuilder;
@@ -35,7 +50,10 @@ import org.geotoolkit.feature.type.FeatureType;
 import org.geotoolkit.feature.type.Name;
 import org.geotoolkit.parameter.Parameters;
 import org.geotoolkit.referencing.CRS;
+import static org.junit.Assert.*;
 import org.junit.Test;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.identity.FeatureId;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.util.FactoryException;
@@ -107,5 +125,268 @@ public class H2StoreTest {
         }
         
     }
-    
+
+    /**
+     * Insert more features then the batch size.
+     */
+    @Test
+    public void batchInsertTest() throws DataStoreException, FactoryException{
+
+        final CoordinateReferenceSystem crs = CRS.decode("EPSG:4326",true);
+
+        final BasicDataSource ds = new BasicDataSource();
+        ds.setUrl("jdbc:h2:mem:batch");
+        ds.setUsername("user");
+        ds.setPassword("pwd");
+
+        final ParameterValueGroup params = H2FeatureStoreFactory.PARAMETERS_DESCRIPTOR.createValue();
+        Parameters.getOrCreate(H2FeatureStoreFactory.USER, params).setValue("user");
+        Parameters.getOrCreate(H2FeatureStoreFactory.PASSWORD, params).setValue("pwd");
+        Parameters.getOrCreate(H2FeatureStoreFactory.PORT, params).setValue(5555);
+        Parameters.getOrCreate(H2FeatureStoreFactory.DATABASE, params).setValue("batch");
+        Parameters.getOrCreate(H2FeatureStoreFactory.HOST, params).setValue("localhost");
+        Parameters.getOrCreate(H2FeatureStoreFactory.SIMPLETYPE, params).setValue(Boolean.TRUE);
+        Parameters.getOrCreate(H2FeatureStoreFactory.BATCHSIZE, params).setValue(10);
+        Parameters.getOrCreate(H2FeatureStoreFactory.DATASOURCE, params).setValue(ds);
+
+        final FeatureStore store = new H2FeatureStoreFactory().create(params);
+
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("road");
+        AttributeDescriptor add = ftb.add("id", String.class);
+        add.getUserData().put(HintsPending.PROPERTY_IS_IDENTIFIER,Boolean.TRUE);
+        ftb.add("geom", LineString.class, crs);
+        store.createFeatureType(ftb.getName(), ftb.buildFeatureType());
+
+        final Name name = store.getNames().iterator().next();
+        final FeatureType ft = store.getFeatureType(name);
+        final GeometryFactory GF = new GeometryFactory();
+
+        final List<Feature> features = new ArrayList<>();
+        for(int i=0;i<25;i++){
+            final Feature f = FeatureUtilities.defaultFeature(ft, "id-"+i);
+            f.setPropertyValue("id", "road"+i);
+            f.setPropertyValue("geom", GF.createLineString(new Coordinate[]{new Coordinate(i, 20, 5),new Coordinate(30, i, 7)}));
+            features.add(f);
+        }
+
+        final List<FeatureId> ids = store.addFeatures(name, features);
+        assertEquals(25, ids.size());
+        for(int i=0;i<25;i++){
+            assertTrue(ids.get(i).getID().endsWith(".road"+i));
+        }
+        assertEquals(25, store.getCount(QueryBuilder.all(name)));
+
+        //geometries must keep their Z ordinates
+        final FeatureCollection<Feature> res = store.createSession(false).getFeatureCollection(QueryBuilder.all(name));
+        try(FeatureIterator<Feature> ite = res.iterator()){
+            while(ite.hasNext()){
+                final LineString geom = (LineString) ite.next().getProperty("geom").getValue();
+                assertEquals(5, geom.getCoordinateN(0).z, 0.0);
+                assertEquals(7, geom.getCoordinateN(1).z, 0.0);
+            }
+        }
+    }
+
+    /**
+     * Insert features in a table with a numeric key which is not generated
+     * by the database, missing keys are incremented from the column maximum.
+     */
+    @Test
+    public void generatedKeyInsertTest() throws Exception{
+        final FeatureStore store = createStore("generatedkey", 10,
+                "CREATE TABLE \"parcel\" (\"id\" INTEGER PRIMARY KEY, \"name\" VARCHAR(64))");
+        final Name name = store.getNames().iterator().next();
+        final FeatureType ft = store.getFeatureType(name);
+
+        final List<Feature> features = new ArrayList<>();
+        for(int i=0;i<25;i++){
+            final Feature f = FeatureUtilities.defaultFeature(ft, "id-"+i);
+            f.setPropertyValue("name", "parcel"+i);
+            if(i == 3){
+                //provided key, generated keys must not collide with it
+                f.setPropertyValue("id", 5);
+            }
+            features.add(f);
+        }
+
+        final List<FeatureId> ids = store.addFeatures(name, features);
+        assertEquals(25, ids.size());
+        final Set<String> distinctIds = new HashSet<>();
+        for(FeatureId id : ids){
+            distinctIds.add(id.getID());
+        }
+        assertEquals(25, distinctIds.size());
+        assertTrue(distinctIds.contains("parcel.5"));
+
+        final Set<Integer> keys = readKeys(store, name);
+        assertEquals(25, keys.size());
+        assertTrue(keys.contains(5));
+    }
+
+    /**
+     * Two writers inserting in the same table must not calculate the same keys.
+     */
+    @Test
+    public void concurrentGeneratedKeyInsertTest() throws Exception{
+        final FeatureStore store = createStore("concurrentkey", 10,
+                "CREATE TABLE \"parcel\" (\"id\" BIGINT PRIMARY KEY, \"name\" VARCHAR(64))");
+        final Name name = store.getNames().iterator().next();
+        final FeatureType ft = store.getFeatureType(name);
+
+        final int nbWriter = 2;
+        final int nbFeature = 50;
+        final ExecutorService executor = Executors.newFixedThreadPool(nbWriter);
+        try{
+            final List<Future<List<FeatureId>>> results = new ArrayList<>();
+            for(int w=0;w<nbWriter;w++){
+                final int writer = w;
+                results.add(executor.submit(new Callable<List<FeatureId>>() {
+                    @Override
+                    public List<FeatureId> call() throws Exception {
+                        final List<Feature> features = new ArrayList<>();
+                        for(int i=0;i<nbFeature;i++){
+                            final Feature f = FeatureUtilities.defaultFeature(ft, "id-"+i);
+                            f.setPropertyValue("name", "writer"+writer+"-"+i);
+                            features.add(f);
+                        }
+                        return store.addFeatures(name, features);
+                    }
+                }));
+            }
+            for(Future<List<FeatureId>> result : results){
+                assertEquals(nbFeature, result.get().size());
+            }
+        }finally{
+            executor.shutdown();
+        }
+
+        assertEquals(nbWriter*nbFeature, store.getCount(QueryBuilder.all(name)));
+        final Set<Integer> keys = readKeys(store, name);
+        assertEquals(nbWriter*nbFeature, keys.size());
+        for(int i=1;i<=nbWriter*nbFeature;i++){
+            assertTrue(keys.contains(i));
+        }
+    }
+
+    /**
+     * Readers split on ranges of the primary key must return each feature
+     * once, even when keys are not contiguous or close to the long limits.
+     */
+    @Test
+    public void partitionedReadersTest() throws Exception{
+        final long[] keys = {-20, -3, 1, 2, 3, 10, 11, 12, 50, 51, 997, 998, 999, 1000, 5000};
+        final FeatureStore store = createStore("partition", 10, createKeyTable("parcel", "INTEGER", keys));
+        final Name name = store.getNames().iterator().next();
+        final FilterFactory ff = FactoryFinder.getFilterFactory(null);
+
+        final Query all = QueryBuilder.all(name);
+        final Set<Long> expected = readPartitions(store, all, 1);
+        assertEquals(keys.length, expected.size());
+        for(int nb : new int[]{2, 3, 7, 40}){
+            assertEquals("partitions "+nb, expected, readPartitions(store, all, nb));
+        }
+        final List<FeatureReader> readers = store.getFeatureReaders(all, 4);
+        assertEquals(4, readers.size());
+        for(FeatureReader reader : readers){
+            reader.close();
+        }
+
+        //partitions are combined with the query filter
+        final Query filtered = QueryBuilder.filtered(name, ff.greater(ff.property("id"), ff.literal(10)));
+        final Set<Long> expectedFiltered = readPartitions(store, filtered, 1);
+        assertEquals(9, expectedFiltered.size());
+        for(int nb : new int[]{2, 3, 7, 40}){
+            assertEquals("partitions "+nb, expectedFiltered, readPartitions(store, filtered, nb));
+        }
+
+        //keys spanning the full long range
+        final long[] bigKeys = {Long.MIN_VALUE, Long.MIN_VALUE+1, -1, 0, 1, Long.MAX_VALUE-1, Long.MAX_VALUE};
+        final FeatureStore bigStore = createStore("bigpartition", 10, createKeyTable("lot", "BIGINT", bigKeys));
+        final Query bigAll = QueryBuilder.all(bigStore.getNames().iterator().next());
+        final Set<Long> bigExpected = readPartitions(bigStore, bigAll, 1);
+        assertEquals(bigKeys.length, bigExpected.size());
+        for(int nb : new int[]{2, 3, 4, 7}){
+            assertEquals("partitions "+nb, bigExpected, readPartitions(bigStore, bigAll, nb));
+        }
+    }
+
+    /**
+     * @return statements creating a table with the given primary keys
+     */
+    private static String[] createKeyTable(final String table, final String keyType, final long[] keys){
+        final String[] sqls = new String[keys.length+1];
+        sqls[0] = "CREATE TABLE \""+table+"\" (\"id\" "+keyType+" PRIMARY KEY, \"name\" VARCHAR(64))";
+        for(int i=0;i<keys.length;i++){
+            sqls[i+1] = "INSERT INTO \""+table+"\" VALUES ("+keys[i]+", '"+table+i+"')";
+        }
+        return sqls;
+    }
+
+    /**
+     * Read the 'id' column values of all partitions, keys must not be duplicated.
+     */
+    private static Set<Long> readPartitions(final FeatureStore store, final Query query, final int nbPartition)
+            throws DataStoreException{
+        final Set<Long> keys = new HashSet<>();
+        for(FeatureReader reader : store.getFeatureReaders(query, nbPartition)){
+            try{
+                while(reader.hasNext()){
+                    final Number key = (Number) reader.next().getProperty("id").getValue();
+                    assertTrue("duplicated key "+key, keys.add(key.longValue()));
+                }
+            }finally{
+                reader.close();
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Create a H2 store on a new in memory database.
+     *
+     * @param database database name
+     * @param batchSize insert batch size
+     * @param sqls statements executed before the store is created
+     */
+    public static FeatureStore createStore(final String database, final int batchSize, final String ... sqls)
+            throws DataStoreException, SQLException{
+        final BasicDataSource ds = new BasicDataSource();
+        ds.setUrl("jdbc:h2:mem:"+database);
+        ds.setUsername("user");
+        ds.setPassword("pwd");
+
+        try(Connection cnx = ds.getConnection(); Statement stmt = cnx.createStatement()){
+            for(String sql : sqls){
+                stmt.execute(sql);
+            }
+        }
+
+        final ParameterValueGroup params = H2FeatureStoreFactory.PARAMETERS_DESCRIPTOR.createValue();
+        Parameters.getOrCreate(H2FeatureStoreFactory.USER, params).setValue("user");
+        Parameters.getOrCreate(H2FeatureStoreFactory.PASSWORD, params).setValue("pwd");
+        Parameters.getOrCreate(H2FeatureStoreFactory.PORT, params).setValue(5555);
+        Parameters.getOrCreate(H2FeatureStoreFactory.DATABASE, params).setValue(database);
+        Parameters.getOrCreate(H2FeatureStoreFactory.HOST, params).setValue("localhost");
+        Parameters.getOrCreate(H2FeatureStoreFactory.SIMPLETYPE, params).setValue(Boolean.TRUE);
+        Parameters.getOrCreate(H2FeatureStoreFactory.BATCHSIZE, params).setValue(batchSize);
+        Parameters.getOrCreate(H2FeatureStoreFactory.DATASOURCE, params).setValue(ds);
+        return new H2FeatureStoreFactory().create(params);
+    }
+
+    /**
+     * Read the integer 'id' column values of all features.
+     */
+    public static Set<Integer> readKeys(final FeatureStore store, final Name name) throws DataStoreException{
+        final Set<Integer> keys = new HashSet<>();
+        final FeatureCollection<Feature> res = store.createSession(false).getFeatureCollection(QueryBuilder.all(name));
+        try(FeatureIterator<Feature> ite = res.iterator()){
+            while(ite.hasNext()){
+                final Number key = (Number) ite.next().getProperty("id").getValue();
+                assertTrue("duplicated key "+key, keys.add(key.intValue()));
+            }
+        }
+        return keys;
+    }
+
 }
@@ -435,6 +435,11 @@ public class MySQLDialect extends AbstractSQLDialect {
         }
     }
 
+    @Override
+    public void encodeDefaultValues(StringBuilder sql, String columnName) {
+        sql.append(" () VALUES ()");
+    }
+
     @Override
     public void encodeValue(StringBuilder sql, Object value, Class type) {
         //turn the value into a literal and use FilterToSQL to encode it
@@ -508,6 +508,17 @@ public class OracleDialect extends AbstractSQLDialect{
         throw new RuntimeException("Not supported yet.");
     }
 
+    /**
+     * Oracle has no DEFAULT VALUES clause, the default value of one column is
+     * inserted explicitly.
+     */
+    @Override
+    public void encodeDefaultValues(StringBuilder sql, String columnName) {
+        sql.append(" (");
+        encodeColumnName(sql, columnName);
+        sql.append(") VALUES (DEFAULT)");
+    }
+
     @Override
     public void encodeLimitOffset(StringBuilder sql, Integer limit, int offset) {
         if (limit != null && limit > 0 && limit < Integer.MAX_VALUE) {
@@ -32,6 +32,7 @@ import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -667,6 +668,16 @@ final class PostgresDialect extends AbstractSQLDialect{
         }
     }
 
+    @Override
+    public int setGeometryParameter(PreparedStatement stmt, int index, Geometry value, int srid) throws SQLException {
+        if (value != null && value.isEmpty() && ((Comparable)getVersion(null).getMajor()).compareTo((Comparable)Integer.valueOf(2)) < 0) {
+            //empty geometries are interpreted as Geometrycollection in postgis < 2
+            //this breaks the column geometry type constraint so we replace those by null
+            value = null;
+        }
+        return super.setGeometryParameter(stmt, index, value, srid);
+    }
+
     @Override
     public void encodeCoverageValue(StringBuilder sql, Coverage value) throws DataStoreException {
         try{
@@ -864,6 +875,27 @@ final class PostgresDialect extends AbstractSQLDialect{
         return null;
     }
     
+    @Override
+    public Object[] nextValues(final ColumnMetaModel column, final Connection cx, final int count) throws SQLException, DataStoreException {
+        if(column.getType() == ColumnMetaModel.Type.SEQUENCED){
+            //generate all values in one call
+            final Object[] values = new Object[count];
+            final Statement st = cx.createStatement();
+            ResultSet rs = null;
+            try {
+                final String sql = "SELECT nextval('" + column.getSequenceName() + "') FROM generate_series(1," + count + ")";
+                rs = st.executeQuery(sql);
+                for (int i=0; i<count && rs.next(); i++) {
+                    values[i] = rs.getLong(1);
+                }
+            } finally {
+                JDBCFeatureStoreUtilities.closeSafe(featurestore.getLogger(), null,st,rs);
+            }
+            return values;
+        }
+        return super.nextValues(column, cx, count);
+    }
+    
     ////////////////////////////////////////////////////////////////////////////
     // METHODS TO READ FROM RESULTSET //////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////
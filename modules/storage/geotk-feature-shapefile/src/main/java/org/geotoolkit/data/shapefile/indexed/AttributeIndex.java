@@ -0,0 +1,362 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.data.shapefile.indexed;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import org.geotoolkit.data.dbf.DbaseFileHeader;
+import org.geotoolkit.data.dbf.DbaseFileReader;
+import org.geotoolkit.data.shapefile.ShapefileFeatureStoreFactory;
+import org.geotoolkit.data.shapefile.lock.AccessManager;
+import org.geotoolkit.data.shapefile.lock.ShpFiles;
+import static org.geotoolkit.data.shapefile.lock.ShpFileType.*;
+
+/**
+ * Attribute index of a single dbf column, stored in a sidecar file named
+ * [base].[column].aix next to the shapefile.
+ * The file contains the (key, record number) couples sorted by key, it is
+ * memory mapped and searched by dichotomy. Record numbers start at 0 like
+ * in the shx file, deleted dbf records are counted but not indexed.
+ * The mapping is dropped by {@link #close()}.
+ * <p>
+ * File structure, big endian :
+ * <ul>
+ *   <li>4 bytes : magic 'AIX' + version</li>
+ *   <li>1 byte : key type, 'N' for numbers stored as doubles, 'C' for characters</li>
+ *   <li>4 bytes : key length in bytes</li>
+ *   <li>4 bytes : number of entries</li>
+ *   <li>entries : key, 4 bytes record number</li>
+ * </ul>
+ * Strings are stored as fixed length UTF-16 characters padded with zeros.
+ * Null values are not indexed.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class AttributeIndex implements Closeable {
+
+    public static final String EXTENSION = "aix";
+
+    private static final int MAGIC = ('A'<<24) | ('I'<<16) | ('X'<<8) | 1;
+    private static final int HEADER_SIZE = 13;
+    private static final byte TYPE_NUMBER = 'N';
+    private static final byte TYPE_CHARACTER = 'C';
+
+    private MappedByteBuffer buffer;
+    private final boolean numeric;
+    private final int keyLength;
+    private final int entryLength;
+    private final int count;
+
+    private AttributeIndex(final MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if(buffer.getInt(0) != MAGIC){
+            throw new IOException("Not an attribute index file.");
+        }
+        numeric = buffer.get(4) == TYPE_NUMBER;
+        keyLength = buffer.getInt(5);
+        count = buffer.getInt(9);
+        entryLength = keyLength + 4;
+    }
+
+    /**
+     * @return true if keys are numbers, false for strings
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * @return number of indexed records
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Search the records which value is in the given range, bounds are inclusive.
+     *
+     * @param lower lower bound, Double or String depending on the key type, null for no bound
+     * @param upper upper bound, Double or String depending on the key type, null for no bound
+     * @return sorted record numbers, starting at 0
+     */
+    public int[] search(final Object lower, final Object upper){
+        final int start = (lower == null) ? 0 : firstGreaterOrEqual(lower, false);
+        final int end = (upper == null) ? count : firstGreaterOrEqual(upper, true);
+        if(end <= start){
+            return new int[0];
+        }
+        final int[] records = new int[end-start];
+        for(int i=start;i<end;i++){
+            records[i-start] = buffer.getInt(HEADER_SIZE + i*entryLength + keyLength);
+        }
+        //records sorted by position in the file, reading will be sequential
+        Arrays.sort(records);
+        return records;
+    }
+
+    /**
+     * Drop the file mapping, it is released when the buffer is garbage collected.
+     * The index can not be searched anymore.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    /**
+     * @param strict if true search the first entry strictly greater
+     * @return index of the first entry greater or equal to the key
+     */
+    private int firstGreaterOrEqual(final Object key, final boolean strict){
+        int low = 0;
+        int high = count;
+        while(low < high){
+            final int mid = (low + high) >>> 1;
+            final int cmp = compare(mid, key);
+            if(cmp < 0 || (strict && cmp == 0)){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(final int index, final Object key){
+        final int offset = HEADER_SIZE + index*entryLength;
+        if(numeric){
+            return Double.compare(buffer.getDouble(offset), (Double)key);
+        }
+        final String str = (String) key;
+        final int nbChar = keyLength/2;
+        for(int i=0;i<nbChar;i++){
+            final char c = buffer.getChar(offset+i*2);
+            if(c == 0){
+                //end of the stored key
+                return (i < str.length()) ? -1 : 0;
+            }
+            if(i >= str.length()){
+                return 1;
+            }
+            final int diff = c - str.charAt(i);
+            if(diff != 0){
+                return diff;
+            }
+        }
+        return (nbChar < str.length()) ? -1 : 0;
+    }
+
+    /**
+     * Open the index of given attribute.
+     * The returned index must be closed after use to release the file mapping.
+     *
+     * @return AttributeIndex or null if there is no index or it is older than the dbf file
+     */
+    public static AttributeIndex open(final ShpFiles shpFiles, final String attName) throws IOException{
+        if(!shpFiles.isLocal() || !shpFiles.exists(DBF)){
+            return null;
+        }
+        final File file = getFile(shpFiles, attName);
+        if(!file.exists() || file.lastModified() < shpFiles.getFile(DBF).lastModified()){
+            return null;
+        }
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try{
+            final FileChannel channel = raf.getChannel();
+            return new AttributeIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }finally{
+            raf.close();
+        }
+    }
+
+    /**
+     * @return sidecar file of the given attribute
+     */
+    public static File getFile(final ShpFiles shpFiles, final String attName){
+        final File shp = shpFiles.getFile(SHP);
+        return new File(SHP.toBase(shp) + "." + attName + "." + EXTENSION);
+    }
+
+    /**
+     * @return names of the attributes which have an index file
+     */
+    public static List<String> list(final ShpFiles shpFiles){
+        if(!shpFiles.isLocal()){
+            return Collections.emptyList();
+        }
+        final File shp = shpFiles.getFile(SHP);
+        final File folder = shp.getAbsoluteFile().getParentFile();
+        final String prefix = new File(SHP.toBase(shp)).getName() + ".";
+        final String suffix = "." + EXTENSION;
+        final File[] files = folder.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(prefix) && name.endsWith(suffix)
+                    && name.length() > prefix.length() + suffix.length();
+            }
+        });
+        final List<String> names = new ArrayList<>();
+        if(files != null){
+            for(File f : files){
+                final String name = f.getName();
+                names.add(name.substring(prefix.length(), name.length()-suffix.length()));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Create or replace the index of given attribute.
+     * Only character and numeric columns can be indexed.
+     */
+    public static void generate(final ShpFiles shpFiles, final String attName, final Charset charset) throws IOException{
+        ShapefileFeatureStoreFactory.LOGGER.log(Level.FINE, "Generating attribute index {0} for {1}",
+                new Object[]{attName, shpFiles.get(SHP)});
+
+        final List<Entry> entries = new ArrayList<>();
+        final boolean numeric;
+        int maxLength = 0;
+
+        final AccessManager locker = shpFiles.createLocker();
+        try{
+            final DbaseFileReader dbf = locker.getDBFReader(false, charset);
+            if(dbf == null){
+                throw new IOException("No dbf file for "+shpFiles.get(SHP));
+            }
+            //deleted records are returned to keep the record numbers of the shx file
+            dbf.setSkipDeleted(false);
+            final DbaseFileHeader header = dbf.getHeader();
+            int column = -1;
+            for(int k=0,n=header.getNumFields();k<n;k++){
+                if(header.getFieldName(k).equals(attName)){
+                    column = k;
+                    break;
+                }
+            }
+            if(column < 0){
+                throw new IOException("No field "+attName+" in dbf file.");
+            }
+            final Class clazz = header.getFieldClass(column);
+            if(Number.class.isAssignableFrom(clazz)){
+                numeric = true;
+            }else if(String.class.equals(clazz)){
+                numeric = false;
+            }else{
+                throw new IOException("Field "+attName+" of type "+clazz.getSimpleName()+" can not be indexed.");
+            }
+
+            for(int recno=0; dbf.hasNext(); recno++){
+                final DbaseFileReader.Row row = dbf.next();
+                if(row.isDeleted()) continue;
+                final Object value = row.read(column);
+                if(value == null) continue;
+                final Comparable key;
+                if(numeric){
+                    final double d = ((Number)value).doubleValue();
+                    if(Double.isNaN(d)) continue;
+                    //+0.0 to store -0.0 as 0.0
+                    key = d + 0.0;
+                }else{
+                    final String str = value.toString();
+                    maxLength = Math.max(maxLength, str.length());
+                    key = str;
+                }
+                entries.add(new Entry(key, recno));
+            }
+        }finally{
+            locker.disposeReaderAndWriters();
+        }
+
+        Collections.sort(entries);
+
+        //write in a temporary file, readers may still use the previous index
+        final File file = getFile(shpFiles, attName);
+        final File temp = new File(file.getPath()+".tmp");
+        final int keyLength = numeric ? 8 : Math.max(1, maxLength)*2;
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try{
+            out.writeInt(MAGIC);
+            out.writeByte(numeric ? TYPE_NUMBER : TYPE_CHARACTER);
+            out.writeInt(keyLength);
+            out.writeInt(entries.size());
+            for(Entry entry : entries){
+                if(numeric){
+                    out.writeDouble((Double)entry.key);
+                }else{
+                    final String str = (String) entry.key;
+                    out.writeChars(str);
+                    for(int i=str.length()*2;i<keyLength;i+=2){
+                        out.writeChar(0);
+                    }
+                }
+                out.writeInt(entry.recno);
+            }
+        }finally{
+            out.close();
+        }
+        if(file.exists() && !file.delete()){
+            temp.delete();
+            throw new IOException("Failed to replace attribute index "+file);
+        }
+        if(!temp.renameTo(file)){
+            throw new IOException("Failed to create attribute index "+file);
+        }
+    }
+
+    /**
+     * Delete the index of given attribute.
+     *
+     * @return true if the file was deleted
+     */
+    public static boolean delete(final ShpFiles shpFiles, final String attName){
+        return getFile(shpFiles, attName).delete();
+    }
+
+    private static final class Entry implements Comparable<Entry>{
+
+        private final Comparable key;
+        private final int recno;
+
+        private Entry(final Comparable key, final int recno) {
+            this.key = key;
+            this.recno = recno;
+        }
+
+        @Override
+        public int compareTo(final Entry other) {
+            final int cmp = key.compareTo(other.key);
+            return (cmp != 0) ? cmp : (recno - other.recno);
+        }
+    }
+
+}
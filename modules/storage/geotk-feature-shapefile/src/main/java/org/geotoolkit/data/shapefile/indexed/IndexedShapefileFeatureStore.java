@@ -69,8 +69,20 @@ import org.geotoolkit.feature.type.FeatureType;
 import org.geotoolkit.feature.type.GeometryDescriptor;
 import org.geotoolkit.feature.type.Name;
 import org.geotoolkit.feature.type.PropertyDescriptor;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
 import org.opengis.filter.Filter;
 import org.opengis.filter.Id;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
 import org.opengis.filter.identity.Identifier;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.spatial.BBOX;
@@ -194,6 +206,54 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
     @Override
     public FeatureReader<SimpleFeatureType, SimpleFeature> getFeatureReader(final Query query)
             throws DataStoreException {
+        return getFeatureReader(query, null);
+    }
+
+    /**
+     * Split the query in ranges of shx records.
+     */
+    @Override
+    public List<FeatureReader> getFeatureReaders(final Query query, final int nbPartition)
+            throws DataStoreException {
+        if (nbPartition <= 1 || !QueryUtilities.isSplittable(query)
+                || !shpFiles.isLocal() || !shpFiles.exists(SHX)) {
+            return super.getFeatureReaders(query, nbPartition);
+        }
+
+        final int nbRecord;
+        final AccessManager locker = shpFiles.createLocker();
+        try {
+            nbRecord = locker.getSHXReader(false).getRecordCount();
+        } catch (IOException ex) {
+            throw new DataStoreException(ex);
+        } finally {
+            locker.disposeReaderAndWriters();
+        }
+
+        final int nb = Math.max(1, Math.min(nbPartition, nbRecord));
+        final List<FeatureReader> readers = new ArrayList<FeatureReader>(nb);
+        try {
+            for (int i=0; i<nb; i++) {
+                final int[] range = new int[]{
+                    (int) ((long) nbRecord * i / nb),
+                    (int) ((long) nbRecord * (i+1) / nb)};
+                readers.add(getFeatureReader(query, range));
+            }
+        } catch (DataStoreException ex) {
+            for (FeatureReader reader : readers) {
+                reader.close();
+            }
+            throw ex;
+        }
+        return readers;
+    }
+
+    /**
+     * @param range shx records to read, start inclusive and end exclusive,
+     *        null to read all records
+     */
+    private FeatureReader<SimpleFeatureType, SimpleFeature> getFeatureReader(final Query query, final int[] range)
+            throws DataStoreException {
         final SimpleFeatureType originalSchema = getFeatureType();
         final Name              queryTypeName = query.getTypeName();
         final Name[]            queryPropertyNames = query.getPropertyNames();
@@ -268,7 +328,7 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
             }
             readSchema = (SimpleFeatureType)FeatureTypeUtilities.createSubType(originalSchema,readPropertyNames);
 
-            if(queryFilter instanceof BBOX){
+            if(queryFilter instanceof BBOX && range == null){
                 //in case we have a BBOX filter only, which is very commun, we can speed
                 //the process by relying on the quadtree estimations
                 final Envelope bbox = (Envelope) queryFilter.accept(
@@ -285,7 +345,7 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
 
             }else{
                 reader = createFeatureReader(
-                    getAttributesReader(readProperties, queryFilter,read3D,queryRes),
+                    getAttributesReader(readProperties, queryFilter,read3D,queryRes,range),
                     readSchema, queryHints);
             }
         } catch (IOException ex) {
@@ -321,7 +381,7 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
     }
 
     private IndexedShapefileAttributeReader getAttributesReader(final List<? extends PropertyDescriptor> properties,
-            final Filter filter, final boolean read3D, final double[] resample) throws DataStoreException{
+            final Filter filter, final boolean read3D, final double[] resample, final int[] range) throws DataStoreException{
 
         final AccessManager locker = shpFiles.createLocker();
 
@@ -363,11 +423,39 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
                     throw new DataStoreException("Error querying index: " + e.getMessage());
                 }
             }
+
+            if (filter != null && shpFiles.isLocal()) {
+                final Map<String, AttributeIndex> indexes = new HashMap<>();
+                try {
+                    final int[] attRecs = queryAttributeIndex(filter, indexes);
+                    if (attRecs != null) {
+                        goodRecs = intersectRecords(goodRecs, attRecs);
+                    }
+                } catch (IOException e) {
+                    throw new DataStoreException("Error querying attribute index: " + e.getMessage(), e);
+                } finally {
+                    //record numbers are copied, release the mappings
+                    for (AttributeIndex index : indexes.values()) {
+                        if (index != null) index.close();
+                    }
+                }
+            }
         }
 
         final boolean readDBF = !(properties.size()==1 && properties.get(0) instanceof GeometryDescriptor);
         final PropertyDescriptor[] atts = properties.toArray(new PropertyDescriptor[properties.size()]);
         try {
+            if (range != null) {
+                if (goodRecs == null) {
+                    //iterate on the range, the shx reader is closed with the locker
+                    final Iterator<ShpData> ite = new RecordRangeIterator(
+                            locker.getSHXReader(useMemoryMappedBuffer), range[0], range[1]);
+                    return new IndexedShapefileAttributeReader(locker,atts,
+                            read3D, useMemoryMappedBuffer,resample,
+                            readDBF, dbfCharset, resample, null, ite);
+                }
+                goodRecs = restrictRecords(goodRecs, range);
+            }
             return new IndexedShapefileAttributeReader(locker,atts,
                     read3D, useMemoryMappedBuffer,resample,
                     readDBF, dbfCharset, resample,
@@ -475,6 +563,228 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
         return records;
     }
 
+    /**
+     * Keep only the records in the given range.
+     *
+     * @param range start inclusive and end exclusive record numbers, starting at 0
+     */
+    private static CloseableCollection<ShpData> restrictRecords(final CloseableCollection<ShpData> records,
+            final int[] range) throws IOException {
+        final CloseableCollection<ShpData> result = new CloseableArrayList<ShpData>();
+        try {
+            for (ShpData data : records) {
+                final int recno = data.v1 - 1;
+                if (recno >= range[0] && recno < range[1]) {
+                    result.add(data);
+                }
+            }
+        } finally {
+            records.close();
+        }
+        return result;
+    }
+
+    /**
+     * Search the records matching the filter in the attribute indexes.
+     * The result may contain records which do not match the filter, it must
+     * still be evaluated on the features.
+     *
+     * @param indexes opened indexes, by attribute name
+     * @return sorted record numbers, starting at 0, or null if indexes can not answer the filter
+     */
+    private int[] queryAttributeIndex(final Filter filter, final Map<String,AttributeIndex> indexes) throws IOException {
+        if (filter instanceof And) {
+            //unindexed sub filters are ignored, they are evaluated later on the features
+            int[] result = null;
+            for (Filter f : ((And) filter).getChildren()) {
+                final int[] recs = queryAttributeIndex(f, indexes);
+                if (recs != null) {
+                    result = (result == null) ? recs : intersect(result, recs);
+                }
+            }
+            return result;
+        } else if (filter instanceof Or) {
+            //all sub filters must be indexed
+            int[] result = null;
+            for (Filter f : ((Or) filter).getChildren()) {
+                final int[] recs = queryAttributeIndex(f, indexes);
+                if (recs == null) {
+                    return null;
+                }
+                result = (result == null) ? recs : union(result, recs);
+            }
+            return result;
+        } else if (filter instanceof PropertyIsEqualTo) {
+            final PropertyIsEqualTo cmp = (PropertyIsEqualTo) filter;
+            Expression prop = cmp.getExpression1();
+            Expression lit = cmp.getExpression2();
+            if (prop instanceof Literal) {
+                prop = lit;
+                lit = cmp.getExpression1();
+            }
+            final AttributeIndex index = getAttributeIndex(prop, indexes);
+            if (index == null || !(lit instanceof Literal) || (!index.isNumeric() && !cmp.isMatchingCase())) {
+                return null;
+            }
+            final Object key = toKey(index, ((Literal) lit).getValue());
+            return (key == null) ? null : index.search(key, key);
+        } else if (filter instanceof PropertyIsBetween) {
+            final PropertyIsBetween between = (PropertyIsBetween) filter;
+            final AttributeIndex index = getAttributeIndex(between.getExpression(), indexes);
+            if (index == null || !index.isNumeric()
+                    || !(between.getLowerBoundary() instanceof Literal)
+                    || !(between.getUpperBoundary() instanceof Literal)) {
+                return null;
+            }
+            final Object lower = toKey(index, ((Literal) between.getLowerBoundary()).getValue());
+            final Object upper = toKey(index, ((Literal) between.getUpperBoundary()).getValue());
+            return (lower == null || upper == null) ? null : index.search(lower, upper);
+        } else if (filter instanceof PropertyIsGreaterThan || filter instanceof PropertyIsGreaterThanOrEqualTo
+                || filter instanceof PropertyIsLessThan || filter instanceof PropertyIsLessThanOrEqualTo) {
+            //only numeric ranges, string comparisons may not follow the index order
+            final BinaryComparisonOperator cmp = (BinaryComparisonOperator) filter;
+            boolean greater = filter instanceof PropertyIsGreaterThan || filter instanceof PropertyIsGreaterThanOrEqualTo;
+            Expression prop = cmp.getExpression1();
+            Expression lit = cmp.getExpression2();
+            if (prop instanceof Literal) {
+                prop = lit;
+                lit = cmp.getExpression1();
+                greater = !greater;
+            }
+            final AttributeIndex index = getAttributeIndex(prop, indexes);
+            if (index == null || !index.isNumeric() || !(lit instanceof Literal)) {
+                return null;
+            }
+            final Object key = toKey(index, ((Literal) lit).getValue());
+            if (key == null) {
+                return null;
+            }
+            //bounds are inclusive, strict comparisons are done by the filter
+            return greater ? index.search(key, null) : index.search(null, key);
+        }
+        return null;
+    }
+
+    private AttributeIndex getAttributeIndex(final Expression exp, final Map<String,AttributeIndex> indexes) throws IOException {
+        if (!(exp instanceof PropertyName)) {
+            return null;
+        }
+        final String name = ((PropertyName) exp).getPropertyName();
+        if (indexes.containsKey(name)) {
+            return indexes.get(name);
+        }
+        final AttributeIndex index = AttributeIndex.open(shpFiles, name);
+        indexes.put(name, index);
+        return index;
+    }
+
+    /**
+     * Convert the literal to the index key type.
+     *
+     * @return Double or String key, null if the value can not be converted
+     */
+    private static Object toKey(final AttributeIndex index, final Object value) {
+        if (index.isNumeric()) {
+            double d = Double.NaN;
+            if (value instanceof Number) {
+                d = ((Number) value).doubleValue();
+            } else if (value instanceof String) {
+                try {
+                    d = Double.parseDouble(((String) value).trim());
+                } catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+            return Double.isNaN(d) ? null : d + 0.0;
+        }
+        return (value instanceof String) ? value : null;
+    }
+
+    /**
+     * Keep only the records found in the attribute indexes.
+     *
+     * @param spatialRecs records found in the quad tree, null for all records
+     * @param attRecs sorted record numbers found in the attribute indexes
+     */
+    private CloseableCollection<ShpData> intersectRecords(final CloseableCollection<ShpData> spatialRecs,
+            final int[] attRecs) throws IOException {
+        BitSet spatial = null;
+        if (spatialRecs != null) {
+            spatial = new BitSet();
+            try {
+                for (ShpData data : spatialRecs) {
+                    spatial.set(data.v1 - 1);
+                }
+            } finally {
+                spatialRecs.close();
+            }
+        }
+
+        final AccessManager locker = shpFiles.createLocker();
+        final CloseableCollection<ShpData> records = new CloseableArrayList(attRecs.length);
+        try {
+            final ShxReader shx = locker.getSHXReader(useMemoryMappedBuffer);
+            for (int recno : attRecs) {
+                if (spatial == null || spatial.get(recno)) {
+                    records.add(new ShpData(recno+1, (long)shx.getOffsetInBytes(recno)));
+                }
+            }
+        } finally {
+            locker.disposeReaderAndWriters();
+        }
+        return records;
+    }
+
+    private static int[] intersect(final int[] a, final int[] b) {
+        final int[] result = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i=0,j=0; i<a.length && j<b.length;) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { result[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int[] union(final int[] a, final int[] b) {
+        final int[] result = new int[a.length + b.length];
+        int n = 0;
+        int i=0,j=0;
+        while (i<a.length || j<b.length) {
+            if (j>=b.length || (i<a.length && a[i] < b[j])) result[n++] = a[i++];
+            else if (i>=a.length || a[i] > b[j]) result[n++] = b[j++];
+            else { result[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Create or update the attribute index of the given dbf column.
+     * The index is used by queries with equality, range or in filters on this
+     * attribute and is kept updated by the feature writers.
+     *
+     * @param attName name of a character or numeric attribute
+     */
+    public void createAttributeIndex(final String attName) throws DataStoreException {
+        if (!shpFiles.isLocal()) {
+            throw new DataStoreException("Attribute indexes can only be created on local files.");
+        }
+        try {
+            AttributeIndex.generate(shpFiles, attName, dbfCharset);
+        } catch (IOException ex) {
+            throw new DataStoreException(ex);
+        }
+    }
+
+    /**
+     * Delete the attribute index of the given dbf column.
+     *
+     * @return true if an index was deleted
+     */
+    public boolean dropAttributeIndex(final String attName) {
+        return shpFiles.isLocal() && AttributeIndex.delete(shpFiles, attName);
+    }
+
     /**
      * Returns true if the index for the given type exists and is useable.
      *
@@ -607,7 +917,7 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
 
         //we read all properties
         final IndexedShapefileAttributeReader attReader = getAttributesReader(
-                schema.getAttributeDescriptors(),Filter.INCLUDE,true,null);
+                schema.getAttributeDescriptors(),Filter.INCLUDE,true,null,null);
 
         try{
             final FeatureReader<SimpleFeatureType, SimpleFeature> reader = createFeatureReader(attReader, schema, null);
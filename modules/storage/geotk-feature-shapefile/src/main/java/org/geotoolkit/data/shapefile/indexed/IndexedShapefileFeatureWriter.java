@@ -85,6 +85,7 @@ class IndexedShapefileFeatureWriter extends ShapefileFeatureWriter{
                             indexedShapefileFeatureStore
                                     .buildQuadTree(indexedShapefileFeatureStore.maxDepth);
                         }
+                        updateAttributeIndexes(shpFiles, charset);
                     }
                 } catch (Throwable e) {
                     indexedShapefileFeatureStore.treeType = IndexType.NONE;
@@ -156,6 +157,22 @@ class IndexedShapefileFeatureWriter extends ShapefileFeatureWriter{
         }
     }
 
+    /**
+     * Rebuild the existing attribute indexes, an index which can not be
+     * rebuilt is removed.
+     */
+    private static void updateAttributeIndexes(final ShpFiles shpFiles, final Charset charset) {
+        for (String attName : AttributeIndex.list(shpFiles)) {
+            try {
+                AttributeIndex.generate(shpFiles, attName, charset);
+            } catch (IOException e) {
+                AttributeIndex.delete(shpFiles, attName);
+                ShapefileFeatureStoreFactory.LOGGER.log(Level.WARNING,
+                        "Error creating attribute index "+attName, e);
+            }
+        }
+    }
+
     private void deleteFile(final ShpFileType shpFileType) {
         final URL url = shpFiles.getURL(shpFileType);
         try {
@@ -0,0 +1,74 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.data.shapefile.indexed;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.shapefile.indexed.IndexDataReader.ShpData;
+import org.geotoolkit.data.shapefile.shx.ShxReader;
+
+/**
+ * Iterate on a range of records, offsets are read from the shx file.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+final class RecordRangeIterator implements Iterator<ShpData> {
+
+    private final ShxReader shx;
+    private final int end;
+    private int recno;
+
+    /**
+     * @param shx shx reader, not closed by this iterator
+     * @param start first record, inclusive, starting at 0
+     * @param end last record, exclusive
+     */
+    RecordRangeIterator(final ShxReader shx, final int start, final int end) {
+        this.shx = shx;
+        this.recno = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return recno < end;
+    }
+
+    @Override
+    public ShpData next() {
+        if(recno >= end){
+            throw new NoSuchElementException("No more records.");
+        }
+        try {
+            final ShpData data = new ShpData(recno+1, (long)shx.getOffsetInBytes(recno));
+            recno++;
+            return data;
+        } catch (IOException ex) {
+            throw new FeatureStoreRuntimeException(ex);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Not supported.");
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.shapefile.indexed;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreUtilities;
+import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.feature.simple.SimpleFeature;
+import org.geotoolkit.feature.simple.SimpleFeatureBuilder;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
+import org.geotoolkit.feature.type.Name;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import static org.junit.Assert.*;
+
+/**
+ * Attribute index queries must return the same features as unindexed queries.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public class AttributeIndexTest extends FIDTestCase {
+
+    private static final FilterFactory2 FF = (FilterFactory2) FactoryFinder.getFilterFactory(null);
+
+    @Test
+    public void testQueries() throws Exception {
+        final IndexedShapefileFeatureStore ds = new IndexedShapefileFeatureStore(backshp.toURI().toURL());
+        final Name name = ds.getNames().iterator().next();
+
+        final Filter[] filters = new Filter[]{
+            FF.equals(FF.property("CAT_DESC"), FF.literal("No Name")),
+            FF.equals(FF.literal(3), FF.property("ID")),
+            FF.between(FF.property("ID"), FF.literal(4), FF.literal(12)),
+            FF.greater(FF.property("ID"), FF.literal(20)),
+            FF.lessOrEqual(FF.property("ID"), FF.literal("5")),
+            FF.or(FF.equals(FF.property("ID"), FF.literal(2)), FF.equals(FF.property("ID"), FF.literal(7))),
+            FF.and(FF.equals(FF.property("CAT_DESC"), FF.literal("No Name")), FF.less(FF.property("ID"), FF.literal(10))),
+            FF.equals(FF.property("CAT_DESC"), FF.literal("unknowned"))
+        };
+
+        final Set[] expected = new Set[filters.length];
+        for(int i=0;i<filters.length;i++){
+            expected[i] = ids(ds, name, filters[i]);
+        }
+        assertFalse(expected[0].isEmpty());
+
+        ds.createAttributeIndex("ID");
+        ds.createAttributeIndex("CAT_DESC");
+        assertTrue(AttributeIndex.getFile(shpFiles, "ID").exists());
+        assertEquals(2, AttributeIndex.list(shpFiles).size());
+
+        final AttributeIndex index = AttributeIndex.open(shpFiles, "ID");
+        assertTrue(index.isNumeric());
+        assertArrayEquals(new int[]{2}, index.search(3d, 3d));
+        index.close();
+
+        for(int i=0;i<filters.length;i++){
+            assertEquals(filters[i].toString(), expected[i], ids(ds, name, filters[i]));
+        }
+
+        //index must be updated by writers
+        final SimpleFeatureType schema = (SimpleFeatureType) ds.getFeatureType(name);
+        final SimpleFeatureBuilder build = new SimpleFeatureBuilder(schema);
+        build.add(new GeometryFactory().createPoint(new Coordinate(0, 0)));
+        build.add(100l);
+        build.add(100l);
+        build.add("No Name");
+        final Collection<SimpleFeature> collection = new ArrayList<>();
+        collection.add(build.buildFeature(null));
+        FeatureStoreUtilities.write(ds.getFeatureWriterAppend(name), collection);
+
+        assertEquals(expected[0].size()+1, ids(ds, name, filters[0]).size());
+        assertEquals(1, ids(ds, name, FF.equals(FF.property("ID"), FF.literal(100))).size());
+
+        assertTrue(ds.dropAttributeIndex("ID"));
+        assertTrue(ds.dropAttributeIndex("CAT_DESC"));
+        assertTrue(AttributeIndex.list(shpFiles).isEmpty());
+    }
+
+    /**
+     * Features removed through the store must disappear from the rebuilt index
+     * and the following records must still be found.
+     */
+    @Test
+    public void testRemoveFeature() throws Exception {
+        final IndexedShapefileFeatureStore ds = new IndexedShapefileFeatureStore(backshp.toURI().toURL());
+        final Name name = ds.getNames().iterator().next();
+        final List<Object> all = values(ds, name, Filter.INCLUDE);
+        final Object removed = all.get(2);
+        all.removeAll(Collections.singleton(removed));
+
+        ds.createAttributeIndex("ID");
+        ds.removeFeatures(name, FF.equals(FF.property("ID"), FF.literal(removed)));
+
+        assertTrue(values(ds, name, FF.equals(FF.property("ID"), FF.literal(removed))).isEmpty());
+        for(Object value : all){
+            assertEquals(String.valueOf(value), Collections.frequency(all, value),
+                    values(ds, name, FF.equals(FF.property("ID"), FF.literal(value))).size());
+        }
+        final List<Object> greater = new ArrayList<>();
+        for(Object value : all){
+            if(((Number)value).doubleValue() > ((Number)removed).doubleValue()) greater.add(value);
+        }
+        assertEquals(greater, values(ds, name, FF.greater(FF.property("ID"), FF.literal(removed))));
+    }
+
+    /**
+     * Records marked as deleted in the dbf file are not indexed, record numbers
+     * of the following records must still match the shx file.
+     */
+    @Test
+    public void testDeletedRecord() throws Exception {
+        final IndexedShapefileFeatureStore ds = new IndexedShapefileFeatureStore(backshp.toURI().toURL());
+        final Name name = ds.getNames().iterator().next();
+        final List<Object> all = values(ds, name, Filter.INCLUDE);
+        final int deleted = 1;
+        final List<Object> remaining = new ArrayList<>(all);
+        remaining.remove(deleted);
+
+        //mark the record as deleted, header and record lengths are little endian shorts
+        final RandomAccessFile raf = new RandomAccessFile(backdbf, "rw");
+        try{
+            raf.seek(8);
+            final int headerLength = raf.readUnsignedByte() | (raf.readUnsignedByte() << 8);
+            final int recordLength = raf.readUnsignedByte() | (raf.readUnsignedByte() << 8);
+            raf.seek(headerLength + (long)recordLength*deleted);
+            raf.writeByte('*');
+        }finally{
+            raf.close();
+        }
+
+        ds.createAttributeIndex("ID");
+        final AttributeIndex index = AttributeIndex.open(shpFiles, "ID");
+        try{
+            assertEquals(all.size()-1, index.getCount());
+            final Object value = all.get(deleted);
+            final double key = ((Number)value).doubleValue();
+            assertEquals(Collections.frequency(remaining, value), index.search(key, key).length);
+        }finally{
+            index.close();
+        }
+
+        for(int i=deleted+1;i<all.size();i++){
+            final Object value = all.get(i);
+            assertEquals(String.valueOf(value), Collections.frequency(remaining, value),
+                    values(ds, name, FF.equals(FF.property("ID"), FF.literal(value))).size());
+        }
+    }
+
+    private static List<Object> values(final IndexedShapefileFeatureStore ds, final Name name, final Filter filter) throws Exception{
+        final List<Object> values = new ArrayList<>();
+        final FeatureIterator<SimpleFeature> ite = ds.getFeatureReader(QueryBuilder.filtered(name, filter));
+        try{
+            while(ite.hasNext()){
+                values.add(ite.next().getAttribute("ID"));
+            }
+        }finally{
+            ite.close();
+        }
+        return values;
+    }
+
+    private static Set<String> ids(final IndexedShapefileFeatureStore ds, final Name name, final Filter filter) throws Exception{
+        final Set<String> ids = new TreeSet<>();
+        final FeatureIterator<SimpleFeature> ite = ds.getFeatureReader(QueryBuilder.filtered(name, filter));
+        try{
+            while(ite.hasNext()){
+                ids.add(ite.next().getID());
+            }
+        }finally{
+            ite.close();
+        }
+        return ids;
+    }
+
+}
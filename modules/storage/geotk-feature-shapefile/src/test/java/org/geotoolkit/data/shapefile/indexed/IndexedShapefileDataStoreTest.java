@@ -258,6 +258,44 @@ public class IndexedShapefileDataStoreTest extends AbstractTestCaseSupport {
         ds2.close();
     }
 
+    @Test
+    public void testSplitReaders() throws Exception {
+        final File shpFile = copyShapefiles(STATE_POP);
+        final URL url = shpFile.toURI().toURL();
+        final IndexedShapefileFeatureStore ds = new IndexedShapefileFeatureStore(url, null, false, true, IndexType.QIX,null);
+        final FilterFactory2 ff = (FilterFactory2) FactoryFinder.getFilterFactory(null);
+        final Envelope bounds = (JTSEnvelope2D)ds.getEnvelope(QueryBuilder.all(ds.getName()));
+
+        final Filter[] filters = new Filter[]{
+            Filter.INCLUDE,
+            ff.bbox(ff.property(ds.getFeatureType().getGeometryDescriptor().getLocalName()),
+                new JTSEnvelope2D(bounds.getMinX(), bounds.getMinX() + bounds.getWidth()/2,
+                        bounds.getMinY(), bounds.getMaxY(), ds.getFeatureType().getCoordinateReferenceSystem()))
+        };
+
+        for (Filter filter : filters) {
+            final Query query = QueryBuilder.filtered(ds.getName(), filter);
+            final Set<String> expected = new HashSet<String>();
+            final FeatureIterator<SimpleFeature> ite = ds.getFeatureReader(query);
+            while (ite.hasNext()) {
+                expected.add(ite.next().getID());
+            }
+            ite.close();
+
+            final List<FeatureReader> readers = ds.getFeatureReaders(query, 3);
+            assertEquals(3, readers.size());
+            final Set<String> result = new HashSet<String>();
+            for (FeatureReader reader : readers) {
+                while (reader.hasNext()) {
+                    assertTrue(result.add(reader.next().getIdentifier().getID()));
+                }
+                reader.close();
+            }
+            assertEquals(expected, result);
+        }
+        ds.close();
+    }
+
     @Test
     public void testFidFilter() throws Exception {
         File shpFile = copyShapefiles(STATE_POP);
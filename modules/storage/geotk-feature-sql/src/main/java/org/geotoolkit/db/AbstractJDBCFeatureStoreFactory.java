@@ -94,6 +94,10 @@ public abstract class AbstractJDBCFeatureStoreFactory extends AbstractFeatureSto
     /** If connections should be validated before using them */
     public static final ParameterDescriptor<Integer> FETCHSIZE =
              new DefaultParameterDescriptor<>("fetch size","number of records read with each iteraction with the dbms",Integer.class,1000,false);
+
+    /** Number of records inserted in each batch */
+    public static final ParameterDescriptor<Integer> BATCHSIZE =
+             new DefaultParameterDescriptor<>("batch size","number of records inserted with each iteraction with the dbms",Integer.class,1000,false);
     
     /** Maximum amount of time the pool will wait when trying to grab a new connection **/
     public static final ParameterDescriptor<Integer> MAXWAIT =
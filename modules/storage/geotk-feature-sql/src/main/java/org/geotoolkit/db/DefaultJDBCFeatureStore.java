@@ -33,15 +33,20 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.sql.DataSource;
 import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.ObjectConverters;
+import org.apache.sis.util.UnconvertibleObjectException;
 import org.apache.sis.util.Version;
 import org.geotoolkit.data.*;
 import org.geotoolkit.data.memory.GenericFilterFeatureIterator;
 import org.geotoolkit.data.memory.GenericReprojectFeatureIterator;
 import org.geotoolkit.data.memory.GenericRetypeFeatureIterator;
+import org.geotoolkit.data.query.Aggregate;
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.data.query.DefaultQueryCapabilities;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.query.QueryCapabilities;
+import org.geotoolkit.data.query.QueryUtilities;
 import org.geotoolkit.data.query.Selector;
 import org.geotoolkit.data.query.Source;
 import org.geotoolkit.data.query.TextStatement;
@@ -75,11 +80,14 @@ import org.geotoolkit.feature.type.AttributeDescriptor;
 import org.geotoolkit.feature.type.AttributeType;
 import org.geotoolkit.feature.type.ComplexType;
 import org.geotoolkit.feature.type.FeatureType;
+import org.geotoolkit.feature.type.GeometryDescriptor;
 import org.geotoolkit.feature.type.Name;
 import org.geotoolkit.feature.type.PropertyDescriptor;
 import org.geotoolkit.feature.type.PropertyType;
 import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.PropertyName;
 import org.opengis.filter.identity.FeatureId;
 import org.opengis.geometry.Envelope;
 import org.opengis.parameter.ParameterNotFoundException;
@@ -113,6 +121,8 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
     
     //number of records to retrieve with each db call.
     private final int fetchSize;
+    //number of records to insert with each db call.
+    private int batchSize = 1000;
     private SQLQueryBuilder queryBuilder;
         
     
@@ -121,6 +131,14 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
         this.factoryId = factoryId;
         
         fetchSize = (Integer)Parameters.getOrCreate(AbstractJDBCFeatureStoreFactory.FETCHSIZE, params).getValue();
+        try{
+            final Integer size = (Integer)Parameters.getOrCreate(AbstractJDBCFeatureStoreFactory.BATCHSIZE, params).getValue();
+            if(size != null && size > 0){
+                batchSize = size;
+            }
+        }catch(ParameterNotFoundException ex){
+            //parameter migth not exist on all database implementations
+        }
         final boolean simpleTypes = (Boolean)Parameters.getOrCreate(AbstractJDBCFeatureStoreFactory.SIMPLETYPE, params).getValue();        
         dbmodel = new DataBaseModel(this, simpleTypes); 
         
@@ -165,6 +183,14 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
     public int getFetchSize() {
         return fetchSize;
     }
+
+    /**
+     * Returns the number of records inserted with each database call.
+     * @return int sql batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
     
     public void setDialect(SQLDialect dialect) {
         ArgumentChecks.ensureNonNull("dialect", dialect);
@@ -294,6 +320,94 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
         return handleRemaining(reader, qb.buildQuery());
     }
 
+    /**
+     * Split the query by ranges of the primary key.
+     * Only tables with a single integer primary key column are split.
+     */
+    @Override
+    public List<FeatureReader> getFeatureReaders(final Query query, final int nbPartition) throws DataStoreException {
+        if(nbPartition <= 1 || !QueryUtilities.isSplittable(query)){
+            return super.getFeatureReaders(query, nbPartition);
+        }
+
+        final PrimaryKey pkey = dbmodel.getPrimaryKey(query.getTypeName());
+        if(pkey == null || pkey.getColumns().size() != 1){
+            return super.getFeatureReaders(query, nbPartition);
+        }
+        final ColumnMetaModel column = pkey.getColumns().get(0);
+        final Class clazz = column.getJavaType();
+        if(clazz != Long.class && clazz != Integer.class && clazz != Short.class && clazz != Byte.class){
+            return super.getFeatureReaders(query, nbPartition);
+        }
+
+        //find the primary key range
+        final StringBuilder sql = new StringBuilder("SELECT MIN(");
+        getDialect().encodeColumnName(sql, column.getName());
+        sql.append("), MAX(");
+        getDialect().encodeColumnName(sql, column.getName());
+        sql.append(") FROM ");
+        getDialect().encodeSchemaAndTableName(sql, column.getSchema(), column.getTable());
+
+        final long min;
+        final long max;
+        Connection cnx = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            cnx = getDataSource().getConnection();
+            stmt = cnx.createStatement();
+            rs = stmt.executeQuery(sql.toString());
+            rs.next();
+            min = rs.getLong(1);
+            if(rs.wasNull()){
+                //empty table
+                return super.getFeatureReaders(query, nbPartition);
+            }
+            max = rs.getLong(2);
+        } catch (SQLException ex) {
+            throw new DataStoreException(ex.getMessage(), ex);
+        } finally {
+            JDBCFeatureStoreUtilities.closeSafe(getLogger(),cnx,stmt,rs);
+        }
+
+        final double span = (double)max - (double)min + 1;
+        final int nb = (int) Math.max(1, Math.min(nbPartition, span));
+        final FilterFactory ff = getFilterFactory();
+        final List<FeatureReader> readers = new ArrayList<FeatureReader>(nb);
+        try {
+            long lower = min;
+            for(int i=0;i<nb;i++){
+                //last partition includes the max value
+                final Filter range;
+                final long upper;
+                if(i == nb-1){
+                    upper = max;
+                    range = ff.and(
+                            ff.greaterOrEqual(ff.property(column.getName()), ff.literal(lower)),
+                            ff.lessOrEqual(ff.property(column.getName()), ff.literal(upper)));
+                }else{
+                    //computed in double to avoid overflows on large key ranges
+                    upper = (long) Math.floor(min + span * (i+1) / nb);
+                    range = ff.and(
+                            ff.greaterOrEqual(ff.property(column.getName()), ff.literal(lower)),
+                            ff.less(ff.property(column.getName()), ff.literal(upper)));
+                }
+
+                final QueryBuilder qb = new QueryBuilder(query);
+                final Filter filter = query.getFilter();
+                qb.setFilter((filter == Filter.INCLUDE) ? range : ff.and(filter, range));
+                readers.add(getFeatureReader(qb.buildQuery()));
+                lower = upper;
+            }
+        } catch (DataStoreException ex) {
+            for(FeatureReader reader : readers){
+                reader.close();
+            }
+            throw ex;
+        }
+        return readers;
+    }
+
     /**
      * Get reader with geotk query model.
      * @param query
@@ -487,6 +601,131 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
         return super.getCount(query);
     }
 
+    /**
+     * Aggregates are computed by the database when all expressions are simple
+     * columns and the filter can be fully encoded in SQL, otherwise features
+     * are iterated.
+     */
+    @Override
+    public List<Object[]> aggregate(final AggregateQuery query) throws DataStoreException {
+        final FeatureType baseType = getFeatureType(query.getTypeName());
+
+        //replace any PropertyEqualsTo in true ID filters
+        final Filter baseFilter = (Filter) query.getFilter().accept(new FIDFixVisitor(), null);
+        final Filter[] divided = getDialect().splitFilter(baseFilter,baseType);
+        if(divided[1] != null && divided[1] != Filter.INCLUDE){
+            return super.aggregate(query);
+        }
+        //ensure spatial filters are in featuretype geometry crs
+        final Filter preFilter = (Filter)divided[0].accept(new CRSAdaptorVisitor(baseType),null);
+
+        //resolve columns
+        final Expression[] groupBy = query.getGroupBy();
+        for(int i=0;i<groupBy.length;i++){
+            groupBy[i] = toColumn(baseType, groupBy[i]);
+            if(groupBy[i] == null){
+                return super.aggregate(query);
+            }
+        }
+        final Aggregate[] aggregates = query.getAggregates();
+        //column java types, min and max values keep the attribute type
+        final Class[] bindings = new Class[aggregates.length];
+        for(int i=0;i<aggregates.length;i++){
+            final Expression exp = aggregates[i].getExpression();
+            if(exp != null){
+                final Expression column = toColumn(baseType, exp);
+                if(column == null){
+                    return super.aggregate(query);
+                }
+                aggregates[i] = new Aggregate(aggregates[i].getFunction(), column);
+                bindings[i] = ((AttributeDescriptor)column.evaluate(baseType)).getType().getBinding();
+            }
+        }
+
+        final AggregateQuery sqlQuery = new AggregateQuery(query.getTypeName(), preFilter, groupBy, aggregates);
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        Connection cnx = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            final String sql = getQueryBuilder().aggregateSQL(baseType, sqlQuery);
+            cnx = getDataSource().getConnection();
+            stmt = cnx.createStatement();
+            rs = stmt.executeQuery(sql);
+            while(rs.next()){
+                final Object[] row = new Object[groupBy.length + aggregates.length];
+                int col = 1;
+                for(int i=0;i<groupBy.length;i++){
+                    row[i] = rs.getObject(col++);
+                }
+                for(int i=0;i<aggregates.length;i++){
+                    final Object value = rs.getObject(col++);
+                    final Object result;
+                    switch(aggregates[i].getFunction()){
+                        case COUNT :
+                            result = (value == null) ? 0l : ((Number)value).longValue();
+                            break;
+                        case SUM :
+                            result = (value == null) ? null : ((Number)value).doubleValue();
+                            break;
+                        case AVG :
+                            //encoded as sum and count
+                            final long count = rs.getLong(col++);
+                            result = (value == null || count == 0) ? null : ((Number)value).doubleValue() / count;
+                            break;
+                        default :
+                            result = toBinding(value, bindings[i]);
+                    }
+                    row[groupBy.length+i] = result;
+                }
+                rows.add(row);
+            }
+        } catch (SQLException ex) {
+            throw new DataStoreException(ex.getMessage(), ex);
+        } finally {
+            JDBCFeatureStoreUtilities.closeSafe(getLogger(),cnx,stmt,rs);
+        }
+        return rows;
+    }
+
+    /**
+     * Convert a value returned by the database to the attribute type.
+     *
+     * @return converted value, or the value itself if it can not be converted
+     */
+    private Object toBinding(final Object value, final Class binding){
+        if(value == null || binding == null || binding.isInstance(value)){
+            return value;
+        }
+        try{
+            return ObjectConverters.convert(value, binding);
+        }catch(UnconvertibleObjectException ex){
+            getLogger().log(Level.FINE, ex.getMessage(), ex);
+            return value;
+        }
+    }
+
+    /**
+     * @return property name of the table column, null if the expression is not
+     *         a simple column or is a geometry or relation column.
+     */
+    private PropertyName toColumn(final FeatureType type, final Expression exp){
+        if(!(exp instanceof PropertyName)){
+            return null;
+        }
+        final Object candidate = exp.evaluate(type);
+        if(!(candidate instanceof AttributeDescriptor) || candidate instanceof GeometryDescriptor){
+            return null;
+        }
+        final AttributeDescriptor desc = (AttributeDescriptor) candidate;
+        if(desc.getUserData().get(JDBC_PROPERTY_RELATION) != null
+           || type.getDescriptor(desc.getName()) == null){
+            //relation or property of a sub type
+            return null;
+        }
+        return getFilterFactory().property(desc.getName().getLocalPart());
+    }
+
     @Override
     public FeatureWriter getFeatureWriter(final Name typeName, final Filter filter, final Hints hints) throws DataStoreException {
         return getFeatureWriter(typeName, filter, null, hints);
@@ -927,31 +1166,56 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
         handleRemoveWithFeatureWriter(groupName, filter, cnx);
     }
 
+    /**
+     * Insert a collection of features.
+     * Simple features are inserted by batches using a prepared statement,
+     * other features are inserted one by one.
+     */
     protected void insert(final Collection<? extends ComplexAttribute> features, final ComplexType featureType,
             final Connection cx) throws DataStoreException {
-        final PrimaryKey key = dbmodel.getPrimaryKey(featureType.getName());
+        if(!JDBCBatchInsert.isSupported(featureType)){
+            for(ComplexAttribute feature : features){
+                insert(feature, featureType, cx);
+            }
+            return;
+        }
 
-        // we do this in a synchronized block because we need to do two queries,
-        // first to figure out what the id will be, then the insert statement
-        synchronized (this) {
-            Statement st = null;
-            try {
-                st = cx.createStatement();
-                final Object[] nextKeyValues = key.nextPrimaryKeyValues(this, cx);
-                final String sql = getQueryBuilder().insertSQL(featureType, features, nextKeyValues, cx);
-                st.executeUpdate(sql);
+        if(JDBCBatchInsert.isLockRequired(dbmodel.getPrimaryKey(featureType.getName()))){
+            // we do this in a synchronized block because keys are calculated
+            // from the table content, no other insert must happen until the batch is flushed
+            synchronized (this) {
+                insertBatch(features, featureType, cx);
+            }
+        }else{
+            insertBatch(features, featureType, cx);
+        }
+    }
 
-                if (cx.getAutoCommit()) {
-                    fireFeaturesAdded(featureType.getName(), null);
-                }
-            } catch (SQLException e) {
-                throw new DataStoreException("Error inserting features",e);
-            } finally {
-                JDBCFeatureStoreUtilities.closeSafe(getLogger(),st);
+    private void insertBatch(final Collection<? extends ComplexAttribute> features, final ComplexType featureType,
+            final Connection cx) throws DataStoreException {
+        JDBCBatchInsert batch = null;
+        try {
+            batch = new JDBCBatchInsert(this, featureType, cx);
+            for(ComplexAttribute feature : features){
+                batch.add(feature);
+            }
+            batch.flush();
+        } catch (SQLException e) {
+            throw new DataStoreException("Error inserting features",e);
+        } finally {
+            if(batch != null){
+                batch.close();
             }
         }
     }
 
+    /**
+     * Fires a single features added event for a batch of inserted features.
+     */
+    void fireBatchInserted(final Name name){
+        fireFeaturesAdded(name, null);
+    }
+
     protected void insert(final ComplexAttribute feature, final ComplexType featureType,
             final Connection cx) throws DataStoreException {
         
@@ -1025,7 +1289,6 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
                 if (cx.getAutoCommit()) {
                     fireFeaturesAdded(featureType.getName(), null);
                 }
-            //st.executeBatch();
             } catch (SQLException ex) {
                 throw new DataStoreException("Failed to intert features : "+ex.getMessage()+"\nSQL Query :"+sql, ex);
             } finally {
@@ -0,0 +1,291 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.db;
+
+import com.vividsolutions.jts.geom.Geometry;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.db.dialect.SQLDialect;
+import org.geotoolkit.db.dialect.SQLQueryBuilder;
+import org.geotoolkit.db.reverse.ColumnMetaModel;
+import org.geotoolkit.db.reverse.PrimaryKey;
+import org.geotoolkit.feature.ComplexAttribute;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
+import org.geotoolkit.feature.type.ComplexType;
+import org.geotoolkit.feature.type.PropertyDescriptor;
+import org.opengis.coverage.Coverage;
+
+/**
+ * Insert flat features using a single prepared statement.
+ * Features are send to the database by batches of {@link DefaultJDBCFeatureStore#getBatchSize() }
+ * records. Sequenced primary key values are obtained by blocks of the same size,
+ * numeric key values which are not generated by the database are incremented
+ * from the column maximum.
+ *
+ * Incremented keys are only valid if no other insert happens in the table
+ * until the batch is flushed, see {@link #isLockRequired(PrimaryKey) }.
+ *
+ * Primary key columns generated by the database (auto increment) are not inserted,
+ * the feature ids are unknowned in this case.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+final class JDBCBatchInsert {
+
+    private final DefaultJDBCFeatureStore store;
+    private final SQLDialect dialect;
+    private final ComplexType featureType;
+    private final Connection cx;
+    private final int batchSize;
+    private final List<ColumnMetaModel> keyColumns;
+    private final int nbKeyColumns;
+
+    //inserted properties and their index in the primary key columns, -1 if not part of the key
+    private final PropertyDescriptor[] descriptors;
+    private final boolean[] geometries;
+    private final int[] keyIndexes;
+    private final String sql;
+    private PreparedStatement stmt;
+    private int pending = 0;
+
+    //pre-calculated blocks of sequenced key values, by key column
+    private final Object[][] sequenceBlocks;
+    private final int[] sequenceIndexes;
+    //next value of incremented key columns, null until the column maximum is known
+    private final Object[] counters;
+
+    JDBCBatchInsert(final DefaultJDBCFeatureStore store, final ComplexType featureType,
+            final Connection cx) throws SQLException {
+        this.store = store;
+        this.dialect = store.getDialect();
+        this.featureType = featureType;
+        this.cx = cx;
+        this.batchSize = Math.max(1, store.getBatchSize());
+        final PrimaryKey key = store.getDatabaseModel().getPrimaryKey(featureType.getName());
+        this.keyColumns = key.getColumns();
+        this.nbKeyColumns = keyColumns.size();
+        this.sequenceBlocks = new Object[nbKeyColumns][];
+        this.sequenceIndexes = new int[nbKeyColumns];
+        this.counters = new Object[nbKeyColumns];
+
+        final List<PropertyDescriptor> columns = new ArrayList<>();
+        final List<Integer> indexes = new ArrayList<>();
+        fields :
+        for(PropertyDescriptor desc : featureType.getDescriptors()){
+            final String attName = desc.getName().getLocalPart();
+            int keyIndex = -1;
+            for(int k=0;k<nbKeyColumns;k++){
+                final ColumnMetaModel col = keyColumns.get(k);
+                if(col.getName().equals(attName)){
+                    if(col.getType() == ColumnMetaModel.Type.AUTO){
+                        //value will be generated by the database
+                        continue fields;
+                    }
+                    keyIndex = k;
+                }
+            }
+            columns.add(desc);
+            indexes.add(keyIndex);
+        }
+
+        final int nb = columns.size();
+        this.descriptors = columns.toArray(new PropertyDescriptor[nb]);
+        this.geometries = new boolean[nb];
+        this.keyIndexes = new int[nb];
+        for(int i=0;i<nb;i++){
+            geometries[i] = Geometry.class.isAssignableFrom(descriptors[i].getType().getBinding());
+            keyIndexes[i] = indexes.get(i);
+        }
+
+        this.sql = store.getQueryBuilder().insertPreparedSQL(featureType, columns);
+        store.getLogger().log(Level.FINE, "Inserting features with : {0}", sql);
+        this.stmt = cx.prepareStatement(sql);
+    }
+
+    /**
+     * Test if the feature type can be inserted with prepared statements.
+     * Only simple types without coverage properties are supported.
+     */
+    static boolean isSupported(final ComplexType featureType){
+        if(!(featureType instanceof SimpleFeatureType)) return false;
+        for(PropertyDescriptor desc : featureType.getDescriptors()){
+            if(Coverage.class.isAssignableFrom(desc.getType().getBinding())){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Test if the primary key has columns calculated from their current maximum.
+     * Inserting in such tables requires to hold the store lock from the key
+     * calculation until the batch is flushed, otherwise concurrent inserts
+     * could calculate the same keys.
+     */
+    static boolean isLockRequired(final PrimaryKey key){
+        if(key == null || key.isNull()) return false;
+        for(ColumnMetaModel col : key.getColumns()){
+            if(col.isIncremented()){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Test if all primary key values can be known before insertion.
+     * This is the case when no key column is generated by the database.
+     */
+    static boolean isKeyCalculated(final PrimaryKey key){
+        if(key == null || key.isNull()) return false;
+        for(ColumnMetaModel col : key.getColumns()){
+            if(col.getType() == ColumnMetaModel.Type.AUTO){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add a feature in the current batch, the batch is executed when full.
+     * If the feature id can be calculated, it is set in the feature user data
+     * under the 'fid' key.
+     */
+    void add(final ComplexAttribute feature) throws SQLException, DataStoreException {
+        final Object[] keyValues = new Object[nbKeyColumns];
+        final Object[] values = new Object[descriptors.length];
+        //resolve key values before binding parameters, calculating a key may flush the batch
+        for(int i=0;i<descriptors.length;i++){
+            Object value = feature.getProperty(descriptors[i].getName().getLocalPart()).getValue();
+            final int k = keyIndexes[i];
+            if(k >= 0){
+                if(value == null){
+                    value = nextKeyValue(k);
+                }else if(counters[k] instanceof Number && value instanceof Number
+                        && compare((Number)value, (Number)counters[k]) >= 0){
+                    //provided key above the next incremented value, skip it
+                    counters[k] = keyColumns.get(k).increment(value);
+                }
+                keyValues[k] = value;
+            }
+            values[i] = value;
+        }
+
+        int index = 1;
+        for(int i=0;i<descriptors.length;i++){
+            final PropertyDescriptor desc = descriptors[i];
+            if(geometries[i]){
+                final Geometry geom = (Geometry) values[i];
+                index = dialect.setGeometryParameter(stmt, index, geom, SQLQueryBuilder.getGeometrySRID(geom, desc));
+            }else{
+                dialect.setValueParameter(stmt, index, values[i], desc.getType().getBinding());
+                index++;
+            }
+        }
+        stmt.addBatch();
+        pending++;
+
+        //report the feature id as user data since we cant set the fid
+        boolean complete = nbKeyColumns > 0;
+        for(Object v : keyValues){
+            complete &= (v != null);
+        }
+        if(complete){
+            feature.getUserData().put("fid", featureType.getName().getLocalPart() + "." + PrimaryKey.encodeFID(keyValues));
+        }else{
+            feature.getUserData().remove("fid");
+        }
+
+        if(pending >= batchSize){
+            flush();
+        }
+    }
+
+    /**
+     * Calculate the value of a key column which was not provided.
+     *
+     * @param k key column index
+     */
+    private Object nextKeyValue(final int k) throws SQLException, DataStoreException {
+        final ColumnMetaModel column = keyColumns.get(k);
+        if(column.isDatabaseGenerated()){
+            //sequences can be called concurrently, values are fetched by blocks
+            if(sequenceBlocks[k] == null || sequenceIndexes[k] >= sequenceBlocks[k].length){
+                sequenceBlocks[k] = column.nextColumnValues(store, cx, batchSize);
+                sequenceIndexes[k] = 0;
+            }
+            return sequenceBlocks[k][sequenceIndexes[k]++];
+        }else if(column.isIncremented()){
+            if(counters[k] == null){
+                //the column maximum must include the pending records
+                flush();
+                counters[k] = column.nextColumnValue(store, cx);
+            }
+            final Object value = counters[k];
+            counters[k] = column.increment(value);
+            return value;
+        }else{
+            return column.nextColumnValue(store, cx);
+        }
+    }
+
+    private static int compare(final Number n1, final Number n2){
+        if(n1 instanceof BigDecimal || n2 instanceof BigDecimal
+                || n1 instanceof BigInteger || n2 instanceof BigInteger){
+            return new BigDecimal(n1.toString()).compareTo(new BigDecimal(n2.toString()));
+        }else if(n1 instanceof Float || n2 instanceof Float
+                || n1 instanceof Double || n2 instanceof Double){
+            return Double.compare(n1.doubleValue(), n2.doubleValue());
+        }else{
+            return Long.compare(n1.longValue(), n2.longValue());
+        }
+    }
+
+    /**
+     * Execute pending inserts.
+     * A single event is send for the whole batch.
+     */
+    void flush() throws SQLException {
+        if(pending == 0) return;
+        try{
+            stmt.executeBatch();
+        }catch(SQLException ex){
+            throw new SQLException("Failed to insert features : "+ex.getMessage()+"\nSQL Query :"+sql, ex);
+        }
+        pending = 0;
+        if (cx.getAutoCommit()) {
+            store.fireBatchInserted(featureType.getName());
+        }
+    }
+
+    /**
+     * Release the prepared statement, pending inserts are lost.
+     */
+    void close(){
+        JDBCFeatureStoreUtilities.closeSafe(store.getLogger(),stmt);
+        stmt = null;
+    }
+
+}
@@ -19,12 +19,11 @@ package org.geotoolkit.db;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Collection;
 
 import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.db.reverse.PrimaryKey;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.factory.HintsPending;
 import org.geotoolkit.feature.AbstractFeature;
@@ -35,13 +34,17 @@ import org.geotoolkit.feature.type.FeatureType;
 
 /**
  * Feature writer for insertion only.
+ * Simple features are inserted by batches when their ids can be calculated
+ * before insertion or when the {@link HintsPending#UPDATE_ID_ON_INSERT} hint is false.
+ * Tables with keys incremented from the column maximum are always inserted
+ * one feature at a time, the key calculation and the insert being done under
+ * the store lock.
  * 
  * @author Johann Sorel (Geomatys)
  */
 public class JDBCFeatureWriterInsert extends JDBCFeatureReader implements FeatureWriter<FeatureType, Feature> {
 
-    private boolean batchInsert;
-    private Collection<Feature> toAdd;
+    private JDBCBatchInsert batch;
     
     //private String id;
     private AbstractFeature last;
@@ -66,12 +69,20 @@ public class JDBCFeatureWriterInsert extends JDBCFeatureReader implements Featur
 //                return new DefaultFeatureId(JDBCFeatureWriterInsert.this.id);
 //            }
 //        };
-        if(hints != null){
-            batchInsert = Boolean.FALSE.equals(hints.get(HintsPending.UPDATE_ID_ON_INSERT));
-        }else{
-            batchInsert = Boolean.FALSE;
+        final boolean idRequiered = (hints == null)
+                || !Boolean.FALSE.equals(hints.get(HintsPending.UPDATE_ID_ON_INSERT));
+        final PrimaryKey key = store.getDatabaseModel().getPrimaryKey(type.getName());
+        //keys incremented from the table content can not be calculated while
+        //other writers insert, those features are inserted one by one under the store lock
+        if(JDBCBatchInsert.isSupported(type)
+                && !JDBCBatchInsert.isLockRequired(key)
+                && (!idRequiered || JDBCBatchInsert.isKeyCalculated(key))){
+            try {
+                batch = new JDBCBatchInsert(store, type, cx);
+            } catch (SQLException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            }
         }
-        toAdd = (batchInsert) ? new ArrayList<Feature>() : null;
     }
     
     @Override
@@ -93,42 +104,43 @@ public class JDBCFeatureWriterInsert extends JDBCFeatureReader implements Featur
     @Override
     public void write() throws FeatureStoreRuntimeException {
         
-        if(batchInsert){
-            toAdd.add(last);
-            last = (AbstractFeature)FeatureUtilities.defaultFeature(type, "-1");
-            if(toAdd.size() > 1000){
-                try {
-                    store.insert(toAdd, type, cx);
-                } catch (DataStoreException e) {
-                    throw new FeatureStoreRuntimeException(e);
-                }
-                toAdd.clear();
+        if(batch != null){
+            try {
+                //feature values are copied in the statement, the feature can be reused
+                batch.add(last);
+            } catch (SQLException | DataStoreException e) {
+                throw new FeatureStoreRuntimeException(e);
             }
         }else{
             try {
                 store.insert(last, type, cx);
-                //the featurestore sets as userData, grab it and update the fid
-                final String id = (String) last.getUserData().get("fid");
-                if (id != null) {
-                    last.setIdentifier(new DefaultFeatureId(id));
-                }
             } catch (DataStoreException e) {
                 throw new FeatureStoreRuntimeException(e);
             }
         }
+        
+        //the featurestore sets as userData, grab it and update the fid
+        final String id = (String) last.getUserData().get("fid");
+        if (id != null) {
+            last.setIdentifier(new DefaultFeatureId(id));
+        }
     }
 
     @Override
     public void close() throws FeatureStoreRuntimeException {
 
-        if(batchInsert && !toAdd.isEmpty()){
+        if(batch != null){
             try {
-                //do the insert
-                store.insert(toAdd, type, cx);
-            } catch (DataStoreException e) {
+                //insert remaining features
+                batch.flush();
+            } catch (SQLException e) {
                 throw new FeatureStoreRuntimeException(e);
+            } finally {
+                batch.close();
+                batch = null;
+                super.close();
             }
-            toAdd.clear();
+            return;
         }
         
         super.close();
@@ -16,8 +16,19 @@
  */
 package org.geotoolkit.db.dialect;
 
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.CoordinateSequenceFilter;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.io.WKBWriter;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.db.reverse.ColumnMetaModel;
 import org.geotoolkit.feature.AttributeTypeBuilder;
 import org.geotoolkit.filter.capability.DefaultFilterCapabilities;
 import org.geotoolkit.filter.visitor.CapabilitiesFilterSplitter;
@@ -105,5 +116,88 @@ public abstract class AbstractSQLDialect implements SQLDialect {
         atb.setBinding(binding);
     }
 
+    /**
+     * Default implementation use the ST_GeomFromWKB function with
+     * the WKB and the SRID as parameters.
+     */
+    @Override
+    public void encodeGeometryParameter(StringBuilder sql) {
+        sql.append("ST_GeomFromWKB(?,?)");
+    }
+
+    /**
+     * Default implementation use the standard DEFAULT VALUES clause.
+     */
+    @Override
+    public void encodeDefaultValues(StringBuilder sql, String columnName) {
+        sql.append(" DEFAULT VALUES");
+    }
+
+    /**
+     * Default implementation write the geometry in WKB, in 3D if the geometry
+     * has Z ordinates, linear rings are converted to line strings.
+     */
+    @Override
+    public int setGeometryParameter(PreparedStatement stmt, int index, Geometry value, int srid) throws SQLException {
+        if (value instanceof LinearRing) {
+            //linear rings are not supported by WKB, convert to just a line string
+            value = value.getFactory().createLineString(((LinearRing) value).getCoordinateSequence());
+        }
+        if (value == null) {
+            stmt.setNull(index, Types.BINARY);
+        } else {
+            stmt.setBytes(index, new WKBWriter(getCoordinateDimension(value)).write(value));
+        }
+        stmt.setInt(index+1, srid);
+        return index+2;
+    }
+
+    /**
+     * @return 3 if the geometry has at least one Z ordinate, 2 otherwise.
+     */
+    private static int getCoordinateDimension(final Geometry geom) {
+        final boolean[] hasZ = new boolean[1];
+        geom.apply(new CoordinateSequenceFilter() {
+            @Override
+            public void filter(CoordinateSequence seq, int i) {
+                hasZ[0] = seq.getDimension() > 2 && !Double.isNaN(seq.getOrdinate(i, CoordinateSequence.Z));
+            }
+            @Override
+            public boolean isDone() {
+                return hasZ[0];
+            }
+            @Override
+            public boolean isGeometryChanged() {
+                return false;
+            }
+        });
+        return hasZ[0] ? 3 : 2;
+    }
+
+    @Override
+    public void setValueParameter(PreparedStatement stmt, int index, Object value, Class type) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, Types.NULL);
+        } else if (value instanceof Character) {
+            stmt.setString(index, value.toString());
+        } else if (value.getClass() == Date.class) {
+            stmt.setTimestamp(index, new Timestamp(((Date)value).getTime()));
+        } else {
+            stmt.setObject(index, value);
+        }
+    }
+
+    /**
+     * Default implementation calls {@link #nextValue(ColumnMetaModel, Connection) }
+     * for each value.
+     */
+    @Override
+    public Object[] nextValues(ColumnMetaModel column, Connection cx, int count) throws SQLException, DataStoreException {
+        final Object[] values = new Object[count];
+        for(int i=0;i<count;i++){
+            values[i] = nextValue(column, cx);
+        }
+        return values;
+    }
     
 }
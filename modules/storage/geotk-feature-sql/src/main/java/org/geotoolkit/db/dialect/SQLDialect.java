@@ -19,6 +19,7 @@ package org.geotoolkit.db.dialect;
 import com.vividsolutions.jts.geom.Geometry;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Map;
@@ -116,6 +117,45 @@ public interface SQLDialect {
     void encodeGeometryValue(StringBuilder sql, Geometry value, int srid) throws DataStoreException;
     
     void encodeCoverageValue(StringBuilder sql, Coverage value) throws DataStoreException;
+
+    /**
+     * Encode a geometry parameter in a prepared statement query.
+     * Parameters must be filled using {@link #setGeometryParameter(PreparedStatement, int, Geometry, int) }.
+     * 
+     * @param sql 
+     */
+    void encodeGeometryParameter(StringBuilder sql);
+
+    /**
+     * Encode the end of an 'INSERT INTO' statement when no column value is given,
+     * all columns take their default value.
+     *
+     * @param sql statement, ending with the table name
+     * @param columnName name of a column of the table, for dialects which
+     *        require at least one column
+     */
+    void encodeDefaultValues(StringBuilder sql, String columnName);
+
+    /**
+     * Set a geometry parameter value in a prepared statement.
+     * 
+     * @param stmt prepared statement
+     * @param index index of the first parameter of the geometry
+     * @param value geometry, can be null
+     * @param srid geometry srid
+     * @return index of the next parameter
+     */
+    int setGeometryParameter(PreparedStatement stmt, int index, Geometry value, int srid) throws SQLException;
+
+    /**
+     * Set a value parameter in a prepared statement.
+     * 
+     * @param stmt prepared statement
+     * @param index parameter index
+     * @param value value, can be null
+     * @param type value binding
+     */
+    void setValueParameter(PreparedStatement stmt, int index, Object value, Class type) throws SQLException;
     
     void encodePrimaryKey(StringBuilder sql, Class binding, String sqlType);
 
@@ -131,6 +171,16 @@ public interface SQLDialect {
     ////////////////////////////////////////////////////////////////////////////
     
     Object nextValue(ColumnMetaModel column, Connection cx) throws SQLException, DataStoreException;
+
+    /**
+     * Calculate a block of column values in a single database call when possible.
+     * 
+     * @param column primary key column
+     * @param cx connection
+     * @param count number of values to generate
+     * @return array of size count
+     */
+    Object[] nextValues(ColumnMetaModel column, Connection cx, int count) throws SQLException, DataStoreException;
     
     
     ////////////////////////////////////////////////////////////////////////////
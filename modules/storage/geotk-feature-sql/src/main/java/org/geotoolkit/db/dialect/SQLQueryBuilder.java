@@ -24,6 +24,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import org.geotoolkit.data.query.Aggregate;
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.db.DefaultJDBCFeatureStore;
 import org.geotoolkit.db.JDBCFeatureStore;
@@ -46,6 +48,7 @@ import org.geotoolkit.feature.type.PropertyDescriptor;
 import org.geotoolkit.filter.function.string.StringFunctionFactory;
 import org.opengis.filter.Filter;
 import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.expression.Expression;
 import org.opengis.filter.expression.Function;
 import org.opengis.filter.expression.Literal;
 import org.opengis.filter.expression.PropertyName;
@@ -113,6 +116,68 @@ public class SQLQueryBuilder {
         return sql.toString();
     }
 
+    /**
+     * Generates a 'SELECT g1, ..., COUNT(*), SUM(p1), ... FROM ... WHERE ... GROUP BY g1, ...' statement.
+     * All expressions of the query must be property names.
+     * AVG function is encoded as SUM and COUNT columns, since the average of
+     * integer columns is an integer on some databases.
+     *
+     * @param featureType
+     *            the aggregated feature type
+     * @param query
+     *            the aggregate query, the filter must be fully supported by the dialect
+     * @return String
+     */
+    public String aggregateSQL(final FeatureType featureType, final AggregateQuery query) throws DataStoreException {
+        final StringBuilder sql = new StringBuilder("SELECT ");
+
+        final Expression[] groupBy = query.getGroupBy();
+        for(Expression exp : groupBy){
+            dialect.encodeColumnName(sql, ((PropertyName)exp).getPropertyName());
+            sql.append(',');
+        }
+        for(Aggregate agg : query.getAggregates()){
+            final Expression exp = agg.getExpression();
+            if(exp == null){
+                sql.append("COUNT(*)");
+            }else if(agg.getFunction() == Aggregate.Function.AVG){
+                sql.append("SUM(");
+                dialect.encodeColumnName(sql, ((PropertyName)exp).getPropertyName());
+                sql.append("),COUNT(");
+                dialect.encodeColumnName(sql, ((PropertyName)exp).getPropertyName());
+                sql.append(')');
+            }else{
+                sql.append(agg.getFunction().name()).append('(');
+                dialect.encodeColumnName(sql, ((PropertyName)exp).getPropertyName());
+                sql.append(')');
+            }
+            sql.append(',');
+        }
+        sql.setLength(sql.length() - 1);
+
+        sql.append(" FROM ");
+        dialect.encodeSchemaAndTableName(sql, databaseSchema, featureType.getName().getLocalPart());
+
+        // filtering
+        final Filter filter = query.getFilter();
+        if (!Filter.INCLUDE.equals(filter)) {
+            sql.append(" WHERE ");
+            sql.append(dialect.encodeFilter(filter,featureType));
+        }
+
+        // grouping
+        if(groupBy.length > 0){
+            sql.append(" GROUP BY ");
+            for(Expression exp : groupBy){
+                dialect.encodeColumnName(sql, ((PropertyName)exp).getPropertyName());
+                sql.append(',');
+            }
+            sql.setLength(sql.length() - 1);
+        }
+
+        return sql.toString();
+    }
+
     protected void encodeSelectColumnNames(StringBuilder sql, FeatureType featureType, Hints hints){
         for (PropertyDescriptor att : featureType.getDescriptors()) {
             final RelationMetaModel relation = (RelationMetaModel)att.getUserData().get(JDBCFeatureStore.JDBC_PROPERTY_RELATION);
@@ -321,6 +386,51 @@ public class SQLQueryBuilder {
     }
 
 
+    /**
+     * Generates a 'INSERT INTO' sql statement with parameters, for use in a prepared statement.
+     * Each property has one parameter, geometries are encoded with
+     * {@link SQLDialect#encodeGeometryParameter(StringBuilder) }.
+     * If there are no columns, all values are generated by the database, the
+     * statement has no parameter and is encoded with
+     * {@link SQLDialect#encodeDefaultValues(StringBuilder, String) }.
+     *
+     * @param featureType inserted feature type
+     * @param columns properties to insert
+     */
+    public String insertPreparedSQL(final ComplexType featureType, final List<PropertyDescriptor> columns) {
+        final StringBuilder sqlType = new StringBuilder();
+        sqlType.append("INSERT INTO ");
+        dialect.encodeSchemaAndTableName(sqlType, databaseSchema, featureType.getName().getLocalPart());
+
+        if(columns.isEmpty()){
+            final String columnName = featureType.getDescriptors().iterator().next().getName().getLocalPart();
+            dialect.encodeDefaultValues(sqlType, columnName);
+            return sqlType.toString();
+        }
+
+        sqlType.append(" ( ");
+
+        final StringBuilder sqlValues = new StringBuilder();
+        sqlValues.append(" ) VALUES ( ");
+
+        for(PropertyDescriptor desc : columns){
+            dialect.encodeColumnName(sqlType, desc.getName().getLocalPart());
+            if (Geometry.class.isAssignableFrom(desc.getType().getBinding())) {
+                dialect.encodeGeometryParameter(sqlValues);
+            } else {
+                sqlValues.append('?');
+            }
+            sqlType.append(',');
+            sqlValues.append(',');
+        }
+
+        sqlType.setLength(sqlType.length() - 1);
+        sqlValues.setLength(sqlValues.length() - 1);
+        sqlValues.append(")");
+
+        return sqlType.toString() + sqlValues.toString();
+    }
+
     /**
      * Generates an 'UPDATE' sql statement.
      */
@@ -118,6 +118,22 @@ public class ColumnMetaModel {
     public String getSequenceName() {
         return sequenceName;
     }
+
+    /**
+     * @return true if the column value is generated by the database,
+     *         using an auto increment or a sequence.
+     */
+    public boolean isDatabaseGenerated() {
+        return type == Type.AUTO || type == Type.SEQUENCED;
+    }
+
+    /**
+     * @return true if the next column value is calculated by incrementing
+     *         the current maximum value of the column.
+     */
+    public boolean isIncremented() {
+        return !isDatabaseGenerated() && Number.class.isAssignableFrom(clazz);
+    }
     
     @Override
     public String toString() {
@@ -170,18 +186,15 @@ public class ColumnMetaModel {
                     // TODO: probably better to do a count to check... but if this
                     // value already exists the db will throw an error when it tries
                     // to insert
-                    next = 1;
-                }else if (clazz == Short.class || clazz == Integer.class || clazz == Long.class
-                        || BigInteger.class.isAssignableFrom(clazz)
-                        || BigDecimal.class.isAssignableFrom(clazz) ) {
-                    next = ((Number)next).longValue() +1;
-                }else if (clazz == Float.class){
-                    next = Math.nextUp( ((Number)next).floatValue() );
-                }else if (clazz == Double.class){
-                    next = Math.nextUp( ((Number)next).doubleValue() );
+                    if (BigInteger.class.isAssignableFrom(clazz)) {
+                        next = BigInteger.ONE;
+                    } else if (BigDecimal.class.isAssignableFrom(clazz)) {
+                        next = BigDecimal.ONE;
+                    } else {
+                        next = 1;
+                    }
                 }else{
-                    //can't calculate for other types
-                    next = 1;
+                    next = increment(next);
                 }
 
             } else if (CharSequence.class.isAssignableFrom(clazz)) {
@@ -196,5 +209,67 @@ public class ColumnMetaModel {
 
         return next;
     }
+
+    /**
+     * Calculate a block of next column values.
+     * Database generated values are obtained in a single call when the dialect
+     * supports it, other numeric values are incremented from the current maximum.
+     * 
+     * @param count number of values to calculate
+     */
+    public Object[] nextColumnValues(final DefaultJDBCFeatureStore store, final Connection cx, final int count)
+            throws SQLException, DataStoreException {
+        if(type == Type.AUTO || type == Type.SEQUENCED){
+            return store.getDialect().nextValues(this, cx, count);
+        }
+
+        final Object[] values = new Object[count];
+        if(count == 0) return values;
+        values[0] = nextColumnValue(store, cx);
+        for(int i=1;i<count;i++){
+            values[i] = isIncremented() ? increment(values[i-1]) : nextColumnValue(store, cx);
+        }
+        return values;
+    }
+
+    /**
+     * Calculate the value following the given one for an incremented column.
+     * Big integer and big decimal values keep their type.
+     *
+     * @param previous previous column value, must be a number
+     */
+    public Object increment(final Object previous) {
+        final Number number = (Number) previous;
+        if (clazz == Short.class || clazz == Integer.class || clazz == Long.class) {
+            return number.longValue() +1;
+        }else if (BigInteger.class.isAssignableFrom(clazz)) {
+            final BigInteger big;
+            if (number instanceof BigInteger) {
+                big = (BigInteger) number;
+            } else if (number instanceof BigDecimal) {
+                big = ((BigDecimal) number).toBigInteger();
+            } else {
+                big = BigInteger.valueOf(number.longValue());
+            }
+            return big.add(BigInteger.ONE);
+        }else if (BigDecimal.class.isAssignableFrom(clazz)) {
+            final BigDecimal big;
+            if (number instanceof BigDecimal) {
+                big = (BigDecimal) number;
+            } else if (number instanceof BigInteger) {
+                big = new BigDecimal((BigInteger) number);
+            } else {
+                big = new BigDecimal(number.toString());
+            }
+            return big.add(BigDecimal.ONE);
+        }else if (clazz == Float.class){
+            return Math.nextUp( number.floatValue() );
+        }else if (clazz == Double.class){
+            return Math.nextUp( number.doubleValue() );
+        }else{
+            //can't calculate for other types
+            return 1;
+        }
+    }
     
 }
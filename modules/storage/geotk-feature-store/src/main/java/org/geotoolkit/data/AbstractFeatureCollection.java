@@ -281,9 +281,9 @@ public abstract class AbstractFeatureCollection<F extends Feature> extends Abstr
 
         //wrap sort by ---------------------------------------------------------
         //This can be really expensive, and force the us to read the full iterator.
-        //that may cause out of memory errors.
+        //large simple feature sets are sorted in temporary files, see SORT_MEMORY_FEATURES hint.
         if(sorts != null && sorts.length != 0){
-            result = GenericSortByFeatureIterator.wrap(result, sorts);
+            result = GenericSortByFeatureIterator.wrap(result, sorts, hints);
         }
 
         //wrap filter ----------------------------------------------------------
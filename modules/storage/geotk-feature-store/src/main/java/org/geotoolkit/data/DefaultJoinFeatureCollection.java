@@ -19,8 +19,11 @@ package org.geotoolkit.data;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.memory.FeatureHashIndex;
 import org.geotoolkit.data.query.Join;
 import org.geotoolkit.data.query.JoinType;
 import org.geotoolkit.data.query.Query;
@@ -30,6 +33,7 @@ import org.geotoolkit.data.query.Selector;
 import org.geotoolkit.data.query.Source;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.factory.Hints;
+import org.geotoolkit.factory.HintsPending;
 import org.geotoolkit.feature.AttributeDescriptorBuilder;
 import org.geotoolkit.feature.type.DefaultName;
 import org.geotoolkit.feature.FeatureTypeBuilder;
@@ -42,11 +46,19 @@ import org.geotoolkit.feature.type.Name;
 import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory;
 import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.expression.Expression;
 import org.opengis.filter.expression.PropertyName;
 
 /**
  * FeatureCollection that takes it'es source from a join query.
  *
+ * Joins are resolved by indexing one side in a hash table on the join
+ * condition value, the smallest side for inner joins. The index is built on
+ * the first iteration and kept until the content of the sources changes.
+ * If the indexed side contains more features than the
+ * {@link HintsPending#JOIN_MEMORY_FEATURES} hint, the other collection
+ * is queried for each feature instead.
+ *
  * @author Johann Sorel (Geomatys)
  * @module pending
  */
@@ -56,12 +68,20 @@ public class DefaultJoinFeatureCollection extends AbstractFeatureCollection<Feat
 
     private static final FilterFactory FF = FactoryFinder.getFilterFactory(null);
 
+    /**
+     * Default maximum number of features indexed in memory.
+     */
+    public static final int DEFAULT_MEMORY_FEATURES = 1000000;
+
     private final Query query;
     private final FeatureCollection leftCollection;
     private final FeatureCollection rightCollection;
     private FeatureType type = null;
     private AttributeDescriptor leftDesc = null;
     private AttributeDescriptor rightDesc = null;
+    /** Hash index of one side, null until the first iteration. */
+    private FeatureHashIndex index = null;
+    private boolean indexLeft;
 
     public DefaultJoinFeatureCollection(final String id, final Query query){
         super(id,query.getSource());
@@ -154,6 +174,12 @@ public class DefaultJoinFeatureCollection extends AbstractFeatureCollection<Feat
         final JoinType jt = getSource().getJoinType();
 
         try{
+            final FeatureIterator<Feature> hashIte = createHashIterator(jt, getMemoryLimit(hints));
+            if(hashIte != null){
+                return hashIte;
+            }
+
+            //too many features to index, use nested loops
             if(jt == JoinType.INNER){
                 return new JoinInnerRowIterator(null);
             }else if(jt == JoinType.LEFT_OUTER){
@@ -168,6 +194,108 @@ public class DefaultJoinFeatureCollection extends AbstractFeatureCollection<Feat
         }
     }
 
+    private static int getMemoryLimit(final Hints hints){
+        if(hints != null){
+            final Object value = hints.get(HintsPending.JOIN_MEMORY_FEATURES);
+            if(value instanceof Integer && (Integer)value > 0){
+                return (Integer) value;
+            }
+        }
+        return DEFAULT_MEMORY_FEATURES;
+    }
+
+    /**
+     * Create an iterator resolving the join with a hash table.
+     *
+     * @return iterator or null if the indexed collection has more features than the limit.
+     */
+    private FeatureIterator<Feature> createHashIterator(final JoinType jt, final int limit) throws DataStoreException{
+        final boolean left;
+        final FeatureHashIndex hashIndex;
+        synchronized(this){
+            hashIndex = getIndex(jt, limit);
+            left = indexLeft;
+        }
+        if(hashIndex == null){
+            return null;
+        }
+
+        final PropertyIsEqualTo equal = getSource().getJoinCondition();
+        final Expression probeProperty = left ? equal.getExpression2() : equal.getExpression1();
+        final FeatureIterator<Feature> probeIte = (left ? rightCollection : leftCollection).iterator();
+        return new JoinHashRowIterator(probeIte, probeProperty, hashIndex, !left, jt != JoinType.INNER);
+    }
+
+    /**
+     * Get the hash index, built on first call. Outer joins index the optional
+     * side, inner joins the side with less features. Features are counted
+     * before being read, collections above the limit are not indexed.
+     *
+     * @return index or null if the indexed collection has more features than the limit.
+     */
+    private synchronized FeatureHashIndex getIndex(final JoinType jt, final int limit) throws DataStoreException{
+        if(index != null){
+            return index;
+        }
+
+        final boolean left;
+        final int count;
+        if(jt == JoinType.INNER){
+            final int leftCount = leftCollection.size();
+            final int rightCount = rightCollection.size();
+            left = leftCount < rightCount;
+            count = Math.min(leftCount, rightCount);
+        }else if(jt == JoinType.LEFT_OUTER){
+            left = false;
+            count = rightCollection.size();
+        }else if(jt == JoinType.RIGHT_OUTER){
+            left = true;
+            count = leftCollection.size();
+        }else{
+            throw new IllegalArgumentException("Unknowned Join type : " + jt);
+        }
+        if(count > limit){
+            return null;
+        }
+
+        final PropertyIsEqualTo equal = getSource().getJoinCondition();
+        final FeatureHashIndex candidate = new FeatureHashIndex(left ? equal.getExpression1() : equal.getExpression2());
+        final FeatureIterator<Feature> buildIte = (left ? leftCollection : rightCollection).iterator();
+        try{
+            if(!candidate.addAll(buildIte, limit)){
+                //features added since the count
+                return null;
+            }
+        }finally{
+            buildIte.close();
+        }
+        indexLeft = left;
+        index = candidate;
+        return index;
+    }
+
+    /**
+     * Drop the hash index when the sources content changes.
+     */
+    @Override
+    public void contentChanged(final FeatureStoreContentEvent event) {
+        synchronized(this){
+            index = null;
+        }
+        super.contentChanged(event);
+    }
+
+    /**
+     * Drop the hash index when the sources structure changes.
+     */
+    @Override
+    public void structureChanged(final FeatureStoreManagementEvent event) {
+        synchronized(this){
+            index = null;
+        }
+        super.structureChanged(event);
+    }
+
     @Override
     public void update(final Filter filter, final Map<? extends AttributeDescriptor, ? extends Object> values) throws DataStoreException {
         if(isWritable()){
@@ -186,6 +314,92 @@ public class DefaultJoinFeatureCollection extends AbstractFeatureCollection<Feat
         }
     }
 
+    /**
+     * Iterate on one collection and search matching features in a hash index
+     * of the other collection.
+     */
+    private class JoinHashRowIterator implements FeatureIterator<Feature>{
+
+        private final FeatureIterator<Feature> probeIterator;
+        private final Expression probeProperty;
+        private final FeatureHashIndex index;
+        private final boolean probeLeft;
+        private final boolean outer;
+        private Feature probeFeature;
+        private Iterator<Feature> matches = Collections.<Feature>emptyList().iterator();
+        private boolean matched = true;
+        private Feature combined;
+
+        JoinHashRowIterator(final FeatureIterator<Feature> probeIterator, final Expression probeProperty,
+                final FeatureHashIndex index, final boolean probeLeft, final boolean outer){
+            this.probeIterator = probeIterator;
+            this.probeProperty = probeProperty;
+            this.index = index;
+            this.probeLeft = probeLeft;
+            this.outer = outer;
+        }
+
+        @Override
+        public Feature next() {
+            try {
+                searchNext();
+            } catch (DataStoreException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            }
+            Feature f = combined;
+            combined = null;
+            return f;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                searchNext();
+            } catch (DataStoreException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            }
+            return combined != null;
+        }
+
+        private void searchNext() throws DataStoreException{
+            while(combined == null){
+                //we might have several matching features for one probe feature
+                while(combined == null && matches.hasNext()){
+                    final Feature other = matches.next();
+                    final Feature candidate = probeLeft ? toFeature(probeFeature, other) : toFeature(other, probeFeature);
+                    if(query.getFilter().evaluate(candidate)){
+                        combined = candidate;
+                        matched = true;
+                    }
+                }
+                if(combined != null) return;
+
+                if(outer && !matched){
+                    //outer join effect, no match but still we must return the probe side
+                    combined = probeLeft ? toFeature(probeFeature, null) : toFeature(null, probeFeature);
+                    matched = true;
+                    return;
+                }
+
+                if(!probeIterator.hasNext()) return;
+                probeFeature = probeIterator.next();
+                matches = index.get(probeProperty.evaluate(probeFeature)).iterator();
+                matched = false;
+            }
+        }
+
+        @Override
+        public void close() {
+            probeIterator.close();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported yet on join queries.");
+        }
+
+    }
+
     /**
      * Iterate on both collections with an Inner join condition.
      */
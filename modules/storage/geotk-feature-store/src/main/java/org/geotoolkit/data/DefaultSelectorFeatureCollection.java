@@ -21,15 +21,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.query.QueryUtilities;
 import org.geotoolkit.data.query.Selector;
+import org.geotoolkit.data.session.Session;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.factory.HintsPending;
@@ -127,6 +130,53 @@ public class DefaultSelectorFeatureCollection extends AbstractFeatureCollection<
         }
     }
 
+    /**
+     * Split the collection in several iterators which can be used concurrently.
+     * Collections with pending session changes are not split.
+     *
+     * @see FeatureStore#getFeatureReaders(org.geotoolkit.data.query.Query, int)
+     * @param nbPartition wanted number of iterators
+     * @return List of FeatureIterator, never empty
+     * @throws DataStoreException
+     */
+    public List<FeatureIterator<Feature>> iterators(final int nbPartition) throws DataStoreException{
+        final Session session = getSession();
+        if(session.hasPendingChanges()){
+            return Collections.singletonList(iterator());
+        }
+        return (List) session.getFeatureStore().getFeatureReaders(query, nbPartition);
+    }
+
+    /**
+     * Evaluate an aggregate query on this collection.
+     * The aggregation is send to the feature store when the collection has no
+     * pending session changes, no reprojection, no paging and no version,
+     * otherwise features are iterated.
+     *
+     * @see FeatureStore#aggregate(org.geotoolkit.data.query.AggregateQuery)
+     * @param aggregate aggregate query, type name is ignored
+     * @return List of rows, group by values followed by aggregate values
+     * @throws DataStoreException
+     */
+    public List<Object[]> aggregate(final AggregateQuery aggregate) throws DataStoreException{
+        final Session session = getSession();
+        if(session.hasPendingChanges()
+           || !QueryUtilities.isSplittable(query)
+           || query.getCoordinateSystemReproject() != null
+           || query.getVersionDate() != null
+           || query.getVersionLabel() != null){
+            return FeatureStoreUtilities.aggregate(iterator(), aggregate);
+        }
+
+        Filter filter = query.getFilter();
+        if(filter == Filter.INCLUDE){
+            filter = aggregate.getFilter();
+        }else if(aggregate.getFilter() != Filter.INCLUDE){
+            filter = FactoryFinder.getFilterFactory(null).and(filter, aggregate.getFilter());
+        }
+        return session.getFeatureStore().aggregate(aggregate.derivate(query.getTypeName(), filter));
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -18,16 +18,21 @@
 package org.geotoolkit.data;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.apache.sis.storage.DataStore;
 import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.query.Aggregate;
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.data.query.Query;
+import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.query.QueryCapabilities;
 import org.geotoolkit.data.session.Session;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.feature.SchemaException;
+import org.geotoolkit.filter.visitor.FilterAttributeExtractor;
 import org.geotoolkit.storage.StorageListener;
 import org.geotoolkit.version.Version;
 import org.geotoolkit.version.VersionControl;
@@ -38,6 +43,7 @@ import org.geotoolkit.feature.type.FeatureType;
 import org.geotoolkit.feature.type.Name;
 import org.geotoolkit.feature.type.PropertyDescriptor;
 import org.opengis.filter.Filter;
+import org.opengis.filter.expression.Expression;
 import org.opengis.filter.identity.FeatureId;
 import org.opengis.geometry.Envelope;
 import org.opengis.parameter.ParameterValueGroup;
@@ -298,6 +304,66 @@ public abstract class FeatureStore extends DataStore{
      */
     public abstract FeatureReader getFeatureReader(Query query) throws DataStoreException;
 
+    /**
+     * Get several feature readers which together iterate on the features of the query.
+     * Each feature is returned by only one reader and readers can be used
+     * concurrently, one reader per thread.
+     * The number of partitions is a hint, less readers may be returned.
+     * Queries with a sort order, a start index or a max features are not split,
+     * see {@link org.geotoolkit.data.query.QueryUtilities#isSplittable(org.geotoolkit.data.query.Query) }.
+     *
+     * Default implementation returns a single reader.
+     *
+     * @param query , requested parameters
+     * @param nbPartition , wanted number of readers
+     * @return List of FeatureReader , never empty
+     * @throws DataStoreException
+     */
+    public List<FeatureReader> getFeatureReaders(final Query query, final int nbPartition) throws DataStoreException{
+        return Collections.singletonList(getFeatureReader(query));
+    }
+
+    /**
+     * Evaluate an aggregate query, count, sum, min, max or average of
+     * expressions, grouped by expression values.
+     *
+     * Default implementation iterates on the features, reading only the
+     * properties used by the expressions. Feature stores which can compute
+     * aggregates natively, like databases, should override this method.
+     *
+     * @param query , aggregate query
+     * @return List of rows, group by values followed by aggregate values
+     * @throws DataStoreException
+     */
+    public List<Object[]> aggregate(final AggregateQuery query) throws DataStoreException{
+        final QueryBuilder qb = new QueryBuilder(query.getTypeName());
+        qb.setFilter(query.getFilter());
+
+        //read only the used properties if we can resolve them all
+        final FeatureType type = getFeatureType(query.getTypeName());
+        final FilterAttributeExtractor extractor = new FilterAttributeExtractor(type);
+        for(Expression exp : query.getGroupBy()){
+            exp.accept(extractor, null);
+        }
+        for(Aggregate agg : query.getAggregates()){
+            if(agg.getExpression() != null){
+                agg.getExpression().accept(extractor, null);
+            }
+        }
+        final Name[] names = extractor.getAttributeNames();
+        boolean resolved = names.length > 0;
+        for(Name name : names){
+            resolved &= type.getDescriptor(name) != null;
+        }
+        if(resolved){
+            qb.setProperties(names);
+        }
+
+        //filter is already applied by the reader
+        return FeatureStoreUtilities.aggregate(getFeatureReader(qb.buildQuery()),
+                query.derivate(query.getTypeName(), Filter.INCLUDE));
+    }
+
     /**
      * Aquire a writer on a given feature type in modify mode.
      *
@@ -22,14 +22,18 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.logging.Logger;
 import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.memory.MemoryFeatureStore;
+import org.geotoolkit.data.query.Aggregate;
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.query.SortByComparator;
@@ -247,6 +251,194 @@ public class FeatureStoreUtilities {
         return env;
     }
 
+    /**
+     * Split a collection in several iterators which can be used concurrently,
+     * one iterator per thread. Only collections built from a feature store query
+     * can be split, other collections return a single iterator.
+     *
+     * @param collection collection to split
+     * @param nbPartition wanted number of iterators
+     * @return List of FeatureIterator, never empty
+     * @throws DataStoreException
+     */
+    public static List<FeatureIterator> split(final FeatureCollection collection, final int nbPartition) throws DataStoreException{
+        ensureNonNull("collection", collection);
+        if(collection instanceof DefaultSelectorFeatureCollection){
+            return (List) ((DefaultSelectorFeatureCollection)collection).iterators(nbPartition);
+        }
+        return Collections.singletonList((FeatureIterator)collection.iterator());
+    }
+
+    /**
+     * Evaluate an aggregate query on a collection.
+     * Collections built from a feature store query send the aggregation to the
+     * store, other collections are iterated.
+     * The type name of the aggregate query is ignored, the collection type is used.
+     *
+     * @param collection aggregated collection
+     * @param query aggregate query
+     * @return List of rows, group by values followed by aggregate values
+     * @throws DataStoreException
+     */
+    public static List<Object[]> aggregate(final FeatureCollection collection, final AggregateQuery query) throws DataStoreException{
+        ensureNonNull("collection", collection);
+        ensureNonNull("query", query);
+        if(collection instanceof DefaultSelectorFeatureCollection){
+            return ((DefaultSelectorFeatureCollection)collection).aggregate(query);
+        }
+        return aggregate(collection.iterator(), query);
+    }
+
+    /**
+     * Iterate on the given iterator and evaluate the aggregate query.
+     * Features which do not match the query filter are skipped, the type name
+     * of the query is ignored. The iterator is closed by this method.
+     *
+     * @param iterator features to aggregate
+     * @param query aggregate query
+     * @return List of rows, group by values followed by aggregate values
+     * @throws FeatureStoreRuntimeException
+     */
+    public static List<Object[]> aggregate(final FeatureIterator iterator, final AggregateQuery query) throws FeatureStoreRuntimeException{
+        ensureNonNull("iterator", iterator);
+        ensureNonNull("query", query);
+
+        final Filter filter = query.getFilter();
+        final Expression[] groupBy = query.getGroupBy();
+        final Aggregate[] aggregates = query.getAggregates();
+
+        final Map<List<Object>,Accumulator[]> groups = new LinkedHashMap<>();
+        if(groupBy.length == 0){
+            //always one row without group by
+            groups.put(Collections.emptyList(), Accumulator.create(aggregates.length));
+        }
+
+        try{
+            while(iterator.hasNext()){
+                final Feature feature = iterator.next();
+                if(filter != Filter.INCLUDE && !filter.evaluate(feature)){
+                    continue;
+                }
+
+                final List<Object> key;
+                if(groupBy.length == 0){
+                    key = Collections.emptyList();
+                }else{
+                    final Object[] values = new Object[groupBy.length];
+                    for(int i=0;i<groupBy.length;i++){
+                        values[i] = groupBy[i].evaluate(feature);
+                    }
+                    key = Arrays.asList(values);
+                }
+
+                Accumulator[] accs = groups.get(key);
+                if(accs == null){
+                    accs = Accumulator.create(aggregates.length);
+                    groups.put(key, accs);
+                }
+
+                for(int i=0;i<aggregates.length;i++){
+                    final Expression exp = aggregates[i].getExpression();
+                    if(exp == null){
+                        accs[i].count++;
+                    }else{
+                        accs[i].add(exp.evaluate(feature));
+                    }
+                }
+            }
+        }finally{
+            iterator.close();
+        }
+
+        final List<Object[]> rows = new ArrayList<>(groups.size());
+        for(Map.Entry<List<Object>,Accumulator[]> entry : groups.entrySet()){
+            final Object[] row = new Object[groupBy.length + aggregates.length];
+            int k = 0;
+            for(Object value : entry.getKey()){
+                row[k++] = value;
+            }
+            final Accumulator[] accs = entry.getValue();
+            for(int i=0;i<aggregates.length;i++){
+                row[k++] = accs[i].result(aggregates[i].getFunction());
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Aggregate accumulator, numbers are summed as primitives,
+     * other comparable values only contribute to count, min and max.
+     * Minimum and maximum keep the value type.
+     */
+    private static final class Accumulator{
+
+        private long count = 0;
+        private long nbNumber = 0;
+        private double sum = 0;
+        private Number min = null;
+        private Number max = null;
+        private Comparable cmin = null;
+        private Comparable cmax = null;
+
+        private static Accumulator[] create(final int nb){
+            final Accumulator[] accs = new Accumulator[nb];
+            for(int i=0;i<nb;i++){
+                accs[i] = new Accumulator();
+            }
+            return accs;
+        }
+
+        private void add(final Object value){
+            if(value == null){
+                return;
+            }
+            count++;
+            if(value instanceof Number){
+                final double d = ((Number)value).doubleValue();
+                if(Double.isNaN(d)){
+                    return;
+                }
+                nbNumber++;
+                sum += d;
+                final Number n = (Number) value;
+                if(min == null || compare(n, min) < 0) min = n;
+                if(max == null || compare(n, max) > 0) max = n;
+            }else if(value instanceof Comparable){
+                final Comparable c = (Comparable) value;
+                if(cmin == null || c.compareTo(cmin) < 0) cmin = c;
+                if(cmax == null || c.compareTo(cmax) > 0) cmax = c;
+            }
+        }
+
+        /**
+         * Compare integral numbers exactly, other numbers as doubles.
+         */
+        private static int compare(final Number n1, final Number n2){
+            if(isIntegral(n1) && isIntegral(n2)){
+                final long l1 = n1.longValue();
+                final long l2 = n2.longValue();
+                return (l1 < l2) ? -1 : ((l1 == l2) ? 0 : 1);
+            }
+            return Double.compare(n1.doubleValue(), n2.doubleValue());
+        }
+
+        private static boolean isIntegral(final Number n){
+            return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+        }
+
+        private Object result(final Aggregate.Function function){
+            switch(function){
+                case COUNT : return count;
+                case SUM : return (nbNumber == 0) ? null : sum;
+                case AVG : return (nbNumber == 0) ? null : sum / nbNumber;
+                case MIN : return (nbNumber == 0) ? cmin : min;
+                case MAX : return (nbNumber == 0) ? cmax : max;
+                default : throw new IllegalArgumentException("Unknowned function "+function);
+            }
+        }
+    }
+
     public static FeatureCollection sequence(final String id, final FeatureCollection... collections) {
         return new FeatureCollectionSequence(id, collections);
     }
@@ -16,6 +16,7 @@
  */
 package org.geotoolkit.data;
 
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryCapabilities;
 import org.geotoolkit.factory.Hints;
@@ -101,6 +102,16 @@ public class WrapFeatureStore extends AbstractFeatureStore {
         return featureStore.getFeatureReader(query);
     }
 
+    @Override
+    public List<FeatureReader> getFeatureReaders(Query query, int nbPartition) throws DataStoreException {
+        return featureStore.getFeatureReaders(query, nbPartition);
+    }
+
+    @Override
+    public List<Object[]> aggregate(AggregateQuery query) throws DataStoreException {
+        return featureStore.aggregate(query);
+    }
+
     @Override
     public FeatureWriter getFeatureWriter(Name typeName, Filter filter, Hints hints) throws DataStoreException {
         return featureStore.getFeatureWriter(typeName, filter, hints);
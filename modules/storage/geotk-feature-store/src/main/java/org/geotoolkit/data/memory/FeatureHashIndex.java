@@ -0,0 +1,202 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.memory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.sis.util.ObjectConverters;
+import org.apache.sis.util.UnconvertibleObjectException;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.feature.Feature;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * In memory hash index of features by the value of an expression.
+ * Used to resolve equality joins without querying the indexed features
+ * for each joined feature.
+ *
+ * Keys are matched as the PropertyIsEqualTo filter does : numeric values are
+ * normalized, an Integer and a Long with the same value have the same key,
+ * and strings are converted to numbers with the SIS converters, the string
+ * "1" matches the Integer 1. Features with a null value are not indexed.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class FeatureHashIndex {
+
+    private final Map<Object,List<Entry>> index = new HashMap<>();
+    //features with a string value convertible to a number, by numeric key
+    private final Map<Object,List<Entry>> numericStrings = new HashMap<>();
+    private final Expression expression;
+    private int size = 0;
+
+    /**
+     * @param expression expression evaluated on features to obtain the key
+     */
+    public FeatureHashIndex(final Expression expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Index all features of the iterator.
+     * The iterator is not closed.
+     *
+     * @param ite feature iterator
+     * @param limit maximum number of features to index
+     * @return false if the iterator contains more features than the limit.
+     */
+    public boolean addAll(final FeatureIterator<? extends Feature> ite, final int limit){
+        while(ite.hasNext()){
+            if(size >= limit) return false;
+            add(ite.next());
+        }
+        return true;
+    }
+
+    /**
+     * Add a feature in the index.
+     */
+    public void add(final Feature feature){
+        final Object value = expression.evaluate(feature);
+        final Entry entry = new Entry(size++, feature);
+        if(value == null) return;
+        put(index, toKey(value), entry);
+        if(value instanceof CharSequence){
+            final Object numKey = toNumberKey((CharSequence)value);
+            if(numKey != null){
+                put(numericStrings, numKey, entry);
+            }
+        }
+    }
+
+    private static void put(final Map<Object,List<Entry>> map, final Object key, final Entry entry){
+        List<Entry> lst = map.get(key);
+        if(lst == null){
+            lst = new ArrayList<>(1);
+            map.put(key, lst);
+        }
+        lst.add(entry);
+    }
+
+    /**
+     * @return number of features added in the index
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Get features which key equals the given value.
+     *
+     * @param value searched value
+     * @return matching features in insertion order, never null
+     */
+    public List<Feature> get(final Object value){
+        if(value == null) return Collections.emptyList();
+        final Object key = toKey(value);
+        final List<Entry> exact = index.get(key);
+        List<Entry> converted = null;
+        if(value instanceof Number){
+            //strings with the same numeric value
+            converted = numericStrings.get(key);
+        }else if(value instanceof CharSequence){
+            //numbers with the same value as the string
+            final Object numKey = toNumberKey((CharSequence)value);
+            if(numKey != null){
+                converted = index.get(numKey);
+            }
+        }
+        return merge(exact, converted);
+    }
+
+    /**
+     * Merge two lists of entries in insertion order.
+     */
+    private static List<Feature> merge(final List<Entry> l1, final List<Entry> l2){
+        final int n1 = (l1 == null) ? 0 : l1.size();
+        final int n2 = (l2 == null) ? 0 : l2.size();
+        if(n1+n2 == 0) return Collections.emptyList();
+        final List<Feature> features = new ArrayList<>(n1+n2);
+        int i1 = 0, i2 = 0;
+        while(i1 < n1 || i2 < n2){
+            if(i2 >= n2 || (i1 < n1 && l1.get(i1).ordinal < l2.get(i2).ordinal)){
+                features.add(l1.get(i1++).feature);
+            }else{
+                features.add(l2.get(i2++).feature);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Normalize numbers, integral values are converted to Long, others to Double.
+     */
+    static Object toKey(final Object value){
+        if(value instanceof Number){
+            if(value instanceof Long){
+                return value;
+            }else if(value instanceof Integer || value instanceof Short || value instanceof Byte){
+                return ((Number)value).longValue();
+            }else if(value instanceof BigInteger && ((BigInteger)value).bitLength() < 64){
+                return ((Number)value).longValue();
+            }else if(value instanceof BigDecimal){
+                try{
+                    return ((BigDecimal)value).longValueExact();
+                }catch(ArithmeticException ex){
+                    return ((Number)value).doubleValue();
+                }
+            }
+
+            final double d = ((Number)value).doubleValue();
+            if(d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < Long.MAX_VALUE){
+                return (long) d;
+            }
+            return d;
+        }
+        return value;
+    }
+
+    /**
+     * Convert a string to a normalized numeric key.
+     * @return numeric key or null if the string is not a number
+     */
+    static Object toNumberKey(final CharSequence value){
+        try{
+            final Number number = ObjectConverters.convert(value.toString(), Number.class);
+            return (number == null) ? null : toKey(number);
+        }catch(UnconvertibleObjectException | UnsupportedOperationException ex){
+            return null;
+        }
+    }
+
+    private static final class Entry{
+        private final int ordinal;
+        private final Feature feature;
+
+        private Entry(final int ordinal, final Feature feature){
+            this.ordinal = ordinal;
+            this.feature = feature;
+        }
+    }
+
+}
@@ -0,0 +1,372 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.data.memory;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.simple.SimpleFeature;
+import org.geotoolkit.feature.simple.SimpleFeatureBuilder;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
+import org.geotoolkit.feature.type.AttributeDescriptor;
+import org.geotoolkit.feature.type.FeatureType;
+
+/**
+ * Temporary file holding a sorted run of simple features, used by the
+ * {@link GenericSortByFeatureIterator} when the features to sort do not fit
+ * in the memory budget.
+ *
+ * Features are stored in a compact binary form : the feature id followed by
+ * each attribute value prefixed by a one byte type tag. Geometries are stored
+ * as WKB, their SRID and user data are preserved. Geometry user data objects
+ * (usually the CRS) are not written in the file, they are kept in a table
+ * shared by all runs of the same sort.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+final class FeatureRunFile implements Closeable {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte TYPE_NULL         = 0;
+    private static final byte TYPE_STRING       = 1;
+    private static final byte TYPE_INTEGER      = 2;
+    private static final byte TYPE_LONG         = 3;
+    private static final byte TYPE_DOUBLE       = 4;
+    private static final byte TYPE_FLOAT        = 5;
+    private static final byte TYPE_SHORT        = 6;
+    private static final byte TYPE_BYTE         = 7;
+    private static final byte TYPE_BOOLEAN      = 8;
+    private static final byte TYPE_CHARACTER    = 9;
+    private static final byte TYPE_DATE         = 10;
+    private static final byte TYPE_SQL_DATE     = 11;
+    private static final byte TYPE_SQL_TIME     = 12;
+    private static final byte TYPE_TIMESTAMP    = 13;
+    private static final byte TYPE_BIGDECIMAL   = 14;
+    private static final byte TYPE_BIGINTEGER   = 15;
+    private static final byte TYPE_GEOMETRY     = 16;
+    private static final byte TYPE_SERIALIZABLE = 17;
+
+    /**
+     * Table of geometry user data objects, shared by all runs of a sort.
+     */
+    static final class UserDataTable {
+        private final Map<Object,Integer> indexes = new HashMap<>();
+        private final List<Object> values = new ArrayList<>();
+
+        private int indexOf(final Object candidate){
+            Integer index = indexes.get(candidate);
+            if(index == null){
+                index = values.size();
+                values.add(candidate);
+                indexes.put(candidate, index);
+            }
+            return index;
+        }
+
+        private Object get(final int index){
+            return values.get(index);
+        }
+    }
+
+    private final File file;
+    private final SimpleFeatureType type;
+    private final UserDataTable userDatas;
+    private final int nbAttributes;
+
+    //writing state
+    private DataOutputStream output;
+    private WKBWriter wkbWriter;
+    private GeometryFactory geometryFactory;
+
+    //reading state
+    private DataInputStream input;
+    private WKBReader wkbReader;
+    private SimpleFeatureBuilder builder;
+    private int remaining;
+    private int size;
+
+    FeatureRunFile(final SimpleFeatureType type, final UserDataTable userDatas) throws IOException{
+        this.type = type;
+        this.userDatas = userDatas;
+        this.nbAttributes = type.getAttributeCount();
+        this.file = File.createTempFile("geotk-sort", ".run");
+        try{
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+        }catch(IOException ex){
+            file.delete();
+            throw ex;
+        }
+        this.wkbWriter = new WKBWriter(3);
+    }
+
+    /**
+     * Test if features of the given type can be stored in a run file.
+     * Only simple features with serializable or geometric attributes are supported.
+     */
+    static boolean isSupported(final FeatureType type){
+        if(!(type instanceof SimpleFeatureType)) return false;
+        for(AttributeDescriptor desc : ((SimpleFeatureType)type).getAttributeDescriptors()){
+            final Class binding = desc.getType().getBinding();
+            if(binding == null || !(Geometry.class.isAssignableFrom(binding)
+                                 || Serializable.class.isAssignableFrom(binding))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Append a feature at the end of the run.
+     */
+    void write(final Feature candidate) throws IOException{
+        if(!(candidate instanceof SimpleFeature) || !isSameType(((SimpleFeature)candidate).getType())){
+            throw new IOException("Feature "+candidate.getIdentifier()+" does not match the sorted feature type.");
+        }
+        final SimpleFeature feature = (SimpleFeature) candidate;
+        writeString(feature.getIdentifier().getID());
+        for(int i=0;i<nbAttributes;i++){
+            writeValue(feature.getAttribute(i));
+        }
+        size++;
+    }
+
+    private boolean isSameType(final SimpleFeatureType candidate){
+        return candidate == type || type.equals(candidate);
+    }
+
+    /**
+     * Terminate writing and prepare the run for reading.
+     */
+    void flip() throws IOException{
+        output.close();
+        output = null;
+        wkbWriter = null;
+        input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+        //rebuild geometries with the factory of the written geometries to preserve
+        //their precision model and default SRID
+        wkbReader = new WKBReader(geometryFactory != null ? geometryFactory : new GeometryFactory());
+        builder = new SimpleFeatureBuilder(type);
+        remaining = size;
+    }
+
+    /**
+     * Read the next feature of the run.
+     * @return next feature or null if the run is exhausted.
+     */
+    Feature read() throws IOException{
+        if(remaining == 0) return null;
+        remaining--;
+        final String id = readString();
+        for(int i=0;i<nbAttributes;i++){
+            builder.set(i, readValue());
+        }
+        return builder.buildFeature(id);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try{
+            if(output != null) output.close();
+            if(input != null) input.close();
+        }finally{
+            output = null;
+            input = null;
+            file.delete();
+        }
+    }
+
+    private void writeString(final String str) throws IOException{
+        if(str == null){
+            output.writeInt(-1);
+        }else{
+            final byte[] bytes = str.getBytes(UTF8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private String readString() throws IOException{
+        final int length = input.readInt();
+        if(length < 0) return null;
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private void writeBytes(final byte[] bytes) throws IOException{
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private byte[] readBytes() throws IOException{
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private void writeValue(final Object value) throws IOException{
+        if(value == null){
+            output.writeByte(TYPE_NULL);
+        }else if(value instanceof String){
+            output.writeByte(TYPE_STRING);
+            writeString((String)value);
+        }else if(value instanceof Integer){
+            output.writeByte(TYPE_INTEGER);
+            output.writeInt((Integer)value);
+        }else if(value instanceof Long){
+            output.writeByte(TYPE_LONG);
+            output.writeLong((Long)value);
+        }else if(value instanceof Double){
+            output.writeByte(TYPE_DOUBLE);
+            output.writeDouble((Double)value);
+        }else if(value instanceof Float){
+            output.writeByte(TYPE_FLOAT);
+            output.writeFloat((Float)value);
+        }else if(value instanceof Short){
+            output.writeByte(TYPE_SHORT);
+            output.writeShort((Short)value);
+        }else if(value instanceof Byte){
+            output.writeByte(TYPE_BYTE);
+            output.writeByte((Byte)value);
+        }else if(value instanceof Boolean){
+            output.writeByte(TYPE_BOOLEAN);
+            output.writeBoolean((Boolean)value);
+        }else if(value instanceof Character){
+            output.writeByte(TYPE_CHARACTER);
+            output.writeChar((Character)value);
+        }else if(value.getClass() == Date.class){
+            output.writeByte(TYPE_DATE);
+            output.writeLong(((Date)value).getTime());
+        }else if(value.getClass() == java.sql.Date.class){
+            output.writeByte(TYPE_SQL_DATE);
+            output.writeLong(((Date)value).getTime());
+        }else if(value.getClass() == java.sql.Time.class){
+            output.writeByte(TYPE_SQL_TIME);
+            output.writeLong(((Date)value).getTime());
+        }else if(value.getClass() == java.sql.Timestamp.class){
+            output.writeByte(TYPE_TIMESTAMP);
+            output.writeLong(((Date)value).getTime());
+            output.writeInt(((java.sql.Timestamp)value).getNanos());
+        }else if(value.getClass() == BigDecimal.class){
+            output.writeByte(TYPE_BIGDECIMAL);
+            writeBytes(((BigDecimal)value).unscaledValue().toByteArray());
+            output.writeInt(((BigDecimal)value).scale());
+        }else if(value.getClass() == BigInteger.class){
+            output.writeByte(TYPE_BIGINTEGER);
+            writeBytes(((BigInteger)value).toByteArray());
+        }else if(value instanceof Geometry){
+            final Geometry geom = (Geometry) value;
+            if(geometryFactory == null){
+                geometryFactory = geom.getFactory();
+            }
+            output.writeByte(TYPE_GEOMETRY);
+            writeBytes(wkbWriter.write(geom));
+            output.writeInt(geom.getSRID());
+            final Object userData = geom.getUserData();
+            output.writeInt(userData == null ? -1 : userDatas.indexOf(userData));
+        }else if(value instanceof Serializable){
+            output.writeByte(TYPE_SERIALIZABLE);
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try(ObjectOutputStream oos = new ObjectOutputStream(buffer)){
+                oos.writeObject(value);
+            }
+            writeBytes(buffer.toByteArray());
+        }else{
+            throw new IOException("Value of type "+value.getClass().getName()+" can not be stored in a sort run.");
+        }
+    }
+
+    private Object readValue() throws IOException{
+        final byte tag = input.readByte();
+        switch(tag){
+            case TYPE_NULL :        return null;
+            case TYPE_STRING :      return readString();
+            case TYPE_INTEGER :     return input.readInt();
+            case TYPE_LONG :        return input.readLong();
+            case TYPE_DOUBLE :      return input.readDouble();
+            case TYPE_FLOAT :       return input.readFloat();
+            case TYPE_SHORT :       return input.readShort();
+            case TYPE_BYTE :        return input.readByte();
+            case TYPE_BOOLEAN :     return input.readBoolean();
+            case TYPE_CHARACTER :   return input.readChar();
+            case TYPE_DATE :        return new Date(input.readLong());
+            case TYPE_SQL_DATE :    return new java.sql.Date(input.readLong());
+            case TYPE_SQL_TIME :    return new java.sql.Time(input.readLong());
+            case TYPE_TIMESTAMP : {
+                final java.sql.Timestamp ts = new java.sql.Timestamp(input.readLong());
+                ts.setNanos(input.readInt());
+                return ts;
+            }
+            case TYPE_BIGDECIMAL : {
+                final BigInteger unscaled = new BigInteger(readBytes());
+                return new BigDecimal(unscaled, input.readInt());
+            }
+            case TYPE_BIGINTEGER :  return new BigInteger(readBytes());
+            case TYPE_GEOMETRY : {
+                final Geometry geom;
+                try {
+                    geom = wkbReader.read(readBytes());
+                } catch (ParseException ex) {
+                    throw new IOException(ex.getMessage(), ex);
+                }
+                geom.setSRID(input.readInt());
+                final int userDataIndex = input.readInt();
+                if(userDataIndex >= 0){
+                    geom.setUserData(userDatas.get(userDataIndex));
+                }
+                return geom;
+            }
+            case TYPE_SERIALIZABLE : {
+                try(ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes()))){
+                    return ois.readObject();
+                } catch (ClassNotFoundException ex) {
+                    throw new IOException(ex.getMessage(), ex);
+                }
+            }
+            default : throw new IOException("Unexpected value type tag : "+tag);
+        }
+    }
+
+}
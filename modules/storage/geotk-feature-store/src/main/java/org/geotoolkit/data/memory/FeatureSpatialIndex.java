@@ -0,0 +1,196 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.memory;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.ItemBoundable;
+import com.vividsolutions.jts.index.strtree.ItemDistance;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.Property;
+import org.geotoolkit.feature.type.GeometryDescriptor;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.referencing.CRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+
+/**
+ * In memory spatial index of feature geometries, used to resolve spatial joins
+ * without querying the indexed features for each joined feature.
+ *
+ * All geometry properties of the features are indexed, reprojected in the
+ * index crs. Features must all be added before the first search.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class FeatureSpatialIndex {
+
+    private static final ItemDistance DISTANCE = new ItemDistance() {
+        @Override
+        public double distance(final ItemBoundable item1, final ItemBoundable item2) {
+            return ((Entry)item1.getItem()).geometry.distance(((Entry)item2.getItem()).geometry);
+        }
+    };
+
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(final Entry o1, final Entry o2) {
+            return Integer.compare(o1.order, o2.order);
+        }
+    };
+
+    private final STRtree tree = new STRtree();
+    private final CoordinateReferenceSystem crs;
+    private int nbEntry = 0;
+
+    /**
+     * @param crs index crs, if null geometries are not reprojected
+     */
+    public FeatureSpatialIndex(final CoordinateReferenceSystem crs) {
+        this.crs = crs;
+    }
+
+    /**
+     * @return index crs, can be null
+     */
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Index all features of the iterator.
+     * The iterator is not closed.
+     */
+    public void addAll(final FeatureIterator<? extends Feature> ite) throws FactoryException, TransformException{
+        while(ite.hasNext()){
+            add(ite.next());
+        }
+    }
+
+    /**
+     * Add all geometries of the feature in the index.
+     */
+    public void add(final Feature feature) throws FactoryException, TransformException{
+        for(final Property property : feature.getProperties()){
+            if(!(property.getDescriptor() instanceof GeometryDescriptor)) continue;
+            final Object value = property.getValue();
+            if(!(value instanceof Geometry)) continue;
+
+            Geometry geom = (Geometry) value;
+            if(geom.isEmpty()) continue;
+            final CoordinateReferenceSystem geomCRS = ((GeometryDescriptor)property.getDescriptor()).getCoordinateReferenceSystem();
+            if(crs != null && geomCRS != null && !CRS.equalsIgnoreMetadata(crs, geomCRS)){
+                geom = JTS.transform(geom, CRS.findMathTransform(geomCRS, crs));
+            }
+
+            final Entry entry = new Entry(feature, geom, nbEntry++);
+            tree.insert(geom.getEnvelopeInternal(), entry);
+        }
+    }
+
+    /**
+     * Find all indexed geometries intersecting the given geometry.
+     *
+     * @param geom searched geometry, in index crs
+     * @return entries in insertion order
+     */
+    public List<Entry> intersects(final Geometry geom){
+        if(nbEntry == 0 || geom.isEmpty()) return Collections.emptyList();
+
+        final List candidates = tree.query(geom.getEnvelopeInternal());
+        if(candidates.isEmpty()) return Collections.emptyList();
+
+        final PreparedGeometry prepared = PreparedGeometryFactory.prepare(geom);
+        final List<Entry> result = new ArrayList<>();
+        for(Object candidate : candidates){
+            final Entry entry = (Entry) candidate;
+            if(prepared.intersects(entry.geometry)){
+                result.add(entry);
+            }
+        }
+        Collections.sort(result, ORDER);
+        return result;
+    }
+
+    /**
+     * Find all indexed geometries at the smallest distance of the given geometry.
+     *
+     * @param geom searched geometry, in index crs
+     * @return entries in insertion order
+     */
+    public List<Entry> nearest(final Geometry geom){
+        if(nbEntry == 0 || geom.isEmpty()) return Collections.emptyList();
+
+        final Entry search = new Entry(null, geom, -1);
+        final Entry nearest = (Entry) tree.nearestNeighbour(geom.getEnvelopeInternal(), search, DISTANCE);
+        final double distance = geom.distance(nearest.geometry);
+
+        //collect all geometries at the same distance
+        final Envelope env = new Envelope(geom.getEnvelopeInternal());
+        env.expandBy(distance);
+        final List<Entry> result = new ArrayList<>();
+        for(Object candidate : tree.query(env)){
+            final Entry entry = (Entry) candidate;
+            if(geom.distance(entry.geometry) <= distance){
+                result.add(entry);
+            }
+        }
+        Collections.sort(result, ORDER);
+        return result;
+    }
+
+    /**
+     * Indexed feature geometry.
+     */
+    public static final class Entry {
+
+        private final Feature feature;
+        private final Geometry geometry;
+        private final int order;
+
+        private Entry(final Feature feature, final Geometry geometry, final int order) {
+            this.feature = feature;
+            this.geometry = geometry;
+            this.order = order;
+        }
+
+        /**
+         * @return indexed feature
+         */
+        public Feature getFeature() {
+            return feature;
+        }
+
+        /**
+         * @return feature geometry in index crs
+         */
+        public Geometry getGeometry() {
+            return geometry;
+        }
+    }
+
+}
@@ -28,6 +28,7 @@ import org.geotoolkit.factory.Hints;
 import org.apache.sis.util.Classes;
 import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.type.FeatureType;
+import org.geotoolkit.filter.FilterUtilities;
 import org.opengis.filter.Filter;
 
 /**
@@ -200,16 +201,18 @@ public class GenericFilterFeatureIterator<F extends Feature, R extends FeatureIt
 
     /**
      * Wrap a FeatureReader with a filter.
+     * The filter is prepared against the reader feature type.
      */
     public static <T extends FeatureType, F extends Feature> FeatureReader<T,F> wrap(final FeatureReader<T,F> reader, final Filter filter){
-        return new GenericFilterFeatureReader(reader, filter);
+        return new GenericFilterFeatureReader(reader, FilterUtilities.prepare(filter, Feature.class, reader.getFeatureType()));
     }
 
     /**
      * Wrap a FeatureWriter with a filter.
+     * The filter is prepared against the writer feature type.
      */
     public static <T extends FeatureType, F extends Feature> FeatureWriter<T,F> wrap(final FeatureWriter<T,F> writer, final Filter filter){
-        return new GenericFilterFeatureWriter(writer, filter);
+        return new GenericFilterFeatureWriter(writer, FilterUtilities.prepare(filter, Feature.class, writer.getFeatureType()));
     }
 
     /**
@@ -68,9 +68,9 @@ public class GenericQueryFeatureIterator {
 
         //wrap sort by ---------------------------------------------------------
         //This can be really expensive, and force the us to read the full iterator.
-        //that may cause out of memory errors.
+        //large simple feature sets are sorted in temporary files, see SORT_MEMORY_FEATURES hint.
         if(sorts != null && sorts.length != 0){
-            reader = GenericSortByFeatureIterator.wrap(reader, sorts);
+            reader = GenericSortByFeatureIterator.wrap(reader, sorts, hints);
         }
 
         //wrap filter ----------------------------------------------------------
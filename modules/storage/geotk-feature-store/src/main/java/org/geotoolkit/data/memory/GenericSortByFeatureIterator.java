@@ -17,30 +17,37 @@
 
 package org.geotoolkit.data.memory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.data.query.SortByComparator;
 import org.geotoolkit.factory.Hints;
+import org.geotoolkit.factory.HintsPending;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.apache.sis.util.Classes;
 import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
 import org.geotoolkit.feature.type.FeatureType;
 import org.opengis.filter.sort.SortBy;
 
 /**
  * Basic support for a  FeatureIterator that will sort features using the given sort by
- * orders. This may be very consuming in memory since this implementation must iterate
- * over all features and store them in memory in the right order.
+ * orders. This implementation must iterate over all features before returning
+ * the first one.
  *
- * Don't use this class in you now that your iterator holds a great amount of features,
- * otherwise it may cause an Out Of Memory Exception.
+ * Features are sorted in memory as long as their number does not exceed the
+ * {@link HintsPending#SORT_MEMORY_FEATURES} hint. Beyond this limit, simple features
+ * are sorted by runs, each run is written in a temporary file and runs are merged
+ * lazily while iterating. Complex features are always sorted in memory and
+ * may cause an Out Of Memory Exception when the iterator holds a great amount of features.
  *
  * @author Johann Sorel (Geomatys)
  * @module pending
@@ -48,32 +55,180 @@ import org.opengis.filter.sort.SortBy;
 public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIterator<F>>
         implements FeatureIterator<F> {
 
+    /**
+     * Default maximum number of features sorted in memory.
+     */
+    public static final int DEFAULT_MEMORY_FEATURES = 100000;
+
+    /**
+     * Maximum number of runs merged at the same time, more runs are merged in
+     * intermediate runs to limit the number of opened files.
+     */
+    private static final int MAX_MERGED_RUNS = 64;
+
     protected final R iterator;
     private final Comparator<Feature> comparator;
+    private final int maxInMemory;
     protected List<F> ordered = null;
     protected int index = 0;
 
+    //external sort state
+    private List<FeatureRunFile> runs = null;
+    private PriorityQueue<RunCursor> merge = null;
+
     /**
      * Creates a new instance of GenericSortByFeatureIterator
      *
      * @param iterator FeatureReader to sort
      * @param orders sorting orders
+     * @param hints hints, used to find the memory limit, can be null
      */
-    private GenericSortByFeatureIterator(final R iterator, final SortBy[] orders) {
+    private GenericSortByFeatureIterator(final R iterator, final SortBy[] orders, final Hints hints) {
         this.iterator = iterator;
         this.comparator = new SortByComparator(orders);
+        this.maxInMemory = getMemoryFeatures(hints);
+    }
+
+    private static int getMemoryFeatures(final Hints hints){
+        if(hints != null){
+            final Object value = hints.get(HintsPending.SORT_MEMORY_FEATURES);
+            if(value instanceof Integer && (Integer)value > 0){
+                return (Integer) value;
+            }
+        }
+        return DEFAULT_MEMORY_FEATURES;
     }
 
     private synchronized void sort() throws FeatureStoreRuntimeException{
-        if(ordered != null) return;
+        if(ordered != null || merge != null) return;
+
+        final List<F> buffer = new ArrayList<F>();
+        boolean spillable = true;
+        SimpleFeatureType runType = null;
+        FeatureRunFile.UserDataTable userDatas = null;
+
+        try{
+            while(iterator.hasNext()){
+                buffer.add((F) FeatureUtilities.copy( iterator.next()));
+
+                if(spillable && buffer.size() >= maxInMemory && iterator.hasNext()){
+                    if(runs == null){
+                        final FeatureType type = buffer.get(0).getType();
+                        if(!FeatureRunFile.isSupported(type)){
+                            //can not be stored in files, keep everything in memory
+                            spillable = false;
+                            continue;
+                        }
+                        runType = (SimpleFeatureType) type;
+                        userDatas = new FeatureRunFile.UserDataTable();
+                        runs = new ArrayList<FeatureRunFile>();
+                    }
+                    runs.add(writeRun(buffer, runType, userDatas));
+                    buffer.clear();
+                }
+            }
+
+            if(runs == null){
+                //everything fits in memory
+                Collections.sort(buffer,comparator);
+                ordered = buffer;
+                return;
+            }
+
+            if(!buffer.isEmpty()){
+                runs.add(writeRun(buffer, runType, userDatas));
+                buffer.clear();
+            }
+
+            //reduce the number of runs to merge, runs are merged by groups
+            //in their original order to preserve the sort stability
+            while(runs.size() > MAX_MERGED_RUNS){
+                final List<FeatureRunFile> level = new ArrayList<FeatureRunFile>(runs);
+                for(int i=0,n=level.size(); i<n; i+=MAX_MERGED_RUNS){
+                    final List<FeatureRunFile> group = level.subList(i, Math.min(i+MAX_MERGED_RUNS, n));
+                    final FeatureRunFile merged = new FeatureRunFile(runType, userDatas);
+                    runs.add(merged);
+                    final PriorityQueue<RunCursor> queue = openRuns(group);
+                    for(F f=poll(queue); f!=null; f=poll(queue)){
+                        merged.write(f);
+                    }
+                }
+            }
 
-        ordered = new ArrayList<F>();
+            merge = openRuns(runs);
+        }catch(IOException ex){
+            closeRuns();
+            throw new FeatureStoreRuntimeException(ex);
+        }catch(RuntimeException ex){
+            closeRuns();
+            throw ex;
+        }
+    }
 
-        while(iterator.hasNext()){
-            ordered.add((F) FeatureUtilities.copy( iterator.next()));
+    private FeatureRunFile writeRun(final List<F> buffer, final SimpleFeatureType type,
+            final FeatureRunFile.UserDataTable userDatas) throws IOException{
+        Collections.sort(buffer,comparator);
+        final FeatureRunFile run = new FeatureRunFile(type, userDatas);
+        try{
+            for(F f : buffer){
+                run.write(f);
+            }
+        }catch(IOException | RuntimeException ex){
+            run.close();
+            throw ex;
         }
+        return run;
+    }
 
-        Collections.sort(ordered,comparator);
+    /**
+     * Prepare runs for reading and place them in a merge queue.
+     * Runs are compared on their current feature, ties are resolved by run order
+     * so the merge preserves the stability of the in memory sort.
+     */
+    private PriorityQueue<RunCursor> openRuns(final List<FeatureRunFile> candidates) throws IOException{
+        final PriorityQueue<RunCursor> queue = new PriorityQueue<RunCursor>(Math.max(1, candidates.size()));
+        for(int i=0,n=candidates.size();i<n;i++){
+            final FeatureRunFile run = candidates.get(i);
+            run.flip();
+            final RunCursor cursor = new RunCursor(run, i);
+            if(cursor.current != null){
+                queue.add(cursor);
+            }else{
+                run.close();
+                runs.remove(run);
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Extract the smallest feature from the merge queue.
+     * @return feature or null if all runs are exhausted
+     */
+    private F poll(final PriorityQueue<RunCursor> queue) throws IOException{
+        final RunCursor cursor = queue.poll();
+        if(cursor == null) return null;
+        final F feature = (F) cursor.current;
+        cursor.current = cursor.run.read();
+        if(cursor.current != null){
+            queue.add(cursor);
+        }else{
+            cursor.run.close();
+            runs.remove(cursor.run);
+        }
+        return feature;
+    }
+
+    private void closeRuns(){
+        if(runs == null) return;
+        for(FeatureRunFile run : runs){
+            try {
+                run.close();
+            } catch (IOException ex) {
+                //we tryed
+            }
+        }
+        runs.clear();
     }
 
     /**
@@ -82,6 +237,19 @@ public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIt
     @Override
     public F next() throws FeatureStoreRuntimeException {
         sort();
+        if(merge != null){
+            final F c;
+            try {
+                c = poll(merge);
+            } catch (IOException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            }
+            if(c == null){
+                throw new NoSuchElementException("No more elements.");
+            }
+            return c;
+        }
+
         try{
             F c = ordered.get(index);
             index++;
@@ -96,7 +264,11 @@ public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIt
      */
     @Override
     public void close() throws FeatureStoreRuntimeException {
-        iterator.close();
+        try{
+            iterator.close();
+        }finally{
+            closeRuns();
+        }
     }
 
     /**
@@ -105,6 +277,9 @@ public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIt
     @Override
     public boolean hasNext() throws FeatureStoreRuntimeException {
         sort();
+        if(merge != null){
+            return !merge.isEmpty();
+        }
         return index < ordered.size();
     }
 
@@ -126,6 +301,28 @@ public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIt
         return sb.toString();
     }
 
+    /**
+     * Position in a sorted run, compared by current feature.
+     */
+    private final class RunCursor implements Comparable<RunCursor>{
+
+        private final FeatureRunFile run;
+        private final int order;
+        private Feature current;
+
+        private RunCursor(final FeatureRunFile run, final int order) throws IOException{
+            this.run = run;
+            this.order = order;
+            this.current = run.read();
+        }
+
+        @Override
+        public int compareTo(final RunCursor other) {
+            final int result = comparator.compare(current, other.current);
+            return (result != 0) ? result : (order - other.order);
+        }
+    }
+
     /**
      * Wrap a FeatureReader that will sort features using the given sort by.
      *
@@ -136,8 +333,8 @@ public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIt
     private static final class GenericSortByFeatureReader<T extends FeatureType, F extends Feature, R extends FeatureReader<T,F>>
             extends GenericSortByFeatureIterator<F,R> implements FeatureReader<T,F>{
 
-        private GenericSortByFeatureReader(final R reader,final SortBy[] orders){
-            super(reader,orders);
+        private GenericSortByFeatureReader(final R reader,final SortBy[] orders, final Hints hints){
+            super(reader,orders,hints);
         }
 
         @Override
@@ -150,15 +347,21 @@ public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIt
     private static final class GenericSortByFeatureCollection extends WrapFeatureCollection{
 
         private final SortBy[] order;
+        private final Hints sortHints;
 
-        private GenericSortByFeatureCollection(final FeatureCollection original, final SortBy[] order){
+        private GenericSortByFeatureCollection(final FeatureCollection original, final SortBy[] order, final Hints sortHints){
             super(original);
             this.order = order;
+            this.sortHints = sortHints;
         }
 
         @Override
         public FeatureIterator iterator(final Hints hints) throws FeatureStoreRuntimeException {
-            return wrap(getOriginalFeatureCollection().iterator(hints), order);
+            Hints merged = sortHints;
+            if(hints != null && hints.get(HintsPending.SORT_MEMORY_FEATURES) != null){
+                merged = hints;
+            }
+            return wrap(getOriginalFeatureCollection().iterator(hints), order, merged);
         }
 
         @Override
@@ -172,17 +375,35 @@ public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIt
      * Wrap a FeatureReader will a sort by order.
      */
     public static <T extends FeatureType, F extends Feature> FeatureReader<T,F> wrap(final FeatureReader<T,F> reader, final SortBy[] orders){
-        return new GenericSortByFeatureReader(reader, orders);
+        return wrap(reader, orders, null);
+    }
+
+    /**
+     * Wrap a FeatureReader will a sort by order.
+     *
+     * @param hints used to find the {@link HintsPending#SORT_MEMORY_FEATURES} limit, can be null
+     */
+    public static <T extends FeatureType, F extends Feature> FeatureReader<T,F> wrap(final FeatureReader<T,F> reader, final SortBy[] orders, final Hints hints){
+        return new GenericSortByFeatureReader(reader, orders, hints);
     }
 
     /**
      * Wrap a FeatureIterator will a sort by order.
      */
     public static <F extends Feature> FeatureIterator<F> wrap(final FeatureIterator<F> reader, final SortBy[] orders){
+        return wrap(reader, orders, null);
+    }
+
+    /**
+     * Wrap a FeatureIterator will a sort by order.
+     *
+     * @param hints used to find the {@link HintsPending#SORT_MEMORY_FEATURES} limit, can be null
+     */
+    public static <F extends Feature> FeatureIterator<F> wrap(final FeatureIterator<F> reader, final SortBy[] orders, final Hints hints){
         if(reader instanceof FeatureReader){
-            return wrap((FeatureReader)reader,orders);
+            return wrap((FeatureReader)reader,orders,hints);
         }else{
-            return new GenericSortByFeatureIterator(reader, orders);
+            return new GenericSortByFeatureIterator(reader, orders, hints);
         }
     }
 
@@ -190,7 +411,16 @@ public class GenericSortByFeatureIterator<F extends Feature, R extends FeatureIt
      * Wrap a FeatureCollection will a sort by order.
      */
     public static FeatureCollection wrap(final FeatureCollection original, final SortBy[] orders){
-        return new GenericSortByFeatureCollection(original,orders);
+        return wrap(original, orders, null);
+    }
+
+    /**
+     * Wrap a FeatureCollection will a sort by order.
+     *
+     * @param hints used to find the {@link HintsPending#SORT_MEMORY_FEATURES} limit, can be null
+     */
+    public static FeatureCollection wrap(final FeatureCollection original, final SortBy[] orders, final Hints hints){
+        return new GenericSortByFeatureCollection(original,orders,hints);
     }
 
 }
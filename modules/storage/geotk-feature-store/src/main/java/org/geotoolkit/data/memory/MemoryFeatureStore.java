@@ -17,9 +17,12 @@
 
 package org.geotoolkit.data.memory;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -28,6 +31,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.AbstractFeatureStore;
 import org.geotoolkit.data.FeatureStoreFactory;
@@ -37,9 +42,11 @@ import org.geotoolkit.data.FeatureWriter;
 import org.geotoolkit.data.query.DefaultQueryCapabilities;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.data.query.QueryUtilities;
 import org.geotoolkit.data.query.QueryCapabilities;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.factory.Hints;
+import org.geotoolkit.geometry.Envelopes;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.geotoolkit.filter.identity.DefaultFeatureId;
 import org.geotoolkit.geometry.jts.JTS;
@@ -50,12 +57,27 @@ import org.geotoolkit.feature.type.FeatureType;
 import org.geotoolkit.feature.type.GeometryDescriptor;
 import org.geotoolkit.feature.type.Name;
 import org.geotoolkit.feature.type.PropertyDescriptor;
+import org.opengis.filter.And;
 import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory;
 import org.opengis.filter.Id;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
 import org.opengis.filter.identity.FeatureId;
 import org.opengis.filter.identity.Identifier;
-import org.opengis.metadata.Metadata;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.spatial.Contains;
+import org.opengis.filter.spatial.Crosses;
+import org.opengis.filter.spatial.Equals;
+import org.opengis.filter.spatial.Intersects;
+import org.opengis.filter.spatial.Overlaps;
+import org.opengis.filter.spatial.Touches;
+import org.opengis.filter.spatial.Within;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.operation.TransformException;
 
 /**
  * @todo : make this concurrent
@@ -70,10 +92,67 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
         final AtomicLong incId = new AtomicLong(-1);//first one will be 0
         final FeatureType type;
         final Map<String,Feature> features;
+        //optional spatial index of the default geometry envelopes, values are feature ids
+        final Quadtree index;
+        final Map<String,Envelope> envelopes;
+        final String geometryName;
+        final CoordinateReferenceSystem geometryCRS;
 
-        Group(final FeatureType type){
+        Group(final FeatureType type, final boolean spatialIndex){
             this.type = type;
             this.features = new ConcurrentHashMap<String, Feature>();
+
+            final GeometryDescriptor geomDesc = type.getGeometryDescriptor();
+            if(spatialIndex && geomDesc != null){
+                this.index = new Quadtree();
+                this.envelopes = new HashMap<String, Envelope>();
+                this.geometryName = geomDesc.getName().getLocalPart();
+                this.geometryCRS = geomDesc.getCoordinateReferenceSystem();
+            }else{
+                this.index = null;
+                this.envelopes = null;
+                this.geometryName = null;
+                this.geometryCRS = null;
+            }
+        }
+
+        public void put(final String id, final Feature feature){
+            features.put(id, feature);
+            if(index != null) reindex(id, feature);
+        }
+
+        public Feature remove(final String id){
+            final Feature feature = features.remove(id);
+            if(feature != null && index != null){
+                synchronized(index){
+                    final Envelope old = envelopes.remove(id);
+                    if(old != null) index.remove(old, id);
+                }
+            }
+            return feature;
+        }
+
+        /**
+         * Update the feature envelope in the spatial index.
+         */
+        public void reindex(final String id, final Feature feature){
+            final Envelope env;
+            final Object value = (feature.getDefaultGeometryProperty() == null) ?
+                    null : feature.getDefaultGeometryProperty().getValue();
+            if(value instanceof Geometry && !((Geometry)value).isEmpty()){
+                env = new Envelope(((Geometry)value).getEnvelopeInternal());
+            }else{
+                env = null;
+            }
+
+            synchronized(index){
+                final Envelope old = envelopes.remove(id);
+                if(old != null) index.remove(old, id);
+                if(env != null){
+                    index.insert(env, id);
+                    envelopes.put(id, env);
+                }
+            }
         }
 
         public String generateId(){
@@ -137,16 +216,51 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
 
             };
         }
+
+        /**
+         * Iterate on features which geometry envelope intersects the given envelope.
+         */
+        public Iterator<? extends Feature> createIterator(final Envelope env) {
+            if(env.isNull()){
+                return Collections.<Feature>emptyList().iterator();
+            }
+
+            final List<Feature> result = new ArrayList<Feature>();
+            synchronized(index){
+                //quadtree results may contain features outside of the envelope
+                for(Object id : index.query(env)){
+                    final Envelope candidate = envelopes.get(id);
+                    if(candidate != null && candidate.intersects(env)){
+                        final Feature feature = features.get(id);
+                        if(feature != null) result.add(feature);
+                    }
+                }
+            }
+            return result.iterator();
+        }
     }
 
-    private final QueryCapabilities capabilities = new DefaultQueryCapabilities(false);
+    private final QueryCapabilities capabilities;
     private final boolean singleTypeLock;
+    private final boolean spatialIndex;
     private final Map<Name,Group> groups = new HashMap<Name, Group>();
     private Set<Name> nameCache = null;
 
     public MemoryFeatureStore(){
+        this(false);
+    }
+
+    /**
+     * Create a memory feature store.
+     *
+     * @param spatialIndex : true to maintain a spatial index of the default geometry
+     * for each type, spatial filters are then resolved without scanning all features.
+     */
+    public MemoryFeatureStore(final boolean spatialIndex){
         super(null);
-        singleTypeLock = false;
+        this.singleTypeLock = false;
+        this.spatialIndex = spatialIndex;
+        this.capabilities = new DefaultQueryCapabilities(false, false, spatialIndex, null);
     }
 
     /**
@@ -166,10 +280,24 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
      * this type to be deleted.
      */
     public MemoryFeatureStore(final FeatureType type, final boolean singleTypeLock){
+        this(type, singleTypeLock, false);
+    }
+
+    /**
+     * Create a memory feature store with a single type.
+     *
+     * @param type : feature type.
+     * @param singleTypeLock : true if you don't want any other types to be create or
+     * this type to be deleted.
+     * @param spatialIndex : true to maintain a spatial index of the default geometry.
+     */
+    public MemoryFeatureStore(final FeatureType type, final boolean singleTypeLock, final boolean spatialIndex){
         super(null);
         this.singleTypeLock = singleTypeLock;
+        this.spatialIndex = spatialIndex;
+        this.capabilities = new DefaultQueryCapabilities(false, false, spatialIndex, null);
         final Name name = type.getName();
-        groups.put(name, new Group(type));
+        groups.put(name, new Group(type, spatialIndex));
     }
 
     /**
@@ -212,7 +340,7 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
             throw new IllegalArgumentException("FeatureType with name : " + featureType.getName() + " already exist.");
         }
 
-        groups.put(name, new Group(featureType));
+        groups.put(name, new Group(featureType, spatialIndex));
 
         //clear name cache
         nameCache = null;
@@ -241,7 +369,7 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
         }
 
         final FeatureType type = grp.getFeatureType();
-        groups.put(typeName, new Group(featureType));
+        groups.put(typeName, new Group(featureType, spatialIndex));
 
         //clear name cache
         nameCache = null;
@@ -322,7 +450,7 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
                 }
             }
             
-            grp.features.put(candidateId, copy);
+            grp.put(candidateId, copy);
             addedIds.add(new DefaultFeatureId(candidateId));
         }
 
@@ -344,10 +472,12 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
 
         final Set<Identifier> ups = new HashSet<Identifier>();
         for(final Identifier itd : toUpdate){
-            final Feature candidate = grp.features.get(itd.getID());
+            final String id = String.valueOf(itd.getID());
+            final Feature candidate = grp.features.get(id);
             if(candidate == null) continue;
 
             ups.add(itd);
+            boolean geometryChanged = false;
             for(Map.Entry<? extends PropertyDescriptor, ? extends Object> entry : values.entrySet()){
                 final PropertyDescriptor desc = entry.getKey();
                 final Property prop = candidate.getProperty(desc.getName());
@@ -357,8 +487,12 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
                         JTS.setCRS((Geometry)value, ((GeometryDescriptor)desc).getCoordinateReferenceSystem() );
                     }                    
                     prop.setValue(value);
+                    geometryChanged |= (desc instanceof GeometryDescriptor);
                 }
             }
+            if(geometryChanged && grp.index != null){
+                grp.reindex(id, candidate);
+            }
         }
 
         //fire update event
@@ -378,7 +512,7 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
 
         final Set<Identifier> rems = new HashSet<Identifier>();
         for(final Identifier itd : toRemove){
-            final Feature candidate = grp.features.remove(String.valueOf(itd.getID()));
+            final Feature candidate = grp.remove(String.valueOf(itd.getID()));
             if(candidate == null) continue;
 
             rems.add(itd);
@@ -419,15 +553,62 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
      */
     @Override
     public FeatureReader getFeatureReader(final Query query) throws DataStoreException {
-        final Group grp = groups.get(query.getTypeName());
+        final Group grp = getGroup(query);
+        final QueryBuilder remaining = new QueryBuilder(query);
+        final Iterator<? extends Feature> ite = createIterator(grp, query, remaining);
+        final FeatureReader reader = GenericWrapFeatureIterator.wrapToReader(ite, grp.getFeatureType());
+
+        //fall back on generic parameter handling.
+        return handleRemaining(reader, remaining.buildQuery());
+    }
+
+    /**
+     * Split the candidate features in chunks.
+     */
+    @Override
+    public List<FeatureReader> getFeatureReaders(final Query query, final int nbPartition) throws DataStoreException {
+        if(nbPartition <= 1 || !QueryUtilities.isSplittable(query)){
+            return super.getFeatureReaders(query, nbPartition);
+        }
+
+        final Group grp = getGroup(query);
+        final QueryBuilder remaining = new QueryBuilder(query);
+        final List<Feature> candidates = new ArrayList<Feature>();
+        final Iterator<? extends Feature> ite = createIterator(grp, query, remaining);
+        while(ite.hasNext()){
+            candidates.add(ite.next());
+        }
+        final Query remainingQuery = remaining.buildQuery();
+
+        final int size = candidates.size();
+        final int nb = Math.max(1, Math.min(nbPartition, size));
+        final List<FeatureReader> readers = new ArrayList<FeatureReader>(nb);
+        for(int i=0;i<nb;i++){
+            final List<Feature> chunk = candidates.subList(
+                    (int)((long)size*i/nb), (int)((long)size*(i+1)/nb));
+            readers.add(handleRemaining(
+                    GenericWrapFeatureIterator.wrapToReader(chunk.iterator(), grp.getFeatureType()), remainingQuery));
+        }
+        return readers;
+    }
 
+    private Group getGroup(final Query query) throws DataStoreException {
+        final Group grp = groups.get(query.getTypeName());
         if(grp == null){
             throw new DataStoreException("No featureType for name : " + query.getTypeName());
         }
+        return grp;
+    }
 
+    /**
+     * Create an iterator on the candidate features of the query.
+     *
+     * @param remaining query parameters which must still be handled, updated
+     *        if the filter is resolved
+     */
+    private Iterator<? extends Feature> createIterator(final Group grp, final Query query, final QueryBuilder remaining){
         //we can handle id filter
         final Filter filter = query.getFilter();
-        final QueryBuilder remaining = new QueryBuilder(query);
 
         final Iterator<? extends Feature> ite;
         if(filter instanceof Id){
@@ -436,16 +617,87 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
                 remaining.setFilter(Filter.INCLUDE);
             }
         }else{
-            ite = grp.createIterator(null);
+            //use the spatial index if possible, the filter is still evaluated
+            //on the candidate features since the index only contains envelopes
+            final Envelope env = (grp.index != null) ? toIndexEnvelope(grp, filter) : null;
+            if(env != null){
+                ite = grp.createIterator(env);
+            }else{
+                ite = grp.createIterator((Id)null);
+            }
+        }
+        return ite;
+    }
+
+    /**
+     * Find the envelope, in the group geometry crs, features must intersect to
+     * match the given filter.
+     *
+     * @return envelope or null if the filter can not be resolved with the spatial index.
+     */
+    private Envelope toIndexEnvelope(final Group grp, final Filter filter){
+        if(filter instanceof And){
+            Envelope result = null;
+            for(Filter f : ((And)filter).getChildren()){
+                final Envelope env = toIndexEnvelope(grp, f);
+                if(env == null) continue;
+                result = (result == null) ? env : result.intersection(env);
+            }
+            return result;
+        }else if(!(filter instanceof BBOX || filter instanceof Intersects
+                || filter instanceof Contains || filter instanceof Within
+                || filter instanceof Overlaps || filter instanceof Crosses
+                || filter instanceof Touches || filter instanceof Equals)){
+            //other operators do not require envelopes to intersect
+            return null;
+        }
+
+        final BinarySpatialOperator op = (BinarySpatialOperator) filter;
+        final Expression exp1 = op.getExpression1();
+        final Expression exp2 = op.getExpression2();
+        final PropertyName property;
+        final Literal literal;
+        if(exp1 instanceof PropertyName && exp2 instanceof Literal){
+            property = (PropertyName) exp1;
+            literal = (Literal) exp2;
+        }else if(exp2 instanceof PropertyName && exp1 instanceof Literal){
+            property = (PropertyName) exp2;
+            literal = (Literal) exp1;
+        }else{
+            return null;
         }
 
-        final FeatureReader reader;
-        
-        reader = GenericWrapFeatureIterator.wrapToReader(ite, grp.getFeatureType()); 
+        //only the default geometry is indexed
+        String propName = property.getPropertyName();
+        propName = propName.substring(propName.lastIndexOf(':')+1);
+        if(!propName.isEmpty() && !propName.equals(grp.geometryName)){
+            return null;
+        }
 
-        //fall back on generic parameter handling.
-        //todo we should handle at least spatial filter here by using a quadtree.
-        return handleRemaining(reader, remaining.buildQuery());
+        final Object value = literal.getValue();
+        org.opengis.geometry.Envelope env;
+        try{
+            if(value instanceof org.opengis.geometry.Envelope){
+                env = (org.opengis.geometry.Envelope) value;
+            }else if(value instanceof Geometry){
+                final Envelope jtsEnv = ((Geometry)value).getEnvelopeInternal();
+                if(jtsEnv.isNull()) return jtsEnv;
+                env = new Envelope2D(JTS.findCoordinateReferenceSystem((Geometry)value),
+                        jtsEnv.getMinX(), jtsEnv.getMinY(), jtsEnv.getWidth(), jtsEnv.getHeight());
+            }else{
+                return null;
+            }
+
+            final CoordinateReferenceSystem crs = grp.geometryCRS;
+            if(crs != null && env.getCoordinateReferenceSystem() != null){
+                env = Envelopes.transform(env, crs);
+            }
+        }catch(FactoryException | TransformException ex){
+            getLogger().log(Level.FINE, "Spatial index not used : {0}", ex.getMessage());
+            return null;
+        }
+
+        return new Envelope(env.getMinimum(0), env.getMaximum(0), env.getMinimum(1), env.getMaximum(1));
     }
 
     /**
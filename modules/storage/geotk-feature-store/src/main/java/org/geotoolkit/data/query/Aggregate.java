@@ -0,0 +1,107 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.data.query;
+
+import static org.apache.sis.util.ArgumentChecks.*;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * Aggregate function of an {@link AggregateQuery}.
+ * Null values are ignored by all functions except COUNT without expression.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class Aggregate {
+
+    public static enum Function{
+        /** Number of features, or of non null values. Result is a Long. */
+        COUNT,
+        /** Sum of the numeric values. Result is a Double. */
+        SUM,
+        /** Minimum value. Result has the type of the values. */
+        MIN,
+        /** Maximum value. Result has the type of the values. */
+        MAX,
+        /** Average of the numeric values. Result is a Double. */
+        AVG
+    }
+
+    private final Function function;
+    private final Expression expression;
+
+    /**
+     * @param function aggregate function
+     * @param expression evaluated expression, can be null only for COUNT
+     */
+    public Aggregate(final Function function, final Expression expression) {
+        ensureNonNull("function", function);
+        if(expression == null && function != Function.COUNT){
+            throw new IllegalArgumentException("Expression can be null only for COUNT function.");
+        }
+        this.function = function;
+        this.expression = expression;
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    /**
+     * @return Expression, null for a COUNT of all features
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Count all features.
+     */
+    public static Aggregate count(){
+        return new Aggregate(Function.COUNT, null);
+    }
+
+    /**
+     * Count the features where the expression is not null.
+     */
+    public static Aggregate count(final Expression exp){
+        return new Aggregate(Function.COUNT, exp);
+    }
+
+    public static Aggregate sum(final Expression exp){
+        return new Aggregate(Function.SUM, exp);
+    }
+
+    public static Aggregate min(final Expression exp){
+        return new Aggregate(Function.MIN, exp);
+    }
+
+    public static Aggregate max(final Expression exp){
+        return new Aggregate(Function.MAX, exp);
+    }
+
+    public static Aggregate avg(final Expression exp){
+        return new Aggregate(Function.AVG, exp);
+    }
+
+    @Override
+    public String toString() {
+        return function + "(" + ((expression == null) ? "*" : expression) + ")";
+    }
+
+}
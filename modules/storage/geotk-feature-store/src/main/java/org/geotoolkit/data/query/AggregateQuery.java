@@ -0,0 +1,103 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2014, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.data.query;
+
+import java.util.Arrays;
+import static org.apache.sis.util.ArgumentChecks.*;
+import org.geotoolkit.feature.type.Name;
+import org.opengis.filter.Filter;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * Aggregation query, the SQL equivalent of :
+ * SELECT groupBy..., aggregates... FROM type WHERE filter GROUP BY groupBy...
+ * <p>
+ * The result is a list of rows, each row contains the group by values
+ * followed by the aggregate values. Without group by expressions there is
+ * exactly one row, even when no feature matches the filter.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module pending
+ */
+public final class AggregateQuery {
+
+    private static final Expression[] NO_GROUP = new Expression[0];
+
+    private final Name typeName;
+    private final Filter filter;
+    private final Expression[] groupBy;
+    private final Aggregate[] aggregates;
+
+    /**
+     * @param typeName aggregated feature type
+     * @param filter feature filter, null for Filter.INCLUDE
+     * @param groupBy group by expressions, can be null
+     * @param aggregates aggregate functions, at least one
+     */
+    public AggregateQuery(final Name typeName, final Filter filter,
+            final Expression[] groupBy, final Aggregate ... aggregates) {
+        ensureNonNull("type name", typeName);
+        ensureNonNull("aggregates", aggregates);
+        if(aggregates.length == 0){
+            throw new IllegalArgumentException("At least one aggregate is required.");
+        }
+        this.typeName = typeName;
+        this.filter = (filter == null) ? Filter.INCLUDE : filter;
+        this.groupBy = (groupBy == null) ? NO_GROUP : groupBy.clone();
+        this.aggregates = aggregates.clone();
+    }
+
+    public Name getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @return Filter, never null
+     */
+    public Filter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @return group by expressions, never null, can be empty
+     */
+    public Expression[] getGroupBy() {
+        return groupBy.clone();
+    }
+
+    /**
+     * @return aggregate functions, never empty
+     */
+    public Aggregate[] getAggregates() {
+        return aggregates.clone();
+    }
+
+    /**
+     * Create a query with the same aggregates on a different type or filter.
+     */
+    public AggregateQuery derivate(final Name typeName, final Filter filter){
+        return new AggregateQuery(typeName, filter, groupBy, aggregates);
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateQuery[" + typeName + ", " + filter + ", groupBy=" + Arrays.toString(groupBy)
+                + ", " + Arrays.toString(aggregates) + "]";
+    }
+
+}
@@ -30,6 +30,7 @@ public class DefaultQueryCapabilities implements QueryCapabilities{
     private final String[] supportedLanguages;
     private final boolean crossQuery;
     private final boolean versioning;
+    private final boolean spatialIndex;
 
     public DefaultQueryCapabilities(final boolean crossQuery) {
         this(crossQuery, new String[]{Query.GEOTK_QOM});
@@ -44,8 +45,14 @@ public class DefaultQueryCapabilities implements QueryCapabilities{
     }
     
     public DefaultQueryCapabilities(final boolean crossQuery, final boolean versioning, final String[] languages) {
+        this(crossQuery,versioning,false,languages);
+    }
+
+    public DefaultQueryCapabilities(final boolean crossQuery, final boolean versioning,
+            final boolean spatialIndex, final String[] languages) {
         this.crossQuery = crossQuery;
         this.versioning = versioning;
+        this.spatialIndex = spatialIndex;
 
         if(languages == null){
             this.supportedLanguages = new String[]{Query.GEOTK_QOM};
@@ -80,6 +87,14 @@ public class DefaultQueryCapabilities implements QueryCapabilities{
     public boolean handleVersioning() {
         return versioning;
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean handleSpatialIndex() {
+        return spatialIndex;
+    }
     
 
 }
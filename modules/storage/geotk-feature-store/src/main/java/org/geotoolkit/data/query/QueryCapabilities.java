@@ -47,5 +47,13 @@ public interface QueryCapabilities {
      * @return true if versioning is supported.
      */
     boolean handleVersioning();
+
+    /**
+     * Check if this feature store use a spatial index to resolve spatial filters.
+     * Queries with bbox or intersection filters are then answered without
+     * reading all features.
+     * @return true if spatial filters are resolved using an index.
+     */
+    boolean handleSpatialIndex();
     
 }
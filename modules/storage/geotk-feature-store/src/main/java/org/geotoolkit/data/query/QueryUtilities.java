@@ -250,6 +250,21 @@ public class QueryUtilities {
                 && query.getStartIndex() == 0;
     }
 
+    /**
+     * A query can be split in several partitions when the returned features
+     * do not depend on the other partitions : no sort order, no start index
+     * and no max features.
+     *
+     * @param query
+     * @return true if the query can be split
+     */
+    public static boolean isSplittable(final Query query){
+        return query.getSource() instanceof Selector
+            && (query.getSortBy() == null || query.getSortBy().length == 0)
+            && query.getStartIndex() == 0
+            && query.getMaxFeatures() == null;
+    }
+
     /**
      * Combine two queries in the way that the resulting query act
      * as if it was a sub query result.
@@ -643,6 +643,53 @@ public class GenericIteratorTest extends TestCase{
         assertTrue(checkIte.isClosed());
     }
 
+    @Test
+    public void testSortByIteratorInFiles(){
+        SortBy[] sorts = new SortBy[]{
+            FF.sort("att_string", SortOrder.ASCENDING)
+        };
+
+        //force one feature per run
+        final Hints hints = new Hints(HintsPending.SORT_MEMORY_FEATURES, 1);
+
+        FeatureIterator ite = GenericSortByFeatureIterator.wrap(collection.iterator(), sorts, hints);
+        assertEquals(3, FeatureStoreUtilities.calculateCount(ite));
+
+        ite = GenericSortByFeatureIterator.wrap(collection.iterator(), sorts, hints);
+        Feature f = ite.next();
+        assertEquals(id3,f.getIdentifier().getID());
+        assertEquals("aaa",f.getProperty("att_string").getValue());
+        assertEquals(2d,f.getProperty("att_double").getValue());
+        assertEquals(GF.createPoint(new Coordinate(2, 0)),f.getProperty("att_geom").getValue());
+        f = ite.next();
+        assertEquals(id1,f.getIdentifier().getID());
+        assertEquals(3d,f.getProperty("att_double").getValue());
+        f = ite.next();
+        assertEquals(id2,f.getIdentifier().getID());
+        assertEquals(1d,f.getProperty("att_double").getValue());
+
+        try{
+            ite.next();
+            fail("Should have raise a no such element exception.");
+        }catch(NoSuchElementException ex){
+            //ok
+        }
+        ite.close();
+
+        //check has next do not iterate
+        ite = GenericSortByFeatureIterator.wrap(collection.iterator(), sorts, hints);
+        testIterationOnNext(ite, 3);
+        ite.close();
+
+        //check sub iterator is properly closed
+        CheckCloseFeatureIterator checkIte = new CheckCloseFeatureIterator(collection.iterator());
+        assertFalse(checkIte.isClosed());
+        ite = GenericSortByFeatureIterator.wrap(checkIte, sorts, hints);
+        while(ite.hasNext()) ite.next();
+        ite.close();
+        assertTrue(checkIte.isClosed());
+    }
+
     @Test
     public void testSortByIteratorOnComplex(){
 
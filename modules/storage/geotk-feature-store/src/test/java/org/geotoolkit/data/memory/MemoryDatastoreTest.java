@@ -26,6 +26,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,7 +35,10 @@ import junit.framework.TestCase;
 
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStoreUtilities;
 import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.data.query.Aggregate;
+import org.geotoolkit.data.query.AggregateQuery;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.session.Session;
@@ -52,11 +57,15 @@ import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.simple.SimpleFeature;
 import org.geotoolkit.feature.simple.SimpleFeatureType;
 import org.geotoolkit.feature.type.Name;
+import org.geotoolkit.feature.type.PropertyDescriptor;
 import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory;
+import org.opengis.filter.expression.Expression;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.sort.SortOrder;
 
+import static org.junit.Assert.assertArrayEquals;
+
 /**
  *
  * @author Johann Sorel (Geomatys)
@@ -815,4 +824,164 @@ public class MemoryDatastoreTest extends TestCase{
 
     }
 
+    @Test
+    public void testSpatialIndex() throws Exception{
+        final FeatureTypeBuilder builder = new FeatureTypeBuilder();
+        final MemoryFeatureStore store = new MemoryFeatureStore(true);
+        final GeometryFactory gf = new GeometryFactory();
+        assertTrue(store.getQueryCapabilities().handleSpatialIndex());
+        assertFalse(new MemoryFeatureStore().getQueryCapabilities().handleSpatialIndex());
+
+        final Name name = new DefaultName("http://test.com", "TestSchema1");
+        builder.reset();
+        builder.setName(name);
+        builder.add("geometry", Point.class, CRS.decode("CRS:84"));
+        builder.add("string", String.class);
+        final SimpleFeatureType type = builder.buildSimpleFeatureType();
+        store.createFeatureType(name,type);
+
+        //create a grid of points
+        final Collection<Feature> features = new ArrayList<Feature>();
+        final SimpleFeatureBuilder sfb = new SimpleFeatureBuilder(type);
+        for(int x=0;x<10;x++){
+            for(int y=0;y<10;y++){
+                sfb.reset();
+                sfb.set("geometry", gf.createPoint(new Coordinate(x, y)));
+                sfb.set("string", x+"/"+y);
+                features.add(sfb.buildFeature(""));
+            }
+        }
+        store.addFeatures(name, features);
+
+        final QueryBuilder qb = new QueryBuilder(name);
+        qb.setFilter(FF.bbox("geometry", 1.5, 1.5, 3.5, 4.5, "CRS:84"));
+        assertEquals(6, store.getCount(qb.buildQuery()));
+
+        qb.setFilter(FF.and(
+                FF.bbox("geometry", 1.5, 1.5, 3.5, 4.5, "CRS:84"),
+                FF.equals(FF.property("string"), FF.literal("2/2"))));
+        assertEquals(1, store.getCount(qb.buildQuery()));
+
+        //move a point inside the bbox
+        final Map<PropertyDescriptor,Object> values = new HashMap<PropertyDescriptor, Object>();
+        values.put(type.getDescriptor("geometry"), gf.createPoint(new Coordinate(3, 3)));
+        store.updateFeatures(name, FF.equals(FF.property("string"), FF.literal("8/8")), values);
+        qb.setFilter(FF.bbox("geometry", 1.5, 1.5, 3.5, 4.5, "CRS:84"));
+        assertEquals(7, store.getCount(qb.buildQuery()));
+
+        //remove points
+        store.removeFeatures(name, FF.equals(FF.property("string"), FF.literal("8/8")));
+        store.removeFeatures(name, FF.equals(FF.property("string"), FF.literal("2/2")));
+        assertEquals(5, store.getCount(qb.buildQuery()));
+        assertEquals(98, store.getCount(QueryBuilder.all(name)));
+    }
+
+    @Test
+    public void testSplitReaders() throws Exception{
+        final FeatureTypeBuilder builder = new FeatureTypeBuilder();
+        final MemoryFeatureStore store = new MemoryFeatureStore();
+
+        final Name name = new DefaultName("http://test.com", "TestSchema1");
+        builder.reset();
+        builder.setName(name);
+        builder.add("integer", Integer.class);
+        final SimpleFeatureType type = builder.buildSimpleFeatureType();
+        store.createFeatureType(name,type);
+
+        final Collection<Feature> features = new ArrayList<Feature>();
+        final SimpleFeatureBuilder sfb = new SimpleFeatureBuilder(type);
+        for(int i=0;i<100;i++){
+            sfb.reset();
+            sfb.set("integer", i);
+            features.add(sfb.buildFeature(""));
+        }
+        store.addFeatures(name, features);
+
+        final QueryBuilder qb = new QueryBuilder(name);
+        qb.setFilter(FF.less(FF.property("integer"), FF.literal(50)));
+        List<FeatureReader> readers = store.getFeatureReaders(qb.buildQuery(), 4);
+        assertEquals(4, readers.size());
+        final Set<Object> ids = new HashSet<Object>();
+        for(FeatureReader reader : readers){
+            try{
+                while(reader.hasNext()){
+                    final Feature f = reader.next();
+                    assertTrue((Integer)f.getProperty("integer").getValue() < 50);
+                    assertTrue(ids.add(f.getIdentifier()));
+                }
+            }finally{
+                reader.close();
+            }
+        }
+        assertEquals(50, ids.size());
+
+        //sorted queries are not split
+        qb.setSortBy(new SortBy[]{new DefaultSortBy(FF.property("integer"), SortOrder.ASCENDING)});
+        readers = store.getFeatureReaders(qb.buildQuery(), 4);
+        assertEquals(1, readers.size());
+        readers.get(0).close();
+    }
+
+    @Test
+    public void testAggregate() throws Exception{
+        final FeatureTypeBuilder builder = new FeatureTypeBuilder();
+        final MemoryFeatureStore store = new MemoryFeatureStore();
+
+        final Name name = new DefaultName("http://test.com", "TestSchema1");
+        builder.reset();
+        builder.setName(name);
+        builder.add("category", String.class);
+        builder.add("value", Double.class);
+        final SimpleFeatureType type = builder.buildSimpleFeatureType();
+        store.createFeatureType(name,type);
+
+        final Collection<Feature> features = new ArrayList<Feature>();
+        final SimpleFeatureBuilder sfb = new SimpleFeatureBuilder(type);
+        for(int i=0;i<10;i++){
+            sfb.reset();
+            sfb.set("category", (i%2==0) ? "even" : "odd");
+            //one null value
+            sfb.set("value", (i==9) ? null : (double)i);
+            features.add(sfb.buildFeature(""));
+        }
+        store.addFeatures(name, features);
+
+        //no group, single row
+        AggregateQuery query = new AggregateQuery(name, FF.less(FF.property("value"), FF.literal(5)), null,
+                Aggregate.count(), Aggregate.sum(FF.property("value")), Aggregate.min(FF.property("value")),
+                Aggregate.max(FF.property("value")), Aggregate.avg(FF.property("value")));
+        List<Object[]> rows = store.aggregate(query);
+        assertEquals(1, rows.size());
+        assertEquals(5l, rows.get(0)[0]);
+        assertEquals(10d, rows.get(0)[1]);
+        assertEquals(0d, rows.get(0)[2]);
+        assertEquals(4d, rows.get(0)[3]);
+        assertEquals(2d, rows.get(0)[4]);
+
+        //grouped, null values are not counted by COUNT(expression)
+        query = new AggregateQuery(name, null, new Expression[]{FF.property("category")},
+                Aggregate.count(), Aggregate.count(FF.property("value")), Aggregate.max(FF.property("value")));
+        rows = store.aggregate(query);
+        assertEquals(2, rows.size());
+        final Map<Object,Object[]> groups = new HashMap<Object, Object[]>();
+        for(Object[] row : rows){
+            groups.put(row[0], row);
+        }
+        assertArrayEquals(new Object[]{"even", 5l, 5l, 8d}, groups.get("even"));
+        assertArrayEquals(new Object[]{"odd", 5l, 4l, 7d}, groups.get("odd"));
+
+        //same result from a collection
+        final Session session = store.createSession(false);
+        final FeatureCollection col = session.getFeatureCollection(QueryBuilder.filtered(name, FF.equals(FF.property("category"), FF.literal("odd"))));
+        rows = FeatureStoreUtilities.aggregate(col, new AggregateQuery(name, null, null, Aggregate.sum(FF.property("value"))));
+        assertEquals(1, rows.size());
+        assertEquals(16d, rows.get(0)[0]);
+
+        //empty result
+        query = new AggregateQuery(name, Filter.EXCLUDE, null, Aggregate.count(), Aggregate.min(FF.property("value")));
+        rows = store.aggregate(query);
+        assertEquals(1, rows.size());
+        assertArrayEquals(new Object[]{0l, null}, rows.get(0));
+    }
+
 }
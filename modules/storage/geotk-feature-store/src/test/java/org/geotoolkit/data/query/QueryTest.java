@@ -18,14 +18,20 @@
 
 package org.geotoolkit.data.query;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import junit.framework.TestCase;
 
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreUtilities;
 import org.geotoolkit.data.FeatureWriter;
 import org.geotoolkit.data.memory.MemoryFeatureStore;
 import org.geotoolkit.data.session.Session;
 import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.factory.Hints;
+import org.geotoolkit.factory.HintsPending;
 import org.geotoolkit.feature.type.DefaultName;
 import org.geotoolkit.feature.FeatureTypeBuilder;
 import org.apache.sis.referencing.CommonCRS;
@@ -420,6 +426,146 @@ public class QueryTest extends TestCase{
         ite.close();
     }
 
+    /**
+     * Test that the nested loop join returns the same features as the hash join,
+     * in the same order for outer joins. Inner joins index the smallest side,
+     * the order may differ.
+     */
+    @Test
+    public void testJoinMemoryLimit() throws Exception{
+        final Session session = store.createSession(false);
+
+        for(JoinType jt : new JoinType[]{JoinType.INNER, JoinType.LEFT_OUTER, JoinType.RIGHT_OUTER}){
+            final Join join = new DefaultJoin(
+                    new DefaultSelector(session, name1, "s1"),
+                    new DefaultSelector(session, name2, "s2"),
+                    jt,
+                    FF.equals(FF.property("att2"), FF.property("att3")));
+            final List<String> hashIds = readJoinIds(session, join);
+            final List<String> loopIds = readJoinIds(session, join, new Hints(HintsPending.JOIN_MEMORY_FEATURES, 1));
+            assertFalse(hashIds.isEmpty());
+            if(jt == JoinType.INNER){
+                Collections.sort(hashIds);
+                Collections.sort(loopIds);
+            }
+            assertEquals(hashIds, loopIds);
+        }
+    }
+
+    /**
+     * Test that the hash join converts values like the equal filter,
+     * a string value must match the same integer value.
+     */
+    @Test
+    public void testJoinConvertedValues() throws Exception{
+        final MemoryFeatureStore store = new MemoryFeatureStore();
+        final FeatureTypeBuilder builder = new FeatureTypeBuilder();
+        final Name name3 = new DefaultName("http://type3.com", "Type3");
+        builder.setName(name3);
+        builder.add(new DefaultName("http://type3.com", "att5"), String.class);
+        store.createFeatureType(name3, builder.buildSimpleFeatureType());
+        final Name name4 = new DefaultName("http://type4.com", "Type4");
+        builder.reset();
+        builder.setName(name4);
+        builder.add(new DefaultName("http://type4.com", "att6"), Integer.class);
+        store.createFeatureType(name4, builder.buildSimpleFeatureType());
+
+        FeatureWriter fw = store.getFeatureWriterAppend(name3);
+        for(String value : new String[]{"1", "2", "abc", "3"}){
+            final SimpleFeature sf = (SimpleFeature) fw.next();
+            sf.setAttribute("att5", value);
+            fw.write();
+        }
+        fw.close();
+        fw = store.getFeatureWriterAppend(name4);
+        for(Integer value : new Integer[]{3, 1, 1, 5}){
+            final SimpleFeature sf = (SimpleFeature) fw.next();
+            sf.setAttribute("att6", value);
+            fw.write();
+        }
+        fw.close();
+
+        final Session session = store.createSession(false);
+        for(JoinType jt : new JoinType[]{JoinType.INNER, JoinType.LEFT_OUTER, JoinType.RIGHT_OUTER}){
+            final Join join = new DefaultJoin(
+                    new DefaultSelector(session, name3, "s3"),
+                    new DefaultSelector(session, name4, "s4"),
+                    jt,
+                    FF.equals(FF.property("att5"), FF.property("att6")));
+            final List<String> hashIds = readJoinIds(session, join);
+            final List<String> loopIds = readJoinIds(session, join, new Hints(HintsPending.JOIN_MEMORY_FEATURES, 1));
+            if(jt == JoinType.INNER){
+                Collections.sort(hashIds);
+                Collections.sort(loopIds);
+            }
+            assertEquals(hashIds, loopIds);
+            if(jt == JoinType.INNER){
+                //"1" matches two features, "3" one
+                assertEquals(3, hashIds.size());
+            }
+        }
+    }
+
+    /**
+     * Test that the hash index kept by the join collection is dropped when
+     * features are added.
+     */
+    @Test
+    public void testJoinIndexUpdate() throws Exception{
+        final MemoryFeatureStore store = new MemoryFeatureStore();
+        final FeatureTypeBuilder builder = new FeatureTypeBuilder();
+        final Name name3 = new DefaultName("http://type3.com", "Type3");
+        builder.setName(name3);
+        builder.add(new DefaultName("http://type3.com", "att5"), Integer.class);
+        store.createFeatureType(name3, builder.buildSimpleFeatureType());
+        final Name name4 = new DefaultName("http://type4.com", "Type4");
+        builder.reset();
+        builder.setName(name4);
+        builder.add(new DefaultName("http://type4.com", "att6"), Integer.class);
+        store.createFeatureType(name4, builder.buildSimpleFeatureType());
+
+        FeatureWriter fw = store.getFeatureWriterAppend(name3);
+        for(Integer value : new Integer[]{1, 2}){
+            final SimpleFeature sf = (SimpleFeature) fw.next();
+            sf.setAttribute("att5", value);
+            fw.write();
+        }
+        fw.close();
+
+        final Session session = store.createSession(false);
+        final QueryBuilder qb = new QueryBuilder();
+        qb.setSource(new DefaultJoin(
+                new DefaultSelector(session, name3, "s3"),
+                new DefaultSelector(session, name4, "s4"),
+                JoinType.INNER,
+                FF.equals(FF.property("att5"), FF.property("att6"))));
+        final FeatureCollection col = session.getFeatureCollection(qb.buildQuery());
+        assertEquals(0l, FeatureStoreUtilities.calculateCount(col.iterator()));
+
+        fw = store.getFeatureWriterAppend(name4);
+        final SimpleFeature sf = (SimpleFeature) fw.next();
+        sf.setAttribute("att6", 2);
+        fw.write();
+        fw.close();
+        assertEquals(1l, FeatureStoreUtilities.calculateCount(col.iterator()));
+    }
+
+    private static List<String> readJoinIds(final Session session, final Join join, final Hints ... hints){
+        final QueryBuilder qb = new QueryBuilder();
+        qb.setSource(join);
+        final FeatureCollection col = session.getFeatureCollection(qb.buildQuery());
+        final List<String> ids = new ArrayList<>();
+        final FeatureIterator ite = (hints.length == 0) ? col.iterator() : col.iterator(hints[0]);
+        try{
+            while(ite.hasNext()){
+                ids.add(ite.next().getIdentifier().getID());
+            }
+        }finally{
+            ite.close();
+        }
+        return ids;
+    }
+
     /**
      * Test that cross featurestore queries works correctly.
      */
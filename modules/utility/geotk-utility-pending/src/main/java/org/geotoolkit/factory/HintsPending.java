@@ -113,6 +113,27 @@ public final class HintsPending extends Hints {
      */
     public static final Key KEY_IGNORE_SMALL_FEATURES = new Key(double[].class);
 
+    /**
+     * Maximum number of features a generic sort iterator may hold in memory.
+     * When more features must be sorted, sorted runs of this size are written
+     * in temporary files and merged while iterating.
+     * Only simple features can be stored in temporary files, other features
+     * are always sorted in memory.
+     *
+     * Default value is 100 000.
+     */
+    public static final Key SORT_MEMORY_FEATURES = new Key(Integer.class);
+
+    /**
+     * Maximum number of features a generic join may hold in memory.
+     * Joins are resolved by indexing one side in memory, when this side
+     * contains more features the join falls back on querying the other
+     * collection for each feature.
+     *
+     * Default value is 1 000 000.
+     */
+    public static final Key JOIN_MEMORY_FEATURES = new Key(Integer.class);
+
     private HintsPending(){}
 
 }